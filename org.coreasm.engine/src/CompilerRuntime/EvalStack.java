@@ -1,26 +1,37 @@
 package CompilerRuntime;
 
-import java.util.Stack;
+import java.util.Arrays;
+import java.util.EmptyStackException;
 
+/**
+ * Stack of intermediate results of a rule evaluation.
+ * <p>
+ * Each rule instance uses its own stack, so it is not synchronized.
+ */
 public class EvalStack {
-	private Stack<Object> stack;
-	
+	private Object[] stack;
+	private int size;
+
 	public EvalStack(){
-		stack = new Stack<Object>();
+		stack = new Object[16];
+		size = 0;
 	}
-	
+
 	public Object pop(){
-		Object o = stack.pop();
-		//System.out.println("popping " + o + " (" + o.getClass().getName() + ")");
+		if(size == 0)
+			throw new EmptyStackException();
+		Object o = stack[--size];
+		stack[size] = null;
 		return o;
 	}
-	
+
 	public void push(Object o){
-		//System.out.println("pushing " + o + " (" + o.getClass().getName() + ")");
-		stack.push(o);
+		if(size == stack.length)
+			stack = Arrays.copyOf(stack, size * 2);
+		stack[size++] = o;
 	}
-	
+
 	public boolean isEmpty(){
-		return this.stack.isEmpty();
+		return size == 0;
 	}
 }
@@ -277,8 +277,7 @@ public class HashStorage implements AbstractStorage {
 
 		tempUpdateSet = performAggregation(updateInsts);
 		
-		runtime.getScheduler().getUpdateSet().clear();
-		runtime.getScheduler().getUpdateSet().addAll(tempUpdateSet);
+		runtime.getScheduler().setUpdateSet(tempUpdateSet, updateInsts);
 		
         runtime.getScheduler().getUpdateInstructions().clear();
 }
@@ -325,6 +324,14 @@ public class HashStorage implements AbstractStorage {
 		UpdateList uSet = updateSet;
 		lastInconsistentUpdates = null;
 		
+		// the scheduler may already have checked the update set while collecting it
+		Scheduler scheduler = runtime.getScheduler();
+		if (updateSet == scheduler.getUpdateSet() && scheduler.isUpdateSetChecked()) {
+			if (scheduler.getConflictingUpdates() != null)
+				lastInconsistentUpdates = new UpdateList(scheduler.getConflictingUpdates());
+			return lastInconsistentUpdates == null;
+		}
+		
 		for (Update u: uSet) 
 			if (!u.action.equals(Update.UPDATE_ACTION))
 				isRegularUpdateSet = false;
@@ -1,15 +1,38 @@
 package CompilerRuntime;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.Arrays;
 
+/**
+ * Stack of the local variables of a rule evaluation.
+ * <p>
+ * Variables are kept in a flat array of slots, layers and frames are
+ * only marked by the index of their first slot, so neither opening a layer
+ * nor reading a variable allocates or hashes.
+ * A frame is opened by each rule body. Variables whose position in the frame
+ * is known at compile time are read via {@link #get(int, String)}, all other
+ * variables are looked up by name.
+ */
 public class LocalStack {	
-	private List<HashMap<String, Object>> variables;
+	private String[] names;
+	private Object[] values;
+	private int size;
+	
+	private int[] layers;
+	private int layerCount;
+	
+	private int frame;
+	private int[] frames;
+	private int frameCount;
 	
 	public LocalStack(){
-		this.variables = new ArrayList<HashMap<String,Object>>();
-		variables.add(new HashMap<String, Object>()); //add a base layer to prevent errors
+		names = new String[8];
+		values = new Object[8];
+		size = 0;
+		layers = new int[8];
+		layerCount = 1; //add a base layer to prevent errors
+		frame = 0;
+		frames = new int[4];
+		frameCount = 0;
 	}
 	
 	/**
@@ -17,7 +40,8 @@ public class LocalStack {
 	 * new variables will be added to this layer
 	 */
 	public void pushLayer(){
-		this.variables.add(new HashMap<String, Object>());
+		if(layerCount == layers.length) layers = Arrays.copyOf(layers, layerCount * 2);
+		layers[layerCount++] = size;
 	}
 	
 	/**
@@ -27,8 +51,20 @@ public class LocalStack {
 	 * @param o The value of the variable
 	 */
 	public void put(String s, Object o){
-		HashMap<String, Object> top = variables.get(variables.size() - 1);
-		top.put(s, o);
+		int start = (layerCount > 0) ? layers[layerCount - 1] : 0;
+		for(int i = size - 1; i >= start; i--){
+			if(s.equals(names[i])){
+				values[i] = o;
+				return;
+			}
+		}
+		if(size == names.length){
+			names = Arrays.copyOf(names, size * 2);
+			values = Arrays.copyOf(values, size * 2);
+		}
+		names[size] = s;
+		values[size] = o;
+		size++;
 	}
 	
 	/**
@@ -37,22 +73,62 @@ public class LocalStack {
 	 * @return null or the value of the variable
 	 */
 	public Object get(String s){
-		for(int i = variables.size() - 1; i >= 0; i--){
-			HashMap<String, Object> current = variables.get(i);
-			Object val = current.get(s);
-			if(val != null) return val;
+		for(int i = size - 1; i >= 0; i--){
+			if(s.equals(names[i])){
+				Object val = values[i];
+				if(val != null) return val;
+			}
 		}
 		return null;
 	}
 	
+	/**
+	 * Querys the stack for a variable with a known slot in the current frame.
+	 * If the slot does not hold the variable, the variable is looked up by name.
+	 * @param slot The slot of the variable, relative to the start of the current frame
+	 * @param s The name of the variable
+	 * @return null or the value of the variable
+	 */
+	public Object get(int slot, String s){
+		int i = frame + slot;
+		if(i < size && s.equals(names[i])){
+			Object val = values[i];
+			if(val != null) return val;
+		}
+		return get(s);
+	}
+	
 	/**
 	 * Pops the current layer with all its variables
 	 * from the stack, effectively removing them from the local
 	 * environment
 	 */
 	public void popLayer(){
-		if(this.variables.size() >= 1){
-			this.variables.remove(this.variables.size() - 1);
+		if(layerCount >= 1){
+			int start = layers[--layerCount];
+			Arrays.fill(values, start, size, null);
+			size = start;
 		}
 	}
+	
+	/**
+	 * Opens a new frame for the body of a rule.
+	 * The frame starts with a new layer and slot numbers passed to
+	 * {@link #get(int, String)} are relative to its start.
+	 */
+	public void pushFrame(){
+		pushLayer();
+		if(frameCount == frames.length) frames = Arrays.copyOf(frames, frameCount * 2);
+		frames[frameCount++] = frame;
+		frame = size;
+	}
+	
+	/**
+	 * Closes the current frame and its layer, restoring the
+	 * frame of the calling rule
+	 */
+	public void popFrame(){
+		if(frameCount >= 1) frame = frames[--frameCount];
+		popLayer();
+	}
 }
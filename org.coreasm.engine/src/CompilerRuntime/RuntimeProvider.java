@@ -2,6 +2,25 @@ package CompilerRuntime;
 
 public class RuntimeProvider {
 	private static Runtime runtime;
+	private static boolean embedded = false;
+	
+	/**
+	 * Thrown by {@link RuntimeProvider#exit(int)} to end a program
+	 * which runs embedded in another application.
+	 */
+	public static class ProgramExit extends Error {
+		private static final long serialVersionUID = 1L;
+		private final int status;
+		
+		public ProgramExit(int status){
+			super("program exited with status " + status);
+			this.status = status;
+		}
+		
+		public int getStatus(){
+			return status;
+		}
+	}
 	
 	public static Runtime getRuntime(){
 		return RuntimeProvider.runtime;
@@ -12,4 +31,33 @@ public class RuntimeProvider {
 		RuntimeProvider.runtime = r;
 		if(RuntimeProvider.runtime == null) System.out.println("r is null 2");
 	}
+	
+	/**
+	 * Marks the program as running embedded in another application.
+	 * An embedded program does not terminate the virtual machine on exit.
+	 * @param e True, if the program is embedded
+	 */
+	public static void setEmbedded(boolean e){
+		RuntimeProvider.embedded = e;
+	}
+	
+	/**
+	 * Ends the program.
+	 * A standalone program terminates the virtual machine, an embedded
+	 * program stops its scheduler and throws a {@link ProgramExit}
+	 * which unwinds the thread running the state machine.
+	 * @param status The exit status
+	 */
+	public static void exit(int status){
+		if(!embedded) System.exit(status);
+		shutdown();
+		throw new ProgramExit(status);
+	}
+	
+	/**
+	 * Releases the threads held by the scheduler of the current runtime
+	 */
+	public static void shutdown(){
+		if(runtime != null && runtime.getScheduler() != null) runtime.getScheduler().shutdown();
+	}
 }
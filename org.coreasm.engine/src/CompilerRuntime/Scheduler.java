@@ -27,7 +27,18 @@ public class Scheduler {
 	private java.util.Set<Element> selectedAgentSet;
 	
 	private java.util.concurrent.ExecutorService threadPool;
+	private int cores;
 	
+	private boolean pipelined;
+	private boolean allAgentsFirst;
+	private java.util.Map<Element, Location> programLocations;
+	private java.util.Map<Location, Update> stepLocations;
+	private boolean updateSetChecked;
+	private CompilerRuntime.UpdateList checkedInstructions;
+	private CompilerRuntime.UpdateList conflictingUpdates;
+	
+	/** number of agent batches submitted per core in pipelined mode */
+	private static final int BATCHES_PER_CORE = 4;
 	
 	public Scheduler(CompilerRuntime.Rule initRule, SchedulingPolicy policy){
 		runtime = CompilerRuntime.RuntimeProvider.getRuntime();
@@ -42,10 +53,67 @@ public class Scheduler {
 		agentSet = new java.util.HashSet<Element>();
 		selectedAgentSet = new java.util.HashSet<Element>();
 		
-		int cores = java.lang.Runtime.getRuntime().availableProcessors();
+		programLocations = new java.util.HashMap<Element, Location>();
+		stepLocations = new java.util.HashMap<Location, Update>();
+		
+		cores = java.lang.Runtime.getRuntime().availableProcessors();
 		threadPool = java.util.concurrent.Executors.newFixedThreadPool(cores);
 	}
 	
+	/**
+	 * Enables or disables the pipelined execution of agent programs.
+	 * In pipelined mode, the agents are run in batches and the updates of
+	 * finished batches are collected and checked for conflicting locations
+	 * while the remaining batches are still running.
+	 * @param pipelined true, if agent programs should be executed pipelined
+	 */
+	public void setPipelined(boolean pipelined){
+		this.pipelined = pipelined;
+	}
+	
+	public boolean isPipelined(){
+		return this.pipelined;
+	}
+	
+	/**
+	 * Enables or disables selecting all agents first.
+	 * If enabled, the first agent set tried in every step consists of all
+	 * agents; the subsets of the scheduling policy are only tried,
+	 * if running all agents leads to inconsistent updates.
+	 * @param allAgentsFirst true, if all agents should be tried first
+	 */
+	public void setAllAgentsFirst(boolean allAgentsFirst){
+		this.allAgentsFirst = allAgentsFirst;
+	}
+	
+	public boolean isAllAgentsFirst(){
+		return this.allAgentsFirst;
+	}
+	
+	/**
+	 * Signals, if the update set has been built from the updates of the last
+	 * execution of agent programs, which have already been checked for consistency
+	 * while they were collected.
+	 * This is the case in pipelined mode, if the agents produced basic updates only.
+	 * @return true, if {@link #getConflictingUpdates()} holds the result of the check
+	 */
+	public boolean isUpdateSetChecked(){
+		return this.updateSetChecked;
+	}
+	
+	/**
+	 * Returns two conflicting updates found while collecting the updates
+	 * of the agents, if the update set has been checked.
+	 * @return Two updates of the same location or null, if the updates are consistent
+	 */
+	public CompilerRuntime.UpdateList getConflictingUpdates(){
+		return this.conflictingUpdates;
+	}
+	
+	public void shutdown(){
+		threadPool.shutdown();
+	}
+	
 	public CompilerRuntime.UpdateList getUpdateSet(){
 		return this.updateSet;
 	}
@@ -54,6 +122,20 @@ public class Scheduler {
 		return this.updateInstructions;
 	}
 	
+	/**
+	 * Replaces the update set by the given updates aggregated from the given
+	 * update instructions. The update set keeps the result of the consistency
+	 * check only, if it is built once from the instructions which have been checked.
+	 * @param updates The aggregated updates
+	 * @param instructions The update instructions the updates have been aggregated from
+	 */
+	public void setUpdateSet(CompilerRuntime.UpdateList updates, CompilerRuntime.UpdateList instructions){
+		updateSet.clear();
+		updateSet.addAll(updates);
+		updateSetChecked = checkedInstructions != null && instructions == checkedInstructions;
+		checkedInstructions = null;
+	}
+	
 	public java.util.Collection<Element> getAgentSet(){
 		return this.agentSet;
 	}
@@ -75,6 +157,8 @@ public class Scheduler {
     	
     	agentSet = null;
     	selectedAgentSet.clear();
+    	updateSetChecked = false;
+    	checkedInstructions = null;
     }
     
     public void retrieveAgents() throws CoreASMCException{
@@ -92,11 +176,14 @@ public class Scheduler {
     		//otherwise retrieve all current agents from the abstract storage
     		agentSet = new java.util.HashSet<Element>();
     		
-    		for(Element agent : ((Enumerable) agentSetFlat).enumerate()){
-    			java.util.ArrayList<Element> tmp = new java.util.ArrayList<Element>();
-    			tmp.add(agent);
-    			
-    			Location loc = new Location(CompilerRuntime.AbstractStorage.PROGRAM_FUNCTION_NAME, tmp);
+    		java.util.Collection<? extends Element> agents = ((Enumerable) agentSetFlat).enumerate();
+    		for(Element agent : agents){
+    			//the program locations of the agents are kept over the steps
+    			Location loc = programLocations.get(agent);
+    			if(loc == null){
+    				loc = new Location(CompilerRuntime.AbstractStorage.PROGRAM_FUNCTION_NAME, java.util.Collections.singletonList(agent));
+    				programLocations.put(agent, loc);
+    			}
     			
 				try {
 	    			Element rule = storage.getValue(loc);
@@ -109,13 +196,20 @@ public class Scheduler {
 					throw new CompilerRuntime.CoreASMCException("invalid agent found");
 				}
     		}
+    		
+    		//forget the locations of agents which have been removed
+    		if(programLocations.size() > 2 * agents.size())
+    			programLocations.keySet().retainAll(new java.util.HashSet<Element>(agents));
     	}
     	
     	schedule = policy.getNewSchedule(policy, agentSet);
-    	
+    	if(allAgentsFirst && !agentSet.isEmpty())
+    		schedule = new AllFirstSchedule(agentSet, schedule);
     }
     
     public boolean selectAgents(){
+    	updateSetChecked = false;
+    	checkedInstructions = null;
     	if(agentsCombinationExists()){
     		selectedAgentSet = schedule.next();
     		lastSelectedAgents = java.util.Collections.unmodifiableSet(selectedAgentSet);
@@ -165,6 +259,11 @@ public class Scheduler {
 			r.initRule(new java.util.ArrayList<CompilerRuntime.RuleParam>(), null);
 		}
 		
+		if(pipelined){
+			executePipelined(agentsList);
+			return;
+		}
+		
 		java.util.List<java.util.concurrent.Future<CompilerRuntime.RuleResult>> tmpUpdateList = null;
 				
 		try {
@@ -189,6 +288,138 @@ public class Scheduler {
 		}
 	}
 	
+	/**
+	 * Runs the given agents in batches and collects the updates of the batches
+	 * in the order in which they finish. The updates are checked for conflicting
+	 * locations while they are collected, so the consistency check of the
+	 * update set can be skipped, if all updates are basic updates.
+	 */
+	private void executePipelined(java.util.List<CompilerRuntime.Rule> agentsList) throws CompilerRuntime.CoreASMCException{
+		java.util.concurrent.CompletionService<CompilerRuntime.RuleResult> completion =
+				new java.util.concurrent.ExecutorCompletionService<CompilerRuntime.RuleResult>(threadPool);
+		
+		int batches = Math.max(1, Math.min(agentsList.size(), cores * BATCHES_PER_CORE));
+		int batchSize = (agentsList.size() + batches - 1) / batches;
+		java.util.List<java.util.concurrent.Future<CompilerRuntime.RuleResult>> submitted =
+				new java.util.ArrayList<java.util.concurrent.Future<CompilerRuntime.RuleResult>>(batches);
+		for(int i = 0; i < agentsList.size(); i += batchSize){
+			submitted.add(completion.submit(new AgentBatch(agentsList.subList(i, Math.min(i + batchSize, agentsList.size())))));
+		}
+		
+		updateInstructions = new CompilerRuntime.UpdateList();
+		stepLocations.clear();
+		conflictingUpdates = null;
+		boolean basicUpdates = true;
+		
+		try {
+			for(int i = 0; i < submitted.size(); i++){
+				CompilerRuntime.UpdateList updates = completion.take().get().updates;
+				updateInstructions.addAll(updates);
+				if(basicUpdates)
+					basicUpdates = checkUpdates(updates);
+			}
+		} catch (InterruptedException e) {
+			cancel(submitted);
+			throw new CompilerRuntime.CoreASMCException("Error: rule execution"
+					+ " was interrupted by " + e.getMessage());
+		} catch(ExecutionException e){
+			//the step fails, so the remaining batches need not finish
+			cancel(submitted);
+			throw new CompilerRuntime.CoreASMCException("Rule execution error: " + e.getMessage());
+		}
+		
+		stepLocations.clear();
+		//the update set is checked once it is built from these instructions
+		updateSetChecked = false;
+		checkedInstructions = basicUpdates ? updateInstructions : null;
+	}
+	
+	/**
+	 * Cancels the given batches; batches which have already finished are not affected.
+	 */
+	private static void cancel(java.util.List<java.util.concurrent.Future<CompilerRuntime.RuleResult>> batches){
+		for(java.util.concurrent.Future<CompilerRuntime.RuleResult> f : batches)
+			f.cancel(true);
+	}
+	
+	/**
+	 * Adds the given updates to the locations updated in this step and
+	 * remembers the first two updates assigning different values to the same location.
+	 * @return false, if one of the updates is not a basic update
+	 */
+	private boolean checkUpdates(CompilerRuntime.UpdateList updates){
+		for(Update u : updates){
+			if(!u.action.equals(Update.UPDATE_ACTION)){
+				conflictingUpdates = null;
+				return false;
+			}
+			if(conflictingUpdates == null){
+				Update previous = stepLocations.put(u.loc, u);
+				if(previous != null && !previous.value.equals(u.value)){
+					conflictingUpdates = new CompilerRuntime.UpdateList();
+					conflictingUpdates.add(u);
+					conflictingUpdates.add(previous);
+				}
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Returns the set of all agents before the agent sets of another schedule.
+	 */
+	private static class AllFirstSchedule implements java.util.Iterator<java.util.Set<Element>> {
+		private final java.util.Set<Element> agents;
+		private final java.util.Iterator<java.util.Set<Element>> schedule;
+		private boolean first = true;
+		
+		public AllFirstSchedule(java.util.Set<Element> agents, java.util.Iterator<java.util.Set<Element>> schedule){
+			this.agents = agents;
+			this.schedule = schedule;
+		}
+		
+		@Override
+		public boolean hasNext(){
+			return first || schedule.hasNext();
+		}
+		
+		@Override
+		public java.util.Set<Element> next(){
+			if(first){
+				first = false;
+				return new java.util.HashSet<Element>(agents);
+			}
+			return schedule.next();
+		}
+		
+		@Override
+		public void remove(){
+			throw new UnsupportedOperationException();
+		}
+	}
+	
+	/**
+	 * Runs a batch of agents in one task and joins their updates.
+	 */
+	private static class AgentBatch implements java.util.concurrent.Callable<CompilerRuntime.RuleResult> {
+		private final java.util.List<CompilerRuntime.Rule> agents;
+		
+		public AgentBatch(java.util.List<CompilerRuntime.Rule> agents){
+			this.agents = agents;
+		}
+		
+		@Override
+		public CompilerRuntime.RuleResult call() throws Exception {
+			if(agents.size() == 1)
+				return agents.get(0).call();
+			CompilerRuntime.UpdateList updates = new CompilerRuntime.UpdateList();
+			for(CompilerRuntime.Rule r : agents){
+				updates.addAll(r.call().updates);
+			}
+			return new CompilerRuntime.RuleResult(updates, null);
+		}
+	}
+	
     public CompilerRuntime.Rule getInitAgent(){
     	return initRule;
     }
@@ -88,6 +88,20 @@ public interface CompilerEngine {
 	 * @throws CompilerException If an error occured while compiling the node
 	 */
 	public CodeFragment compile(ASTNode node, CodeType type) throws CompilerException;
+	/**
+	 * Instructs the compiler engine to generate code evaluating the given node
+	 * into a register, a local variable of the type Element.
+	 * The declaration of the register and the code computing its value are appended
+	 * to the given CodeFragment, so the register can be used by the lines appended
+	 * to the fragment afterwards.
+	 * Nodes which are not handled by a {@link org.coreasm.compiler.interfaces.CompilerValueHandler}
+	 * are compiled as r-code and their value is taken from the stack.
+	 * @param result The CodeFragment receiving the code
+	 * @param node The node to be compiled
+	 * @return The name of the register holding the value of the node
+	 * @throws CompilerException If an error occured while compiling the node
+	 */
+	public String compileValue(CodeFragment result, ASTNode node) throws CompilerException;
 	/**
 	 * Adds an error message to the compiler engine. 
 	 * Calling the method with the same error text will not add
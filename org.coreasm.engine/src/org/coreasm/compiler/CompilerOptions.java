@@ -100,10 +100,28 @@ public class CompilerOptions {
 	 * state transitions
 	 */
 	public boolean logStateTransition = false;		
+	/**
+	 * If set to true, the compiled application will run the agents
+	 * of a step in batches and collect their updates while other
+	 * batches are still running
+	 */
+	public boolean pipelinedScheduling = false;
+	/**
+	 * If set to true, the compiled application will first try to run
+	 * all agents in a step, like the allfirst policy of the
+	 * SchedulingPolicies plugin, before it tries the agent sets of the
+	 * scheduling policy
+	 */
+	public boolean allAgentsFirst = false;
 	/**
 	 * If set to true, the compiler will not run the java compiler
 	 */
 	public boolean noCompile = false;
+	/**
+	 * If set to true, the specification is compiled in memory and run
+	 * in the compiler's process instead of being packed into a jar archive
+	 */
+	public boolean runInMemory = false;
 	/**
 	 * If set to true, the compiler will print the amount of time
 	 * spend in different compilation stages
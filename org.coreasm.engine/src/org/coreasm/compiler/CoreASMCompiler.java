@@ -2,6 +2,7 @@ package org.coreasm.compiler;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -13,6 +14,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import org.coreasm.compiler.codefragment.CodeFragment;
+import org.coreasm.compiler.components.backend.CompilationCache;
+import org.coreasm.compiler.components.backend.CompiledSpecification;
 import org.coreasm.compiler.components.backend.CompilerFileWriter;
 import org.coreasm.compiler.components.backend.CompilerPacker;
 import org.coreasm.compiler.components.backend.JavaCompilerWrapper;
@@ -20,6 +23,7 @@ import org.coreasm.compiler.components.backend.KernelBackend;
 import org.coreasm.compiler.components.classlibrary.ClassLibrary;
 import org.coreasm.compiler.components.classlibrary.CodeWrapperEntry;
 import org.coreasm.compiler.components.classlibrary.LibraryEntry;
+import org.coreasm.compiler.components.classlibrary.LibraryEntryType;
 import org.coreasm.compiler.components.logging.CompilationErrorHelper;
 import org.coreasm.compiler.components.logging.LoggingHelper;
 import org.coreasm.compiler.components.mainprogram.MainClass;
@@ -86,6 +90,9 @@ public class CoreASMCompiler implements CompilerEngine {
 	
 	private boolean tryCompiling = false;
 	
+	private boolean inMemory = false;
+	private CompiledSpecification compiled;
+	
 	private Map<String, String> globalMakros;
 	
 	/**
@@ -199,7 +206,7 @@ public class CoreASMCompiler implements CompilerEngine {
 		}
 		finally{
 			lastTime = System.nanoTime();
-			if(!options.keepTempFiles){
+			if(!options.keepTempFiles && !inMemory){
 				purgeTempDir();
 			}
 			System.out.println("end of compiler run.");
@@ -223,6 +230,40 @@ public class CoreASMCompiler implements CompilerEngine {
 		}
 	}
 	
+	/**
+	 * Compiles the CoreASM specification provided by the options Object in memory.
+	 * Instead of dumping the generated sources to the temporary directory and
+	 * packing the compiled classes into a jar archive, the sources are compiled
+	 * directly into memory and the result can be run in the current process.
+	 * A specification which has already been compiled with the same options
+	 * is taken from the {@link CompilationCache} without running the compiler.
+	 * @return The compiled specification
+	 * @throws CompilerException If an error occured during the compilation process
+	 */
+	public CompiledSpecification compileInMemory() throws CompilerException{
+		String key = null;
+		try{
+			key = CompilationCache.computeKey(options);
+		}
+		catch(IOException e){
+			addError("could not read specification: " + e.getMessage());
+			throw new CompilerException(e);
+		}
+		
+		CompiledSpecification cached = CompilationCache.get(key);
+		if(cached != null){
+			getLogger().debug(CoreASMCompiler.class, "specification is unchanged, using cached classes");
+			return cached;
+		}
+		
+		inMemory = true;
+		compile();
+		if(compiled == null) throw new CompilerException("compilation failed");
+		
+		CompilationCache.put(key, compiled);
+		return compiled;
+	}
+	
 	@Override
 	public Preprocessor getPreprocessor(){
 		return this.preprocessor;
@@ -295,7 +336,7 @@ public class CoreASMCompiler implements CompilerEngine {
 			getLogger().debug(CoreASMCompiler.class, "Function call detected - checking for Function Plugin");
 			//get the function name
 			String functionname = node.getAbstractChildNodes().get(0).getToken();
-			CompilerFunctionPlugin cfp = functionMapping.get(functionname);
+			CompilerFunctionPlugin cfp = getFunctionPlugin(node);
 			//if a function is registered for this identifier, compile it; otherwise use the generic code
 			if(cfp != null){
 				getLogger().debug(CoreASMCompiler.class, "Function Plugin found");
@@ -355,7 +396,82 @@ public class CoreASMCompiler implements CompilerEngine {
 		}
 	}
 	
+	@Override
+	public String compileValue(CodeFragment result, ASTNode node) throws CompilerException{
+		getLogger().debug(CoreASMCompiler.class, "value requested for node(" + node.getGrammarRule() + ", " + node.getPluginName() + ")");
+		String target = varManager.createRegister();
+		CodeFragment code = null;
+		
+		if(isOperatorCall(node)){
+			code = compileOperatorValue(node, target);
+		}
+		else if(getFunctionPlugin(node) == null){
+			CompilerPlugin cp = pluginLoader.getPlugin(node.getPluginName());
+			if(cp instanceof CompilerCodePlugin){
+				try{
+					code = ((CompilerCodePlugin) cp).compileValue(node, target);
+				}
+				catch(CompilerException e){
+					if(!e.isEvaluated()){
+						this.addError(CompilationErrorHelper.makeErrorMessage(node, (ControlAPI) coreasm, e.getMessage(), cp.getClass().getName()));
+						throw new CompilerException(e, true);
+					}
+					throw e;
+				}
+				catch(Exception e){
+					this.addError(CompilationErrorHelper.makeErrorMessage(node, (ControlAPI) coreasm, e.getMessage(), cp.getClass().getName()));
+					throw new CompilerException(e, true);
+				}
+			}
+		}
+		
+		result.appendLine("@RuntimePkg@.Element " + target + ";\n");
+		if(code == null){
+			//no value handler for the node, take its value from the stack
+			result.appendFragment(compile(node, CodeType.R));
+			result.appendLine(target + " = (@RuntimePkg@.Element)evalStack.pop();\n");
+		}
+		else if(code.getByteCount() > 40000){
+			//see compile: the code has to be moved to a separate class
+			this.addWarning("warning: compiled code turned to large, splitting it up");
+			
+			result.appendFragment(CodeWrapperEntry.buildWrapper(pushValue(code, target), "coreasmcompiler " + node.getPluginName(), this));
+			result.appendLine(target + " = (@RuntimePkg@.Element)evalStack.pop();\n");
+		}
+		else{
+			result.appendFragment(code);
+		}
+		
+		return target;
+	}
+	
+	//wraps code computing a register into code pushing the value of the register
+	private CodeFragment pushValue(CodeFragment code, String target){
+		CodeFragment result = new CodeFragment("{\n@RuntimePkg@.Element " + target + ";\n");
+		result.appendFragment(code);
+		result.appendLine("evalStack.push(" + target + ");\n}\n");
+		return result;
+	}
+	
+	private boolean isOperatorCall(ASTNode node){
+		return node.getGrammarClass().equals("BinaryOperator") || node.getGrammarClass().equals("UnaryOperator");
+	}
+	
+	private CompilerFunctionPlugin getFunctionPlugin(ASTNode node){
+		if(node.getGrammarClass().equals("FunctionRule") && node.getGrammarRule().equals("FunctionRuleTerm") && node.getPluginName().equals("Kernel")){
+			return functionMapping.get(node.getAbstractChildNodes().get(0).getToken());
+		}
+		return null;
+	}
+	
 	private CodeFragment handleOperatorCall(ASTNode node) throws CompilerException{
+		if(!isOperatorCall(node)) return null;
+		
+		String target = varManager.createRegister();
+		return pushValue(compileOperatorValue(node, target), target);
+	}
+	
+	private CodeFragment compileOperatorValue(ASTNode node, String target) throws CompilerException{
 		if(node.getGrammarClass().equals("BinaryOperator")){
 			//first, check if the optimization for values has a result for us
 			Information inf = preprocessor.getNodeInformation(node).get("value");
@@ -363,46 +479,40 @@ public class CoreASMCompiler implements CompilerEngine {
 				String val = (String) inf.getInformation("code").getValue();
 				getLogger().debug(CoreASMCompiler.class, "optimization point found");
 				getLogger().debug(CoreASMCompiler.class, "replacing operator node with '" + val + "'");
-				return new CodeFragment("evalStack.push(" + val + ");\n");
+				return new CodeFragment(target + " = " + val + ";\n");
 			}
 			catch(NullPointerException e){
 				//do nothing, unfortunately we have no value stored at the node
 			}
 			
 			CodeFragment result = new CodeFragment("");
-			result.appendFragment(compile(node.getAbstractChildNodes().get(0), CodeType.R));
-			result.appendFragment(compile(node.getAbstractChildNodes().get(1), CodeType.R));
-			
-			result.appendLine("@decl(CompilerRuntime.Element, rhs)=(CompilerRuntime.Element)evalStack.pop();\n");
-			result.appendLine("@decl(CompilerRuntime.Element, lhs)=(CompilerRuntime.Element)evalStack.pop();\n");
+			String lhs = compileValue(result, node.getAbstractChildNodes().get(0));
+			String rhs = compileValue(result, node.getAbstractChildNodes().get(1));
 			
 			List<CompilerPlugin> tmp = binaryOperators.get(node.getToken());
 			for(int i = 0; i < tmp.size(); i++){
 				String s = ((CompilerOperatorPlugin)tmp.get(i)).compileBinaryOperator(node.getToken());
-				result.appendLine(s);
+				result.appendLine(s.replace("@lhs@", lhs).replace("@rhs@", rhs).replace("@result@", target));
 			}
 			
-			result.appendLine("\nevalStack.push(CompilerRuntime.Element.UNDEF);\n");
+			result.appendLine("\n" + target + " = @RuntimePkg@.Element.UNDEF;\n");
 			
 			return result;
 		}	
-		else if(node.getGrammarClass().equals("UnaryOperator")){
+		else{
 			CodeFragment result = new CodeFragment("");
-			result.appendFragment(compile(node.getAbstractChildNodes().get(0), CodeType.R));
-			
-			result.appendLine("@decl(CompilerRuntime.Element, lhs)=(CompilerRuntime.Element)evalStack.pop();\n");
+			String lhs = compileValue(result, node.getAbstractChildNodes().get(0));
 			
 			List<CompilerPlugin> tmp = unaryOperators.get(node.getToken());
 			for(int i = 0; i < tmp.size(); i++){
 				String s = ((CompilerOperatorPlugin)tmp.get(i)).compileUnaryOperator(node.getToken());
-				result.appendLine(s);
+				result.appendLine(s.replace("@lhs@", lhs).replace("@result@", target));
 			}
 			
-			result.appendLine("\nevalStack.push(CompilerRuntime.Element.UNDEF);\n");
+			result.appendLine("\n" + target + " = @RuntimePkg@.Element.UNDEF;\n");
 			
 			return result;
 		}
-		return null;
 	}
 
 	@Override
@@ -609,7 +719,10 @@ public class CoreASMCompiler implements CompilerEngine {
 		lastTime = System.nanoTime();
 		getLogger().debug(CoreASMCompiler.class, "creating temporary directory");
 		File tempDir = options.tempDirectory;
-		if(tempDir.exists()){
+		if(inMemory){
+			getLogger().debug(CoreASMCompiler.class, "compiling in memory, no temporary directory needed");
+		}
+		else if(tempDir.exists()){
 			if(tempDir.list() == null) System.out.println("this shouldn't happen");
 			getLogger().warn(CoreASMCompiler.class, "temp directory already exists");
 			if(tempDir.list().length > 0 && !options.removeExistingFiles){
@@ -646,6 +759,10 @@ public class CoreASMCompiler implements CompilerEngine {
 	}
 	
 	private void compileSources() throws CompilerException{
+		if(inMemory){
+			compileSourcesInMemory();
+			return;
+		}
 		getLogger().debug(CoreASMCompiler.class, "code generation complete, dumping source files to " + options.tempDirectory);
 		
 		lastTime = System.nanoTime();
@@ -713,6 +830,26 @@ public class CoreASMCompiler implements CompilerEngine {
 		}
 	}
 	
+	private void compileSourcesInMemory() throws CompilerException{
+		if(options.noCompile){
+			getLogger().debug(CoreASMCompiler.class, "Compilation is disabled - stopping compiler");
+			return;
+		}
+		getLogger().debug(CoreASMCompiler.class, "code generation complete, starting java compiler in memory");
+		
+		List<LibraryEntry> entries = classLibrary.buildLibrary();
+		
+		lastTime = System.nanoTime();
+		Map<String, byte[]> classes = JavaCompilerWrapper.compileInMemory(options, entries, this);
+		cTime = System.nanoTime();
+		addTiming("Javac");
+		
+		compiled = new CompiledSpecification(classes, 
+				paths.getEntryName(LibraryEntryType.DYNAMIC, "StateMachine", "Kernel"), paths.runtimePkg());
+		
+		getLogger().debug(CoreASMCompiler.class, "compilation operation successfull");
+	}
+	
 	private void buildMain() throws CompilerException{
 		try {
 			classLibrary.addEntry(mainFile);
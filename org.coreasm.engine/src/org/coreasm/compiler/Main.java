@@ -31,7 +31,14 @@ public class Main {
 		CoreASMCompiler compiler = new CoreASMCompiler(co);
 
 		try{
-			compiler.compile();
+			if(co.runInMemory){
+				//compile without writing a jar archive and run the result in this process
+				int status = compiler.compileInMemory().run();
+				System.exit(status);
+			}
+			else{
+				compiler.compile();
+			}
 		}
 		catch(CompilerException ce){
 			System.out.println("Build has failed");
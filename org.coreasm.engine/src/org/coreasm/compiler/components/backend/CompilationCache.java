@@ -0,0 +1,145 @@
+package org.coreasm.compiler.components.backend;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.coreasm.compiler.CompilerOptions;
+
+/**
+ * Cache for specifications compiled in memory.
+ * Compiled specifications are stored under a hash of the specification
+ * and of all options influencing the generated code, so an unchanged
+ * specification does not need to be compiled again.
+ * The cache lives as long as the virtual machine and keeps the most
+ * recently used specifications.
+ * <p>
+ * Files included by the specification are part of the hash, so changing
+ * an included file invalidates the cached specification.
+ */
+public class CompilationCache {
+	private static final int CAPACITY = 64;
+	
+	//same pattern the modularity plugin uses to find include directives
+	private static final Pattern INCLUDE = Pattern.compile("^[\\s]*include[\\s]+");
+	
+	private static final Map<String, CompiledSpecification> cache = new LinkedHashMap<String, CompiledSpecification>(16, 0.75f, true){
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CompiledSpecification> eldest){
+			return size() > CAPACITY;
+		}
+	};
+	
+	/**
+	 * Looks up a compiled specification
+	 * @param key The key of the specification, see {@link #computeKey(CompilerOptions)}
+	 * @return The compiled specification or null, if the specification is not in the cache
+	 */
+	public static synchronized CompiledSpecification get(String key){
+		return cache.get(key);
+	}
+	
+	/**
+	 * Stores a compiled specification
+	 * @param key The key of the specification, see {@link #computeKey(CompilerOptions)}
+	 * @param spec The compiled specification
+	 */
+	public static synchronized void put(String key, CompiledSpecification spec){
+		cache.put(key, spec);
+	}
+	
+	/**
+	 * Removes all compiled specifications from the cache
+	 */
+	public static synchronized void clear(){
+		cache.clear();
+	}
+	
+	/**
+	 * Computes the key of the specification described by the given options.
+	 * The key is a hash of the specification, the files it includes, the engine jar
+	 * providing the runtime and the options which are part of the generated code.
+	 * @param options The compiler options
+	 * @return The key of the specification
+	 * @throws IOException If the specification could not be read
+	 */
+	public static String computeKey(CompilerOptions options) throws IOException{
+		MessageDigest digest = null;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		
+		hashFile(digest, options.SpecificationName.getCanonicalFile(), new HashSet<File>());
+		
+		StringBuilder opt = new StringBuilder();
+		if(options.enginePath != null){
+			File engine = options.enginePath.getAbsoluteFile();
+			opt.append(engine).append(';').append(engine.lastModified()).append(';').append(engine.length()).append(';');
+		}
+		opt.append(options.terminateOnError).append(';');
+		opt.append(options.terminateOnFailedUpdate).append(';');
+		opt.append(options.terminateOnEmptyUpdate).append(';');
+		opt.append(options.terminateOnSameUpdate).append(';');
+		opt.append(options.terminateOnUndefAgent).append(';');
+		opt.append(options.terminateOnStepCount).append(';');
+		opt.append(options.logUpdatesAfterStep).append(';');
+		opt.append(options.logStateAfterStep).append(';');
+		opt.append(options.logEndOfStep).append(';');
+		opt.append(options.logAgentSetAfterStep).append(';');
+		opt.append(options.logStateTransition).append(';');
+		opt.append(options.pipelinedScheduling).append(';');
+		opt.append(options.allAgentsFirst).append(';');
+		opt.append(options.preprocessorRuns).append(';');
+		opt.append(new TreeMap<String, String>(options.properties));
+		digest.update(opt.toString().getBytes(Charset.forName("UTF-8")));
+		
+		StringBuilder key = new StringBuilder();
+		for(byte b : digest.digest()){
+			key.append(String.format("%02x", b));
+		}
+		return key.toString();
+	}
+	
+	/**
+	 * Adds the given file and, recursively, all files it includes to the hash.
+	 * Included files are resolved relative to the including file, like the
+	 * modularity plugin does.
+	 * @param digest The hash to update
+	 * @param file The canonical file to add
+	 * @param visited The files which are already part of the hash
+	 * @throws IOException If an existing file could not be read
+	 */
+	private static void hashFile(MessageDigest digest, File file, Set<File> visited) throws IOException{
+		if(!visited.add(file)) return;
+		
+		digest.update(file.getPath().getBytes(Charset.forName("UTF-8")));
+		//a missing include is reported by the compiler, not by the cache
+		if(!file.isFile() && visited.size() > 1) return;
+		byte[] content = Files.readAllBytes(file.toPath());
+		digest.update(content);
+		
+		for(String line : new String(content).split("\r?\n")){
+			Matcher m = INCLUDE.matcher(line);
+			if(!m.find()) continue;
+			
+			String fileName = m.replaceFirst("").trim();
+			while(fileName.length() > 1 && fileName.startsWith("\"") && fileName.endsWith("\""))
+				fileName = fileName.substring(1, fileName.length() - 1);
+			hashFile(digest, new File(file.getParentFile(), fileName).getCanonicalFile(), visited);
+		}
+	}
+}
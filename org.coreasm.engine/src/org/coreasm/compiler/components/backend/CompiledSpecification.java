@@ -0,0 +1,99 @@
+package org.coreasm.compiler.components.backend;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+
+import org.coreasm.compiler.exception.CompilerException;
+
+/**
+ * A specification compiled in memory.
+ * Holds the class files of the compilation unit and runs the specification
+ * in the current process instead of launching a separate jar archive.
+ * Every run defines the classes in a fresh {@link MemoryClassLoader}, so
+ * the static state of the runtime is not shared between runs.
+ */
+public class CompiledSpecification {
+	private Map<String, byte[]> classes;
+	private String stateMachine;
+	private String runtimePkg;
+
+	/**
+	 * Creates a new compiled specification
+	 * @param classes A mapping from binary class names to class files
+	 * @param stateMachine The fully specified name of the state machine class
+	 * @param runtimePkg The package of the compiler runtime
+	 */
+	public CompiledSpecification(Map<String, byte[]> classes, String stateMachine, String runtimePkg){
+		this.classes = Collections.unmodifiableMap(classes);
+		this.stateMachine = stateMachine;
+		this.runtimePkg = runtimePkg;
+	}
+
+	/**
+	 * Provides read only access to the compiled classes
+	 * @return A mapping from binary class names to class files
+	 */
+	public Map<String, byte[]> getClasses(){
+		return classes;
+	}
+
+	/**
+	 * Creates a class loader defining the classes of this specification
+	 * @return A new class loader
+	 */
+	public ClassLoader createClassLoader(){
+		return new MemoryClassLoader(classes, CompiledSpecification.class.getClassLoader());
+	}
+
+	/**
+	 * Runs the specification in the current thread until it terminates.
+	 * The termination conditions are the ones the specification was compiled with.
+	 * @return The exit status of the program
+	 * @throws CompilerException If the program could not be started or failed with an exception
+	 */
+	public int run() throws CompilerException{
+		ClassLoader loader = createClassLoader();
+		Class<?> programExit = null;
+		Method getStatus = null;
+		Method shutdown = null;
+		try{
+			Class<?> provider = loader.loadClass(runtimePkg + ".RuntimeProvider");
+			programExit = loader.loadClass(runtimePkg + ".RuntimeProvider$ProgramExit");
+			getStatus = programExit.getMethod("getStatus");
+			shutdown = provider.getMethod("shutdown");
+			provider.getMethod("setEmbedded", boolean.class).invoke(null, true);
+		}
+		catch(Exception e){
+			throw new CompilerException(e);
+		}
+
+		Thread current = Thread.currentThread();
+		ClassLoader origLoader = current.getContextClassLoader();
+		current.setContextClassLoader(loader);
+		try{
+			Runnable machine = (Runnable) loader.loadClass(stateMachine).newInstance();
+			machine.run();
+			return 0;
+		}
+		catch(Throwable t){
+			if(programExit.isInstance(t)) return invoke(getStatus, t);
+			if(t instanceof Error) throw (Error) t;
+			throw new CompilerException((Exception) t);
+		}
+		finally{
+			current.setContextClassLoader(origLoader);
+			invoke(shutdown, null);
+		}
+	}
+
+	private static int invoke(Method m, Object target) throws CompilerException{
+		try{
+			Object result = m.invoke(target);
+			return (result instanceof Integer) ? (Integer) result : 0;
+		}
+		catch(Exception e){
+			throw new CompilerException(e);
+		}
+	}
+}
@@ -68,7 +68,7 @@ public class JarPacker {
 		BufferedInputStream in = null;
 		try{
 			if (source.isDirectory()){
-				String name = source.getPath().replace(options.tempDirectory + "\\", "").replace("\\", "/");
+				String name = source.getPath().replace(options.tempDirectory + File.separator, "").replace(File.separatorChar, '/');
 		    	if (!name.isEmpty()){
 		    		if (!name.endsWith("/")) name += "/";
 	    			JarEntry entry = new JarEntry(name);
@@ -82,7 +82,7 @@ public class JarPacker {
 	    		}
 		    }
 			else if(!source.getName().endsWith(".java")){
-			    JarEntry entry = new JarEntry(source.getPath().replace(options.tempDirectory + "\\", "").replace("\\", "/"));
+			    JarEntry entry = new JarEntry(source.getPath().replace(options.tempDirectory + File.separator, "").replace(File.separatorChar, '/'));
 			    entry.setTime(source.lastModified());
 			    target.putNextEntry(entry);
 			    in = new BufferedInputStream(new FileInputStream(source));
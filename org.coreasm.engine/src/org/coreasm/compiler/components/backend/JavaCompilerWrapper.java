@@ -4,10 +4,12 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import javax.tools.Diagnostic;
 import javax.tools.DiagnosticCollector;
 import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
 import javax.tools.ToolProvider;
@@ -15,6 +17,7 @@ import javax.tools.JavaCompiler.CompilationTask;
 
 import org.coreasm.compiler.CompilerEngine;
 import org.coreasm.compiler.CompilerOptions;
+import org.coreasm.compiler.components.classlibrary.LibraryEntry;
 import org.coreasm.compiler.exception.CompilerException;
 
 /**
@@ -35,6 +38,57 @@ public class JavaCompilerWrapper {
 	 * @throws CompilerException If an error occured during the compilation process
 	 */
 	public static void compile(CompilerOptions options, List<File> files, CompilerEngine engine) throws CompilerException{
+		JavaCompiler jc = getCompiler(engine);
+		//set up a file manager to provide java sources
+		StandardJavaFileManager fileManager = jc.getStandardFileManager(null, null, null);
+		Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(files);
+		
+		runCompiler(jc, fileManager, units, engine);
+	}
+	
+	/**
+	 * Compiles the given library entries in memory using the system java compiler.
+	 * The sources are read directly from the entries and the resulting classes are
+	 * returned instead of being written to disk.
+	 * 
+	 * @param options Options to be used for the compilation process. Currently unused
+	 * @param entries The library entries which need to be compiled
+	 * @param engine The compiler engine supervising the compilation process
+	 * @return A mapping from binary class names to the compiled class files
+	 * @throws CompilerException If an error occured during the compilation process
+	 */
+	public static Map<String, byte[]> compileInMemory(CompilerOptions options, List<LibraryEntry> entries, CompilerEngine engine) throws CompilerException{
+		JavaCompiler jc = getCompiler(engine);
+		MemoryFileManager fileManager = new MemoryFileManager(jc.getStandardFileManager(null, null, null));
+		
+		List<JavaFileObject> units = new ArrayList<JavaFileObject>();
+		//opening an entry can add further entries to the library
+		for(int i = 0; i < entries.size(); i++){
+			LibraryEntry entry = entries.get(i);
+			String entryName = engine.getPath().getEntryName(entry);
+			try{
+				StringBuilder content = new StringBuilder();
+				entry.open(entryName);
+				String s = "";
+				while((s = entry.readLine()) != null){
+					content.append(s).append("\n");
+				}
+				entry.close();
+				units.add(MemoryFileManager.createSource(entryName, content.toString()));
+			}
+			catch(Exception e){
+				String msg = "error reading entry '" + entryName + "': '" + e.getMessage() + "'";
+				engine.addError(msg);
+				throw new CompilerException(msg);
+			}
+		}
+		
+		runCompiler(jc, fileManager, units, engine);
+		
+		return fileManager.getClasses();
+	}
+	
+	private static JavaCompiler getCompiler(CompilerEngine engine) throws CompilerException{
 		JavaCompiler jc = ToolProvider.getSystemJavaCompiler();
 		if(jc == null){
 			engine.addError("java compiler not found");
@@ -42,11 +96,12 @@ public class JavaCompilerWrapper {
 			engine.getLogger().error(JavaCompilerWrapper.class, "javac.exe not found");
 			throw new CompilerException("java compiler not found - is there a jdk installed?");
 		}
+		return jc;
+	}
+	
+	private static void runCompiler(JavaCompiler jc, JavaFileManager fileManager, Iterable<? extends JavaFileObject> units, CompilerEngine engine) throws CompilerException{
 		//create a diagnostics object to collect errors
 		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
-		//set up a file manager to provide java sources
-		StandardJavaFileManager fileManager = jc.getStandardFileManager(null, null, null);
-		Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(files);
 		//set compiler options
 		ArrayList<String> copt = new ArrayList<String>();
 		
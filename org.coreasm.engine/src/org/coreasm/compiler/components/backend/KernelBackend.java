@@ -46,7 +46,7 @@ public class KernelBackend implements CompilerFileWriter, CompilerPacker {
 			try{
 				current = entries.get(i);
 				String entryName = path.getEntryName(current);		
-				f = new File(engine.getOptions().tempDirectory.getAbsolutePath() + "\\" + path.getEntryPath(current));
+				f = new File(engine.getOptions().tempDirectory.getAbsoluteFile(), path.getEntryPath(current));
 				//make parent directory
 				f.getParentFile().mkdirs();
 				BufferedWriter bw = new BufferedWriter(new FileWriter(f));
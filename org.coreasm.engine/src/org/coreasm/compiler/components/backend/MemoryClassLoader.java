@@ -0,0 +1,38 @@
+package org.coreasm.compiler.components.backend;
+
+import java.util.Map;
+
+/**
+ * Class loader for classes compiled by the {@link MemoryFileManager}.
+ * Classes of the compilation unit are defined by this loader, even if
+ * the parent loader knows a class with the same name. This is necessary,
+ * as the runtime classes are part of the compilation unit and of the
+ * engine at the same time.
+ * All other classes are loaded by the parent.
+ */
+public class MemoryClassLoader extends ClassLoader {
+	private Map<String, byte[]> classes;
+
+	/**
+	 * Creates a new class loader for the given classes
+	 * @param classes A mapping from binary class names to class files
+	 * @param parent The parent class loader
+	 */
+	public MemoryClassLoader(Map<String, byte[]> classes, ClassLoader parent){
+		super(parent);
+		this.classes = classes;
+	}
+
+	@Override
+	protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+		byte[] data = classes.get(name);
+		if(data == null) return super.loadClass(name, resolve);
+
+		synchronized(getClassLoadingLock(name)){
+			Class<?> c = findLoadedClass(name);
+			if(c == null) c = defineClass(name, data, 0, data.length);
+			if(resolve) resolveClass(c);
+			return c;
+		}
+	}
+}
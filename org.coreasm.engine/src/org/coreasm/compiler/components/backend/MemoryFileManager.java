@@ -0,0 +1,82 @@
+package org.coreasm.compiler.components.backend;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+
+/**
+ * File manager keeping a compilation unit in memory.
+ * Sources are handed to the java compiler as strings and the class files
+ * produced by the compiler are collected as byte arrays instead of
+ * being written to disk.
+ * All other requests are forwarded to the standard file manager, so
+ * classes of the classpath are still found as usual.
+ */
+public class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+	private Map<String, ByteArrayOutputStream> classes;
+
+	/**
+	 * Creates a new file manager on top of the given standard file manager
+	 * @param fileManager The file manager used for all files not produced by the compiler
+	 */
+	public MemoryFileManager(StandardJavaFileManager fileManager){
+		super(fileManager);
+		classes = new HashMap<String, ByteArrayOutputStream>();
+	}
+
+	/**
+	 * Creates a source file object holding the given content
+	 * @param className The fully specified name of the class
+	 * @param content The source code of the class
+	 * @return A file object which can be passed to the java compiler
+	 */
+	public static JavaFileObject createSource(String className, final String content){
+		return new SimpleJavaFileObject(createUri(className, Kind.SOURCE), Kind.SOURCE){
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors){
+				return content;
+			}
+		};
+	}
+
+	@Override
+	public JavaFileObject getJavaFileForOutput(Location location, final String className, Kind kind, FileObject sibling) throws IOException {
+		if(kind != Kind.CLASS) return super.getJavaFileForOutput(location, className, kind, sibling);
+
+		return new SimpleJavaFileObject(createUri(className, kind), kind){
+			@Override
+			public OutputStream openOutputStream(){
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				classes.put(className, out);
+				return out;
+			}
+		};
+	}
+
+	/**
+	 * Provides the classes produced by the java compiler
+	 * @return A mapping from binary class names to class files
+	 */
+	public Map<String, byte[]> getClasses(){
+		Map<String, byte[]> result = new HashMap<String, byte[]>();
+		for(Entry<String, ByteArrayOutputStream> e : classes.entrySet()){
+			result.put(e.getKey(), e.getValue().toByteArray());
+		}
+		return result;
+	}
+
+	private static URI createUri(String className, Kind kind){
+		return URI.create("memory:///" + className.replace('.', '/') + kind.extension);
+	}
+}
@@ -97,10 +97,10 @@ public class RuleClassFile extends MemoryInclude {
 
 		part2 = "(){super();}\n\t"
 				+ "\tpublic " + engine.getPath().runtimePkg() + ".RuleResult call() throws Exception{\n"
-				+ "\t\tlocalStack.pushLayer();\n";
+				+ "\t\tlocalStack.pushFrame();\n";
 
 		part3 = "//end of generated content\n\t\t\n"
-				+ "\t\tlocalStack.popLayer();\n"
+				+ "\t\tlocalStack.popFrame();\n"
 				+ "\t\t@decl(" + engine.getPath().runtimePkg() + ".UpdateList, ulist) = (" + engine.getPath().runtimePkg() + ".UpdateList) evalStack.pop();\n"
 				+ "\t\t@decl(" + engine.getPath().runtimePkg() + ".Element, val) = " + engine.getPath().runtimePkg() + ".Element.UNDEF;\n"
 				+ "\t\tfor(@decl(int,i) = @ulist@.size() - 1; @i@ >= 0; @i@--){\n"
@@ -26,9 +26,12 @@ import org.coreasm.compiler.CompilerOptions;
  * 		<tr><td>-logEndOfStep [true/false]</td><td>Sets logEndOfStep to the given value</td></tr>
  * 		<tr><td>-logAgentSetAfterStep [true/false]</td><td>Sets logAgentSetAfterStep to the given value</td></tr>
  * 		<tr><td>-logStateTransition [true/false]</td><td>Sets logStateTransition to the given value</td></tr>
+ * 		<tr><td>-pipelinedScheduling [true/false]</td><td>Sets pipelinedScheduling to the given value</td></tr>
+ * 		<tr><td>-allAgentsFirst [true/false]</td><td>Sets allAgentsFirst to the given value</td></tr>
  * 		<tr><td>-removeExistingFiles [true/false]</td><td>Instructs the compiler to remove existing files in the temporary directory</td></tr>
  * 		<tr><td>-keepFiles [true/false]</td><td>Instructs the compiler to keep temporary files</td></tr>
  * 		<tr><td>-noCompile [true/false]</td><td>Instructs the compiler not to use the java compiler</td></tr>
+ * 		<tr><td>-run [true/false]</td><td>Instructs the compiler to compile the specification in memory and run it</td></tr>
  *	</tbody>
  * </table>
  * All other parameters will produce a CommandLineException.
@@ -91,6 +94,10 @@ public class CommandLineParser {
 					options.noCompile = Boolean.parseBoolean(args[i + 1]);
 					i++;
 				}
+				else if(args[i].equals("-run")){
+					options.runInMemory = Boolean.parseBoolean(args[i + 1]);
+					i++;
+				}
 				else if(args[i].equals("-terminateOnStepCount")){
 					options.terminateOnStepCount = Integer.parseInt(args[i + 1]);
 					i++;
@@ -115,6 +122,14 @@ public class CommandLineParser {
 					options.logStateTransition = Boolean.parseBoolean(args[i + 1]);
 					i++;
 				}
+				else if(args[i].equals("-pipelinedScheduling")){
+					options.pipelinedScheduling = Boolean.parseBoolean(args[i + 1]);
+					i++;
+				}
+				else if(args[i].equals("-allAgentsFirst")){
+					options.allAgentsFirst = Boolean.parseBoolean(args[i + 1]);
+					i++;
+				}
 				else if(args[i].equals("-removeExistingFiles")){
 					options.removeExistingFiles = Boolean.parseBoolean(args[i + 1]);
 					i++;
@@ -56,22 +56,22 @@ public class MainFileHelper {
 		//if(Main.getEngine().getOptions().terminateOnFailedUpdate)
 		//	termCode.appendLine("");
 		if(engine.getOptions().terminateOnEmptyUpdate)
-			termCode.appendLine("\t\t\t\tif(scheduler.getUpdateSet().size() <= 0){System.out.println(\"Execution terminated: Update set is empty\");System.exit(0);}\n");
+			termCode.appendLine("\t\t\t\tif(scheduler.getUpdateSet().size() <= 0){System.out.println(\"Execution terminated: Update set is empty\");@RuntimePkg@.RuntimeProvider.exit(0);}\n");
 		if(engine.getOptions().terminateOnSameUpdate)
 			termCode.appendLine("\t\t\t\tif(scheduler.getUpdateSet().equals(prevupdates)){\n"
 					+ "\t\t\t\tSystem.out.println(\"Execution terminated: Update set didn't change\");\n"
-					+ "\t\t\t\tSystem.exit(0);\n"
+					+ "\t\t\t\t@RuntimePkg@.RuntimeProvider.exit(0);\n"
 					+ "\t\t\t\t}\n"
 					+ "\t\t\t\tprevupdates = scheduler.getUpdateSet();\n");
 		if(engine.getOptions().terminateOnUndefAgent)
 			termCode.appendLine("\t\t\t\tif(scheduler.getAgentSet().size() < 1){\n"
 					+ "\t\t\t\tSystem.out.println(\"Execution terminated: No runnable agents\");\n"
-					+ "\t\t\t\tSystem.exit(0);\n"
+					+ "\t\t\t\t@RuntimePkg@.RuntimeProvider.exit(0);\n"
 					+ "\t\t\t\t}\n");
 		if(engine.getOptions().terminateOnStepCount >= 0)
 			termCode.appendLine("\t\t\t\tif(scheduler.getStepCount() >= " + engine.getOptions().terminateOnStepCount + "){\n"
 					+ "\t\t\t\tSystem.out.println(\"Execution terminated: Max step count of " + engine.getOptions().terminateOnStepCount + " reached\");\n"
-					+ "\t\t\t\tSystem.exit(0);\n"
+					+ "\t\t\t\t@RuntimePkg@.RuntimeProvider.exit(0);\n"
 					+ "\t\t\t\t}\n");
 	
 		EngineState emIdle = new EngineState("emIdle", engine);
@@ -89,7 +89,7 @@ public class MainFileHelper {
 		emStartingStep.appendCode("\t\t\t\tscheduler.retrieveAgents();\n");
 		emStartingStep.appendCode("\t\t\t\t}\n");
 		emStartingStep.appendCode("\t\t\t\tcatch(@RuntimePkg@.CoreASMCException e){\n");
-		emStartingStep.appendCode("\t\t\t\tSystem.out.println(e.toString());\n\t\t\t\tSystem.exit(0);\n");
+		emStartingStep.appendCode("\t\t\t\tSystem.out.println(e.toString());\n\t\t\t\t@RuntimePkg@.RuntimeProvider.exit(0);\n");
 		emStartingStep.appendCode("\t\t\t\t}\n");
 		emStartingStep.appendCode(sm.makeTransit("emStartingStep", "emSelectingAgents"));
 		sm.addState(emStartingStep);
@@ -98,7 +98,7 @@ public class MainFileHelper {
 		EngineState emError = new EngineState("emError", engine);
 		emError.appendCode("\t\t\t\tSystem.out.println(lastError);\n");
 		emError.appendCode("\t\t\t\tif(abortProgram){\n");
-		emError.appendCode("System.exit(0);\n");
+		emError.appendCode("@RuntimePkg@.RuntimeProvider.exit(0);\n");
 		emError.appendCode("\t\t\t\t}\n\t\t\t\telse{\n");
 		emError.appendCode("\t\t\t\tlastError = null;\n");
 		emError.appendCode(sm.makeTransit("emError", "emIdle"));
@@ -120,7 +120,7 @@ public class MainFileHelper {
 		emRunningAgents.appendCode("\t\t\t\ttry{\n");
 		emRunningAgents.appendCode("\t\t\t\tscheduler.executeAgentPrograms();\n");
 		emRunningAgents.appendCode("\t\t\t\t}\n\t\t\t\tcatch(@RuntimePkg@.CoreASMCException e){\n");
-		emRunningAgents.appendCode("\t\t\t\tSystem.out.println(e.toString());\n\t\t\t\tSystem.exit(0);\n");
+		emRunningAgents.appendCode("\t\t\t\tSystem.out.println(e.toString());\n\t\t\t\t@RuntimePkg@.RuntimeProvider.exit(0);\n");
 		emRunningAgents.appendCode("\t\t\t\t}\n");
 		emRunningAgents.appendCode(sm.makeTransit("emRunningAgents", "emAggregation"));
 		emRunningAgents.appendCode("\n\t\t\t\t}\n");
@@ -132,7 +132,7 @@ public class MainFileHelper {
 		emAggregation.appendCode("\t\t\t\ttry{\n");
 		emAggregation.appendCode("\t\t\t\t	storage.fireUpdateSet(scheduler.getUpdateSet());\n");
 		emAggregation.appendCode("\t\t\t\t}\n\t\t\t\tcatch(@RuntimePkg@.InvalidLocationException e){\n");
-		emAggregation.appendCode("\t\t\t\tSystem.out.println(e.toString());\n\t\t\t\tSystem.exit(0);\n");
+		emAggregation.appendCode("\t\t\t\tSystem.out.println(e.toString());\n\t\t\t\t@RuntimePkg@.RuntimeProvider.exit(0);\n");
 		emAggregation.appendCode("\t\t\t\t}\n");
 		emAggregation.appendCode(sm.makeTransit("emAggregation", "emStepSucceeded"));
 		emAggregation.appendCode("\n\t\t\t\t} else{\n");
@@ -156,7 +156,7 @@ public class MainFileHelper {
 		emStepFailed.appendCode(logCode);
 		emStepFailed.appendCode(termCode);
 		if(engine.getOptions().terminateOnFailedUpdate)
-			emStepFailed.appendCode("System.out.println(\"Execution terminated: Update failed\");System.exit(0);\n");
+			emStepFailed.appendCode("System.out.println(\"Execution terminated: Update failed\");@RuntimePkg@.RuntimeProvider.exit(0);\n");
 		emStepFailed.appendCode(sm.makeTransit("emStepFailed", "emIdle"));
 		sm.addState(emStepFailed);
 		
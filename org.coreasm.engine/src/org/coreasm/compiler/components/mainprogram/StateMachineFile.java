@@ -214,6 +214,10 @@ public class StateMachineFile extends MemoryInclude{
 		finalContent.appendLine("\t\tstorage = new @RuntimePkg@.HashStorage(this);\n");
 		finalContent.appendLine("\t\t@RuntimePkg@.Rule initRule = new " + initRule + "();\n");
 		finalContent.appendLine("\t\tscheduler = new @RuntimePkg@.Scheduler(initRule, new "  + paths.getEntryName(scheduler) + "());\n");
+		if(engine.getOptions().pipelinedScheduling)
+			finalContent.appendLine("\t\tscheduler.setPipelined(true);\n");
+		if(engine.getOptions().allAgentsFirst)
+			finalContent.appendLine("\t\tscheduler.setAllAgentsFirst(true);\n");
 		finalContent.appendLine("\t\taggregators = new java.util.HashSet<>();\n");
 		finalContent.appendLine("\t\tisRunning = true;\n");
 		finalContent.appendLine("\t}\n");
@@ -306,7 +310,7 @@ public class StateMachineFile extends MemoryInclude{
 			finalContent.appendLine("\t\tthis.storage.setValue(new @RuntimePkg@.Location(\"" + rule.getName() + "\", @RuntimePkg@.ElementList.NO_ARGUMENT), new @RulePkg@." + rule.getName() + "());\n");
 		}
 		
-		finalContent.appendLine("}\ncatch(Exception e){\nSystem.out.println(\"error: conflict while initializing\");\nSystem.exit(0);\n}\n");
+		finalContent.appendLine("}\ncatch(Exception e){\nSystem.out.println(\"error: conflict while initializing\");\n@RuntimePkg@.RuntimeProvider.exit(0);\n}\n");
 
 		finalContent.appendFragment(smcode);
 			
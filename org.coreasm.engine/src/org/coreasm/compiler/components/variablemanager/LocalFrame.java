@@ -0,0 +1,64 @@
+package org.coreasm.compiler.components.variablemanager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Stack;
+
+/**
+ * Compile time image of a frame of the local stack of the generated code.
+ * Mirrors the layers and variables a rule body puts on its local stack,
+ * so the slot of a variable can be determined at compile time.
+ */
+class LocalFrame {
+	private boolean slots;
+	private Set<String> hidden;
+	private List<String> names;
+	private Stack<Integer> layers;
+	
+	/**
+	 * Creates a new frame
+	 * @param slots True, if variables of this frame may be read via their slot
+	 * @param hidden Names which are never resolved to a slot
+	 */
+	LocalFrame(boolean slots, Collection<String> hidden){
+		this.slots = slots;
+		this.hidden = new HashSet<String>(hidden);
+		names = new ArrayList<String>();
+		layers = new Stack<Integer>();
+		layers.push(0);
+	}
+	
+	void pushLayer(){
+		layers.push(names.size());
+	}
+	
+	void popLayer(){
+		if(layers.isEmpty()) return;
+		int start = layers.pop();
+		while(names.size() > start) names.remove(names.size() - 1);
+	}
+	
+	void add(String name){
+		if(name != null){
+			int start = layers.isEmpty() ? 0 : layers.peek();
+			for(int i = names.size() - 1; i >= start; i--){
+				if(name.equals(names.get(i))) return;
+			}
+		}
+		names.add(name);
+	}
+	
+	int resolve(String name){
+		if(!slots || hidden.contains(name)) return -1;
+		for(int i = names.size() - 1; i >= 0; i--){
+			String current = names.get(i);
+			//a variable with a name unknown at compile time might shadow the variable
+			if(current == null) return -1;
+			if(current.equals(name)) return i;
+		}
+		return -1;
+	}
+}
@@ -1,5 +1,7 @@
 package org.coreasm.compiler.components.variablemanager;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.EmptyStackException;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -25,7 +27,9 @@ public class VarManager {
 	private HashMap<String, Stack<Integer>> contexts;
 	
 	private int contextCount;
-	
+	private int registerCount;
+	private Stack<LocalFrame> localFrames;
+
 	/**
 	 * Creates a new variable manager and initializes its data structures.
 	 */
@@ -33,6 +37,9 @@ public class VarManager {
 		variables = new HashMap<String, Integer>();
 		contexts = new HashMap<String, Stack<Integer>>();
 		contextCount = 0;
+		registerCount = 0;
+		localFrames = new Stack<LocalFrame>();
+		localFrames.push(new LocalFrame(false, Collections.<String>emptySet()));
 	}
 	
 	/**
@@ -86,4 +93,84 @@ public class VarManager {
 		variables.put(type, variables.get(type) + 1);
 		return new CompilerVariable(type, varname);
 	}
+
+	/**
+	 * Creates the name of a register, a variable holding the value of an
+	 * expression (see {@link org.coreasm.compiler.CompilerEngine#compileValue(CodeFragment, org.coreasm.engine.interpreter.ASTNode)}).
+	 * Unlike the names created by {@link #createVariable(String)}, the name is
+	 * final when it is created and is unique for the whole compilation,
+	 * so it can be used across CodeFragments without a macro.
+	 * @return A register name unique to the compilation
+	 */
+	public String createRegister(){
+		String name = "reg_" + registerCount;
+		registerCount++;
+		return name;
+	}
+
+	/**
+	 * Starts a new frame of local variables for a rule body.
+	 * The generated code has to open the frame on the local stack with
+	 * <code>localStack.pushFrame()</code> before the code of the body.
+	 * Variables of the frame can be read via their slot, see {@link #getLocalSlot(String)}.
+	 * @param hidden Names which are never resolved to a slot, because the body
+	 * looks them up elsewhere first, like the parameters of the rule
+	 */
+	public void startLocalFrame(Collection<String> hidden){
+		localFrames.push(new LocalFrame(true, hidden));
+	}
+	
+	/**
+	 * Starts a new frame of local variables for code which is executed on a
+	 * local stack unknown at compile time, like the parameters of a rule call.
+	 * Variables in this frame are always looked up by name.
+	 */
+	public void startDynamicFrame(){
+		localFrames.push(new LocalFrame(false, Collections.<String>emptySet()));
+	}
+	
+	/**
+	 * Ends the current frame of local variables, discarding all
+	 * layers still open in it
+	 */
+	public void endLocalFrame(){
+		if(localFrames.size() > 1) localFrames.pop();
+	}
+	
+	/**
+	 * Opens a new layer of local variables.
+	 * Has to be called whenever the generated code calls <code>localStack.pushLayer()</code>.
+	 */
+	public void pushLocals(){
+		localFrames.peek().pushLayer();
+	}
+	
+	/**
+	 * Adds a variable to the current layer of local variables.
+	 * Has to be called in the order in which the generated code calls
+	 * <code>localStack.put(name, value)</code>.
+	 * @param name The name of the variable or null, if the name is only known at runtime
+	 */
+	public void addLocal(String name){
+		localFrames.peek().add(name);
+	}
+	
+	/**
+	 * Closes the current layer of local variables.
+	 * Has to be called whenever the generated code calls <code>localStack.popLayer()</code>.
+	 */
+	public void popLocals(){
+		localFrames.peek().popLayer();
+	}
+	
+	/**
+	 * Determines the slot of a local variable in the current frame.
+	 * The value can then be read with <code>localStack.get(slot, name)</code>,
+	 * which falls back to a lookup by name, if the slot does not hold the variable.
+	 * @param name The name of the variable
+	 * @return The slot of the variable or -1, if the variable has to be looked up by name
+	 */
+	public int getLocalSlot(String name){
+		return localFrames.peek().resolve(name);
+	}
 }
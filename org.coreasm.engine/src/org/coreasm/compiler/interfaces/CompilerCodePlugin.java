@@ -52,6 +52,46 @@ public abstract class CompilerCodePlugin implements CompilerPlugin{
 		}
 	}
 	
+	/**
+	 * Registers a value handler in the data structures of the abstract base class.
+	 * The handler will produce r-code for the nodes matching the pattern,
+	 * see {@link CompilerValueHandler}.
+	 * @param handler The value handler instance
+	 * @param gClass The grammar class for which this handler will activate or null, if irrelevant
+	 * @param gRule The grammar rule for which this handler will activate or null, if irrelevant
+	 * @param token The token for which this handler will activate or null, if irrelevant
+	 * @throws CompilerException If the compilation had errors
+	 */
+	protected void register(CompilerValueHandler handler, String gClass, String gRule, String token) throws CompilerException{
+		if(handlers == null){
+			handlers = new Mapper();
+		}
+		
+		if(!handlers.insert(handler, CodeType.R, gClass, gRule, token)){
+			throw new CompilerException("Handler already registered for (" + CodeType.R + ", " + gClass + ", " + gRule + ", " + token + ")");
+		}
+	}
+	
+	/**
+	 * Compiles the given node into code assigning its value to the given register.
+	 * Only nodes handled by a {@link CompilerValueHandler} can be compiled this way.
+	 * @param n The node for which code is to be produced
+	 * @param target The name of the register receiving the value
+	 * @return Code for the compiled node or null, if the node is not handled by a value handler
+	 * @throws CompilerException If the compilation failed
+	 */
+	public CodeFragment compileValue(ASTNode n, String target) throws CompilerException{
+		if(handlers == null) return null;
+		
+		List<Object> h = handlers.find(CodeType.R, n.getGrammarClass(), n.getGrammarRule(), n.getToken());
+		if(h.size() != 1 || !(h.get(0) instanceof CompilerValueHandler)) return null;
+		
+		CodeFragment result = new CodeFragment();
+		((CompilerValueHandler) h.get(0)).compileValue(result, n, target, engine);
+		
+		return result;
+	}
+	
 	/**
 	 * Compiles the given node.
 	 * The abstract base class will search for a handler registered for the node pattern and will
@@ -86,10 +126,19 @@ public abstract class CompilerCodePlugin implements CompilerPlugin{
 			throw new CompilerException("two handlers registered for (" + this.getClass().getName() + ", " + t + ", " + n.getGrammarClass() + ", " + n.getGrammarRule() + ", " + n.getToken() + ")");			
 		}
 		
-		CompilerCodeHandler current = (CompilerCodeHandler) h.get(0);
 		CodeFragment result = new CodeFragment();
 		
-		current.compile(result, n, engine);
+		if(h.get(0) instanceof CompilerValueHandler){
+			//let the value handler fill a register and push its content
+			String target = engine.getVarManager().createRegister();
+			result.appendLine("{\n@RuntimePkg@.Element " + target + ";\n");
+			((CompilerValueHandler) h.get(0)).compileValue(result, n, target, engine);
+			result.appendLine("evalStack.push(" + target + ");\n}\n");
+		}
+		else{
+			CompilerCodeHandler current = (CompilerCodeHandler) h.get(0);
+			current.compile(result, n, engine);
+		}
 		
 		return result;
 	}
@@ -10,14 +10,16 @@ import org.coreasm.compiler.exception.CompilerException;
  * <p>
  * The code generated by the operator provider for an operator can assume that
  * the left-hand side and right-hand side(only in case of binary operations) are
- * stored as Objects in the temporary variables {@literal @}rhs{@literal @} and
- * {@literal @}lhs{@literal @}.
+ * stored as Elements in the variables {@literal @}lhs{@literal @} and
+ * {@literal @}rhs{@literal @}. The result of the operation has to be assigned
+ * to the variable {@literal @}result{@literal @}, which is of the type Element.
+ * The code must not declare a temporary variable with one of these names.
  * <p>
  * As operators can be overloaded (e.g. + is applicable for strings and numbers),
  * the compiled code has to be of the form
  * <p><blockquote><pre>
  * if(condition){
- * code pushing a result to the stack
+ * code assigning the result to {@literal @}result{@literal @}
  * } else
  * </pre></blockquote>
  * Note that there is no closing bracket after the else.
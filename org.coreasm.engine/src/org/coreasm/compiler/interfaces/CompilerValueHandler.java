@@ -0,0 +1,35 @@
+package org.coreasm.compiler.interfaces;
+
+import org.coreasm.compiler.CompilerEngine;
+import org.coreasm.compiler.codefragment.CodeFragment;
+import org.coreasm.compiler.exception.CompilerException;
+import org.coreasm.engine.interpreter.ASTNode;
+
+/**
+ * Interface for handlers producing r-code which stores its value in a variable.
+ * Instead of leaving the value of the node on the evaluation stack, the code
+ * produced by a value handler assigns it to a register, a variable of the
+ * type Element which has been declared by the caller.
+ * This way, nested expressions pass their values through local variables
+ * of the generated code.
+ * <p>
+ * Value handlers are registered for {@link org.coreasm.compiler.CodeType#R}.
+ * If a node handled by a value handler is requested via
+ * {@link CompilerEngine#compile(ASTNode, org.coreasm.compiler.CodeType)},
+ * its value is pushed on the stack as usual.
+ */
+public interface CompilerValueHandler {
+	/**
+	 * Compiles the given node into a CodeFragment assigning the value of the node
+	 * to the given register.
+	 * The code has to assign the register on every path which does not throw an exception.
+	 * Values of child nodes should be obtained via
+	 * {@link CompilerEngine#compileValue(CodeFragment, ASTNode)}.
+	 * @param result Preconstructed (empty) {@link CodeFragment} for the result of the compilation
+	 * @param node The current node in the syntax tree
+	 * @param target The name of the register receiving the value
+	 * @param engine The compiler engine, used for further compilation or for other services
+	 * @throws CompilerException If the compilation failed
+	 */
+	public void compileValue(CodeFragment result, ASTNode node, String target, CompilerEngine engine) throws CompilerException;
+}
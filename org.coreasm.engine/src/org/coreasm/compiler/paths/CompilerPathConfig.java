@@ -1,5 +1,7 @@
 package org.coreasm.compiler.paths;
 
+import java.io.File;
+
 import org.coreasm.compiler.components.classlibrary.LibraryEntry;
 import org.coreasm.compiler.components.classlibrary.LibraryEntryType;
 
@@ -61,7 +63,7 @@ public abstract class CompilerPathConfig {
 	 * @return The fully specified file name of the entry
 	 */
 	public String getEntryPath(LibraryEntry entry){
-		return getEntryName(entry.getType(), entry.getName(), entry.getSource()).replace(".", "\\") + ".java";
+		return getEntryName(entry.getType(), entry.getName(), entry.getSource()).replace(".", File.separator) + ".java";
 	}
 	/**
 	 * Maps an assumed LibraryEntry to a fully specified class name
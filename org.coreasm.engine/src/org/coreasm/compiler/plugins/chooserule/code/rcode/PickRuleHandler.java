@@ -26,7 +26,12 @@ public class PickRuleHandler implements CompilerCodeHandler {
 		result.appendFragment(source);
 		result.appendLine("@decl(java.util.ArrayList<@RuntimePkg@.Element>, src) = new java.util.ArrayList<@RuntimePkg@.Element>(((@RuntimePkg@.Enumerable)evalStack.pop()).enumerate());\n");
 		if(node.getAbstractChildNodes().size() == 3){
+			//the test is evaluated with the candidate on the local stack,
+			//the name of its location is only known at runtime
+			engine.getVarManager().pushLocals();
+			engine.getVarManager().addLocal(null);
 			CodeFragment test = engine.compile(node.getAbstractChildNodes().get(2), CodeType.R);
+			engine.getVarManager().popLocals();
 			result.appendLine("for(@decl(int,i)=@src@.size() - 1; @i@ >= 0; @i@--){\n");
 			result.appendLine("localStack.pushLayer();\n");
 			result.appendLine("localStack.put(@loc@, @src@.get(@i@));\n");
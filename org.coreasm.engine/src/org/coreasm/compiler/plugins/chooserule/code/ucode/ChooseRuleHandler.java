@@ -52,6 +52,7 @@ public class ChooseRuleHandler implements CompilerCodeHandler {
 				result.appendLine("@decl(boolean, selected) = true;\n");
 				result.appendLine("@decl(java.util.ArrayList<@RuntimePkg@.Element>, clist) = null;\n");
 				result.appendLine("localStack.pushLayer();\n");
+				engine.getVarManager().pushLocals();
 				cnt = 0;
 				for(Entry<String, ASTNode> mapping : vars.entrySet()){
 					result.appendLine("@clist@ = @srclist@.get(" + cnt + ");\n");
@@ -62,6 +63,7 @@ public class ChooseRuleHandler implements CompilerCodeHandler {
 					result.appendLine("else{\n");
 					result.appendLine("localStack.put(\"" + mapping.getKey() + "\", @clist@.get(@RuntimeProvider@.randInt(@clist@.size())));\n");
 					result.appendLine("}\n");
+					engine.getVarManager().addLocal(mapping.getKey());
 					cnt++;
 				}
 			}
@@ -72,6 +74,7 @@ public class ChooseRuleHandler implements CompilerCodeHandler {
 				result.appendLine("@decl(java.util.ArrayList<java.util.ArrayList<@RuntimePkg@.Element>>, combinations) = new java.util.ArrayList<java.util.ArrayList<@RuntimePkg@.Element>>();\n");
 				//test all possible combinations NOTE: Highly inefficient
 				result.appendLine("localStack.pushLayer();\n");
+				engine.getVarManager().pushLocals();
 				//open for loops
 				cnt = 0;
 				for(Entry<String, ASTNode> mapping : vars.entrySet()){
@@ -81,6 +84,7 @@ public class ChooseRuleHandler implements CompilerCodeHandler {
 					result.appendLine("}\n");
 					result.appendLine("for(@decl(int, i_" + cnt + ") = 0; @i_" + cnt + "@ < @clist_" + cnt + "@.size() && @selected@; @i_" + cnt + "@++){\n");
 					result.appendLine("localStack.put(\"" + mapping.getKey() + "\", @clist_" + cnt + "@.get(@i_" + cnt + "@));\n");
+					engine.getVarManager().addLocal(mapping.getKey());
 					cnt++;
 				}
 				//innermost of the for loops: all temporary values are on the local stack. now execute the guard
@@ -121,6 +125,7 @@ public class ChooseRuleHandler implements CompilerCodeHandler {
 			result.appendFragment(engine.compile(doRule, CodeType.U));
 			//the result is now on the stack, clear up the localstack
 			result.appendLine("localStack.popLayer();\n");
+			engine.getVarManager().popLocals();
 			result.appendLine("}\n");
 			result.appendLine("else{\n");
 			//close the scope on the localstack
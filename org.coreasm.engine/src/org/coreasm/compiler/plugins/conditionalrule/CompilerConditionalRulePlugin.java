@@ -42,7 +42,7 @@ public class CompilerConditionalRulePlugin extends CompilerCodePlugin implements
 	@Override
 	public void registerCodeHandlers() throws CompilerException {
 		register(new ConditionalRuleHandler(), CodeType.U, "Rule", "ConditionalRule", null);
-		register(new ConditionalTermHandler(), CodeType.R, "Expression", "ConditionalTerm", null);
+		register(new ConditionalTermHandler(), "Expression", "ConditionalTerm", null);
 	}
 
 	@Override
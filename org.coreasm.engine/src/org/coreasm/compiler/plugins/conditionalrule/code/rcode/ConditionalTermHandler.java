@@ -1,10 +1,9 @@
 package org.coreasm.compiler.plugins.conditionalrule.code.rcode;
 
-import org.coreasm.compiler.CodeType;
 import org.coreasm.compiler.CompilerEngine;
 import org.coreasm.compiler.codefragment.CodeFragment;
 import org.coreasm.compiler.exception.CompilerException;
-import org.coreasm.compiler.interfaces.CompilerCodeHandler;
+import org.coreasm.compiler.interfaces.CompilerValueHandler;
 import org.coreasm.engine.interpreter.ASTNode;
 import org.coreasm.engine.plugins.conditionalrule.ConditionalTermNode;
 
@@ -13,23 +12,26 @@ import org.coreasm.engine.plugins.conditionalrule.ConditionalTermNode;
  * @author Spellmaker
  *
  */
-public class ConditionalTermHandler implements CompilerCodeHandler {
+public class ConditionalTermHandler implements CompilerValueHandler {
 
 	@Override
-	public void compile(CodeFragment result, ASTNode node, CompilerEngine engine)
+	public void compileValue(CodeFragment result, ASTNode node, String target, CompilerEngine engine)
 			throws CompilerException {
 		if(!(node instanceof ConditionalTermNode)) throw new CompilerException("invalid node type in conditionalterm");
 		ConditionalTermNode cond = (ConditionalTermNode) node;
 		
-		result.appendFragment(engine.compile(cond.getCondition(), CodeType.R));
-		result.appendLine("if(@RuntimePkg@.BooleanElement.TRUE.equals(evalStack.pop())){\n");
-		result.appendFragment(engine.compile(cond.getIfTerm(), CodeType.R));
+		String guard = engine.compileValue(result, cond.getCondition());
+		result.appendLine("if(@RuntimePkg@.BooleanElement.TRUE.equals(" + guard + ")){\n");
+		String ifValue = engine.compileValue(result, cond.getIfTerm());
+		result.appendLine(target + " = " + ifValue + ";\n");
 		result.appendLine("}\n");
 		result.appendLine("else{\n");
 		if(cond.getElseTerm() == null)
-			result.appendLine("evalStack.push(@RuntimePkg@.Element.UNDEF);\n");
-		else
-			result.appendFragment(engine.compile(cond.getElseTerm(), CodeType.R));
+			result.appendLine(target + " = @RuntimePkg@.Element.UNDEF;\n");
+		else{
+			String elseValue = engine.compileValue(result, cond.getElseTerm());
+			result.appendLine(target + " = " + elseValue + ";\n");
+		}
 		result.appendLine("}\n");
 	}
 
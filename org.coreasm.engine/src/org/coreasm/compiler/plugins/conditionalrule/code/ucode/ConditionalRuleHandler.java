@@ -25,8 +25,8 @@ public class ConditionalRuleHandler implements CompilerCodeHandler {
 		}
 
 		try{
-			result.appendFragment(engine.compile(cond, CodeType.R));
-			result.appendLine("if(evalStack.pop().equals(@RuntimePkg@.BooleanElement.TRUE)){\n");
+			String guard = engine.compileValue(result, cond);
+			result.appendLine("if(" + guard + ".equals(@RuntimePkg@.BooleanElement.TRUE)){\n");
 			result.appendFragment(engine.compile(ifpart, CodeType.U));
 			result.appendLine("}\n");
 			if(elsepart != null){
@@ -19,9 +19,15 @@ public class ExtendRuleHandler implements CompilerCodeHandler {
 			throws CompilerException {
 		try {
 			CodeFragment loc = engine.compile(node.getAbstractChildNodes().get(0), CodeType.L);
-			CodeFragment upd = engine.compile(node.getAbstractChildNodes().get(2), CodeType.U);
-						
 			CodeFragment name = engine.compile(node.getAbstractChildNodes().get(1), CodeType.L);
+			
+			//the rule is executed with the new element on the local stack,
+			//the name of its location is only known at runtime
+			engine.getVarManager().pushLocals();
+			engine.getVarManager().addLocal(null);
+			CodeFragment upd = engine.compile(node.getAbstractChildNodes().get(2), CodeType.U);
+			engine.getVarManager().popLocals();
+			
 			result.appendFragment(name);
 			result.appendLine("@decl(@RuntimePkg@.Location,nameloc)=(@RuntimePkg@.Location)evalStack.pop();\n");
 			result.appendLine("if(@nameloc@.args.size() != 0) throw new Exception();\n");
@@ -28,6 +28,7 @@ public class ForallRuleHandler implements CompilerCodeHandler {
 		
 		result.appendLine("//forall starts here\n");
 		result.appendLine("localStack.pushLayer();\n");
+		engine.getVarManager().pushLocals();
 		int varcount = 0;
 		
 		String[] varnames = new String[vars.size()];
@@ -49,6 +50,7 @@ public class ForallRuleHandler implements CompilerCodeHandler {
 		for(int i = 0; i < varcount; i++){
 			result.appendLine("for(@decl(int, i" + i + ")=0; @i" + i + "@ < @var" + i + "@.size(); @i" + i + "@++){\n");
 			result.appendLine("localStack.put(\"" + varnames[i] + "\", @var" + i + "@.get(@i" + i + "@));\n");
+			engine.getVarManager().addLocal(varnames[i]);
 		}
 		
 		if(forall.getCondition() != null){
@@ -69,6 +71,7 @@ public class ForallRuleHandler implements CompilerCodeHandler {
 		}
 		result.appendLine("}\n");
 		result.appendLine("localStack.popLayer();\n");
+		engine.getVarManager().popLocals();
 		
 		if(forall.getIfnoneRule() == null){
 			result.appendLine("@decl(@RuntimePkg@.UpdateList, res) = new @RuntimePkg@.UpdateList();\n");
@@ -90,17 +90,17 @@ public class CompilerKernelPlugin extends CompilerCodePlugin implements
 		this.register(new KernelFunctionRuleTermHandler(), CodeType.L,
 				"FunctionRule", "FunctionRuleTerm", null);
 
-		this.register(new KernelUndefHandler(), CodeType.R, null,
+		this.register(new KernelUndefHandler(), null,
 				"KernelTerms", "undef");
-		this.register(new KernelSelfHandler(), CodeType.R, null, "KernelTerms",
+		this.register(new KernelSelfHandler(), null, "KernelTerms",
 				"self");
-		this.register(new KernelBooleanTermHandler(), CodeType.R, null,
+		this.register(new KernelBooleanTermHandler(), null,
 				"BooleanTerm", null);
-		this.register(new KernelFunctionRuleExpressionHandler(), CodeType.R,
+		this.register(new KernelFunctionRuleExpressionHandler(),
 				null, "FunctionRuleTerm", null);
-		this.register(new KernelExpressionLiftHandler(), CodeType.R,
+		this.register(new KernelExpressionLiftHandler(),
 				"Expression", "", null);
-		this.register(new KernelRuleOrFuncHandler(), CodeType.R, "Expression",
+		this.register(new KernelRuleOrFuncHandler(), "Expression",
 				"RuleOrFunctionElementTerm", null);
 
 		this.register(new KernelSkipRule(), CodeType.U, "Rule", "SkipRule",
@@ -359,7 +359,7 @@ public class CompilerKernelPlugin extends CompilerCodePlugin implements
 
 	@Override
 	public String compileBinaryOperator(String token) {
-		String result = "if(true){\nevalStack.push(@RuntimePkg@.BooleanElement.valueOf(@lhs@.equals(@rhs@)));\n}\n";
+		String result = "if(true){\n@result@ = @RuntimePkg@.BooleanElement.valueOf(@lhs@.equals(@rhs@));\n}\n";
 		result = result + "else ";
 		return result;
 	}
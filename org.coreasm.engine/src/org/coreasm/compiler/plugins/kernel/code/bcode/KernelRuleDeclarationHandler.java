@@ -40,8 +40,18 @@ public class KernelRuleDeclarationHandler implements CompilerCodeHandler {
 						.getToken());
 			}
 	
-			// compile the body
-			CodeFragment cbody = engine.compile(body, CodeType.U);
+			// compile the body; the parameters and the result parameter
+			// of the rule are looked up before the local stack
+			List<String> hidden = new ArrayList<String>(ruleParameters);
+			hidden.add("result");
+			CodeFragment cbody = null;
+			engine.getVarManager().startLocalFrame(hidden);
+			try{
+				cbody = engine.compile(body, CodeType.U);
+			}
+			finally{
+				engine.getVarManager().endLocalFrame();
+			}
 			RuleClassFile r = new RuleClassFile(ruleName, ruleParameters,
 					cbody, engine);
 			engine.getClassLibrary().addEntry(r);
@@ -1,10 +1,9 @@
 package org.coreasm.compiler.plugins.kernel.code.rcode;
 
-import org.coreasm.compiler.CodeType;
 import org.coreasm.compiler.CompilerEngine;
 import org.coreasm.compiler.codefragment.CodeFragment;
 import org.coreasm.compiler.exception.CompilerException;
-import org.coreasm.compiler.interfaces.CompilerCodeHandler;
+import org.coreasm.compiler.interfaces.CompilerValueHandler;
 import org.coreasm.engine.interpreter.ASTNode;
 
 /**
@@ -12,12 +11,13 @@ import org.coreasm.engine.interpreter.ASTNode;
  * @author Spellmaker
  *
  */
-public class KernelExpressionLiftHandler implements CompilerCodeHandler {
+public class KernelExpressionLiftHandler implements CompilerValueHandler {
 
 	@Override
-	public void compile(CodeFragment result, ASTNode node, CompilerEngine engine)
+	public void compileValue(CodeFragment result, ASTNode node, String target, CompilerEngine engine)
 			throws CompilerException {
-		result.appendFragment(engine.compile(node.getFirst(), CodeType.R));
+		String value = engine.compileValue(result, node.getFirst());
+		result.appendLine(target + " = " + value + ";\n");
 	}
 
 }
@@ -5,7 +5,7 @@ import org.coreasm.compiler.codefragment.CodeFragment;
 import org.coreasm.compiler.components.preprocessor.Information;
 import org.coreasm.compiler.components.preprocessor.Preprocessor;
 import org.coreasm.compiler.exception.CompilerException;
-import org.coreasm.compiler.interfaces.CompilerCodeHandler;
+import org.coreasm.compiler.interfaces.CompilerValueHandler;
 import org.coreasm.engine.interpreter.ASTNode;
 
 /**
@@ -13,10 +13,10 @@ import org.coreasm.engine.interpreter.ASTNode;
  * @author Spellmaker
  *
  */
-public class KernelRuleOrFuncHandler implements CompilerCodeHandler {
+public class KernelRuleOrFuncHandler implements CompilerValueHandler {
 
 	@Override
-	public void compile(CodeFragment result, ASTNode node, CompilerEngine engine)
+	public void compileValue(CodeFragment result, ASTNode node, String target, CompilerEngine engine)
 			throws CompilerException {
 		try {
 			String name = node.getAbstractChildNodes().get(0).getToken();
@@ -31,13 +31,13 @@ public class KernelRuleOrFuncHandler implements CompilerCodeHandler {
 						"@decl(@RuntimePkg@.Rule, tmprule)=new @RulePkg@."
 								+ name + "();\n");
 				result.appendLine("@tmprule@.initRule(new java.util.ArrayList<@RuntimePkg@.RuleParam>(), null);\n");
-				result.appendLine("evalStack.push(@tmprule@);\n");
+				result.appendLine(target + " = @tmprule@;\n");
 			} else {
 				// otherwise get the function element from the abstract
 				// storage
-				result.appendLine(
-						"evalStack.push(@RuntimeProvider@.getStorage().getFunction(\""
-								+ name + "\"));\n");
+				result.appendLine(target
+						+ " = @RuntimeProvider@.getStorage().getFunction(\""
+								+ name + "\");\n");
 			}
 
 		} catch (Exception e) {
@@ -3,7 +3,7 @@ package org.coreasm.compiler.plugins.kernel.code.rcode;
 import org.coreasm.compiler.CompilerEngine;
 import org.coreasm.compiler.codefragment.CodeFragment;
 import org.coreasm.compiler.exception.CompilerException;
-import org.coreasm.compiler.interfaces.CompilerCodeHandler;
+import org.coreasm.compiler.interfaces.CompilerValueHandler;
 import org.coreasm.engine.interpreter.ASTNode;
 
 /**
@@ -11,14 +11,14 @@ import org.coreasm.engine.interpreter.ASTNode;
  * @author Spellmaker
  *
  */
-public class KernelSelfHandler implements CompilerCodeHandler {
+public class KernelSelfHandler implements CompilerValueHandler {
 
 	@Override
-	public void compile(CodeFragment result, ASTNode node, CompilerEngine engine)
+	public void compileValue(CodeFragment result, ASTNode node, String target, CompilerEngine engine)
 			throws CompilerException {
-		result.appendLine("if(@RuntimeProvider@.getSelf(Thread.currentThread()) == null)\n"
-				+ "evalStack.push(@RuntimePkg@.Element.UNDEF);\n"
-				+ "else\n" + "evalStack.push(@RuntimeProvider@.getSelf(Thread.currentThread()));\n");
+		result.appendLine(target + " = @RuntimeProvider@.getSelf(Thread.currentThread());\n"
+				+ "if(" + target + " == null)\n"
+				+ target + " = @RuntimePkg@.Element.UNDEF;\n");
 
 	}
 
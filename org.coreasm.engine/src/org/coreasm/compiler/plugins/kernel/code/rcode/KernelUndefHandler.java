@@ -3,7 +3,7 @@ package org.coreasm.compiler.plugins.kernel.code.rcode;
 import org.coreasm.compiler.CompilerEngine;
 import org.coreasm.compiler.codefragment.CodeFragment;
 import org.coreasm.compiler.exception.CompilerException;
-import org.coreasm.compiler.interfaces.CompilerCodeHandler;
+import org.coreasm.compiler.interfaces.CompilerValueHandler;
 import org.coreasm.engine.interpreter.ASTNode;
 
 /**
@@ -11,13 +11,13 @@ import org.coreasm.engine.interpreter.ASTNode;
  * @author Spellmaker
  *
  */
-public class KernelUndefHandler implements CompilerCodeHandler{
+public class KernelUndefHandler implements CompilerValueHandler{
 
 	@Override
-	public void compile(CodeFragment result, ASTNode node, CompilerEngine engine)
+	public void compileValue(CodeFragment result, ASTNode node, String target, CompilerEngine engine)
 			throws CompilerException {
 
-		result.appendLine("evalStack.push(@RuntimePkg@.Element.UNDEF);");
+		result.appendLine(target + " = @RuntimePkg@.Element.UNDEF;\n");
 	}
 
 }
@@ -28,9 +28,13 @@ public class KernelImportRule implements CompilerCodeHandler {
 
 		result.appendLine("localStack.pushLayer();\n");
 		result.appendLine("localStack.put(@nameloc@.name, new @RuntimePkg@.Element());\n");
+		//the name of the location is only known at runtime
+		engine.getVarManager().pushLocals();
+		engine.getVarManager().addLocal(null);
 		result.appendFragment(engine.compile(
 				node.getAbstractChildNodes().get(1), CodeType.U));
 		result.appendLine("localStack.popLayer();\n");
+		engine.getVarManager().popLocals();
 	}
 
 }
@@ -35,41 +35,48 @@ public class KernelMacroCallRule implements CompilerCodeHandler {
 		FunctionRuleTermNode params = (FunctionRuleTermNode) mcrn
 				.getFunctionRuleElement();
 
-		if (params.hasArguments()) {
-			CodeFragment[] paramCode = new CodeFragment[params
-					.getArguments().size()];
+		//the parameters are evaluated on the local stack of the called rule
+		engine.getVarManager().startDynamicFrame();
+		try{
+			if (params.hasArguments()) {
+				CodeFragment[] paramCode = new CodeFragment[params
+						.getArguments().size()];
 
-			for (int i = 0; i < paramCode.length; i++) {
-				// create the code for the parameter
-				CodeFragment tmp = engine.compile(
-						params.getArguments().get(i), CodeType.R);
-				// create the param object and push it onto the stack
-				result.appendLine("\n@arglist@.add(new @RuntimePkg@.RuleParam(){\n");
-				result.appendLine("public @RuntimePkg@.Rule getUpdateResponsible(){\nreturn null;\n}\n");
-				result.appendLine("java.util.Map<String, @RuntimePkg@.RuleParam> ruleparams;\n");
-				result.appendLine("public void setParams(java.util.Map<String, @RuntimePkg@.RuleParam> params){\n");
-				result.appendLine("this.ruleparams = params;\n");
-				result.appendLine("}\n");
+				for (int i = 0; i < paramCode.length; i++) {
+					// create the code for the parameter
+					CodeFragment tmp = engine.compile(
+							params.getArguments().get(i), CodeType.R);
+					// create the param object and push it onto the stack
+					result.appendLine("\n@arglist@.add(new @RuntimePkg@.RuleParam(){\n");
+					result.appendLine("public @RuntimePkg@.Rule getUpdateResponsible(){\nreturn null;\n}\n");
+					result.appendLine("java.util.Map<String, @RuntimePkg@.RuleParam> ruleparams;\n");
+					result.appendLine("public void setParams(java.util.Map<String, @RuntimePkg@.RuleParam> params){\n");
+					result.appendLine("this.ruleparams = params;\n");
+					result.appendLine("}\n");
 				
-				//a ruleparam can be evaluated as l-context or r-context, but the l-context is not always possible.
-				//try compiling the param as an l-code, but be prepared for failure
-				result.appendLine("public @RuntimePkg@.Location evaluateL(@RuntimePkg@.LocalStack localStack) throws Exception{\n");
-				try{
-					CodeFragment ltmp = engine.tryCompile(params.getArguments().get(i), CodeType.L);
-					result.appendFragment(ltmp);
-					result.appendLine("return (@RuntimePkg@.Location) evalStack.pop();\n");
-				}
-				catch(Exception e){
-					result.appendLine("throw new Exception(\"This ruleparam cannot be evaluated as a location\");\n");					
-				}
-				result.appendLine("}\n");
+					//a ruleparam can be evaluated as l-context or r-context, but the l-context is not always possible.
+					//try compiling the param as an l-code, but be prepared for failure
+					result.appendLine("public @RuntimePkg@.Location evaluateL(@RuntimePkg@.LocalStack localStack) throws Exception{\n");
+					try{
+						CodeFragment ltmp = engine.tryCompile(params.getArguments().get(i), CodeType.L);
+						result.appendFragment(ltmp);
+						result.appendLine("return (@RuntimePkg@.Location) evalStack.pop();\n");
+					}
+					catch(Exception e){
+						result.appendLine("throw new Exception(\"This ruleparam cannot be evaluated as a location\");\n");					
+					}
+					result.appendLine("}\n");
 				
-				result.appendLine("public @RuntimePkg@.Element evaluateR(@RuntimePkg@.LocalStack localStack) throws Exception{\n");
-				result.appendFragment(tmp);
-				result.appendLine("\nreturn (@RuntimePkg@.Element)evalStack.pop();\n}\n});\n");
-				result.appendLine("@arglist@.get(@arglist@.size() - 1).setParams(ruleparams);\n");
+					result.appendLine("public @RuntimePkg@.Element evaluateR(@RuntimePkg@.LocalStack localStack) throws Exception{\n");
+					result.appendFragment(tmp);
+					result.appendLine("\nreturn (@RuntimePkg@.Element)evalStack.pop();\n}\n});\n");
+					result.appendLine("@arglist@.get(@arglist@.size() - 1).setParams(ruleparams);\n");
+				}
 			}
 		}
+		finally{
+			engine.getVarManager().endLocalFrame();
+		}
 		// cf.appendLine("\n@decl(CompilerRuntime.Rule,macrorule)=new Rules."
 		// + name + "(@arglist, localStack);");
 		
@@ -28,16 +28,13 @@ public class KernelUpdateRule implements CompilerCodeHandler {
 
 		CodeFragment lhs = engine.compile(location,
 				CodeType.L);
-		CodeFragment rhs = engine.compile(expression,
-				CodeType.R);
 
 		// generates an update
 		result.appendLine("\n");
-		result.appendFragment(rhs);
+		String value = engine.compileValue(result, expression);
 		result.appendFragment(lhs);
 		result.appendLine("\n@decl(@RuntimePkg@.Location,tmplocation)=(@RuntimePkg@.Location)evalStack.pop();\n");
-		result.appendLine("@decl(@RuntimePkg@.Element,tmpvalue)=(@RuntimePkg@.Element)evalStack.pop();\n");
-		result.appendLine("\n@decl(@RuntimePkg@.Update,tmpupdate)=new @RuntimePkg@.Update(@tmplocation@, @tmpvalue@, \"updateAction\", this.getUpdateResponsible(), null);\n");
+		result.appendLine("\n@decl(@RuntimePkg@.Update,tmpupdate)=new @RuntimePkg@.Update(@tmplocation@, " + value + ", \"updateAction\", this.getUpdateResponsible(), null);\n");
 		result.appendLine("@decl(@RuntimePkg@.UpdateList,tmplist)=new @RuntimePkg@.UpdateList();\n");
 		result.appendLine("@tmplist@.add(@tmpupdate@);\n");
 		result.appendLine("evalStack.push(@tmplist@);\n");
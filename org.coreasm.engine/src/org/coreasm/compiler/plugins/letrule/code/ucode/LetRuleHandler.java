@@ -28,14 +28,17 @@ public class LetRuleHandler implements CompilerCodeHandler {
 			
 			result.appendLine("//start of let\n");
 			result.appendLine("localStack.pushLayer();\n");
+			engine.getVarManager().pushLocals();
 			for(Entry<String, ASTNode> entry : letmap.entrySet()){
 				CodeFragment val = engine.compile(entry.getValue(), CodeType.R);
 				result.appendFragment(val);
 				result.appendLine("localStack.put(\"" + entry.getKey() + "\", evalStack.pop());\n");
+				engine.getVarManager().addLocal(entry.getKey());
 			}
 			
 			result.appendFragment(engine.compile(letrule.getInRule(), CodeType.U));
 			result.appendLine("localStack.popLayer();\n");
+			engine.getVarManager().popLocals();
 			result.appendLine("//end of let\n");
 		} catch (Exception e) {
 			throw new CompilerException(e);
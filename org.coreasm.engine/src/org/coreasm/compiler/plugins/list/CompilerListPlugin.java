@@ -98,7 +98,7 @@ public class CompilerListPlugin extends CompilerCodePlugin implements CompilerPl
 			result +="System.out.println(\"executing concat\");\n";
 			result += "@decl(java.util.List<@RuntimePkg@.Element>,list)=new java.util.ArrayList<@RuntimePkg@.Element>(((" + listelement + ")@lhs@).values());\n";
 			result += "@list@.addAll(((" + listelement + ")@rhs@).values());\n";
-			result += "evalStack.push(new " + listelement + "(@list@));\n";
+			result += "@result@ = new " + listelement + "(@list@);\n";
 			result += "}\n";
 		}
 		else throw new CompilerException("unkown operator: ListPlugin, " + token);
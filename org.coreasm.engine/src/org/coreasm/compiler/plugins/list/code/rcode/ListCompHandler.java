@@ -28,9 +28,6 @@ public class ListCompHandler implements CompilerCodeHandler {
 		ListCompNode compnode = (ListCompNode) node;
 		
 		CodeFragment guard = null;
-		if(!(compnode.getGuard() instanceof TrueGuardNode)){
-			guard = engine.compile(compnode.getGuard(), CodeType.R);
-		}
 		
 		List<String> constrnames = new ArrayList<String>();
 		
@@ -54,9 +51,15 @@ public class ListCompHandler implements CompilerCodeHandler {
 			}
 			
 			result.appendLine("localStack.pushLayer();\n");
+			engine.getVarManager().pushLocals();
 			
 			for(int i = 0; i < constrnames.size(); i++){
 				result.appendLine("localStack.put(\"" + constrnames.get(i) + "\", @domain" + i + "@.get(@c" + i + "@));\n");
+				engine.getVarManager().addLocal(constrnames.get(i));
+			}
+			
+			if(!(compnode.getGuard() instanceof TrueGuardNode)){
+				guard = engine.compile(compnode.getGuard(), CodeType.R);
 			}
 			
 			if(guard == null){
@@ -72,6 +75,7 @@ public class ListCompHandler implements CompilerCodeHandler {
 			}
 			
 			result.appendLine("localStack.popLayer();\n");
+			engine.getVarManager().popLocals();
 			
 			//close for loops
 			for(int i = 0; i < constrnames.size(); i++){
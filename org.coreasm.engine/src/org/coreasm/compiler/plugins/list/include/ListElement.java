@@ -98,7 +98,19 @@ public class ListElement extends AbstractListElement implements ModifiableIndexe
 		listElements.add(0, e);
 		listElements = Collections.unmodifiableList(listElements);
 	}
-	
+
+	/**
+	 * Returns a list that is equal to this list except that the element
+	 * at the given index (starting from 0) is replaced by the given element.
+	 * @param index The index of the replaced element
+	 * @param e The new element
+	 */
+	public ListElement with(int index, Element e) {
+		List<Element> newElements = new ArrayList<Element>(listElements);
+		newElements.set(index, e);
+		return new ListElement(newElements);
+	}
+
 	@Override
 	public boolean equals(Object anElement) {
 		if (anElement instanceof ListElement) {
@@ -325,6 +325,13 @@ public class PowerSetElement extends Element implements Enumerable, Collection<E
 			return Collections.unmodifiableCollection(value);
 		}
 	
+		public int hashCode() {
+			int result = 0;
+			for (Element e: value)
+				result += e.hashCode();
+			return result;
+		}
+	
 		public String toString() {
 			StringBuffer result = new StringBuffer();
 			for (Element e: value)
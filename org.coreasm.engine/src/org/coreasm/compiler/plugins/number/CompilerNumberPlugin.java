@@ -140,69 +140,69 @@ public class CompilerNumberPlugin extends CompilerCodePlugin implements
 			if (token.equals("+")) {
 				result = "if((@lhs@ instanceof @NumberElement@) && (@rhs@ instanceof @NumberElement@)){\n";
 				result = result
-						+ "evalStack.push(@NumberElement@.getInstance(((@NumberElement@)@lhs@).getValue() + ((@NumberElement@)@rhs@).getValue()));\n";
+						+ "@result@ = @NumberElement@.getInstance(((@NumberElement@)@lhs@).getValue() + ((@NumberElement@)@rhs@).getValue());\n";
 				result = result + "}\n";
 			} else if (token.equals("-")) {
 				result = "if((@lhs@ instanceof @NumberElement@) && (@rhs@ instanceof @NumberElement@)){\n";
 				result = result
-						+ "evalStack.push(@NumberElement@.getInstance(((@NumberElement@)@lhs@).getValue() - ((@NumberElement@)@rhs@).getValue()));\n";
+						+ "@result@ = @NumberElement@.getInstance(((@NumberElement@)@lhs@).getValue() - ((@NumberElement@)@rhs@).getValue());\n";
 				result = result + "}\n";
 			} else if (token.equals("*")) {
 				result = "if((@lhs@ instanceof " + numberelement + ") && (@rhs@ instanceof " + numberelement + ")){\n";
 				result = result
-						+ "evalStack.push(" + numberelement + ".getInstance(((" + numberelement + ")@lhs@).getValue() * ((" + numberelement + ")@rhs@).getValue()));\n";
+						+ "@result@ = " + numberelement + ".getInstance(((" + numberelement + ")@lhs@).getValue() * ((" + numberelement + ")@rhs@).getValue());\n";
 				result = result + "}\n";
 			} else if (token.equals("/")) {
 				result = "if((@lhs@ instanceof " + numberelement + ") && (@rhs@ instanceof " + numberelement + ")){\n";
 				result = result
-						+ "evalStack.push(" + numberelement + ".getInstance(((" + numberelement + ")@lhs@).getValue() / ((" + numberelement + ")@rhs@).getValue()));\n";
+						+ "@result@ = " + numberelement + ".getInstance(((" + numberelement + ")@lhs@).getValue() / ((" + numberelement + ")@rhs@).getValue());\n";
 				result = result + "}\n";
 			} else if (token.equals("div")) {
 				result = "if((@lhs@ instanceof " + numberelement + ") && (@rhs@ instanceof " + numberelement + ")){\n";
 				result = result
 						+ "@decl(double,nmbr1)=((" + numberelement + ")@lhs@).getValue();\n"
 						+ "@decl(double,nmbr2)=((" + numberelement + ")@rhs@).getValue();\n"
-						+ "evalStack.push(" + numberelement + ".getInstance((@nmbr1@-(@nmbr1@%@nmbr2@))/@nmbr2@));\n";
+						+ "@result@ = " + numberelement + ".getInstance((@nmbr1@-(@nmbr1@%@nmbr2@))/@nmbr2@);\n";
 				result = result + "}\n";
 			} else if (token.equals("%")) {
 				result = "if((@lhs@ instanceof " + numberelement + ") && (@rhs@ instanceof " + numberelement + ")){\n";
 				result = result
-						+ "evalStack.push(" + numberelement + ".getInstance(((" + numberelement + ")@lhs@).getValue() % ((" + numberelement + ")@rhs@).getValue()));\n";
+						+ "@result@ = " + numberelement + ".getInstance(((" + numberelement + ")@lhs@).getValue() % ((" + numberelement + ")@rhs@).getValue());\n";
 				result = result + "}\n";
 			} else if (token.equals("^")) {
 				result = "if((@lhs@ instanceof " + numberelement + ") && (@rhs@ instanceof " + numberelement + ")){\n";
 				result = result
 						+ "@decl(double,nmbr1)=((" + numberelement + ")@lhs@).getValue();\n"
 						+ "@decl(double,nmbr2)=((" + numberelement + ")@rhs@).getValue();\n"
-						+ "evalStack.push(" + numberelement + ".getInstance(Math.pow(@nmbr1@,@nmbr2@)));\n";
+						+ "@result@ = " + numberelement + ".getInstance(Math.pow(@nmbr1@,@nmbr2@));\n";
 				result = result + "}\n";
 			} else if (token.equals(">")) {
 				result = "if((@lhs@ instanceof " + numberelement + ") && (@rhs@ instanceof " + numberelement + ")){\n";
 				result = result
 						+ "@decl(double,nmbr1)=((" + numberelement + ")@lhs@).getValue();\n"
 						+ "@decl(double,nmbr2)=((" + numberelement + ")@rhs@).getValue();\n"
-						+ "evalStack.push(CompilerRuntime.BooleanElement.valueOf(@nmbr1@>@nmbr2@));\n";
+						+ "@result@ = CompilerRuntime.BooleanElement.valueOf(@nmbr1@>@nmbr2@);\n";
 				result = result + "}\n";
 			} else if (token.equals(">=")) {
 				result = "if((@lhs@ instanceof " + numberelement + ") && (@rhs@ instanceof " + numberelement + ")){\n";
 				result = result
 						+ "@decl(double,nmbr1)=((" + numberelement + ")@lhs@).getValue();\n"
 						+ "@decl(double,nmbr2)=((" + numberelement + ")@rhs@).getValue();\n"
-						+ "evalStack.push(CompilerRuntime.BooleanElement.valueOf(@nmbr1@>=@nmbr2@));\n";
+						+ "@result@ = CompilerRuntime.BooleanElement.valueOf(@nmbr1@>=@nmbr2@);\n";
 				result = result + "}\n";
 			} else if (token.equals("<")) {
 				result = "if((@lhs@ instanceof " + numberelement + ") && (@rhs@ instanceof " + numberelement + ")){\n";
 				result = result
 						+ "@decl(double,nmbr1)=((" + numberelement + ")@lhs@).getValue();\n"
 						+ "@decl(double,nmbr2)=((" + numberelement + ")@rhs@).getValue();\n"
-						+ "evalStack.push(CompilerRuntime.BooleanElement.valueOf(@nmbr1@<@nmbr2@));\n";
+						+ "@result@ = CompilerRuntime.BooleanElement.valueOf(@nmbr1@<@nmbr2@);\n";
 				result = result + "}\n";
 			} else if (token.equals("<=")) {
 				result = "if((@lhs@ instanceof " + numberelement + ") && (@rhs@ instanceof " + numberelement + ")){\n";
 				result = result
 						+ "@decl(double,nmbr1)=((" + numberelement + ")@lhs@).getValue();\n"
 						+ "@decl(double,nmbr2)=((" + numberelement + ")@rhs@).getValue();\n"
-						+ "evalStack.push(CompilerRuntime.BooleanElement.valueOf(@nmbr1@<=@nmbr2@));\n";
+						+ "@result@ = CompilerRuntime.BooleanElement.valueOf(@nmbr1@<=@nmbr2@);\n";
 				result = result + "}\n";
 			} else {
 				throw new CompilerException("unknown operator call: NumberPlugin, "
@@ -221,7 +221,7 @@ public class CompilerNumberPlugin extends CompilerCodePlugin implements
 			if (token.equals("-")) {
 				result = "if((@lhs@ instanceof @NumberElement@)){\n";
 				result = result
-						+ "evalStack.push(@NumberElement@.getInstance(0 - ((@NumberElement@)@lhs@).getValue()));\n";
+						+ "@result@ = @NumberElement@.getInstance(0 - ((@NumberElement@)@lhs@).getValue());\n";
 				result = result + "}\n";
 			} else
 				throw new CompilerException("unknown operator call: NumberPlugin, "
@@ -453,7 +453,7 @@ public class CompilerNumberPlugin extends CompilerCodePlugin implements
 
 		@Override
 		public void registerCodeHandlers() throws CompilerException {
-			register(new NumberHandler(), CodeType.R, "Expression", "NUMBER", null);
+			register(new NumberHandler(), "Expression", "NUMBER", null);
 			register(new NumberRangeHandler(), CodeType.R, "Expression", "NumberRangeTerm", null);
 			register(new SizeOfHandler(), CodeType.R, "Expression", "SizeOfEnumTerm", null);
 		}
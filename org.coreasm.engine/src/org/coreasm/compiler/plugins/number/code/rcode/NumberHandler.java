@@ -4,7 +4,7 @@ import org.coreasm.compiler.CompilerEngine;
 import org.coreasm.compiler.codefragment.CodeFragment;
 import org.coreasm.compiler.components.classlibrary.LibraryEntryType;
 import org.coreasm.compiler.exception.CompilerException;
-import org.coreasm.compiler.interfaces.CompilerCodeHandler;
+import org.coreasm.compiler.interfaces.CompilerValueHandler;
 import org.coreasm.engine.interpreter.ASTNode;
 
 /**
@@ -12,14 +12,14 @@ import org.coreasm.engine.interpreter.ASTNode;
  * @author Spellmaker
  *
  */
-public class NumberHandler implements CompilerCodeHandler {
+public class NumberHandler implements CompilerValueHandler {
 
 	@Override
-	public void compile(CodeFragment result, ASTNode node, CompilerEngine engine)
+	public void compileValue(CodeFragment result, ASTNode node, String target, CompilerEngine engine)
 			throws CompilerException {
 		String numberelement = engine.getPath().getEntryName(LibraryEntryType.STATIC, "NumberElement", "NumberPlugin");
-		result.appendLine("evalStack.push(" + numberelement + ".getInstance("
-				+ Double.parseDouble(node.getToken()) + "));\n");
+		result.appendLine(target + " = " + numberelement + ".getInstance("
+				+ Double.parseDouble(node.getToken()) + ");\n");
 	}
 
 }
@@ -77,7 +77,7 @@ public class CompilerPredicateLogicPlugin extends CompilerCodePlugin implements
 			result = result
 					+ "@decl(@RuntimePkg@.BooleanElement,r)=(@RuntimePkg@.BooleanElement)@rhs@;\n";
 			result = result
-					+ "evalStack.push(@RuntimePkg@.BooleanElement.valueOf(@l@.equals(@RuntimePkg@.BooleanElement.TRUE) || @r@.equals(@RuntimePkg@.BooleanElement.TRUE)));\n";
+					+ "@result@ = @RuntimePkg@.BooleanElement.valueOf(@l@.equals(@RuntimePkg@.BooleanElement.TRUE) || @r@.equals(@RuntimePkg@.BooleanElement.TRUE));\n";
 		} else if (token.equals("xor")) {
 			result = result
 					+ "if((@lhs@ instanceof @RuntimePkg@.BooleanElement) && (@rhs@ instanceof @RuntimePkg@.BooleanElement)){\n";
@@ -87,7 +87,7 @@ public class CompilerPredicateLogicPlugin extends CompilerCodePlugin implements
 					+ "@decl(@RuntimePkg@.BooleanElement,r)=(@RuntimePkg@.BooleanElement)@rhs@;\n";
 
 			result = result
-					+ "evalStack.push(@RuntimePkg@.BooleanElement.valueOf((@l@.getValue() && !@r@.getValue()) || (!@l@.getValue() && @r@.getValue())));\n";
+					+ "@result@ = @RuntimePkg@.BooleanElement.valueOf((@l@.getValue() && !@r@.getValue()) || (!@l@.getValue() && @r@.getValue()));\n";
 		} else if (token.equals("and")) {
 			result = result
 					+ "if((@lhs@ instanceof @RuntimePkg@.BooleanElement) && (@rhs@ instanceof @RuntimePkg@.BooleanElement)){\n";
@@ -96,7 +96,7 @@ public class CompilerPredicateLogicPlugin extends CompilerCodePlugin implements
 			result = result
 					+ "@decl(@RuntimePkg@.BooleanElement,r)=(@RuntimePkg@.BooleanElement)@rhs@;\n";
 			result = result
-					+ "evalStack.push(@RuntimePkg@.BooleanElement.valueOf(@l@.equals(@RuntimePkg@.BooleanElement.TRUE) && @r@.equals(@RuntimePkg@.BooleanElement.TRUE)));\n";
+					+ "@result@ = @RuntimePkg@.BooleanElement.valueOf(@l@.equals(@RuntimePkg@.BooleanElement.TRUE) && @r@.equals(@RuntimePkg@.BooleanElement.TRUE));\n";
 		} else if (token.equals("implies")) {
 			result = result
 					+ "if((@lhs@ instanceof @RuntimePkg@.BooleanElement) && (@rhs@ instanceof @RuntimePkg@.BooleanElement)){\n";
@@ -105,10 +105,10 @@ public class CompilerPredicateLogicPlugin extends CompilerCodePlugin implements
 			result = result
 					+ "@decl(@RuntimePkg@.BooleanElement,r)=(@RuntimePkg@.BooleanElement)@rhs@;\n";
 			result = result
-					+ "evalStack.push(@RuntimePkg@.BooleanElement.valueOf(!@l@.equals(@RuntimePkg@.BooleanElement.TRUE) || @r@.equals(@RuntimePkg@.BooleanElement.TRUE)));\n";
+					+ "@result@ = @RuntimePkg@.BooleanElement.valueOf(!@l@.equals(@RuntimePkg@.BooleanElement.TRUE) || @r@.equals(@RuntimePkg@.BooleanElement.TRUE));\n";
 		} else if (token.equals("!=")) {
 			result += "if(true){\n";
-			result += "evalStack.push(@RuntimePkg@.BooleanElement.valueOf(!@lhs@.equals(@rhs@)));\n";
+			result += "@result@ = @RuntimePkg@.BooleanElement.valueOf(!@lhs@.equals(@rhs@));\n";
 			// result = result +
 			// "if((@lhs@ instanceof CompilerRuntime.BooleanElement) && (@rhs@ instanceof CompilerRuntime.BooleanElement)){\n";
 			// result = result +
@@ -121,20 +121,18 @@ public class CompilerPredicateLogicPlugin extends CompilerCodePlugin implements
 			result = result
 					+ "if((@lhs@ instanceof @RuntimePkg@.Element) && (@rhs@ instanceof @RuntimePkg@.Enumerable)){\n";
 			result += ("if(!(@rhs@ instanceof @RuntimePkg@.Enumerable)){\n");
-			result += ("evalStack.push(@RuntimePkg@.Element.UNDEF);\n");
+			result += ("@result@ = @RuntimePkg@.Element.UNDEF;\n");
 			result += ("}\n");
 			result += ("else if(@lhs@.equals(@RuntimePkg@.Element.UNDEF)){\n");
-			result += ("evalStack.push(@RuntimePkg@.Element.UNDEF);\n");
+			result += ("@result@ = @RuntimePkg@.Element.UNDEF;\n");
 			result += ("}\n");
 			result += ("else{\n");
 			result += ("@decl(java.util.List<@RuntimePkg@.Element>,list)=new java.util.ArrayList<@RuntimePkg@.Element>();\n");
 			result += ("@list@.addAll(((@RuntimePkg@.Enumerable)@rhs@).enumerate());\n");
-			result += ("for(@decl(int,i)=0;@i@<=@list@.size();@i@++){\n");
-			result += ("if(@i@ == @list@.size()){\n");
-			result += ("evalStack.push(@RuntimePkg@.BooleanElement.FALSE);\n");
-			result += ("}\n");
-			result += ("else if(@lhs@.equals(@list@.get(@i@))){\n");
-			result += ("evalStack.push(@RuntimePkg@.BooleanElement.TRUE);\n");
+			result += ("@result@ = @RuntimePkg@.BooleanElement.FALSE;\n");
+			result += ("for(@decl(int,i)=0;@i@<@list@.size();@i@++){\n");
+			result += ("if(@lhs@.equals(@list@.get(@i@))){\n");
+			result += ("@result@ = @RuntimePkg@.BooleanElement.TRUE;\n");
 			result += ("break;\n");
 			result += ("}\n");
 			result += ("}\n");
@@ -143,20 +141,18 @@ public class CompilerPredicateLogicPlugin extends CompilerCodePlugin implements
 			result = result
 					+ "if((@lhs@ instanceof @RuntimePkg@.Element) && (@rhs@ instanceof @RuntimePkg@.Enumerable)){\n";
 			result += ("if(!(@rhs@ instanceof @RuntimePkg@.Enumerable)){\n");
-			result += ("evalStack.push(@RuntimePkg@.Element.UNDEF);\n");
+			result += ("@result@ = @RuntimePkg@.Element.UNDEF;\n");
 			result += ("}\n");
 			result += ("else if(@lhs@.equals(@RuntimePkg@.Element.UNDEF)){\n");
-			result += ("evalStack.push(@RuntimePkg@.Element.UNDEF);\n");
+			result += ("@result@ = @RuntimePkg@.Element.UNDEF;\n");
 			result += ("}\n");
 			result += ("else{\n");
 			result += ("@decl(java.util.List<@RuntimePkg@.Element>,list)=new java.util.ArrayList<@RuntimePkg@.Element>();\n");
 			result += ("@list@.addAll(((@RuntimePkg@.Enumerable)@rhs@).enumerate());\n");
-			result += ("for(@decl(int,i)=0;@i@<=@list@.size();@i@++){\n");
-			result += ("if(@i@ == @list@.size()){\n");
-			result += ("evalStack.push(@RuntimePkg@.BooleanElement.TRUE);\n");
-			result += ("}\n");
-			result += ("else if(@lhs@.equals(@list@.get(@i@))){\n");
-			result += ("evalStack.push(@RuntimePkg@.BooleanElement.FALSE);\n");
+			result += ("@result@ = @RuntimePkg@.BooleanElement.TRUE;\n");
+			result += ("for(@decl(int,i)=0;@i@<@list@.size();@i@++){\n");
+			result += ("if(@lhs@.equals(@list@.get(@i@))){\n");
+			result += ("@result@ = @RuntimePkg@.BooleanElement.FALSE;\n");
 			result += ("break;\n");
 			result += ("}\n");
 			result += ("}\n");
@@ -179,7 +175,7 @@ public class CompilerPredicateLogicPlugin extends CompilerCodePlugin implements
 
 		if (token.equals("not")) {
 			result += "if(@lhs@ instanceof @RuntimePkg@.BooleanElement){\n";
-			result += "evalStack.push(@RuntimePkg@.BooleanElement.valueOf(@lhs@.equals(@RuntimePkg@.BooleanElement.FALSE)));\n";
+			result += "@result@ = @RuntimePkg@.BooleanElement.valueOf(@lhs@.equals(@RuntimePkg@.BooleanElement.FALSE));\n";
 			result += "}\n";
 		} else
 			throw new CompilerException(
@@ -27,6 +27,7 @@ public class ForallExpHandler implements CompilerCodeHandler {
 		
 		result.appendLine("//forAllExp starts here\n");
 		result.appendLine("localStack.pushLayer();\n");
+		engine.getVarManager().pushLocals();
 		int varcount = 0;
 		
 		String[] varnames = new String[vars.size()];
@@ -48,6 +49,7 @@ public class ForallExpHandler implements CompilerCodeHandler {
 		for(int i = 0; i < varcount; i++){
 			result.appendLine("for(@decl(int, i" + i + ")=0; @i" + i + "@ < @var" + i + "@.size(); @i" + i + "@++){\n");
 			result.appendLine("localStack.put(\"" + varnames[i] + "\", @var" + i + "@.get(@i" + i + "@));\n");
+			engine.getVarManager().addLocal(varnames[i]);
 		}
 
 		result.appendFragment(engine.compile(forAllExp.getCondition(), CodeType.R));
@@ -61,6 +63,7 @@ public class ForallExpHandler implements CompilerCodeHandler {
 		}
 		result.appendLine("}\n");
 		result.appendLine("localStack.popLayer();\n");
+		engine.getVarManager().popLocals();
 		result.appendLine("evalStack.push(@RuntimePkg@.BooleanElement.valueOf(@result@));");
 	}
 
@@ -86,44 +86,44 @@ public class CompilerSetPlugin extends CompilerCodePlugin implements CompilerPlu
 				+ "@decl(" + abstractsetelement + ",set2)=(" + abstractsetelement + ")@rhs@;\n";
 		
 		if(token.equals("union")){
-			result += "@decl(java.util.List<@RuntimePkg@.Element>,result)=new java.util.ArrayList<@RuntimePkg@.Element>();\n";
+			result += "@decl(java.util.List<@RuntimePkg@.Element>,elements)=new java.util.ArrayList<@RuntimePkg@.Element>();\n";
 			result += "@decl(java.util.List<@RuntimePkg@.Element>,el1)=new java.util.ArrayList<@RuntimePkg@.Element>(@set1@.enumerate());\n";
 			result += "@decl(java.util.List<@RuntimePkg@.Element>,el2)=new java.util.ArrayList<@RuntimePkg@.Element>(@set2@.enumerate());\n";
 			result += "for(@decl(@RuntimePkg@.Element,e) : @el1@){\n";
-			result += "@result@.add(@e@);\n";
+			result += "@elements@.add(@e@);\n";
 			result += "}\n";
 			result += "for(@decl(@RuntimePkg@.Element,e2) : @el2@){\n";
-			result += "@result@.add(@e2@);\n";
+			result += "@elements@.add(@e2@);\n";
 			result += "}\n";
-			result += "evalStack.push(new " + setelement + "(@result@));\n";
+			result += "@result@ = new " + setelement + "(@elements@);\n";
 		}
 		else if(token.equals("intersect")){
-			result += "@decl(java.util.List<@RuntimePkg@.Element>,result)=new java.util.ArrayList<@RuntimePkg@.Element>();\n";
+			result += "@decl(java.util.List<@RuntimePkg@.Element>,elements)=new java.util.ArrayList<@RuntimePkg@.Element>();\n";
 			result += "@decl(java.util.List<@RuntimePkg@.Element>,el1)=new java.util.ArrayList<@RuntimePkg@.Element>(@set1@.enumerate());\n";
 			result += "@decl(java.util.List<@RuntimePkg@.Element>,el2)=new java.util.ArrayList<@RuntimePkg@.Element>(@set2@.enumerate());\n";
 			result += "for(@decl(@RuntimePkg@.Element,e) : @el1@){\n";
 			result += "if(@el2@.contains(@e@)){\n";
-			result += "@result@.add(@e@);\n";
+			result += "@elements@.add(@e@);\n";
 			result += "}\n";
 			result += "}\n";
-			result += "evalStack.push(new " + setelement + "(@result@));\n";
+			result += "@result@ = new " + setelement + "(@elements@);\n";
 		}
 		else if(token.equals("diff")){
-			result += "@decl(java.util.List<@RuntimePkg@.Element>,result)=new java.util.ArrayList<@RuntimePkg@.Element>();\n";
+			result += "@decl(java.util.List<@RuntimePkg@.Element>,elements)=new java.util.ArrayList<@RuntimePkg@.Element>();\n";
 			result += "@decl(java.util.List<@RuntimePkg@.Element>,el1)=new java.util.ArrayList<@RuntimePkg@.Element>(@set1@.enumerate());\n";
 			result += "@decl(java.util.List<@RuntimePkg@.Element>,el2)=new java.util.ArrayList<@RuntimePkg@.Element>(@set2@.enumerate());\n";
 			result += "for(@decl(CompilerRuntime.Element,e) : @el1@){\n";
 			result += "if(!@el2@.contains(@e@)){\n";
-			result += "@result@.add(@e@);\n";
+			result += "@elements@.add(@e@);\n";
 			result += "}\n";
 			result += "}\n";
-			result += "evalStack.push(new " + setelement + "(@result@));\n";
+			result += "@result@ = new " + setelement + "(@elements@);\n";
 		}
 		else if(token.equals("subset")){
-			result += "@decl(java.util.List<@RuntimePkg@.Element>,result)=new java.util.ArrayList<@RuntimePkg@.Element>();\n";
+			result += "@decl(java.util.List<@RuntimePkg@.Element>,elements)=new java.util.ArrayList<@RuntimePkg@.Element>();\n";
 			result += "@decl(java.util.List<@RuntimePkg@.Element>,el1)=new java.util.ArrayList<@RuntimePkg@.Element>(@set1@.enumerate());\n";
 			result += "@decl(java.util.List<@RuntimePkg@.Element>,el2)=new java.util.ArrayList<@RuntimePkg@.Element>(@set2@.enumerate());\n";
-			result += "evalStack.push(@RuntimePkg@.BooleanElement.valueOf(@el2@.containsAll(@el1@)));\n";
+			result += "@result@ = @RuntimePkg@.BooleanElement.valueOf(@el2@.containsAll(@el1@));\n";
 		}
 		else{
 			throw new CompilerException("unknown operator call: SetPlugin, "
@@ -39,8 +39,6 @@ public class ComprehensionHandler implements CompilerCodeHandler {
 		
 		//guard might be non existent, so initialize it
 		CodeFragment guard = null;
-		//optimization: the true guard is always true anyway, so if it is existent, leave it out
-		if(!(cnode.getGuard() instanceof TrueGuardNode)) guard = engine.compile(cnode.getGuard(), CodeType.R);
 
 		List<String> constrnames = new ArrayList<String>();
 		
@@ -64,11 +62,16 @@ public class ComprehensionHandler implements CompilerCodeHandler {
 			}
 			
 			result.appendLine("localStack.pushLayer();\n");
+			engine.getVarManager().pushLocals();
 			
 			for(int i = 0; i < constrnames.size(); i++){
 				result.appendLine("localStack.put(\"" + constrnames.get(i) + "\", @domain" + i + "@.get(@c" + i + "@));\n");
+				engine.getVarManager().addLocal(constrnames.get(i));
 			}
 			
+			//optimization: the true guard is always true anyway, so if it is existent, leave it out
+			if(!(cnode.getGuard() instanceof TrueGuardNode)) guard = engine.compile(cnode.getGuard(), CodeType.R);
+			
 			if(guard == null){
 				result.appendFragment(engine.compile(cnode.getSetFunction(), CodeType.R));
 				result.appendLine("@list@.add((@RuntimePkg@.Element)evalStack.pop());\n");
@@ -82,6 +85,7 @@ public class ComprehensionHandler implements CompilerCodeHandler {
 			}
 			
 			result.appendLine("localStack.popLayer();\n");
+			engine.getVarManager().popLocals();
 			
 			//close for loops
 			for(int i = 0; i < constrnames.size(); i++){
@@ -207,7 +207,7 @@ public class CompilerSignaturePlugin extends CompilerCodePlugin implements Compi
 			code += "if(@func@ == null){\n";
 				code += "System.out.println(\"Function \" + @fname@ +\" does not exist but there is an update for it\");\n";
 				if(succ){
-					code += "System.exit(0);\n";
+					code += "CompilerRuntime.RuntimeProvider.exit(0);\n";
 				}
 				else{
 					code += "continue;\n";
@@ -218,7 +218,7 @@ public class CompilerSignaturePlugin extends CompilerCodePlugin implements Compi
 			code += "if(@u@.loc.args.size() != @sig@.getDomain().size()){\n";
 				code += "System.out.println(\"The arity of function in update \" + @u@.toString() +\" does not match the signature \" + @sig@ + \" for function \" + @fname@);\n";
 				if(succ){
-					code += "System.exit(0);\n";
+					code += "CompilerRuntime.RuntimeProvider.exit(0);\n";
 				}
 				else{
 					code += "continue;\n";
@@ -233,12 +233,12 @@ public class CompilerSignaturePlugin extends CompilerCodePlugin implements Compi
 					code += "@decl(CompilerRuntime.AbstractUniverse,domain)=@storage@.getUniverse(@domName@);\n";
 					code += "if(@domain@ == null){\n";
 						code += "System.out.println(\"Could not find universe \" + @domName@);\n";
-						code += "System.exit(0);\n";
+						code += "CompilerRuntime.RuntimeProvider.exit(0);\n";
 					code += "}\n";
 					code += "if(!@domain@.member(@arg@)){\n";
 						code += "System.out.println(\"Parameter \" + @i@ + \" in update \" + @u@.toString() + \" is not a member of \" + @domName@ +\" and does not match the signature \" + @sig@.toString());\n";
 						if(succ){
-							code += "System.exit(0);\n";
+							code += "CompilerRuntime.RuntimeProvider.exit(0);\n";
 						}
 						else{
 							code += "continue;\n";
@@ -252,12 +252,12 @@ public class CompilerSignaturePlugin extends CompilerCodePlugin implements Compi
 			code += "@decl(CompilerRuntime.AbstractUniverse,range)=@storage@.getUniverse(@rangeName@);\n";
 			code += "if(@range@ == null){\n";
 				code += "System.out.println(\"Could not find universe \" + @rangeName@);\n";
-				code += "System.exit(0);\n";
+				code += "CompilerRuntime.RuntimeProvider.exit(0);\n";
 			code += "}\n";
 			code += "if(!@range@.member(@u@.value)){\n";
 				code += "System.out.println(\"The value \" + @u@.value.toString() + \" is not a member of \" + @rangeName@ + \" and does not match signature \" + @rangeName@);\n";
 				if(succ){
-					code += "System.exit(0);\n";
+					code += "CompilerRuntime.RuntimeProvider.exit(0);\n";
 				}
 				else{
 					code += "continue;\n";
@@ -112,7 +112,7 @@ public class CompilerStringPlugin extends CompilerCodePlugin implements Compiler
 		String stringelement = engine.getPath().getEntryName(LibraryEntryType.STATIC, "StringElement", "StringPlugin");
 		if (token.equals("+")) {
 			result += "if((@lhs@ instanceof " + stringelement + ") || (@rhs@ instanceof " + stringelement + ")){\n";
-			result += "evalStack.push(new " + stringelement + "(@lhs@.toString() + @rhs@.toString()));\n";
+			result += "@result@ = new " + stringelement + "(@lhs@.toString() + @rhs@.toString());\n";
 			result += "}\n";
 		} else
 			throw new CompilerException("unkown operator: StringPlugin, "
@@ -224,7 +224,7 @@ public class CompilerStringPlugin extends CompilerCodePlugin implements Compiler
 
 	@Override
 	public void registerCodeHandlers() throws CompilerException {
-		register(new StringTermHandler(), CodeType.R, "Expression", "StringTerm", null);
+		register(new StringTermHandler(), "Expression", "StringTerm", null);
 	}
 
 	@Override
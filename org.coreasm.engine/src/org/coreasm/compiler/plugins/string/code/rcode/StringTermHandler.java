@@ -4,7 +4,7 @@ import org.coreasm.compiler.CompilerEngine;
 import org.coreasm.compiler.codefragment.CodeFragment;
 import org.coreasm.compiler.components.classlibrary.LibraryEntryType;
 import org.coreasm.compiler.exception.CompilerException;
-import org.coreasm.compiler.interfaces.CompilerCodeHandler;
+import org.coreasm.compiler.interfaces.CompilerValueHandler;
 import org.coreasm.engine.interpreter.ASTNode;
 
 /**
@@ -12,14 +12,14 @@ import org.coreasm.engine.interpreter.ASTNode;
  * @author Spellmaker
  *
  */
-public class StringTermHandler implements CompilerCodeHandler {
+public class StringTermHandler implements CompilerValueHandler {
 
 	@Override
-	public void compile(CodeFragment result, ASTNode node, CompilerEngine engine)
+	public void compileValue(CodeFragment result, ASTNode node, String target, CompilerEngine engine)
 			throws CompilerException {
 		String stringelement = engine.getPath().getEntryName(LibraryEntryType.STATIC, "StringElement", "StringPlugin");
-		result.appendLine("evalStack.push(new " + stringelement + "(\""
-						+ replaceEscapeSeq(node.getToken()) + "\"));\n");
+		result.appendLine(target + " = new " + stringelement + "(\""
+						+ replaceEscapeSeq(node.getToken()) + "\");\n");
 	}
 	
 	private String replaceEscapeSeq(String o){		
@@ -28,52 +28,59 @@ public class ReturnResultHandler implements CompilerCodeHandler {
 		String name = rulecall.getAbstractChildNodes().get(0).getToken();
 		
 		result.appendLine("@decl(java.util.ArrayList<@RuntimePkg@.RuleParam>,arglist)=new java.util.ArrayList<>();");
-		for(int i = 1; i < rulecall.getAbstractChildNodes().size(); i++){
-			CodeFragment tmp = engine.compile(rulecall.getAbstractChildNodes().get(i), CodeType.R);
-			// create the param object and push it onto the stack
+		//the parameters are evaluated on the local stack of the called rule
+		engine.getVarManager().startDynamicFrame();
+		try{
+			for(int i = 1; i < rulecall.getAbstractChildNodes().size(); i++){
+				CodeFragment tmp = engine.compile(rulecall.getAbstractChildNodes().get(i), CodeType.R);
+				// create the param object and push it onto the stack
+				result.appendLine("\n@arglist@.add(new @RuntimePkg@.RuleParam(){\n");
+				result.appendLine("public @RuntimePkg@.Rule getUpdateResponsible(){\nreturn null;\n}\n");
+				result.appendLine("java.util.Map<String, @RuntimePkg@.RuleParam> ruleparams;\n");
+				result.appendLine("public void setParams(java.util.Map<String, @RuntimePkg@.RuleParam> params){\n");
+				result.appendLine("this.ruleparams = params;\n");
+				result.appendLine("}\n");
+			
+				//try to create code for the location of the parameter
+				result.appendLine("public @RuntimePkg@.Location evaluateL(@RuntimePkg@.LocalStack localStack) throws Exception{\n");
+				try{
+					CodeFragment tmpl = engine.compile(rulecall.getAbstractChildNodes().get(i), CodeType.L);
+					result.appendFragment(tmpl);
+					result.appendLine("return (@RuntimePkg@.Location) evalStack.pop();\n");	
+				}
+				catch(Exception e){
+					result.appendLine("throw new Exception(\"This ruleparam cannot be evaluated as a location\");\n");
+				}
+				result.appendLine("}\n");
+			
+			
+				result.appendLine("public @RuntimePkg@.Element evaluateR(CompilerRuntime.LocalStack localStack) throws Exception{\n");
+				result.appendFragment(tmp);
+				result.appendLine("\nreturn (@RuntimePkg@.Element)evalStack.pop();\n}\n});\n");
+				result.appendLine("@arglist@.get(@arglist@.size() - 1).setParams(ruleparams);\n");
+			}
+			//add a new parameter for the value of the left location
 			result.appendLine("\n@arglist@.add(new @RuntimePkg@.RuleParam(){\n");
 			result.appendLine("public @RuntimePkg@.Rule getUpdateResponsible(){\nreturn null;\n}\n");
 			result.appendLine("java.util.Map<String, @RuntimePkg@.RuleParam> ruleparams;\n");
 			result.appendLine("public void setParams(java.util.Map<String, @RuntimePkg@.RuleParam> params){\n");
 			result.appendLine("this.ruleparams = params;\n");
 			result.appendLine("}\n");
-			
-			//try to create code for the location of the parameter
 			result.appendLine("public @RuntimePkg@.Location evaluateL(@RuntimePkg@.LocalStack localStack) throws Exception{\n");
-			try{
-				CodeFragment tmpl = engine.compile(rulecall.getAbstractChildNodes().get(i), CodeType.L);
-				result.appendFragment(tmpl);
-				result.appendLine("return (@RuntimePkg@.Location) evalStack.pop();\n");	
-			}
-			catch(Exception e){
-				result.appendLine("throw new Exception(\"This ruleparam cannot be evaluated as a location\");\n");
-			}
+			//location returned is always "result"
+			result.appendLine("return new @RuntimePkg@.Location(\"result\", @RuntimePkg@.ElementList.NO_ARGUMENT);\n");
 			result.appendLine("}\n");
-			
-			
-			result.appendLine("public @RuntimePkg@.Element evaluateR(CompilerRuntime.LocalStack localStack) throws Exception{\n");
-			result.appendFragment(tmp);
+			result.appendLine("public @RuntimePkg@.Element evaluateR(@RuntimePkg@.LocalStack localStack) throws Exception{\n");
+			//first, try to find a value for an update to a location "result"
+			result.appendLine("@decl(@RuntimePkg@.Element, possres) = @RuntimeProvider@.getStorage().getValue(new @RuntimePkg@.Location(\"result\", @RuntimePkg@.ElementList.NO_ARGUMENT));\n");
+			result.appendLine("if(@possres@ != null) return @possres@;\n");
+			result.appendFragment(engine.compile(leftpart, CodeType.R));
 			result.appendLine("\nreturn (@RuntimePkg@.Element)evalStack.pop();\n}\n});\n");
 			result.appendLine("@arglist@.get(@arglist@.size() - 1).setParams(ruleparams);\n");
 		}
-		//add a new parameter for the value of the left location
-		result.appendLine("\n@arglist@.add(new @RuntimePkg@.RuleParam(){\n");
-		result.appendLine("public @RuntimePkg@.Rule getUpdateResponsible(){\nreturn null;\n}\n");
-		result.appendLine("java.util.Map<String, @RuntimePkg@.RuleParam> ruleparams;\n");
-		result.appendLine("public void setParams(java.util.Map<String, @RuntimePkg@.RuleParam> params){\n");
-		result.appendLine("this.ruleparams = params;\n");
-		result.appendLine("}\n");
-		result.appendLine("public @RuntimePkg@.Location evaluateL(@RuntimePkg@.LocalStack localStack) throws Exception{\n");
-		//location returned is always "result"
-		result.appendLine("return new @RuntimePkg@.Location(\"result\", @RuntimePkg@.ElementList.NO_ARGUMENT);\n");
-		result.appendLine("}\n");
-		result.appendLine("public @RuntimePkg@.Element evaluateR(@RuntimePkg@.LocalStack localStack) throws Exception{\n");
-		//first, try to find a value for an update to a location "result"
-		result.appendLine("@decl(@RuntimePkg@.Element, possres) = @RuntimeProvider@.getStorage().getValue(new @RuntimePkg@.Location(\"result\", @RuntimePkg@.ElementList.NO_ARGUMENT));\n");
-		result.appendLine("if(@possres@ != null) return @possres@;\n");
-		result.appendFragment(engine.compile(leftpart, CodeType.R));
-		result.appendLine("\nreturn (@RuntimePkg@.Element)evalStack.pop();\n}\n});\n");
-		result.appendLine("@arglist@.get(@arglist@.size() - 1).setParams(ruleparams);\n");
+		finally{
+			engine.getVarManager().endLocalFrame();
+		}
 		
 		//result.appendLine("\n@arglist@.add(new CompilerRuntime.RuleParam(){\npublic CompilerRuntime.Element evaluate(CompilerRuntime.LocalStack localStack) throws Exception{\n");
 		//result.appendLine("\nreturn (CompilerRuntime.Element)evalStack.pop();\n}\n});\n");
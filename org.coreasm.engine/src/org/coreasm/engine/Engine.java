@@ -32,6 +32,7 @@ import org.coreasm.engine.absstorage.Element;
 import org.coreasm.engine.absstorage.HashStorage;
 import org.coreasm.engine.absstorage.InvalidLocationException;
 import org.coreasm.engine.absstorage.State;
+import org.coreasm.engine.absstorage.StateHistory;
 import org.coreasm.engine.absstorage.Update;
 import org.coreasm.engine.absstorage.UpdateMultiset;
 import org.coreasm.engine.interpreter.Interpreter;
@@ -80,6 +81,9 @@ public class Engine implements ControlAPI {
 
 	private final AbstractStorage storage;
 
+	/** History of the previous states */
+	private final StateHistory history;
+
 	private final Scheduler scheduler;
 
 	private final Interpreter interpreter;
@@ -156,6 +160,7 @@ public class Engine implements ControlAPI {
 			this.properties.putAll(properties);
 
 		storage = new HashStorage(this);
+		history = new StateHistory(storage, 0);
 		scheduler = new SchedulerImp(this);
 		parser = new JParsecParser(this);
 		interpreter = new InterpreterImp(this);
@@ -339,15 +344,19 @@ public class Engine implements ControlAPI {
 	}
 
 	/**
-	 * This method is not supported by this engine.
+	 * Returns the i'th previous state, or <code>null</code> if it is not
+	 * kept. The number of previous states kept is set by the
+	 * {@link EngineProperties#STATE_HISTORY_SIZE} property.
 	 *
-	 * @throws UnsupportedOperationException
 	 * @see ControlAPI#getPrevState(int)
+	 * @see StateHistory#getState(int)
 	 */
 	@Override
 	public State getPrevState(int i) {
-		throw new UnsupportedOperationException(
-				"State history is not supported yet.");
+		if (i == 0)
+			return storage;
+		else
+			return history.getState(i);
 	}
 
 	@Override
@@ -355,7 +364,7 @@ public class Engine implements ControlAPI {
 		if (i == 0)
 			return scheduler.getUpdateSet();
 		else
-			return null;
+			return history.getUpdateSet(i);
 	}
 
 	@Override
@@ -501,6 +510,24 @@ public class Engine implements ControlAPI {
 		isStateInitialized = false;
 	}
 
+	/*
+	 * Returns the number of previous states to be kept,
+	 * as set by the STATE_HISTORY_SIZE property.
+	 */
+	private int getHistorySize() {
+		String sizeStr = getProperty(EngineProperties.STATE_HISTORY_SIZE);
+		if (sizeStr != null) {
+			try {
+				return Math.max(0, Integer.parseInt(sizeStr.trim()));
+			} catch (NumberFormatException e) {
+				logger.warn("Invalid value for \""
+						+ EngineProperties.STATE_HISTORY_SIZE
+						+ "\" engine property (" + sizeStr + ").");
+			}
+		}
+		return 0;
+	}
+
 	/**
 	 * Notifies the environment of a successful step.
 	 *
@@ -875,12 +902,14 @@ public class Engine implements ControlAPI {
 							break;
 
 						case emInitializingState:
+							history.setCapacity(getHistorySize());
 							storage.initAbstractStorage();
 							next(EngineMode.emPreparingInitialState);
 							break;
 
 						case emPreparingInitialState:
 							scheduler.prepareInitialState();
+							history.clear();
 							isStateInitialized = true;
 							next(EngineMode.emIdle);
 							break;
@@ -1032,6 +1061,7 @@ public class Engine implements ControlAPI {
 				}
 				
 				storage.clearState();
+				storage.dispose();
 				scheduler.dispose();
 				ParserTools.removeInstance(Engine.this);
 				OperatorRegistry.removeInstance(Engine.this);
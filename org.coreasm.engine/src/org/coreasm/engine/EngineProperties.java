@@ -27,6 +27,7 @@ public class EngineProperties extends Properties {
 	public static final String NO = "no";
 	public static final String FALSE = "false";
 	public static final String TRUE = "true";
+	public static final String AUTO = "auto";
 
 	/** 'yes': the engine will print the stack trace of errors/exceptions */
 	public static final String PRINT_STACK_TRACE = "engine.error.printStackTrace";
@@ -34,12 +35,44 @@ public class EngineProperties extends Properties {
 	/** the maximum number of processors the engine can use for simulation */
 	public static final String MAX_PROCESSORS = "engine.limits.maxProcessors";
 
-	/** 'yes': the engine will print some stats on processor utilization after every step */
+	/** 'yes': the engine will log some stats on processor utilization after every step (see {@link org.coreasm.engine.scheduler.AgentExecutionStats}) */
 	public static final String PRINT_PROCESSOR_STATS_PROPERTY = "scheduler.printProcessorStats";
 
-	/** in a multi-threaded simulation, this is the minimum number of agents assigned to every thread */
+	/** 
+	 * in a multi-threaded simulation, this is the maximum number of agents evaluated by 
+	 * one thread task; 'auto' lets the scheduler choose it from the measured evaluation time of agents
+	 */
 	public static String AGENT_EXECUTION_THREAD_BATCH_SIZE = "scheduler.threadBatchSize";
 
+	/** 
+	 * the number of partitions the update instructions of a step are split into to be 
+	 * aggregated in parallel; '1' aggregates all the updates in the engine thread, 'auto' uses
+	 * one partition for every processor the engine can use (see {@link #MAX_PROCESSORS})
+	 */
+	public static final String AGGREGATION_PARTITIONS = "engine.aggregation.partitions";
+
+	/** 
+	 * the number of previous states the engine keeps (see {@link ControlAPI#getPrevState(int)});
+	 * '0' keeps no history 
+	 */
+	public static final String STATE_HISTORY_SIZE = "engine.history.size";
+
+	/** 
+	 * 'yes': the programs of agents are compiled into closures and evaluated without 
+	 * moving through the parse tree (see {@link org.coreasm.engine.interpreter.ClosureCompiler});
+	 * interpreter listeners are only notified of the nodes that are not compiled
+	 */
+	public static final String CLOSURE_COMPILATION = "engine.interpreter.closures";
+
+	/** 
+	 * 'yes': update instructions keep the agents and the nodes of the specification that 
+	 * produced them (see {@link org.coreasm.engine.absstorage.Update#agents}); 'no': the 
+	 * scheduler drops them from the update instructions of the agents, which saves memory, 
+	 * but inconsistent updates are reported without their context and, unless a single 
+	 * agent was selected, are retried with other combinations of agents
+	 */
+	public static final String UPDATE_PROVENANCE = "engine.updates.provenance";
+
 	/** a colon-separated list of folders that include additional plugins */
 	public static String PLUGIN_FOLDERS_PROPERTY = "engine.pluginFolders";
 
@@ -75,6 +108,10 @@ public class EngineProperties extends Properties {
 		this.setProperty(MAX_PROCESSORS, "1");
 		this.setProperty(PRINT_PROCESSOR_STATS_PROPERTY, "no");
 		this.setProperty(AGENT_EXECUTION_THREAD_BATCH_SIZE, "1");
+		this.setProperty(AGGREGATION_PARTITIONS, "1");
+		this.setProperty(STATE_HISTORY_SIZE, "0");
+		this.setProperty(CLOSURE_COMPILATION, NO);
+		this.setProperty(UPDATE_PROVENANCE, YES);
 	}
 
 }
@@ -9,7 +9,6 @@
 
 package org.coreasm.engine;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -84,16 +83,16 @@ public class EngineTools {
 		if (nodes.size() == 0)
 			return ElementList.NO_ARGUMENT;
 		
-		ArrayList<Element> vList = new ArrayList<Element>();
+		Element[] values = new Element[nodes.size()];
 		Element value = null;
+		int i = 0;
 		for (ASTNode n: nodes) {
 			value = n.getValue();
 			if (value == null) 
 				throw new InterpreterException("Expecting expression as argument.");
-			vList.add(n.getValue());
+			values[i++] = value;
 		}
-		// avoiding to have too many empty lists
-		return ElementList.create(vList);
+		return new ElementList(values);
 	}
 
 	/**
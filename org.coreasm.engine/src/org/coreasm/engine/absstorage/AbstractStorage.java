@@ -55,6 +55,16 @@ public interface AbstractStorage extends State {
 	 */
 	public void fireUpdateSet(Set<Update> updateSet) throws InvalidLocationException;
 	
+	/**
+	 * Returns the changes made to the state by the last update set 
+	 * that was fired (or the last location that was set directly). 
+	 * The changes are only journaled while a {@link ChangeListener} 
+	 * is registered; otherwise the returned journal is empty.
+	 * 
+	 * @see #fireUpdateSet(Set)
+	 */
+	public ChangeJournal getLastChanges();
+	
 	/**
 	 * Performs aggregation on a given collection of update instructions.
 	 * 
@@ -155,6 +165,12 @@ public interface AbstractStorage extends State {
 	 */
 //	public Element getNewElementFrom(AbstractUniverse bkg);
 	
+	/**
+	 * Returns <code>true</code> if the current thread reads the state
+	 * through a stack of states (see {@link #pushState(String)}).
+	 */
+	public boolean isStateStacked();
+	
 	/**
 	 * Pushes the current state in the stack.
 	 * @param pluginName The name of the plugin that wants to push the state to the stack
@@ -182,6 +198,12 @@ public interface AbstractStorage extends State {
 	 */
 	public void clearState();
 
+	/**
+	 * Releases the threads and other resources held by this storage
+	 * when the engine terminates.
+	 */
+	public void dispose();
+
 	/**
 	 * Return <code>true</code> if the given name is the name
 	 * of a function in the state.
@@ -206,5 +228,46 @@ public interface AbstractStorage extends State {
 	 * <code>true</code>.
 	 */
 	public Set<Update> getLastInconsistentUpdate();
+
+	/**
+	 * Resolves the function with the given name into a handle that can be 
+	 * used to read the locations of that function without looking it up 
+	 * by name again.
+	 * 
+	 * @param name name of the function (or universe)
+	 * @return a handle to the function or <code>null</code> if there is 
+	 * no function with the given name in the state
+	 * @see #getValue(FunctionHandle, ElementList)
+	 */
+	public FunctionHandle getFunctionHandle(String name);
+
+	/**
+	 * Returns <code>true</code> if the given handle was resolved by this 
+	 * storage and the function it refers to is still part of the state.
+	 */
+	public boolean isValid(FunctionHandle handle);
+
+	/**
+	 * Retrieves the value of the location identified by the given function 
+	 * handle and arguments. This is equivalent to calling {@link #getValue(Location)}
+	 * with a location of the same name and arguments, but it avoids resolving 
+	 * the function by name when no state is stacked.
+	 * 
+	 * @param function a handle obtained from {@link #getFunctionHandle(String)}
+	 * @param args arguments of the location
+	 * @throws InvalidLocationException if the location is not valid
+	 */
+	public Element getValue(FunctionHandle function, ElementList args) throws InvalidLocationException;
+
+	/**
+	 * Registers a listener that is notified whenever updates are fired
+	 * on this storage or the state is cleared.
+	 */
+	public void addUpdateSetListener(UpdateSetListener listener);
+
+	/**
+	 * Removes a listener registered by {@link #addUpdateSetListener(UpdateSetListener)}.
+	 */
+	public void removeUpdateSetListener(UpdateSetListener listener);
 }
 
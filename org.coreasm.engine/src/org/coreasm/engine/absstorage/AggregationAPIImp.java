@@ -12,11 +12,13 @@
  
 package org.coreasm.engine.absstorage;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.Vector;
 
 import org.coreasm.engine.plugin.Plugin;
 
@@ -35,20 +37,25 @@ public class AggregationAPIImp implements EngineAggregationAPI, PluginAggregatio
 	/** UpdateMultiset of unprocessed update instructions **/
 	private UpdateMultiset unprocessedUpdates;
 	
+	/*
+	 * An instance of this class is used by one aggregation at a time 
+	 * (see HashStorage), so the following tables are not synchronized.
+	 */
+	
 	/** Hashtable from resultant updates to plug-ins **/
-	private Hashtable<Update,Set<Plugin>> htResultantUpdatesToPlugins = new Hashtable<Update,Set<Plugin>>();
+	private Map<Update,Set<Plugin>> htResultantUpdatesToPlugins = new HashMap<Update,Set<Plugin>>();
 	
 	/** Hashtable from actions to a set of locations **/
-	private Hashtable<String,Set<Location>> htActionToLocs = new Hashtable<String,Set<Location>>();
+	private Map<String,Set<Location>> htActionToLocs = new HashMap<String,Set<Location>>();
 	
 	/** Hashtable from location to set of update instructions */
-	private Hashtable<Location,UpdateMultiset> htLocToUpdates = new Hashtable<Location,UpdateMultiset>();
+	private Map<Location,UpdateMultiset> htLocToUpdates = new HashMap<Location,UpdateMultiset>();
 	
-	/** Hashtable from failed update instructions to vector of plug-ins **/
-	private Hashtable<Update, Vector<Plugin>> htFailedUpdatesToPlugin = new Hashtable<Update, Vector<Plugin>>();
+	/** Hashtable from failed update instructions to list of plug-ins **/
+	private Map<Update, List<Plugin>> htFailedUpdatesToPlugin = new HashMap<Update, List<Plugin>>();
 	
-	/** Hashtable from sucessful update instructions to vector of plug-ins **/
-	private Hashtable<Update, Vector<Plugin>> htSuccessfulUpdatesToPlugin = new Hashtable<Update, Vector<Plugin>>();
+	/** Hashtable from sucessful update instructions to list of plug-ins **/
+	private Map<Update, List<Plugin>> htSuccessfulUpdatesToPlugin = new HashMap<Update, List<Plugin>>();
 	
 	
 	
@@ -225,7 +232,7 @@ public class AggregationAPIImp implements EngineAggregationAPI, PluginAggregatio
 		{
 			// create an entry in hashtable for update if it doesn't exist
 			if(!htSuccessfulUpdatesToPlugin.containsKey(update))
-				htSuccessfulUpdatesToPlugin.put(update,new Vector<Plugin>());
+				htSuccessfulUpdatesToPlugin.put(update,new ArrayList<Plugin>());
 			
 			// add plugin to update
 			htSuccessfulUpdatesToPlugin.get(update).add(plugin);
@@ -235,7 +242,7 @@ public class AggregationAPIImp implements EngineAggregationAPI, PluginAggregatio
 		{
 			// create an entry in hashtable for update if it doesn't exist
 			if(!htFailedUpdatesToPlugin.containsKey(update))
-				htFailedUpdatesToPlugin.put(update,new Vector<Plugin>());
+				htFailedUpdatesToPlugin.put(update,new ArrayList<Plugin>());
 			
 			// add plugin to update
 			htFailedUpdatesToPlugin.get(update).add(plugin);
@@ -0,0 +1,139 @@
+package org.coreasm.engine.absstorage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The changes an update set made to the state: for every location whose
+ * value was actually changed, its value before and after the update set
+ * was fired. Observers can use it instead of comparing states.
+ *
+ * @see AbstractStorage#getLastChanges()
+ */
+public class ChangeJournal implements Iterable<ChangeJournal.Change> {
+
+	/** A journal with no changes */
+	public static final ChangeJournal EMPTY = new ChangeJournal(0);
+
+	private final List<Change> changes;
+	private Set<String> changedFunctions = null;
+	private Set<Location> changedLocations = null;
+
+	ChangeJournal(int capacity) {
+		changes = new ArrayList<Change>(capacity);
+	}
+
+	/*
+	 * Records a change; changes that do not change the value are ignored.
+	 */
+	void add(Location loc, Element oldValue, Element newValue) {
+		if (oldValue != newValue && (oldValue == null || !oldValue.equals(newValue)))
+			changes.add(new Change(loc, oldValue, newValue));
+	}
+
+	/**
+	 * Returns the number of changed locations.
+	 */
+	public int size() {
+		return changes.size();
+	}
+
+	/**
+	 * Returns <code>true</code> if no location was changed.
+	 */
+	public boolean isEmpty() {
+		return changes.isEmpty();
+	}
+
+	/**
+	 * Returns all the changes, in the order they were applied.
+	 */
+	public List<Change> getChanges() {
+		return Collections.unmodifiableList(changes);
+	}
+
+	/**
+	 * Returns the names of the functions (and universes)
+	 * that have at least one changed location.
+	 */
+	public synchronized Set<String> getChangedFunctions() {
+		if (changedFunctions == null) {
+			Set<String> names = new HashSet<String>();
+			for (Change c: changes)
+				names.add(c.loc.name);
+			changedFunctions = Collections.unmodifiableSet(names);
+		}
+		return changedFunctions;
+	}
+
+	/**
+	 * Returns <code>true</code> if at least one location of
+	 * the function with the given name was changed.
+	 */
+	public boolean isChanged(String functionName) {
+		return getChangedFunctions().contains(functionName);
+	}
+
+	/**
+	 * Returns <code>true</code> if the value of the given location was changed.
+	 */
+	public synchronized boolean isChanged(Location loc) {
+		if (changedLocations == null) {
+			Set<Location> locs = new HashSet<Location>();
+			for (Change c: changes)
+				locs.add(c.loc);
+			changedLocations = locs;
+		}
+		return changedLocations.contains(loc);
+	}
+
+	/**
+	 * Returns the changes to the locations of the function with the given name.
+	 */
+	public List<Change> getChanges(String functionName) {
+		List<Change> result = new ArrayList<Change>();
+		for (Change c: changes)
+			if (c.loc.name.equals(functionName))
+				result.add(c);
+		return result;
+	}
+
+	public Iterator<Change> iterator() {
+		return getChanges().iterator();
+	}
+
+	@Override
+	public String toString() {
+		return changes.toString();
+	}
+
+	/**
+	 * The change of the value of one location.
+	 */
+	public static class Change {
+
+		/** the changed location */
+		public final Location loc;
+
+		/** the value of the location before the change */
+		public final Element oldValue;
+
+		/** the value of the location after the change */
+		public final Element newValue;
+
+		public Change(Location loc, Element oldValue, Element newValue) {
+			this.loc = loc;
+			this.oldValue = oldValue;
+			this.newValue = newValue;
+		}
+
+		@Override
+		public String toString() {
+			return loc + ": " + oldValue + " -> " + newValue;
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package org.coreasm.engine.absstorage;
+
+/**
+ * An {@link UpdateSetListener} that reads the changes made by the 
+ * fired updates through {@link AbstractStorage#getLastChanges()}.
+ * <p>
+ * A storage journals the changes it makes only while at least one 
+ * such listener is registered.
+ * 
+ * @see ChangeJournal
+ */
+public interface ChangeListener extends UpdateSetListener {
+
+}
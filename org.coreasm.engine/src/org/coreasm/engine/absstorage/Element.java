@@ -15,6 +15,8 @@
  
 package org.coreasm.engine.absstorage;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.coreasm.engine.ControlAPI;
 
 /** 
@@ -26,11 +28,29 @@ import org.coreasm.engine.ControlAPI;
  */
  public class Element {
 
+ 	/**
+ 	 * Number of ids a thread takes at once from {@link #lastElementNo}.
+ 	 */
+ 	private static final int ID_BLOCK_SIZE = 1024;
+
  	/**
  	 * This value is used to automatically generate
- 	 * general Element names. 
+ 	 * general Element names. It is the last id handed
+ 	 * out to any thread as part of a block of ids.
+ 	 */
+ 	private static final AtomicLong lastElementNo = new AtomicLong(1); 
+
+ 	/**
+ 	 * The block of ids the current thread is taking ids from,
+ 	 * so that threads evaluating agents in parallel do not
+ 	 * compete for every new element.
  	 */
- 	private static long lastElementNo = 1; 
+ 	private static final ThreadLocal<IdBlock> idBlock = new ThreadLocal<IdBlock>() {
+ 		@Override
+ 		protected IdBlock initialValue() {
+ 			return new IdBlock();
+ 		}
+ 	};
 	 
  	/**
  	 * Represents the 'undef' value in ASM.
@@ -55,8 +75,7 @@ import org.coreasm.engine.ControlAPI;
 	 *
 	 */
  	public Element() {
-		lastElementNo++;
-		this.id = lastElementNo;
+		this.id = idBlock.get().nextId();
 	}
 	
  	/**
@@ -145,5 +164,20 @@ import org.coreasm.engine.ControlAPI;
 			return getClass().getSimpleName() + id;
 	}
 
+  	/*
+ 	 * A range of ids reserved by one thread.
+ 	 */
+ 	private static final class IdBlock {
+ 		private long next = 0;
+ 		private long end = 0;
+
+ 		long nextId() {
+ 			if (next == end) {
+ 				end = lastElementNo.addAndGet(ID_BLOCK_SIZE) + 1;
+ 				next = end - ID_BLOCK_SIZE;
+ 			}
+ 			return next++;
+ 		}
+ 	}
+
  }
- 
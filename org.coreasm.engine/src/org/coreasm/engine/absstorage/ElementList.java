@@ -28,6 +28,9 @@ public class ElementList extends ArrayList<Element> {
 
 	/** An empty element list to be used as an empty argument list */
 	public static final ElementList NO_ARGUMENT = new ElementList();
+	
+	/** cached hash code; element lists cannot be modified, so it is computed only once */
+	private transient int hash = 0;
 
 	/**
 	 * Creates an empty list of Elements.
@@ -56,7 +59,7 @@ public class ElementList extends ArrayList<Element> {
 	 * @param args Elements
 	 */
 	public ElementList(Element ... args) {
-		super();
+		super(args.length);
 		for (int i=0; i < args.length; i++) {
 			super.add(args[i]);
 		}
@@ -89,6 +92,25 @@ public class ElementList extends ArrayList<Element> {
 			return new ElementList(c);
 	}
 	
+	@Override
+	public int hashCode() {
+		int h = hash;
+		if (h == 0) {
+			h = super.hashCode();
+			hash = h;
+		}
+		return h;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this)
+			return true;
+		if (o instanceof ElementList && ((ElementList)o).hashCode() != hashCode())
+			return false;
+		return super.equals(o);
+	}
+
 	public String toString() {
 		String str = "[";
 		
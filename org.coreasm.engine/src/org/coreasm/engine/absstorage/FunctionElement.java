@@ -14,6 +14,7 @@
  
 package org.coreasm.engine.absstorage;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -157,6 +158,20 @@ public abstract class FunctionElement extends Element {
 			throw new UnmodifiableFunctionException("Cannot set the value of this function.");
 	}
 	
+	/**
+	 * Sets the values of this function for the locations of all the given 
+	 * updates. Functions that can store many values at once more efficiently 
+	 * than one by one should override this method; this implementation calls 
+	 * {@link #setValue(List, Element)} for every update.
+	 * 
+	 * @param updates updates to locations of this function
+	 * @throws UnmodifiableFunctionException if this function is not modifiable
+	 */
+	public void setValues(Collection<Update> updates) throws UnmodifiableFunctionException {
+		for (Update u: updates)
+			setValue(u.loc.args, u.value);
+	}
+	
 	/**
 	 * If supported, returns the set of all the locations for 
 	 * which this function has a value other than
@@ -0,0 +1,41 @@
+package org.coreasm.engine.absstorage;
+
+/**
+ * A function of the state that has been resolved by name once, so that 
+ * its locations can be read again without looking the function up.
+ * <p>
+ * A handle is only valid for the storage that created it and only as 
+ * long as the state of that storage is not cleared; this can be checked 
+ * with {@link AbstractStorage#isValid(FunctionHandle)}. Handles are 
+ * immutable and can be cached (e.g., on the nodes of the parse tree) 
+ * and shared between threads.
+ * 
+ * @see AbstractStorage#getFunctionHandle(String)
+ * @see AbstractStorage#getValue(FunctionHandle, ElementList)
+ */
+public final class FunctionHandle {
+
+	/** the name under which the function is registered in the state */
+	public final String name;
+	
+	/** the function */
+	public final FunctionElement function;
+	
+	/** the storage that resolved this handle */
+	final AbstractStorage owner;
+	
+	/** the state this handle was resolved in */
+	final Object state;
+	
+	FunctionHandle(AbstractStorage owner, Object state, String name, FunctionElement function) {
+		this.owner = owner;
+		this.state = state;
+		this.name = name;
+		this.function = function;
+	}
+	
+	@Override
+	public String toString() {
+		return "handle of " + name;
+	}
+}
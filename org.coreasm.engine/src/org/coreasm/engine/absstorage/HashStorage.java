@@ -15,6 +15,7 @@ package org.coreasm.engine.absstorage;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -24,17 +25,26 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.coreasm.engine.ControlAPI;
 import org.coreasm.engine.CoreASMError;
 import org.coreasm.engine.EngineError;
+import org.coreasm.engine.EngineProperties;
 import org.coreasm.engine.EngineTools;
 import org.coreasm.engine.kernel.Kernel;
 import org.coreasm.engine.plugin.Aggregator;
+import org.coreasm.engine.plugin.PartitionedAggregator;
 import org.coreasm.engine.plugin.Plugin;
 import org.coreasm.engine.plugin.VocabularyExtender;
+import org.coreasm.engine.scheduler.Scheduler;
+import org.coreasm.util.PersistentHashMap;
 import org.coreasm.util.Tools;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,7 +64,7 @@ public class HashStorage implements AbstractStorage {
 	
 	
 	/** The state of the simulated machine. */
-	private State state = null;
+	private HashState state = null;
 	// !!! IMPORTANT !!!
 	// This state object (defined above) is used to implement the State 
 	// interface. Developers SHOULD NOT refer to this object anywhere 
@@ -68,9 +78,11 @@ public class HashStorage implements AbstractStorage {
 	/** Stack of update sets 
 	 * 
 	 * We keep updates as map of locations to values (per interpreter thread) 
-	 * to increase performance.
+	 * to increase performance. Every level of the stack is a version of a
+	 * persistent map that already includes the updates of the levels below,
+	 * so only the top of the stack has to be consulted.
 	 */
-	private final ThreadLocal<Stack<Map<Location,Element>>> updateStack;
+	private final ThreadLocal<Stack<PersistentHashMap<Location, Element>>> updateStack;
 	/**
 	 * Stack of the names of the plugins that pushed states
 	 * 
@@ -87,12 +99,30 @@ public class HashStorage implements AbstractStorage {
 	/** a cache of aggregator plugins */
 	private Set<Aggregator> aggregatorPlugins = new HashSet<Aggregator>(); 
 	
+	/** 
+	 * the minimum number of update instructions in a step 
+	 * for which aggregation is split into partitions 
+	 */
+	public static final int PARTITIONED_AGGREGATION_THRESHOLD = 10000;
+	
+	/** threads used to aggregate partitions of the update instructions */
+	private ForkJoinPool aggregationPool = null;
+	
+	/** the changes made by the last update set that was fired */
+	private volatile ChangeJournal lastChanges = ChangeJournal.EMPTY;
+	
+	/** listeners to be notified of changes to the state */
+	private final List<UpdateSetListener> updateSetListeners = new CopyOnWriteArrayList<UpdateSetListener>();
+	
+	/** whether a registered listener reads the changes made to the state */
+	private volatile boolean changesJournaled = false;
+	
 	/** Creates a new <code>HashStorage</code>. */
 	public HashStorage(ControlAPI capi) {
 		this.capi = capi;
-		updateStack = new ThreadLocal<Stack<Map<Location,Element>>>() {
-	         protected Stack<Map<Location,Element>> initialValue() {
-	             return new Stack<Map<Location,Element>>();
+		updateStack = new ThreadLocal<Stack<PersistentHashMap<Location, Element>>>() {
+	         protected Stack<PersistentHashMap<Location, Element>> initialValue() {
+	             return new Stack<PersistentHashMap<Location, Element>>();
 	         }
 		};
 		updateStackPluginNames = new ThreadLocal<Stack<String>>() {
@@ -118,18 +148,14 @@ public class HashStorage implements AbstractStorage {
 	 * @return the currently stacked updates
 	 */
 	public Map<Location, Element> getStackedUpdates() {
-		Stack<Map<Location, Element>> updateStack = getUpdateStack();
+		Stack<PersistentHashMap<Location, Element>> updateStack = getUpdateStack();
 		if (updateStack.isEmpty())
 			return Collections.emptyMap();
 		
-		Map<Location, Element> stackedUpdates = new HashMap<Location,Element>();
-		for (Map<Location, Element> stackedUpdate : updateStack)
-			stackedUpdates.putAll(stackedUpdate);
-		
-		return stackedUpdates;
+		return new HashMap<Location,Element>(updateStack.peek());
 	}
 	
-	private Stack<Map<Location, Element>> getUpdateStack() {
+	private Stack<PersistentHashMap<Location, Element>> getUpdateStack() {
 		return updateStack.get();
 	}
 	
@@ -137,7 +163,7 @@ public class HashStorage implements AbstractStorage {
 		return updateStackPluginNames.get();
 	}
 	
-	private boolean isStateStacked() {
+	public boolean isStateStacked() {
 		return !getUpdateStack().isEmpty();
 	}
 	
@@ -224,11 +250,30 @@ public class HashStorage implements AbstractStorage {
 		if (isStateStacked()) 
 			throw new EngineError("Cannot fire updates when the state stack is not empty.");
 
-		//TODO this should be done in a transactional fashion
-		for (Update u: updateSet) {
-			state.setValue(u.loc, u.value);
-		}
-		monitoredCache.clear();
+		lastChanges = state.applyUpdates(updateSet, changesJournaled);
+		// monitored functions reflect the environment, which may have changed
+		// since the last step regardless of the changes to the state
+		if (!monitoredCache.isEmpty())
+			monitoredCache.clear();
+		
+		for (UpdateSetListener listener: updateSetListeners)
+			listener.updateSetFired(updateSet);
+	}
+
+	public ChangeJournal getLastChanges() {
+		return lastChanges;
+	}
+	
+	/*
+	 * Returns the value of the given function for the given arguments
+	 * such that it is not affected by later changes to the function.
+	 */
+	private static Element getValueSnapshot(FunctionElement f, List<? extends Element> args) {
+		final Element value = f.getValue(args);
+		// a universe is its own value; keep a copy of it
+		if (value == f && f instanceof UniverseElement)
+			return new UniverseElement((UniverseElement)f);
+		return value;
 	}
 
 	public Element getChosenProgram(Element agent) {
@@ -275,8 +320,12 @@ public class HashStorage implements AbstractStorage {
 			// Check if a monitored function is being probed
 			if (f.getFClass() == FunctionElement.FunctionClass.fcMonitored) {
 				// To make keep monitored functions consistent in one state, use caching
-				if (monitoredCache.containsKey(l)) 
-					return monitoredCache.get(l);
+				if (monitoredCache.containsKey(l)) {
+					e = monitoredCache.get(l);
+					if (ReadSet.isRecording())
+						ReadSet.recordRead(l, f, e, false);
+					return e;
+				}
 			}
 		}
 
@@ -295,13 +344,63 @@ public class HashStorage implements AbstractStorage {
 			if (f.getFClass() == FunctionElement.FunctionClass.fcMonitored)
 				monitoredCache.put(l, e);
 		}
+		
+		if (ReadSet.isRecording())
+			ReadSet.recordRead(l, f, e, isStateStacked());
 			
 		return e;
 	}
 
+	public FunctionHandle getFunctionHandle(String name) {
+		final State current = state;
+		final FunctionElement f = current.getFunction(name);
+		if (f == null)
+			return null;
+		String fName = current.getFunctionName(f);
+		if (fName == null)
+			fName = name;
+		return new FunctionHandle(this, current, fName, f);
+	}
+
+	public boolean isValid(FunctionHandle handle) {
+		return handle.owner == this && handle.state == state;
+	}
+
+	public Element getValue(FunctionHandle handle, ElementList args) throws InvalidLocationException {
+		final FunctionElement f = handle.function;
+		// monitored functions, stacked states, out-functions and outdated 
+		// handles are left to the general case
+		if (!isValid(handle) || isStateStacked() || !f.isReadable()
+				|| f.getFClass() == FunctionElement.FunctionClass.fcMonitored) 
+			return getValue(new Location(handle.name, args));
+		
+		Element e = f.getValue(args);
+		if (e == null)
+			e = Element.UNDEF;
+		if (ReadSet.isRecording())
+			ReadSet.recordRead(new Location(handle.name, args), f, e, false);
+		return e;
+	}
+
 	public synchronized void setValue(Location l, Element v) throws InvalidLocationException {
-		if (!isStateStacked()) 
-			state.setValue(l, v);
+		if (!isStateStacked()) {
+			if (changesJournaled) {
+				final FunctionElement f = state.getFunction(l.name);
+				final Element oldValue = (f == null) ? Element.UNDEF : getValueSnapshot(f, l.args);
+				state.setValue(l, v);
+				final ChangeJournal journal = new ChangeJournal(1);
+				journal.add(l, oldValue, v);
+				lastChanges = journal;
+			} else {
+				state.setValue(l, v);
+				lastChanges = ChangeJournal.EMPTY;
+			}
+			if (!updateSetListeners.isEmpty()) {
+				Set<Update> updates = Collections.singleton(new Update(l, v, Update.UPDATE_ACTION, (Element)null, null));
+				for (UpdateSetListener listener: updateSetListeners)
+					listener.updateSetFired(updates);
+			}
+		}
 		else
 			throw new EngineError("Cannot set state content when the state stack is not empty.");
 	}
@@ -322,35 +421,36 @@ public class HashStorage implements AbstractStorage {
 	 * @return the value from the stack of states or <code>null</code> if the location is not part of the stack
 	 */
 	private Element getStackedValue(Location loc) {
-		if (!isStateStacked())
+		Stack<PersistentHashMap<Location, Element>> updateStack = getUpdateStack();
+		if (updateStack.isEmpty())
 			return null;
-		Stack<Map<Location, Element>> updateStack = getUpdateStack();
 
-		// Looking through the stack from the top...
-		// This relies on the Vector implementation of the stack
-		Map<Location,Element> um = null;
-		for (int i=updateStack.size()-1; i >= 0; i--) {
-			um = updateStack.get(i);
-			// Look in all the update multisets
-			Element value = um.get(loc);
-			if (value != null)
-				return value;
-		}
-		return null;
+		// the top of the stack includes the updates of all the levels
+		return updateStack.peek().get(loc);
 	}
 
 	public void aggregateUpdates() {
 		logger.debug("Aggregating updates.");
 		UpdateMultiset updateInsts = capi.getScheduler().getUpdateInstructions();
 		Collection<Update> tempUpdateSet = null;
-
-		tempUpdateSet = performAggregation(updateInsts);
+		boolean isVerified = false;
+
+		final int partitions = getAggregationPartitions();
+		if (partitions > 1 && updateInsts.size() >= PARTITIONED_AGGREGATION_THRESHOLD 
+				&& areAggregatorsPartitioned()) {
+			PartitionedAggregation aggregation = new PartitionedAggregation(updateInsts, partitions);
+			tempUpdateSet = aggregation.result;
+			isVerified = aggregation.isConsistent;
+		} else
+			tempUpdateSet = performAggregation(updateInsts);
 		
 		Collection<Update> uSet = capi.getScheduler().getUpdateSet();
 		// clear the updateset of the scheduler 
 		uSet.clear();
 		// replace it with the new update set
 		uSet.addAll(tempUpdateSet);
+		// found consistent while it was aggregated, so that it is not checked twice
+		capi.getScheduler().setUpdateSetChecked(isVerified);
         
         // george on Aug 19, 2006
         updateInsts.clear();
@@ -388,28 +488,176 @@ public class HashStorage implements AbstractStorage {
 		for (Aggregator p: aggregatorPlugins) 
 			((Aggregator)p).aggregateUpdates(aggAPI);
 		
-		if (aggAPI.isConsistent() == false) {
-			String msg = "Inconsistent aggregated results.";
+		if (aggAPI.isConsistent() == false) 
+			throw createAggregationError(aggAPI.getFailedInstructions(), aggAPI.getUnprocessedInstructions());
+		
+		// get resultant updates from agg API
+		return aggAPI.getResultantUpdates();
+	}
+	
+	private EngineError createAggregationError(Collection<Update> failed, Collection<Update> unprocessed) {
+		String msg = "Inconsistent aggregated results.";
+		
+		if (failed.size() > 0) {
+			msg = msg + "\nFailed instructions: " + Tools.getEOL()
+					+ EngineTools.getContextInfo("", failed, capi.getParser(), capi.getSpec());
+		}
+		if (unprocessed.size() > 0) {
+			msg = msg + "\nUnprocessed instructions: " + Tools.getEOL()
+					+ EngineTools.getContextInfo("", unprocessed, capi.getParser(), capi.getSpec());
+		}
+		return new EngineError(msg);
+	}
+	
+	/*
+	 * Returns the number of partitions the update instructions of 
+	 * a step should be split into for aggregation.
+	 */
+	private int getAggregationPartitions() {
+		String value = capi.getProperty(EngineProperties.AGGREGATION_PARTITIONS, "1").trim();
+		if (value.equalsIgnoreCase(EngineProperties.AUTO))
+			value = capi.getProperty(EngineProperties.MAX_PROCESSORS, "1").trim();
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			logger.warn("Invalid value for \"" + EngineProperties.AGGREGATION_PARTITIONS 
+					+ "\" engine property (" + value + ").");
+			return 1;
+		}
+	}
+	
+	/*
+	 * Returns true if all the aggregators can aggregate partitions of the update instructions.
+	 */
+	private boolean areAggregatorsPartitioned() {
+		for (Aggregator p: aggregatorPlugins)
+			if (!(p instanceof PartitionedAggregator))
+				return false;
+		return true;
+	}
+	
+	private synchronized ForkJoinPool getAggregationPool(int parallelism) {
+		if (aggregationPool != null && aggregationPool.getParallelism() != parallelism) {
+			aggregationPool.shutdown();
+			aggregationPool = null;
+		}
+		if (aggregationPool == null)
+			aggregationPool = new ForkJoinPool(parallelism);
+		return aggregationPool;
+	}
+
+	public synchronized void dispose() {
+		if (aggregationPool != null) {
+			aggregationPool.shutdown();
+			aggregationPool = null;
+		}
+	}
+	
+	/*
+	 * Returns the key used to assign the updates of a location to a partition.
+	 * All the locations of a universe are kept with the universe itself, as 
+	 * the kernel aggregates the membership updates of a universe together.
+	 */
+	private int getPartitionKey(Location l) {
+		int h = (getUniverse(l.name) != null) ? l.name.hashCode() : l.hashCode();
+		return h ^ (h >>> 16);
+	}
+	
+	/**
+	 * Aggregation of the update instructions of a step, split into partitions
+	 * of locations that are aggregated in parallel. The consistency of the 
+	 * resultant updates is checked in the same pass, partition by partition.
+	 */
+	private class PartitionedAggregation {
+		
+		/** the resultant updates */
+		final Set<Update> result;
+		
+		/** <code>true</code> if the resultant updates are consistent */
+		final boolean isConsistent;
+		
+		PartitionedAggregation(UpdateMultiset updateInsts, int partitions) {
+			final List<Partition> tasks = new ArrayList<Partition>(partitions);
+			for (int i = 0; i < partitions; i++)
+				tasks.add(new Partition());
+			for (Update u: updateInsts)
+				tasks.get((getPartitionKey(u.loc) & Integer.MAX_VALUE) % partitions).instructions.add(u);
 			
-			if (aggAPI.getFailedInstructions().size() > 0) {
-				msg = msg + "\nFailed instructions: " + Tools.getEOL()
-						+ EngineTools.getContextInfo("", aggAPI.getFailedInstructions(), capi.getParser(), capi.getSpec());
+			for (Future<Void> f: getAggregationPool(partitions).invokeAll(tasks)) {
+				try {
+					f.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new EngineError("Aggregation interrupted.");
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException)
+						throw (RuntimeException)cause;
+					if (cause instanceof Error)
+						throw (Error)cause;
+					throw new IllegalStateException(cause);
+				}
 			}
-			if (aggAPI.getUnprocessedInstructions().size() > 0) {
-				msg = msg + "\nUnprocessed instructions: " + Tools.getEOL()
-						+ EngineTools.getContextInfo("", aggAPI.getUnprocessedInstructions(), capi.getParser(), capi.getSpec());
+			
+			int size = 0;
+			boolean consistent = true;
+			Set<Update> failed = new HashSet<Update>();
+			Set<Update> unprocessed = new HashSet<Update>();
+			for (Partition p: tasks) {
+				if (!p.aggAPI.isConsistent()) {
+					failed.addAll(p.aggAPI.getFailedInstructions());
+					unprocessed.addAll(p.aggAPI.getUnprocessedInstructions());
+				}
+				size += p.aggAPI.getResultantUpdates().size();
+				consistent = consistent && p.isConsistent;
 			}
-			throw new EngineError(msg);
+			if (!failed.isEmpty() || !unprocessed.isEmpty())
+				throw createAggregationError(failed, unprocessed);
+			
+			result = new HashSet<Update>(size * 4 / 3 + 1);
+			for (Partition p: tasks)
+				result.addAll(p.aggAPI.getResultantUpdates());
+			isConsistent = consistent;
 		}
+	}
+	
+	/*
+	 * One partition of a partitioned aggregation.
+	 */
+	private class Partition implements Callable<Void> {
+		final UpdateMultiset instructions = new UpdateMultiset();
+		final AggregationAPIImp aggAPI = new AggregationAPIImp();
+		boolean isConsistent = false;
 		
-		// get resultant updates from agg API
-		return aggAPI.getResultantUpdates();
+		@Override
+		public Void call() {
+			aggAPI.setUpdateInstructions(instructions);
+			for (Aggregator p: aggregatorPlugins) 
+				p.aggregateUpdates(aggAPI);
+			
+			if (aggAPI.isConsistent()) {
+				// all the resultant updates of a location are in this partition
+				Set<Location> locations = new HashSet<Location>();
+				isConsistent = true;
+				for (Update u: aggAPI.getResultantUpdates())
+					if (!locations.add(u.loc)) {
+						isConsistent = false;
+						break;
+					}
+			}
+			return null;
+		}
 	}
 	
 	public synchronized boolean isConsistent(Collection<Update> updateSet) {
 		Collection<Update> uSet = updateSet;
 		lastInconsistentUpdates = null;
 
+		// already checked while it was aggregated, and not changed since
+		final Scheduler scheduler = capi.getScheduler();
+		if (updateSet == scheduler.getUpdateSet() && scheduler.isUpdateSetChecked())
+			return true;
+
 		HashMap<Location, Update> updateMap = new HashMap<Location, Update>();
 		for (Update u: uSet) {
 			if (updateMap.containsKey(u.loc)) {
@@ -448,14 +696,18 @@ public class HashStorage implements AbstractStorage {
 
 	@Override
 	public void pushState(String pluginName) {
-		Map<Location,Element> updates = new HashMap<Location,Element>();
-		getUpdateStack().push(updates);
+		Stack<PersistentHashMap<Location, Element>> updateStack = getUpdateStack();
+		// the new level starts as the same version as the level below
+		if (updateStack.isEmpty())
+			updateStack.push(PersistentHashMap.<Location, Element>empty());
+		else
+			updateStack.push(updateStack.peek());
 		getUpdateStackPluginNames().push(pluginName);
 	}
 
 	@Override
 	public void popState(String pluginName) {
-		Stack<Map<Location, Element>> updateStack = getUpdateStack();
+		Stack<PersistentHashMap<Location, Element>> updateStack = getUpdateStack();
 
 		if (updateStack.isEmpty())
 			throw new CoreASMError("Cannot pop state when the state stack is empty.");
@@ -479,13 +731,14 @@ public class HashStorage implements AbstractStorage {
 	 */
 	public synchronized void apply(Set<Update> updates) {
 		if (isStateStacked()) {
-			Stack<Map<Location, Element>> updateStack = getUpdateStack();
+			Stack<PersistentHashMap<Location, Element>> updateStack = getUpdateStack();
 
-			// adding updates to the current update set in the stack
+			// replacing the top of the stack with a new version;
 			// this will overwrite updates to the same location
-			Map<Location,Element> lastUpdates = updateStack.peek();
+			PersistentHashMap<Location, Element> top = updateStack.pop();
 			for (Update u: updates)
-				lastUpdates.put(u.loc, u.value);
+				top = top.plus(u.loc, u.value);
+			updateStack.push(top);
 			
 		} else
 			capi.error("Cannot apply updates when state stack is empty.");
@@ -557,6 +810,9 @@ public class HashStorage implements AbstractStorage {
 
 	public synchronized void clearState() {
 		state = new HashState();
+		lastChanges = ChangeJournal.EMPTY;
+		for (UpdateSetListener listener: updateSetListeners)
+			listener.stateCleared();
 		/*
 		 * The following universe and functions are moved to Kernel
 		try {
@@ -582,6 +838,27 @@ public class HashStorage implements AbstractStorage {
 		return lastInconsistentUpdates;
 	}
 
+	public void addUpdateSetListener(UpdateSetListener listener) {
+		// not synchronized on the storage, which holds its lock while notifying the listeners
+		synchronized (updateSetListeners) {
+			if (!updateSetListeners.contains(listener))
+				updateSetListeners.add(listener);
+			if (listener instanceof ChangeListener)
+				changesJournaled = true;
+		}
+	}
+
+	public void removeUpdateSetListener(UpdateSetListener listener) {
+		synchronized (updateSetListeners) {
+			updateSetListeners.remove(listener);
+			boolean journaled = false;
+			for (UpdateSetListener l: updateSetListeners)
+				if (l instanceof ChangeListener)
+					journaled = true;
+			changesJournaled = journaled;
+		}
+	}
+
 	public FunctionElement getFunctionElementFunction() {
 		return state.getFunctionElementFunction();
 	}
@@ -830,6 +1107,146 @@ public class HashStorage implements AbstractStorage {
 				throw new InvalidLocationException(l + " is not a valid location.");
 		}
 
+		/**
+		 * Applies all the given updates to the state as one transaction.
+		 * <p>
+		 * The updates are grouped by function and the functions are resolved 
+		 * and checked before any value is changed, so an invalid location 
+		 * leaves the state untouched. The updates of every function are then 
+		 * applied in bulk through {@link FunctionElement#setValues(Collection)};
+		 * if that fails, the values changed so far are restored and the 
+		 * functions added for the updates are removed again.
+		 * <p>
+		 * Plain map functions cannot fail once they are found modifiable, so 
+		 * they are applied last and, unless the changes are journaled, their 
+		 * old values are not recorded.
+		 * 
+		 * @param updates updates to be applied
+		 * @param journaled whether the changes are returned
+		 * @return the changes made to the state, or an empty journal
+		 * if <code>journaled</code> is <code>false</code>
+		 * @throws InvalidLocationException if a location is not modifiable
+		 */
+		public synchronized ChangeJournal applyUpdates(Set<Update> updates, boolean journaled) throws InvalidLocationException {
+			// group the updates by function
+			final Map<String, List<Update>> updatesByName = new HashMap<String, List<Update>>();
+			for (Update u: updates) {
+				List<Update> list = updatesByName.get(u.loc.name);
+				if (list == null) {
+					list = new ArrayList<Update>();
+					updatesByName.put(u.loc.name, list);
+				}
+				list.add(u);
+			}
+			
+			// resolve and check the functions; the ones that may fail come first
+			final int groups = updatesByName.size();
+			final List<FunctionElement> functions = new ArrayList<FunctionElement>(groups);
+			final List<List<Update>> functionUpdates = new ArrayList<List<Update>>(groups);
+			final List<String> newNames = new ArrayList<String>();
+			int fallible = 0;
+			for (Entry<String, List<Update>> e: updatesByName.entrySet()) {
+				final String name = e.getKey();
+				final List<Update> list = e.getValue();
+				FunctionElement f = null;
+				if (nameExists(name)) {
+					Element id;
+					try {
+						id = getIdentifier(name);
+					} catch (IdentifierNotFoundException ex) {
+						throw new InvalidLocationException(ex);
+					}
+					if (!(id instanceof FunctionElement))
+						throw new InvalidLocationException(list.get(0).loc + " is not a valid location.");
+					f = (FunctionElement)id;
+					if (!f.isModifiable()) 
+						throw new InvalidLocationException(list.get(0).loc + " is not a modifiable location.");
+				} else
+					newNames.add(name);
+				
+				if (f == null || f.getClass() == MapFunction.class) {
+					functions.add(f);
+					functionUpdates.add(list);
+				} else {
+					functions.add(fallible, f);
+					functionUpdates.add(fallible, list);
+					fallible++;
+				}
+			}
+			
+			// record the current values that may have to be restored or are journaled
+			final int recorded = journaled ? groups : fallible;
+			final List<ChangeJournal> journals = new ArrayList<ChangeJournal>(recorded);
+			for (int i = 0; i < recorded; i++) {
+				final FunctionElement f = functions.get(i);
+				final List<Update> list = functionUpdates.get(i);
+				final ChangeJournal journal = new ChangeJournal(list.size());
+				for (Update u: list) {
+					final Element oldValue = (f == null) ? Element.UNDEF : getValueSnapshot(f, u.loc.args);
+					journal.add(u.loc, oldValue, u.value);
+				}
+				journals.add(journal);
+			}
+			
+			// add the functions that do not exist yet
+			for (String name: newNames) {
+				try {
+					addFunction(name, new MapFunction(Element.UNDEF));
+				} catch (NameConflictException e) {
+					throw new EngineError("There is a name conflict (in 'applyUpdates(Set)') for \"" + name + "\"."); 
+				}
+			}
+			
+			// apply the updates of every function at once
+			int applied = 0;
+			try {
+				for (; applied < groups; applied++) {
+					FunctionElement f = functions.get(applied);
+					if (f == null) 
+						f = getFunction(functionUpdates.get(applied).get(0).loc.name);
+					f.setValues(functionUpdates.get(applied));
+				}
+			} catch (UnmodifiableFunctionException e) {
+				rollback(journals, applied, newNames);
+				throw new InvalidLocationException(e);
+			} catch (RuntimeException e) {
+				rollback(journals, applied, newNames);
+				throw e;
+			}
+			
+			if (!journaled)
+				return ChangeJournal.EMPTY;
+			if (groups == 1)
+				return journals.get(0);
+			int size = 0;
+			for (ChangeJournal journal: journals)
+				size += journal.size();
+			final ChangeJournal result = new ChangeJournal(size);
+			for (ChangeJournal journal: journals)
+				for (ChangeJournal.Change c: journal)
+					result.add(c.loc, c.oldValue, c.newValue);
+			return result;
+		}
+		
+		/*
+		 * Restores the old values of the changes in the journals 
+		 * of the first groups (up to the given index) and removes
+		 * the functions with the given names.
+		 */
+		private void rollback(List<ChangeJournal> journals, int last, List<String> newNames) {
+			for (int i = Math.min(last, journals.size() - 1); i >= 0; i--) {
+				for (ChangeJournal.Change c: journals.get(i)) {
+					try {
+						getFunction(c.loc.name).setValue(c.loc.args, c.oldValue);
+					} catch (UnmodifiableFunctionException e) {
+						logger.error("Cannot restore the value of " + c.loc + ".");
+					}
+				}
+			}
+			for (String name: newNames)
+				functionElements.getTable().remove(name);
+		}
+
 		/*
 		public synchronized void setValue(Location l, Element v) throws InvalidLocationException {
 			if (nameExists(l.name)) {
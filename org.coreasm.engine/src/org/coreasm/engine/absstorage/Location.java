@@ -37,6 +37,9 @@ public class Location {
 	/** if not null, indicates whether this location is modifiable or not. */
 	public final Boolean isModifiable;
 	
+	/** cached hash code; 0 if not computed yet */
+	private int hash = 0;
+	
 	/**
 	 * Creates a new location with the given
 	 * function and agruments.
@@ -49,7 +52,7 @@ public class Location {
 			throw new NullPointerException("Name of a location cannot be null.");
 		if (args == null)
 			throw new NullPointerException("Arguments of a location cannot be null.");
-		this.args = ElementList.create(args);
+		this.args = toElementList(args);
 		this.name = name;
 		this.isModifiable = null;
 	}
@@ -67,10 +70,19 @@ public class Location {
 			throw new NullPointerException("Name of a location cannot be null.");
 		if (args == null)
 			throw new NullPointerException("Arguments of a location cannot be null.");
-		this.args = ElementList.create(args);
+		this.args = toElementList(args);
 		this.name = name;
 		this.isModifiable = isModifiable;
 	}
+	
+	/*
+	 * Element lists are immutable, so they can be shared instead of copied.
+	 */
+	private static ElementList toElementList(List<? extends Element> args) {
+		if (args instanceof ElementList)
+			return (ElementList)args;
+		return ElementList.create(args);
+	}
 
 	/**
 	 * Provides a <code>String</code> representation of this 
@@ -88,10 +100,14 @@ public class Location {
 
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((name == null) ? 0 : name.hashCode());
-		result = prime * result + ((args == null) ? 0 : args.hashCode());
+		int result = hash;
+		if (result == 0) {
+			final int prime = 31;
+			result = 1;
+			result = prime * result + ((name == null) ? 0 : name.hashCode());
+			result = prime * result + ((args == null) ? 0 : args.hashCode());
+			hash = result;
+		}
 		return result;
 	}
 
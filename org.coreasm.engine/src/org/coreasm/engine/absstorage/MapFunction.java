@@ -14,6 +14,7 @@
  
 package org.coreasm.engine.absstorage;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -96,6 +97,23 @@ public class MapFunction extends FunctionElement {
 			table.put(el, value);
 	}
 	
+	/**
+	 * @see FunctionElement#setValues(Collection)
+	 */
+	@Override
+	public void setValues(Collection<Update> updates) throws UnmodifiableFunctionException {
+		if (!isModifiable()) 
+			throw new UnmodifiableFunctionException("Cannot set the value of this function.");
+		
+		for (Update u: updates) {
+			// locations always have element lists as arguments
+			if (u.value.equals(defaultValue))
+				table.remove(u.loc.args);
+			else
+				table.put(u.loc.args, u.value);
+		}
+	}
+	
 	/**
 	 * @see FunctionElement#getLocations(String)
 	 */
@@ -0,0 +1,167 @@
+package org.coreasm.engine.absstorage;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The part of the state a computation has read. A read set is opened by
+ * a thread before the computation and closed after it; while it is open,
+ * the storage reports every location the thread reads through
+ * {@link AbstractStorage#getValue(Location)} or
+ * {@link AbstractStorage#getValue(FunctionHandle, ElementList)} to it.
+ * <p>
+ * Read sets can be nested: a read set that is closed adds its reads to
+ * the read set that was open when it was opened. As long as no read set
+ * is open in any thread, the read path of the storage is not slowed down.
+ * <p>
+ * Reads that do not go through the storage (e.g., plug-ins reading a
+ * function element directly) are not recorded.
+ *
+ * @see #isAffectedBy(ChangeJournal)
+ */
+public class ReadSet {
+
+	private static final ThreadLocal<ReadSet> current = new ThreadLocal<ReadSet>();
+
+	/** the number of read sets open in all threads */
+	private static final AtomicInteger openSets = new AtomicInteger(0);
+
+	private final ReadSet outer;
+	private final Set<Location> locations = new HashSet<Location>();
+
+	/** names of the functions and universes that are read as a whole */
+	private final Set<String> functions = new HashSet<String>();
+
+	private boolean selfRead = false;
+	private boolean transientRead = false;
+	private boolean closed = false;
+
+	private ReadSet(ReadSet outer) {
+		this.outer = outer;
+	}
+
+	/**
+	 * Opens a new read set for the current thread.
+	 * The read set has to be closed by the same thread.
+	 */
+	public static ReadSet open() {
+		final ReadSet result = new ReadSet(current.get());
+		current.set(result);
+		openSets.incrementAndGet();
+		return result;
+	}
+
+	/**
+	 * Closes this read set and adds its reads to the read set
+	 * that was open when this one was opened, if any.
+	 */
+	public void close() {
+		if (closed)
+			return;
+		closed = true;
+		openSets.decrementAndGet();
+		current.set(outer);
+		if (outer != null)
+			outer.addAll(this);
+	}
+
+	/**
+	 * Returns <code>true</code> if a read set is open in any thread.
+	 */
+	public static boolean isRecording() {
+		return openSets.get() > 0;
+	}
+
+	/**
+	 * Records the read of the given location of function <code>f</code>
+	 * to the read set of the current thread, if any.
+	 *
+	 * @param l the location
+	 * @param f the function of the location, if any
+	 * @param value the value that was read
+	 * @param stacked whether the value was read from a stacked state
+	 */
+	static void recordRead(Location l, FunctionElement f, Element value, boolean stacked) {
+		final ReadSet reads = current.get();
+		if (reads == null)
+			return;
+		if (stacked || (f != null && f.getFClass() == FunctionElement.FunctionClass.fcMonitored))
+			reads.transientRead = true;
+		else if (value instanceof FunctionElement) {
+			// a function (or universe) that is read as a whole
+			if (value == f)
+				reads.functions.add(l.name);
+			else
+				reads.transientRead = true;
+		}
+		else
+			reads.locations.add(l);
+	}
+
+	/**
+	 * Records that the current thread has read the value of <i>self</i>.
+	 */
+	public static void recordSelf() {
+		final ReadSet reads = current.get();
+		if (reads != null)
+			reads.selfRead = true;
+	}
+
+	/**
+	 * Adds the given reads (e.g., the reads of a value that was
+	 * cached) to the read set of the current thread, if any.
+	 */
+	public static void recordAll(ReadSet other) {
+		final ReadSet reads = current.get();
+		if (reads != null)
+			reads.addAll(other);
+	}
+
+	private void addAll(ReadSet other) {
+		locations.addAll(other.locations);
+		functions.addAll(other.functions);
+		selfRead |= other.selfRead;
+		transientRead |= other.transientRead;
+	}
+
+	/**
+	 * Returns <code>true</code> if the value of <i>self</i> was read.
+	 */
+	public boolean isSelfRead() {
+		return selfRead;
+	}
+
+	/**
+	 * Returns <code>true</code> if a value was read that can change
+	 * without any update to the state: the value of a monitored
+	 * function, a value of a stacked state, or a function element
+	 * whose locations are not known.
+	 */
+	public boolean isTransient() {
+		return transientRead;
+	}
+
+	/**
+	 * Returns <code>true</code> if the given changes to the state
+	 * may have changed a value in this read set.
+	 */
+	public boolean isAffectedBy(ChangeJournal changes) {
+		if (transientRead)
+			return true;
+		if (changes.isEmpty())
+			return false;
+		for (String name: functions)
+			if (changes.isChanged(name))
+				return true;
+		for (Location l: locations)
+			if (changes.isChanged(l))
+				return true;
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return "reads of " + locations + " and " + functions;
+	}
+}
@@ -0,0 +1,331 @@
+package org.coreasm.engine.absstorage;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A bounded history of the last states of an {@link AbstractStorage}.
+ * <p>
+ * Instead of copies of the states, the history keeps the update sets
+ * that were fired together with the changes they made (see {@link ChangeJournal}),
+ * in a ring buffer of a given capacity. A previous state is a view
+ * that reconstructs the values of its locations on demand from the
+ * changes made since then. For every {@link #CHECKPOINT_INTERVAL}
+ * update sets, the oldest values of the locations they changed are merged
+ * into a checkpoint the first time they are needed, so reading a location
+ * of a state that is many steps back does not visit every step in between.
+ * <p>
+ * The history registers itself as a {@link ChangeListener} of the storage
+ * while its capacity is not zero; it is cleared whenever the state is cleared.
+ *
+ * @see org.coreasm.engine.ControlAPI#getPrevState(int)
+ * @see org.coreasm.engine.EngineProperties#STATE_HISTORY_SIZE
+ */
+public class StateHistory implements ChangeListener {
+
+	/** number of update sets merged into one checkpoint */
+	public static final int CHECKPOINT_INTERVAL = 16;
+
+	private final AbstractStorage storage;
+
+	/** ring buffer of the recorded update sets */
+	private Entry[] entries = new Entry[0];
+
+	/** sequence number of the last recorded update set; the first one is 1 */
+	private long lastSeq = 0;
+
+	/** checkpoints by block number; block b covers the sequence numbers b*K+1 .. (b+1)*K */
+	private final Map<Long, Map<Location, Element>> checkpoints = new HashMap<Long, Map<Location, Element>>();
+
+	/**
+	 * Creates a new history for the given storage with the given capacity.
+	 *
+	 * @param storage the storage whose states are kept
+	 * @param capacity the maximum number of previous states kept
+	 */
+	public StateHistory(AbstractStorage storage, int capacity) {
+		this.storage = storage;
+		setCapacity(capacity);
+	}
+
+	/**
+	 * Returns the maximum number of previous states kept.
+	 */
+	public synchronized int getCapacity() {
+		return entries.length;
+	}
+
+	/**
+	 * Sets the maximum number of previous states kept; a capacity of zero
+	 * disables the history, so the storage does not journal its changes
+	 * for it. Changing the capacity clears the history.
+	 */
+	public synchronized void setCapacity(int capacity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("Capacity of the state history cannot be negative.");
+		if (capacity != entries.length)
+			entries = new Entry[capacity];
+		if (capacity > 0)
+			storage.addUpdateSetListener(this);
+		else
+			storage.removeUpdateSetListener(this);
+		clear();
+	}
+
+	/**
+	 * Forgets all the previous states. The current state becomes the oldest one.
+	 */
+	public synchronized void clear() {
+		for (int i = 0; i < entries.length; i++)
+			entries[i] = null;
+		checkpoints.clear();
+		// previous states created so far refer to sequence numbers that no longer exist
+		lastSeq += entries.length + 1;
+	}
+
+	/**
+	 * Returns the number of previous states that are available.
+	 */
+	public synchronized int size() {
+		int size = 0;
+		for (Entry e: entries)
+			if (e != null)
+				size++;
+		return size;
+	}
+
+	/**
+	 * Returns the i'th previous state, or <code>null</code> if it is not
+	 * kept in the history. The returned state is a read-only view that
+	 * stays valid until the state it represents drops out of the history.
+	 * Only the values of the locations are those of the previous state;
+	 * functions, universes and rules are those of the current state.
+	 *
+	 * @param i index of the state back in time (one for the previous state)
+	 */
+	public synchronized State getState(int i) {
+		if (i < 1 || !isAvailable(lastSeq - i + 1))
+			return null;
+		return new PreviousState(lastSeq - i);
+	}
+
+	/**
+	 * Returns the i'th last update set that was fired, or <code>null</code>
+	 * if it is not kept in the history.
+	 *
+	 * @param i index of the update set back in time (one for the last update set)
+	 */
+	public synchronized Set<Update> getUpdateSet(int i) {
+		if (i < 1 || !isAvailable(lastSeq - i + 1))
+			return null;
+		return getEntry(lastSeq - i + 1).updates;
+	}
+
+	/**
+	 * Returns the changes made by the i'th last update set that was fired,
+	 * or <code>null</code> if it is not kept in the history.
+	 *
+	 * @param i index of the update set back in time (one for the last update set)
+	 */
+	public synchronized ChangeJournal getChanges(int i) {
+		if (i < 1 || !isAvailable(lastSeq - i + 1))
+			return null;
+		return getEntry(lastSeq - i + 1).changes;
+	}
+
+	public synchronized void updateSetFired(Set<Update> updates) {
+		if (entries.length == 0)
+			return;
+		lastSeq++;
+		final int index = (int)(lastSeq % entries.length);
+		final Entry evicted = entries[index];
+		entries[index] = new Entry(lastSeq,
+				Collections.unmodifiableSet(new HashSet<Update>(updates)),
+				storage.getLastChanges());
+		if (evicted != null)
+			checkpoints.remove(getBlock(evicted.seq));
+	}
+
+	public synchronized void stateCleared() {
+		clear();
+	}
+
+	private boolean isAvailable(long seq) {
+		if (seq < 1 || seq > lastSeq || entries.length == 0)
+			return false;
+		final Entry e = entries[(int)(seq % entries.length)];
+		return e != null && e.seq == seq;
+	}
+
+	private Entry getEntry(long seq) {
+		return entries[(int)(seq % entries.length)];
+	}
+
+	private static long getBlock(long seq) {
+		return (seq - 1) / CHECKPOINT_INTERVAL;
+	}
+
+	/*
+	 * Returns the value the given location had after the update set with
+	 * the given sequence number was fired, or null if it has not been
+	 * changed since then.
+	 */
+	private synchronized Element getValueAfter(long seq, Location loc) {
+		if (seq != lastSeq && !isAvailable(seq + 1))
+			throw new IllegalStateException("The state is no longer kept in the history.");
+		long s = seq + 1;
+		while (s <= lastSeq) {
+			final long block = getBlock(s);
+			final long blockEnd = (block + 1) * CHECKPOINT_INTERVAL;
+			Element value;
+			if (s == block * CHECKPOINT_INTERVAL + 1 && blockEnd <= lastSeq) {
+				// a whole block is in the range; use its checkpoint
+				value = getCheckpoint(block).get(loc);
+				s = blockEnd + 1;
+			} else {
+				value = getEntry(s).getOldValues().get(loc);
+				s++;
+			}
+			if (value != null)
+				return value;
+		}
+		return null;
+	}
+
+	private Map<Location, Element> getCheckpoint(long block) {
+		Map<Location, Element> checkpoint = checkpoints.get(block);
+		if (checkpoint == null) {
+			checkpoint = new HashMap<Location, Element>();
+			// newer old values are overwritten by older ones
+			for (long s = (block + 1) * CHECKPOINT_INTERVAL; s > block * CHECKPOINT_INTERVAL; s--)
+				checkpoint.putAll(getEntry(s).getOldValues());
+			checkpoints.put(block, checkpoint);
+		}
+		return checkpoint;
+	}
+
+	/*
+	 * One fired update set.
+	 */
+	private static class Entry {
+		final long seq;
+		final Set<Update> updates;
+		final ChangeJournal changes;
+		private Map<Location, Element> oldValues = null;
+
+		Entry(long seq, Set<Update> updates, ChangeJournal changes) {
+			this.seq = seq;
+			this.updates = updates;
+			this.changes = changes;
+		}
+
+		Map<Location, Element> getOldValues() {
+			if (oldValues == null) {
+				oldValues = new HashMap<Location, Element>();
+				for (ChangeJournal.Change c: changes)
+					if (!oldValues.containsKey(c.loc))
+						oldValues.put(c.loc, c.oldValue);
+			}
+			return oldValues;
+		}
+	}
+
+	/*
+	 * A read-only view of a previous state.
+	 */
+	private class PreviousState implements State {
+
+		/** sequence number of the update set that produced this state */
+		private final long seq;
+
+		PreviousState(long seq) {
+			this.seq = seq;
+		}
+
+		public Element getValue(Location loc) throws InvalidLocationException {
+			final Element value = getValueAfter(seq, loc);
+			if (value != null)
+				return value;
+			return storage.getValue(loc);
+		}
+
+		public Set<Location> getLocations() {
+			final Set<Location> locations = new HashSet<Location>(storage.getLocations());
+			final Set<Location> changed = new HashSet<Location>();
+			synchronized (StateHistory.this) {
+				for (long s = seq + 1; s <= lastSeq; s++)
+					if (isAvailable(s))
+						changed.addAll(getEntry(s).getOldValues().keySet());
+			}
+			for (Iterator<Location> i = changed.iterator(); i.hasNext(); ) {
+				final Location loc = i.next();
+				final Element value = getValueAfter(seq, loc);
+				if (value == null || value.equals(Element.UNDEF))
+					locations.remove(loc);
+				else
+					locations.add(loc);
+			}
+			return locations;
+		}
+
+		public void setValue(Location loc, Element value) throws InvalidLocationException {
+			throw new UnsupportedOperationException("Previous states cannot be modified.");
+		}
+
+		public Map<String, AbstractUniverse> getUniverses() {
+			return storage.getUniverses();
+		}
+
+		public AbstractUniverse getUniverse(String name) {
+			return storage.getUniverse(name);
+		}
+
+		public void addUniverse(String name, AbstractUniverse universe) throws NameConflictException {
+			throw new UnsupportedOperationException("Previous states cannot be modified.");
+		}
+
+		public Map<String, FunctionElement> getFunctions() {
+			return storage.getFunctions();
+		}
+
+		public FunctionElement getFunction(String name) {
+			return storage.getFunction(name);
+		}
+
+		public String getFunctionName(FunctionElement function) {
+			return storage.getFunctionName(function);
+		}
+
+		public void addFunction(String name, FunctionElement function) throws NameConflictException {
+			throw new UnsupportedOperationException("Previous states cannot be modified.");
+		}
+
+		public Map<String, RuleElement> getRules() {
+			return storage.getRules();
+		}
+
+		public RuleElement getRule(String name) {
+			return storage.getRule(name);
+		}
+
+		public void addRule(String name, RuleElement rule) throws NameConflictException {
+			throw new UnsupportedOperationException("Previous states cannot be modified.");
+		}
+
+		public FunctionElement getFunctionElementFunction() {
+			return storage.getFunctionElementFunction();
+		}
+
+		public FunctionElement getRuleElementFunction() {
+			return storage.getRuleElementFunction();
+		}
+
+		public FunctionElement getUniverseElementFunction() {
+			return storage.getUniverseElementFunction();
+		}
+	}
+}
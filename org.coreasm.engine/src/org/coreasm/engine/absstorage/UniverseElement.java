@@ -75,6 +75,26 @@ public class UniverseElement extends AbstractUniverse implements Enumerable {
 			setValue(args.get(0), (BooleanElement)value);
 	}
 
+	/**
+	 * Adds/Removes the elements of all the given membership updates
+	 * into/from this universe.
+	 * 
+	 * @see #setValue(List, Element)
+	 */
+	@Override
+	public void setValues(Collection<Update> updates) {
+		for (Update u: updates) {
+			if (u.loc.args.size() == 1 && u.value instanceof BooleanElement) {
+				if (((BooleanElement)u.value).getValue())
+					elements.add(u.loc.args.get(0));
+				else
+					elements.remove(u.loc.args.get(0));
+			} else
+				setValue(u.loc.args, u.value);
+		}
+		enumerationCache = null;
+	}
+
 	public void setValue(Element e, BooleanElement v) {
 		enumerationCache = null;
 		if (v.getValue())
@@ -14,8 +14,11 @@
  
 package org.coreasm.engine.absstorage;
 
+import java.util.AbstractSet;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import org.coreasm.engine.interpreter.ScannerInfo;
@@ -42,6 +45,9 @@ public class Update {
 	/** originating nodes */
 	public final Set<ScannerInfo> sources;
 	
+	/** cached hash code; 0 if not computed yet */
+	private int hash = 0;
+	
 	/** 
 	 * Creates a new update instructions.
 	 * 
@@ -58,14 +64,8 @@ public class Update {
 		this.loc = loc;
 		this.value = value;
 		this.action = action;
-		if (agents == null)
-			this.agents = newAgentSet();
-		else
-			this.agents = Collections.unmodifiableSet(agents);
-		if (sources == null)
-			this.sources = newSourceSet();
-		else
-			this.sources = Collections.unmodifiableSet(sources);
+		this.agents = provenanceSet(agents);
+		this.sources = provenanceSet(sources);
 	}
 	
 	/** 
@@ -85,13 +85,28 @@ public class Update {
 		this.action = action;
 		if (agent == null)
 			//throw new NullPointerException("Cannot create an update instruction with a null agent.");
-			this.agents = newAgentSet();
+			this.agents = Collections.emptySet();
 		else
-			this.agents = newAgentSet(agent);
+			this.agents = Collections.singleton(agent);
 		if (source == null)
-			this.sources = newSourceSet();
+			this.sources = Collections.emptySet();
 		else
-			this.sources = newSourceSet(source);
+			this.sources = Collections.singleton(source);
+	}
+	
+	/**
+	 * Returns an update with the same location, value, and action as this 
+	 * update, but without agents and sources. Returns this update if it has
+	 * neither agents nor sources.
+	 * 
+	 * @see org.coreasm.engine.EngineProperties#UPDATE_PROVENANCE
+	 */
+	public Update withoutProvenance() {
+		if (agents.isEmpty() && sources.isEmpty())
+			return this;
+		Update result = new Update(loc, value, action, (Element)null, (ScannerInfo)null);
+		result.hash = hash;
+		return result;
 	}
 	
 	/**
@@ -120,7 +135,12 @@ public class Update {
 	 */
 	@Override
 	public int hashCode() {
-		return loc.hashCode() + value.hashCode() + action.hashCode(); 
+		int h = hash;
+		if (h == 0) {
+			h = loc.hashCode() + value.hashCode() + action.hashCode();
+			hash = h;
+		}
+		return h; 
 	}
 	
 	/**
@@ -134,19 +154,68 @@ public class Update {
 	}
 	
 	/*
-	 * Creates a new set of agents (elements in general) with the given elements.
+	 * Returns an unmodifiable copy of the given set of agents or sources.
+	 * Updates mostly have one agent and one source, so small sets are
+	 * kept in an array instead of a hash table.
 	 */
-	private HashSet<Element> newAgentSet(Element ... agents) {
-		HashSet<Element> result = new HashSet<Element>();
-		for (Element a: agents)
-			result.add(a);
-		return result;
+	private static <E> Set<E> provenanceSet(Set<E> elements) {
+		if (elements == null || elements.isEmpty())
+			return Collections.emptySet();
+		if (elements instanceof ArraySet<?>)
+			return elements;
+		if (elements.size() == 1)
+			return Collections.singleton(elements.iterator().next());
+		if (elements.size() <= ArraySet.MAX_SIZE)
+			return new ArraySet<E>(elements);
+		return Collections.unmodifiableSet(elements);
 	}
 	
-	private HashSet<ScannerInfo> newSourceSet(ScannerInfo ... sources) {
-		HashSet<ScannerInfo> result = new HashSet<ScannerInfo>();
-		for (ScannerInfo a: sources)
-			result.add(a);
-		return result;
+	/*
+	 * An unmodifiable set of a few elements kept in an array.
+	 */
+	private static class ArraySet<E> extends AbstractSet<E> {
+		
+		static final int MAX_SIZE = 8;
+		
+		private final Object[] elements;
+		
+		ArraySet(Collection<E> c) {
+			elements = c.toArray();
+		}
+		
+		@Override
+		public int size() {
+			return elements.length;
+		}
+		
+		@Override
+		public boolean contains(Object o) {
+			for (Object e: elements)
+				if (e == null ? o == null : e.equals(o))
+					return true;
+			return false;
+		}
+		
+		@Override
+		public Iterator<E> iterator() {
+			return new Iterator<E>() {
+				int next = 0;
+				
+				public boolean hasNext() {
+					return next < elements.length;
+				}
+				
+				@SuppressWarnings("unchecked")
+				public E next() {
+					if (next >= elements.length)
+						throw new NoSuchElementException();
+					return (E)elements[next++];
+				}
+				
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
 	}
 }
@@ -14,30 +14,40 @@ package org.coreasm.engine.absstorage;
 
 import java.util.Collection;
 
-import org.coreasm.util.HashMultiset;
+import org.coreasm.util.OpenHashMultiset;
 
 /** 
- * Provides a multiset of updates. This class extends the <code>HashMultiset</code> class
+ * Provides a multiset of updates. This class extends the <code>OpenHashMultiset</code> class
  * and specializes it to a multiset of updates. 
  *   
  *  @author  Roozbeh Farahbod
  *  
  */
-public class UpdateMultiset extends HashMultiset<Update> {
+public class UpdateMultiset extends OpenHashMultiset<Update> {
 
 	/**
 	 * Creates a new empty update multiset.
 	 * 
-	 * @see HashMultiset#HashMultiset()
+	 * @see OpenHashMultiset#OpenHashMultiset()
 	 */
 	public UpdateMultiset() {
 		super();
 	}
 
+	/**
+	 * Creates a new empty update multiset with room
+	 * for the given number of updates.
+	 * 
+	 * @see OpenHashMultiset#OpenHashMultiset(int)
+	 */
+	public UpdateMultiset(int expectedSize) {
+		super(expectedSize);
+	}
+
 	/**
 	 * Creates a new update multiset with the given updates.
 	 * 
-	 * @see HashMultiset#HashMultiset(Collection)
+	 * @see OpenHashMultiset#OpenHashMultiset(Collection)
 	 */
 	public UpdateMultiset(Collection<? extends Update> c) {
 		super(c);
@@ -46,7 +56,7 @@ public class UpdateMultiset extends HashMultiset<Update> {
 	/**
 	 * Creates a new update multiset with the given updates.
 	 * 
-	 * @see HashMultiset#HashMultiset(Object[])
+	 * @see OpenHashMultiset#OpenHashMultiset(Object[])
 	 */
 	public UpdateMultiset(Update... elements) {
 		super(elements);
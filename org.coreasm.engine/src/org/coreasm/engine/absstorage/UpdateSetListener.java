@@ -0,0 +1,30 @@
+package org.coreasm.engine.absstorage;
+
+import java.util.Set;
+
+/**
+ * The listener interface for receiving notifications about changes 
+ * made to the state of an {@link AbstractStorage}.
+ * <p>
+ * Listeners are called by the thread that changes the state while 
+ * the storage is locked, so they should return quickly and must not 
+ * change the state themselves.
+ * 
+ * @see AbstractStorage#addUpdateSetListener(UpdateSetListener)
+ */
+public interface UpdateSetListener {
+
+	/**
+	 * Invoked after the given updates are applied to the state. 
+	 * Locations that are set directly (e.g., while preparing the 
+	 * initial state) are reported as single updates.
+	 * 
+	 * @param updates the applied updates
+	 */
+	public void updateSetFired(Set<Update> updates);
+
+	/**
+	 * Invoked after the state is cleared.
+	 */
+	public void stateCleared();
+}
@@ -68,6 +68,15 @@ public class ASTNode extends Node implements Serializable {
 	/** a location associated with this node */
 	protected Location location;
 
+	/** the handler that interprets this node; linked by the interpreter */
+	private transient InterpreterImp.NodeHandler handler = null;
+
+	/** the numbering of the tree of this node for evaluation frames, if any */
+	private transient EvaluationFrame.Layout frameLayout = null;
+
+	/** the slot of this node in the evaluation frames of its tree */
+	private transient int frameSlot;
+
 	/** 
 	 * Creates a new abstract node.
      * 
@@ -119,6 +128,7 @@ public class ASTNode extends Node implements Serializable {
 		this(node.pluginName, node.grammarClass, 
 				node.grammarRule, 
 				node.token, node.scannerInfo, node.concreteType);
+		this.handler = node.handler;
 	}
 	
 	/**
@@ -140,6 +150,7 @@ public class ASTNode extends Node implements Serializable {
 	 */
 	public void setGrammarClass(String grammarClass) {
 		this.grammarClass = grammarClass;
+		this.handler = null;
 	}
 
 	/**
@@ -147,6 +158,51 @@ public class ASTNode extends Node implements Serializable {
 	 */
 	public void setGrammarRule(String grammarRule) {
 		this.grammarRule = grammarRule;
+		this.handler = null;
+	}
+
+	@Override
+	public void setPluginName(String pluginName) {
+		super.setPluginName(pluginName);
+		this.handler = null;
+	}
+
+	@Override
+	public void setToken(String token) {
+		super.setToken(token);
+		this.handler = null;
+	}
+
+	/**
+	 * Returns the handler this node is linked to, 
+	 * or <code>null</code> if it is not linked yet.
+	 */
+	InterpreterImp.NodeHandler getHandler() {
+		return handler;
+	}
+
+	/**
+	 * Links this node to the handler that interprets it.
+	 */
+	void setHandler(InterpreterImp.NodeHandler handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * Returns the numbering of the tree of this node for 
+	 * evaluation frames, or <code>null</code> if it is not numbered.
+	 */
+	EvaluationFrame.Layout getFrameLayout() {
+		return frameLayout;
+	}
+
+	/**
+	 * Assigns this node to the given slot of the evaluation 
+	 * frames of its tree.
+	 */
+	void setFrameSlot(EvaluationFrame.Layout layout, int slot) {
+		this.frameLayout = layout;
+		this.frameSlot = slot;
 	}
 
 	/**
@@ -156,6 +212,11 @@ public class ASTNode extends Node implements Serializable {
 	 * @return <code>Collection</code> of <code>Update</code>
 	 */
 	public UpdateMultiset getUpdates(){
+		if (frameLayout != null) {
+			final EvaluationFrame frame = EvaluationFrame.current(frameLayout);
+			if (frame != null)
+				return frame.updates[frameSlot];
+		}
 		return updates;
 	}
 	
@@ -164,6 +225,11 @@ public class ASTNode extends Node implements Serializable {
 	 * 
 	 */
 	public Element getValue() {
+		if (frameLayout != null) {
+			final EvaluationFrame frame = EvaluationFrame.current(frameLayout);
+			if (frame != null)
+				return frame.values[frameSlot];
+		}
 		return value;
 	}
 	
@@ -171,6 +237,11 @@ public class ASTNode extends Node implements Serializable {
 	 * Returns the location associated with this node.
 	 */
 	public Location getLocation() {
+		if (frameLayout != null) {
+			final EvaluationFrame frame = EvaluationFrame.current(frameLayout);
+			if (frame != null)
+				return frame.locations[frameSlot];
+		}
 		return location;
 	}
 	
@@ -178,6 +249,12 @@ public class ASTNode extends Node implements Serializable {
 	 * Returns <code>true</code> if this node is evaluated.
 	 */
 	public boolean isEvaluated() {
+		if (frameLayout != null) {
+			final EvaluationFrame frame = EvaluationFrame.current(frameLayout);
+			if (frame != null)
+				return (frame.updates[frameSlot] != null || frame.values[frameSlot] != null 
+						|| frame.locations[frameSlot] != null);
+		}
 		return (updates != null || value != null || location != null);
 	}
 	
@@ -190,6 +267,15 @@ public class ASTNode extends Node implements Serializable {
 	 * @param value value
 	 */
 	public void setNode(Location loc, UpdateMultiset updates, Element value) {
+		if (frameLayout != null) {
+			final EvaluationFrame frame = EvaluationFrame.current(frameLayout);
+			if (frame != null) {
+				frame.locations[frameSlot] = loc;
+				frame.updates[frameSlot] = updates;
+				frame.values[frameSlot] = value;
+				return;
+			}
+		}
 		this.location = loc;
 		this.updates = updates;
 		this.value = value;
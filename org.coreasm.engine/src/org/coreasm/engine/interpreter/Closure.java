@@ -0,0 +1,27 @@
+package org.coreasm.engine.interpreter;
+
+/**
+ * A node of the parse tree compiled by a {@link ClosureCompiler}.
+ * Evaluating a closure returns the location, updates and value of its
+ * node directly, without moving <i>pos</i> through the tree and without
+ * changing the nodes.
+ * <p>
+ * Closures are shared by all agents and threads, so they must not keep
+ * the state of an evaluation in their fields.
+ *
+ * @see org.coreasm.engine.plugin.ClosureCompilerPlugin
+ */
+public interface Closure {
+
+	/**
+	 * Evaluates this closure on behalf of the agent <i>self</i>
+	 * of the given interpreter.
+	 *
+	 * @param interpreter the interpreter of the agent; gives access
+	 * to <i>self</i> and to the environment variables
+	 *
+	 * @return the result of the evaluation (never <code>null</code>)
+	 */
+	public Evaluation evaluate(Interpreter interpreter) throws InterpreterException;
+
+}
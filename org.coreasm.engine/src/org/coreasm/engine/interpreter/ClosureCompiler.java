@@ -0,0 +1,378 @@
+package org.coreasm.engine.interpreter;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.coreasm.engine.ControlAPI;
+import org.coreasm.engine.CoreASMError;
+import org.coreasm.engine.EngineError;
+import org.coreasm.engine.absstorage.AbstractStorage;
+import org.coreasm.engine.absstorage.BooleanElement;
+import org.coreasm.engine.absstorage.Element;
+import org.coreasm.engine.absstorage.ElementList;
+import org.coreasm.engine.absstorage.FunctionElement;
+import org.coreasm.engine.absstorage.FunctionHandle;
+import org.coreasm.engine.absstorage.InvalidLocationException;
+import org.coreasm.engine.absstorage.Location;
+import org.coreasm.engine.absstorage.ReadSet;
+import org.coreasm.engine.absstorage.RuleElement;
+import org.coreasm.engine.absstorage.Update;
+import org.coreasm.engine.absstorage.UpdateMultiset;
+import org.coreasm.engine.kernel.ConstantValueNode;
+import org.coreasm.engine.kernel.EnclosedTermNode;
+import org.coreasm.engine.kernel.Kernel;
+import org.coreasm.engine.kernel.UpdateRuleNode;
+import org.coreasm.engine.plugin.ClosureCompilerPlugin;
+import org.coreasm.engine.plugin.Plugin;
+
+/**
+ * Compiles the bodies of rules into trees of {@link Closure}s, which
+ * evaluate a program by calling each other instead of moving <i>pos</i>
+ * up and down the parse tree. Every node is visited once per evaluation
+ * and the tree of the rule is neither copied nor changed, so all the
+ * agents running the same program share its closures.
+ * <p>
+ * The compiler handles the literals, function terms, operators and
+ * update rules of the kernel; nodes of plugins are compiled by the
+ * plugins that implement {@link ClosureCompilerPlugin}. Any other node
+ * (e.g., a rule call) is evaluated by the interpreter on a copy of its
+ * subtree that is kept for every interpreter until the compiler is disposed.
+ *
+ * @see org.coreasm.engine.EngineProperties#CLOSURE_COMPILATION
+ */
+public class ClosureCompiler {
+
+	private final ControlAPI capi;
+
+	/** closures of the rule bodies compiled so far */
+	private final Map<ASTNode, Closure> ruleClosures = new IdentityHashMap<ASTNode, Closure>();
+
+	/** copies of the subtrees evaluated by the interpreter, by the interpreter that evaluates them */
+	private final Map<Interpreter, Map<InterpretedClosure, ASTNode>> copies =
+			new ConcurrentHashMap<Interpreter, Map<InterpretedClosure, ASTNode>>();
+
+	/**
+	 * Creates a new compiler for the specification loaded in the given engine.
+	 */
+	public ClosureCompiler(ControlAPI capi) {
+		this.capi = capi;
+	}
+
+	/**
+	 * Returns the engine this compiler works for.
+	 */
+	public ControlAPI getControlAPI() {
+		return capi;
+	}
+
+	/**
+	 * Returns the closure of the body of the given rule,
+	 * compiling it the first time it is requested.
+	 */
+	public synchronized Closure getClosure(RuleElement rule) {
+		final ASTNode body = rule.getBody();
+		Closure closure = ruleClosures.get(body);
+		if (closure == null) {
+			closure = compile(body);
+			ruleClosures.put(body, closure);
+		}
+		return closure;
+	}
+
+	/**
+	 * Releases the copies of subtrees kept for the interpreters that
+	 * evaluated programs. The compiler can be used afterwards,
+	 * but it has to copy the subtrees again.
+	 */
+	public void dispose() {
+		copies.clear();
+	}
+
+	/**
+	 * Compiles the given node and its children into a closure.
+	 */
+	public Closure compile(ASTNode node) {
+		final String pName = node.getPluginName();
+		if (pName != null && !pName.equals(Kernel.PLUGIN_NAME)) {
+			final Plugin p = capi.getPlugin(pName);
+			if (p instanceof ClosureCompilerPlugin) {
+				final Closure closure = ((ClosureCompilerPlugin)p).compile(this, node);
+				if (closure != null)
+					return closure;
+			}
+			return interpreted(node);
+		}
+		return compileKernelNode(node);
+	}
+
+	/**
+	 * Returns a closure that evaluates the given node with the interpreter.
+	 */
+	public Closure interpreted(ASTNode node) {
+		return new InterpretedClosure(node);
+	}
+
+	/**
+	 * Returns a closure that always evaluates to the given value.
+	 */
+	public static Closure constant(Element value) {
+		final Evaluation result = Evaluation.ofValue(value);
+		return new Closure() {
+			public Evaluation evaluate(Interpreter interpreter) {
+				return result;
+			}
+		};
+	}
+
+	/**
+	 * Returns an error for the given node that
+	 * stops the evaluation of the program.
+	 */
+	public static CoreASMError error(String msg, ASTNode node, Interpreter interpreter) {
+		return new CoreASMError(msg, interpreter.getCurrentCallStack(), node);
+	}
+
+	private Closure compileKernelNode(ASTNode node) {
+		if (node instanceof ConstantValueNode)
+			return constant(node.getValue());
+
+		final String token = node.getToken();
+		if (token != null) {
+			if (token.equals(Kernel.KW_TRUE))
+				return constant(BooleanElement.TRUE);
+			if (token.equals(Kernel.KW_FALSE))
+				return constant(BooleanElement.FALSE);
+			if (token.equals(Kernel.KW_UNDEF))
+				return constant(Element.UNDEF);
+			if (token.equals(Kernel.KW_SELF))
+				return SELF;
+		}
+
+		final String gClass = node.getGrammarClass();
+		if (gClass.equals(ASTNode.FUNCTION_RULE_CLASS)) {
+			if (node instanceof FunctionRuleTermNode && ((FunctionRuleTermNode)node).hasName())
+				return new FunctionTermClosure((FunctionRuleTermNode)node);
+		}
+		else if (gClass.equals(ASTNode.UNARY_OPERATOR_CLASS) ||
+				gClass.equals(ASTNode.BINARY_OPERATOR_CLASS) ||
+				gClass.equals(ASTNode.TERNARY_OPERATOR_CLASS) ||
+				gClass.equals(ASTNode.INDEX_OPERATOR_CLASS))
+			return new OperatorClosure(node);
+		else if (gClass.equals(ASTNode.EXPRESSION_CLASS)) {
+			if (node instanceof EnclosedTermNode) {
+				final Closure term = compile(node.getFirst());
+				return new Closure() {
+					public Evaluation evaluate(Interpreter interpreter) throws InterpreterException {
+						return Evaluation.ofValue(term.evaluate(interpreter).getValue());
+					}
+				};
+			}
+		}
+		else if (node instanceof UpdateRuleNode)
+			return new UpdateClosure(node, compile(node.getFirst()), compile(node.getFirst().getNext()));
+		else if (Kernel.KW_SKIP.equals(token))
+			return SKIP;
+
+		return interpreted(node);
+	}
+
+	/*
+	 * Evaluates the given closures in order.
+	 */
+	private static Evaluation[] evaluateAll(Closure[] closures, Interpreter interpreter) throws InterpreterException {
+		final Evaluation[] results = new Evaluation[closures.length];
+		for (int i = 0; i < closures.length; i++)
+			results[i] = closures[i].evaluate(interpreter);
+		return results;
+	}
+
+	private Closure[] compileAll(List<ASTNode> nodes) {
+		final Closure[] closures = new Closure[nodes.size()];
+		for (int i = 0; i < closures.length; i++)
+			closures[i] = compile(nodes.get(i));
+		return closures;
+	}
+
+	private static final Closure SELF = new Closure() {
+		public Evaluation evaluate(Interpreter interpreter) {
+			if (ReadSet.isRecording())
+				ReadSet.recordSelf();
+			return Evaluation.ofValue(interpreter.getSelf());
+		}
+	};
+
+	private static final Closure SKIP = new Closure() {
+		public Evaluation evaluate(Interpreter interpreter) {
+			return Evaluation.ofUpdates(new UpdateMultiset());
+		}
+	};
+
+	/*
+	 * Evaluates a subtree with the interpreter. Every interpreter
+	 * evaluates its own copy of the subtree; as an interpreter runs
+	 * the program of one agent at a time, the copies of an interpreter
+	 * are never used by two threads at once.
+	 */
+	private class InterpretedClosure implements Closure {
+		protected final ASTNode node;
+
+		InterpretedClosure(ASTNode node) {
+			this.node = node;
+		}
+
+		/*
+		 * Returns the copy of the subtree for the given interpreter.
+		 */
+		protected ASTNode getCopy(Interpreter interpreter) {
+			Map<InterpretedClosure, ASTNode> interpreterCopies = copies.get(interpreter);
+			if (interpreterCopies == null) {
+				// only the thread running the interpreter adds the map of its copies
+				interpreterCopies = new IdentityHashMap<InterpretedClosure, ASTNode>();
+				copies.put(interpreter, interpreterCopies);
+			}
+			ASTNode copy = interpreterCopies.get(this);
+			if (copy == null) {
+				copy = (ASTNode)node.cloneTree();
+				interpreterCopies.put(this, copy);
+			} else
+				interpreter.clearTree(copy);
+			return copy;
+		}
+
+		protected Evaluation interpret(ASTNode copy, Interpreter interpreter) throws InterpreterException {
+			interpreter.interpret(copy, interpreter.getSelf());
+			if (!copy.isEvaluated())
+				// the interpreter has reported an error
+				throw new CoreASMError("Failed to interpret node.", node);
+			return Evaluation.of(copy);
+		}
+
+		public Evaluation evaluate(Interpreter interpreter) throws InterpreterException {
+			return interpret(getCopy(interpreter), interpreter);
+		}
+	}
+
+	/*
+	 * Evaluates the operands of an operator and passes their values to
+	 * the plugins implementing the operator through a copy of the node.
+	 */
+	private final class OperatorClosure extends InterpretedClosure {
+		private final Closure[] operands;
+
+		OperatorClosure(ASTNode node) {
+			super(node);
+			this.operands = compileAll(node.getAbstractChildNodes());
+		}
+
+		@Override
+		public Evaluation evaluate(Interpreter interpreter) throws InterpreterException {
+			final Evaluation[] values = evaluateAll(operands, interpreter);
+			final ASTNode copy = getCopy(interpreter);
+			int i = 0;
+			for (ASTNode child = copy.getFirst(); child != null; child = child.getNext())
+				values[i++].applyTo(child);
+			return interpret(copy, interpreter);
+		}
+	}
+
+	/*
+	 * Evaluates a function term of the form 'x' or 'x(...)'. Terms that
+	 * do not refer to a function (e.g., rule names or undefined identifiers)
+	 * are evaluated by the interpreter.
+	 */
+	private final class FunctionTermClosure implements Closure {
+		private final String name;
+		private final Closure[] arguments;
+		private final Closure fallback;
+		private volatile FunctionHandle handle = null;
+
+		FunctionTermClosure(FunctionRuleTermNode node) {
+			this.name = node.getName();
+			this.arguments = node.hasArguments() ? compileAll(node.getArguments()) : null;
+			this.fallback = interpreted(node);
+		}
+
+		private FunctionHandle getHandle(AbstractStorage storage) {
+			FunctionHandle h = handle;
+			if (h == null || !storage.isValid(h)) {
+				h = storage.getFunctionHandle(name);
+				handle = h;
+			}
+			return h;
+		}
+
+		public Evaluation evaluate(Interpreter interpreter) throws InterpreterException {
+			final AbstractStorage storage = capi.getStorage();
+			final Element local = interpreter.getEnv(name);
+			try {
+				if (arguments == null) {
+					if (local != null)
+						return Evaluation.ofValue(local);
+					final FunctionHandle h = getHandle(storage);
+					if (h == null)
+						return fallback.evaluate(interpreter);
+					return new Evaluation(
+							new Location(name, ElementList.NO_ARGUMENT, h.function.isModifiable()),
+							null, storage.getValue(h, ElementList.NO_ARGUMENT));
+				}
+
+				FunctionHandle h = null;
+				FunctionElement f = null;
+				if (local instanceof FunctionElement)
+					f = (FunctionElement)local;
+				else {
+					h = getHandle(storage);
+					if (h != null)
+						f = h.function;
+				}
+				if (f == null)
+					return fallback.evaluate(interpreter);
+
+				final Evaluation[] values = evaluateAll(arguments, interpreter);
+				final Element[] args = new Element[values.length];
+				for (int i = 0; i < args.length; i++)
+					args[i] = values[i].getValue();
+				final ElementList vList = ElementList.create(args);
+				final String fName = (h != null) ? h.name : storage.getFunctionName(f);
+				if (fName == null)
+					return new Evaluation(new Location(name, vList, f.isModifiable()), null, f.getValue(vList));
+				final Location l = new Location(fName, vList, f.isModifiable());
+				if (h != null)
+					return new Evaluation(l, null, storage.getValue(h, vList));
+				return new Evaluation(l, null, storage.getValue(l));
+			} catch (InvalidLocationException e) {
+				throw new EngineError("Location is invalid in 'FunctionTermClosure.evaluate()'." +
+						"This cannot happen!");
+			}
+		}
+	}
+
+	/*
+	 * Evaluates an update rule.
+	 */
+	private static final class UpdateClosure implements Closure {
+		private final ASTNode node;
+		private final Closure lhs;
+		private final Closure rhs;
+
+		UpdateClosure(ASTNode node, Closure lhs, Closure rhs) {
+			this.node = node;
+			this.lhs = lhs;
+			this.rhs = rhs;
+		}
+
+		public Evaluation evaluate(Interpreter interpreter) throws InterpreterException {
+			final Location l = lhs.evaluate(interpreter).getLocation();
+			final Element value = rhs.evaluate(interpreter).getValue();
+			if (l == null)
+				throw error("Cannot update a non-location!", node, interpreter);
+			if (l.isModifiable != null && l.isModifiable.equals(false))
+				throw error("Left hand side of the assignment, " +
+						l + ", is not modifiable.", node, interpreter);
+			return Evaluation.ofUpdates(new UpdateMultiset(
+					new Update(l, value, Update.UPDATE_ACTION, interpreter.getSelf(), node.getScannerInfo())));
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package org.coreasm.engine.interpreter;
+
+import org.coreasm.engine.absstorage.Element;
+import org.coreasm.engine.absstorage.Location;
+import org.coreasm.engine.absstorage.UpdateMultiset;
+
+/**
+ * The result of evaluating a {@link Closure}: the location,
+ * updates and value that the interpreter would associate with
+ * the node of the closure. Evaluations are immutable.
+ */
+public final class Evaluation {
+
+	private final Location location;
+	private final UpdateMultiset updates;
+	private final Element value;
+
+	/**
+	 * Creates a new evaluation.
+	 *
+	 * @param location location (may be <code>null</code>)
+	 * @param updates update instructions (may be <code>null</code>)
+	 * @param value value (may be <code>null</code>)
+	 */
+	public Evaluation(Location location, UpdateMultiset updates, Element value) {
+		this.location = location;
+		this.updates = updates;
+		this.value = value;
+	}
+
+	/**
+	 * Returns the evaluation of a term that has the given value.
+	 */
+	public static Evaluation ofValue(Element value) {
+		return new Evaluation(null, null, value);
+	}
+
+	/**
+	 * Returns the evaluation of a rule that produced the given updates.
+	 */
+	public static Evaluation ofUpdates(UpdateMultiset updates) {
+		return new Evaluation(null, updates, null);
+	}
+
+	/**
+	 * Returns the location of the evaluated node, if any.
+	 */
+	public Location getLocation() {
+		return location;
+	}
+
+	/**
+	 * Returns the update instructions of the evaluated node; like
+	 * the interpreter, this is an empty multiset if the node
+	 * produced no updates.
+	 */
+	public UpdateMultiset getUpdates() {
+		if (updates == null)
+			return new UpdateMultiset();
+		return updates;
+	}
+
+	/**
+	 * Returns the value of the evaluated node, if any.
+	 */
+	public Element getValue() {
+		return value;
+	}
+
+	/**
+	 * Associates this evaluation with the given node, as if the
+	 * node had been evaluated by the interpreter.
+	 */
+	public void applyTo(ASTNode node) {
+		node.setNode(location, getUpdates(), value);
+	}
+
+	/**
+	 * Returns the evaluation associated with the given node.
+	 */
+	public static Evaluation of(ASTNode node) {
+		return new Evaluation(node.getLocation(), node.getUpdates(), node.getValue());
+	}
+}
@@ -0,0 +1,125 @@
+package org.coreasm.engine.interpreter;
+
+import java.util.Arrays;
+
+import org.coreasm.engine.absstorage.Element;
+import org.coreasm.engine.absstorage.Location;
+import org.coreasm.engine.absstorage.UpdateMultiset;
+
+/**
+ * Holds the locations, updates and values of the nodes of a tree
+ * for one evaluation of that tree.
+ * <p>
+ * The nodes of the tree are numbered once when the first frame of the
+ * tree is created. While a frame is entered by a thread, the nodes of
+ * its tree keep their evaluation state in the slots of the frame instead
+ * of their own fields. This way, many agents can evaluate the same tree
+ * simultaneously, each with its own frame, and resetting the tree for a
+ * new evaluation is only a matter of clearing the frame.
+ * <p>
+ * Nodes added to the tree after it has been numbered, and trees copied
+ * from it, keep their evaluation state in their own fields.
+ */
+public final class EvaluationFrame {
+
+	/** the frame entered by the current thread, if any */
+	private static final ThreadLocal<EvaluationFrame> current = new ThreadLocal<EvaluationFrame>();
+
+	/*
+	 * Numbering of the nodes of a tree; all frames of a tree share its layout.
+	 */
+	static final class Layout {
+		private final int size;
+
+		private Layout(int size) {
+			this.size = size;
+		}
+	}
+
+	private final Layout layout;
+	final Location[] locations;
+	final UpdateMultiset[] updates;
+	final Element[] values;
+
+	/** the frame that was entered before this one */
+	private EvaluationFrame outer = null;
+
+	/**
+	 * Creates a new (clear) frame for the tree under the given root.
+	 *
+	 * @param root root of the tree
+	 */
+	public EvaluationFrame(ASTNode root) {
+		this.layout = layoutOf(root);
+		this.locations = new Location[layout.size];
+		this.updates = new UpdateMultiset[layout.size];
+		this.values = new Element[layout.size];
+	}
+
+	/**
+	 * Clears the evaluation state of all the nodes in this frame.
+	 */
+	public void clear() {
+		Arrays.fill(locations, null);
+		Arrays.fill(updates, null);
+		Arrays.fill(values, null);
+	}
+
+	/**
+	 * Makes this frame hold the evaluation state of the nodes of
+	 * its tree in the current thread, until {@link #exit()} is called.
+	 */
+	public void enter() {
+		outer = current.get();
+		current.set(this);
+	}
+
+	/**
+	 * Restores the frame (if any) that was entered by the
+	 * current thread before this frame.
+	 */
+	public void exit() {
+		current.set(outer);
+		outer = null;
+	}
+
+	/**
+	 * Returns the frame entered by the current thread if it belongs
+	 * to the given layout; otherwise, returns <code>null</code>.
+	 */
+	static EvaluationFrame current(Layout layout) {
+		final EvaluationFrame frame = current.get();
+		if (frame != null && frame.layout == layout)
+			return frame;
+		return null;
+	}
+
+	/*
+	 * Returns the layout of the tree under the given root, numbering
+	 * the nodes of the tree if this has not been done yet.
+	 */
+	private static synchronized Layout layoutOf(ASTNode root) {
+		Layout layout = root.getFrameLayout();
+		if (layout == null) {
+			final int size = countNodes(root);
+			layout = new Layout(size);
+			number(root, layout, 0);
+		}
+		return layout;
+	}
+
+	private static int countNodes(Node node) {
+		int count = (node instanceof ASTNode) ? 1 : 0;
+		for (Node child: node.getChildNodes())
+			count += countNodes(child);
+		return count;
+	}
+
+	private static int number(Node node, Layout layout, int slot) {
+		if (node instanceof ASTNode)
+			((ASTNode)node).setFrameSlot(layout, slot++);
+		for (Node child: node.getChildNodes())
+			slot = number(child, layout, slot);
+		return slot;
+	}
+}
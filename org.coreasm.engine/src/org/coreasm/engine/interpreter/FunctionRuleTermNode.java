@@ -17,6 +17,7 @@ import java.util.AbstractList;
 import java.util.Collections;
 import java.util.List;
 
+import org.coreasm.engine.absstorage.FunctionHandle;
 import org.coreasm.engine.kernel.Kernel;
 
 /** 
@@ -34,6 +35,8 @@ public class FunctionRuleTermNode extends ASTNode {
 
 	private List<ASTNode> argsList = null;
 
+	private transient FunctionHandle functionHandle = null;
+
 	public FunctionRuleTermNode(ScannerInfo info) {
 		super(Kernel.PLUGIN_NAME,
 				ASTNode.FUNCTION_RULE_CLASS,
@@ -90,6 +93,25 @@ public class FunctionRuleTermNode extends ASTNode {
 		return argsList;
 	}
 	
+	/**
+	 * Returns the function handle cached on this node by the interpreter, 
+	 * or <code>null</code> if no function has been resolved for this node yet.
+	 * 
+	 * @see #setFunctionHandle(FunctionHandle)
+	 */
+	public FunctionHandle getFunctionHandle() {
+		return functionHandle;
+	}
+
+	/**
+	 * Caches the handle of the function this node refers to, so that
+	 * the function does not have to be looked up by name every time
+	 * the node is evaluated.
+	 */
+	public void setFunctionHandle(FunctionHandle handle) {
+		this.functionHandle = handle;
+	}
+
 	/**
 	 * Returns <code>true</code> if this function/rule term starts with a name (id).
 	 */
@@ -36,19 +36,23 @@ public interface Interpreter {
 	public void executeTree() throws InterpreterException;
 	
 	/**
-	 * Returns <code>true</code> if the program execution is finished.
-	 * <i>(parent(pos) == null)</i>
+	 * Returns <code>true</code> if the program execution is finished,
+	 * that is, if <i>pos</i> is evaluated and is either the node given to
+	 * {@link #setPosition(ASTNode)} or has no parent.
 	 */
 	public boolean isExecutionComplete();
 	
 	/**
-	 * Sets the value of "pos" to the given node. 
+	 * Sets the value of "pos" to the given node, which 
+	 * also becomes the root of the execution: <i>pos</i> 
+	 * does not move above this node.
 	 * This method does not make a duplicate copy 
 	 * of the node, and as a result, is not thread-safe.
 	 * 
 	 * In a multi-threaded environment, the caller should 
 	 * send a non-shared copy of the node to this method (perhaps
-	 * by duplicating it using {@link #copyTree(Node)}). 
+	 * by duplicating it using {@link #copyTree(Node)}), or 
+	 * evaluate the node in an {@link EvaluationFrame} of its own. 
      *  
 	 * @param pos the node to be interpreted
 	 */
@@ -103,6 +107,15 @@ public interface Interpreter {
 	 */
 	public Node copyTree(Node a);
 
+	/**
+	 * Links every node of the tree with its root at <code>root</code>
+	 * to the plugin or the part of the kernel that interprets it, so
+	 * the nodes need not be looked up every time they are interpreted.
+	 * 
+	 * @param root root of a tree
+	 */
+	public void linkTree(ASTNode root);
+
 	/**
 	 * Prepares the initial state.
 	 */
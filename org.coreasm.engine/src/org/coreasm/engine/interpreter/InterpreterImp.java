@@ -22,7 +22,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.IdentityHashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -37,9 +36,11 @@ import org.coreasm.engine.absstorage.BooleanElement;
 import org.coreasm.engine.absstorage.Element;
 import org.coreasm.engine.absstorage.ElementList;
 import org.coreasm.engine.absstorage.FunctionElement;
+import org.coreasm.engine.absstorage.FunctionHandle;
 import org.coreasm.engine.absstorage.InvalidLocationException;
 import org.coreasm.engine.absstorage.Location;
 import org.coreasm.engine.absstorage.NameElement;
+import org.coreasm.engine.absstorage.ReadSet;
 import org.coreasm.engine.absstorage.RuleElement;
 import org.coreasm.engine.absstorage.Update;
 import org.coreasm.engine.absstorage.UpdateMultiset;
@@ -74,6 +75,9 @@ public class InterpreterImp implements Interpreter {
 	/** Current node to be interpreted */
 	protected ASTNode pos;
 	
+	/** Root of the tree being executed; <i>pos</i> does not move above it */
+	protected ASTNode root = null;
+	
 	/** Current value of 'self' */
 	protected Element self = Element.UNDEF;
 	
@@ -91,8 +95,6 @@ public class InterpreterImp implements Interpreter {
 	
 	private OperatorRegistry oprReg = null;
 	
-	private final Map<String, Collection<String>> oprImpPluginsCache = new HashMap<String, Collection<String>>();
-	
 	private final Stack<CallStackElement> ruleCallStack = new Stack<CallStackElement>();
 
 	/**
@@ -135,20 +137,11 @@ public class InterpreterImp implements Interpreter {
 				}
 				
 				ASTNode prevPos = pos;
-				if (pName != null && !pName.equals(Kernel.PLUGIN_NAME)) {
-					logger.debug("Using plugin {}.", pName);
-					Plugin p = capi.getPlugin(pName);
-					if (p instanceof InterpreterPlugin){
-						pos = ((InterpreterPlugin)p).interpret(this, pos);
-					} else {
-						throw new InterpreterException("Pluging '" + p.getName() + "' is not an interpreter plugin.");
-					}
-				} else {
-					pos = kernelInterpreter(pos);
-					// Prevent infinite loop
-					if (pos == prevPos && !pos.isEvaluated())
-						capi.error("Failed to interpret node.", pos, this);
-				}
+				final NodeHandler handler = getHandler(pos);
+				pos = handler.interpret(this, pos);
+				// Prevent infinite loop
+				if (handler.isKernel() && pos == prevPos && !pos.isEvaluated())
+					capi.error("Failed to interpret node.", pos, this);
 				
 				if (pos == null) {
 					pos = prevPos;
@@ -169,7 +162,7 @@ public class InterpreterImp implements Interpreter {
 					notifyListenersAfterNodeEvaluation(pos);
 				
 			} else {
-				if (pos.getParent() != null) 
+				if (pos != root && pos.getParent() != null) 
 					pos = pos.getParent();
 			}
 		} catch (CoreASMError e) {
@@ -200,6 +193,178 @@ public class InterpreterImp implements Interpreter {
 			listener.beforeNodeEvaluation(pos);
 	}
 
+	/**
+	 * Returns the handler of the given node, linking 
+	 * the node to it if it is not linked yet.
+	 */
+	private NodeHandler getHandler(ASTNode node) throws InterpreterException {
+		NodeHandler handler = node.getHandler();
+		if (handler == null) {
+			handler = resolveHandler(node);
+			node.setHandler(handler);
+		}
+		return handler;
+	}
+
+	/**
+	 * Finds the handler that interprets the given node: the interpreter 
+	 * plugin that created it, or the part of the kernel interpreter that 
+	 * applies to its grammar class.
+	 */
+	private NodeHandler resolveHandler(ASTNode node) throws InterpreterException {
+		final String pName = node.getPluginName();
+		if (pName != null && !pName.equals(Kernel.PLUGIN_NAME)) {
+			logger.debug("Using plugin {}.", pName);
+			Plugin p = capi.getPlugin(pName);
+			if (p instanceof InterpreterPlugin)
+				return new PluginHandler((InterpreterPlugin)p);
+			else if (p == null)
+				throw new InterpreterException("Plugin '" + pName + "' is not loaded.");
+			else
+				throw new InterpreterException("Pluging '" + p.getName() + "' is not an interpreter plugin.");
+		}
+		
+		final String token = node.getToken();
+		if (token != null && (token.equals(Kernel.KW_TRUE) || token.equals(Kernel.KW_FALSE) 
+				|| token.equals(Kernel.KW_UNDEF) || token.equals(Kernel.KW_SELF)))
+			return KERNEL_HANDLER;
+		
+		final String gClass = node.getGrammarClass();
+		if (gClass.equals(ASTNode.FUNCTION_RULE_CLASS))
+			return FUNCTION_RULE_HANDLER;
+		if (gClass.equals(ASTNode.UNARY_OPERATOR_CLASS) || 
+				gClass.equals(ASTNode.BINARY_OPERATOR_CLASS) ||
+				gClass.equals(ASTNode.TERNARY_OPERATOR_CLASS) ||
+				gClass.equals(ASTNode.INDEX_OPERATOR_CLASS))
+			return resolveOperatorHandler(node);
+		if (gClass.equals(ASTNode.EXPRESSION_CLASS))
+			return EXPRESSION_HANDLER;
+		return RULE_HANDLER;
+	}
+
+	/**
+	 * Links every node of the given tree to the handler that interprets it,
+	 * so that interpreting a node is a single call on its handler. Nodes 
+	 * that are not linked here (e.g., nodes created while running) are 
+	 * linked the first time they are interpreted.
+	 * 
+	 * @see Interpreter#linkTree(ASTNode)
+	 */
+	public void linkTree(ASTNode root) {
+		if (root != null) {
+			if (root.getHandler() == null) {
+				try {
+					root.setHandler(resolveHandler(root));
+				} catch (InterpreterException e) {
+					// reported when (and if) the node is interpreted
+				}
+			}
+			for (ASTNode child = root.getFirst(); child != null; child = child.getNext())
+				linkTree(child);
+		}
+	}
+
+	/**
+	 * Interprets the nodes of one kind. Nodes are linked to their handler 
+	 * once, so interpreting a node needs neither a lookup of its plugin nor 
+	 * a series of comparisons of its grammar class and token.
+	 */
+	static abstract class NodeHandler {
+		
+		/**
+		 * Interprets the given node and returns the new value of <i>pos</i>.
+		 */
+		abstract ASTNode interpret(InterpreterImp interpreter, ASTNode pos) throws InterpreterException;
+		
+		/**
+		 * Returns <code>true</code> if this handler is part of the kernel interpreter.
+		 */
+		boolean isKernel() {
+			return true;
+		}
+	}
+	
+	/**
+	 * Handler of the nodes of an interpreter plugin.
+	 */
+	private static final class PluginHandler extends NodeHandler {
+		private final InterpreterPlugin plugin;
+		
+		PluginHandler(InterpreterPlugin plugin) {
+			this.plugin = plugin;
+		}
+		
+		@Override
+		ASTNode interpret(InterpreterImp interpreter, ASTNode pos) throws InterpreterException {
+			return plugin.interpret(interpreter, pos);
+		}
+		
+		@Override
+		boolean isKernel() {
+			return false;
+		}
+	}
+
+	/** handler of literals; runs the whole kernel interpreter */
+	private static final NodeHandler KERNEL_HANDLER = new NodeHandler() {
+		@Override
+		ASTNode interpret(InterpreterImp interpreter, ASTNode pos) throws InterpreterException {
+			return interpreter.kernelInterpreter(pos);
+		}
+	};
+	
+	/** handler of function/rule terms */
+	private static final NodeHandler FUNCTION_RULE_HANDLER = new NodeHandler() {
+		@Override
+		ASTNode interpret(InterpreterImp interpreter, ASTNode pos) throws InterpreterException {
+			final ASTNode newPos = interpreter.interpretFunctionRuleTerm(pos);
+			if (newPos == pos && !pos.isEvaluated())
+				return interpreter.interpretRules(pos);
+			return newPos;
+		}
+	};
+	
+	/**
+	 * Handler of the nodes of an operator; this is the call site of the 
+	 * operator, holding the plugins that implement it.
+	 */
+	private static final class OperatorHandler extends NodeHandler {
+		private final String[] pluginNames;
+		private final OperatorProvider[] providers;
+		
+		OperatorHandler(String[] pluginNames, OperatorProvider[] providers) {
+			this.pluginNames = pluginNames;
+			this.providers = providers;
+		}
+		
+		@Override
+		ASTNode interpret(InterpreterImp interpreter, ASTNode pos) throws InterpreterException {
+			final ASTNode newPos = interpreter.interpretOperators(pos);
+			if (newPos == pos && !pos.isEvaluated())
+				return interpreter.interpretRules(pos);
+			return newPos;
+		}
+	}
+
+	/** handler of other kernel expressions */
+	private static final NodeHandler EXPRESSION_HANDLER = new NodeHandler() {
+		@Override
+		ASTNode interpret(InterpreterImp interpreter, ASTNode pos) throws InterpreterException {
+			final ASTNode newPos = interpreter.interpretKernelExpression(pos);
+			if (newPos == pos && !pos.isEvaluated())
+				return interpreter.interpretRules(pos);
+			return newPos;
+		}
+	};
+	
+	/** handler of kernel rules */
+	private static final NodeHandler RULE_HANDLER = new NodeHandler() {
+		@Override
+		ASTNode interpret(InterpreterImp interpreter, ASTNode pos) throws InterpreterException {
+			return interpreter.interpretRules(pos);
+		}
+	};
+
 	/**
 	 * <i>KernelInterpreter</i> rule that performs kernel interpretation of the
 	 * current node at <i>pos</i>.
@@ -241,11 +406,12 @@ public class InterpreterImp implements Interpreter {
 	}
 	
 	public boolean isExecutionComplete() {
-		return (pos.getParent() == null && pos.isEvaluated());
+		return ((pos == root || pos.getParent() == null) && pos.isEvaluated());
 	}
 
 	public void setPosition(ASTNode node) {
 		pos = node;
+		root = node;
 	}
 
 	public ASTNode getPosition() {
@@ -350,157 +516,203 @@ public class InterpreterImp implements Interpreter {
 			pos.setNode(null, null, BooleanElement.FALSE);
 		else if (token.equals(Kernel.KW_UNDEF)) 
 			pos.setNode(null, null, Element.UNDEF);
-		else if (token.equals(Kernel.KW_SELF))
+		else if (token.equals(Kernel.KW_SELF)) {
+			if (ReadSet.isRecording())
+				ReadSet.recordSelf();
 			pos.setNode(null, null, self);
+		}
 		return pos;
 	}
 	
+	/**
+	 * Returns the handle of the state function named <code>x</code>, 
+	 * resolving it only if the handle cached on the given node 
+	 * is missing or no longer valid.
+	 */
+	private FunctionHandle getFunctionHandle(AbstractStorage storage, FunctionRuleTermNode node, String x) {
+		FunctionHandle h = node.getFunctionHandle();
+		if (h == null || !storage.isValid(h)) {
+			h = storage.getFunctionHandle(x);
+			node.setFunctionHandle(h);
+		}
+		return h;
+	}
+	
 	/**
 	 * Interpretation of kernel expressions
 	 * @throws InterpreterException 
 	 */
 	private ASTNode interpretExpressions(ASTNode pos) throws InterpreterException {
-		final AbstractStorage storage = capi.getStorage();
 		final String gClass = pos.getGrammarClass();
-		String x = pos.getToken();
 		
 		// If the current node is a function/rule term
-		if (gClass.equals(ASTNode.FUNCTION_RULE_CLASS)) {
-			if (pos instanceof FunctionRuleTermNode) {
-				FunctionRuleTermNode frNode = (FunctionRuleTermNode)pos;
-				
-				// If the current node is of the form 'x' or 'x(...)'
-				if (frNode.hasName()) {
+		if (gClass.equals(ASTNode.FUNCTION_RULE_CLASS))
+			pos = interpretFunctionRuleTerm(pos);
+		
+		// if class is an operator then
+		else if (gClass.equals(ASTNode.UNARY_OPERATOR_CLASS) || 
+                 gClass.equals(ASTNode.BINARY_OPERATOR_CLASS) ||
+                 gClass.equals(ASTNode.TERNARY_OPERATOR_CLASS) ||
+                 gClass.equals(ASTNode.INDEX_OPERATOR_CLASS))
+		{
+			pos = interpretOperators(pos);
+		}
+		// else another general type of expression
+		else if (gClass.equals(ASTNode.EXPRESSION_CLASS))
+			pos = interpretKernelExpression(pos);
 	
-					x = frNode.getName();
+		return pos;
+	}
+	
+	/**
+	 * Interpretation of kernel function/rule terms
+	 * @throws InterpreterException 
+	 */
+	private ASTNode interpretFunctionRuleTerm(ASTNode pos) throws InterpreterException {
+		final AbstractStorage storage = capi.getStorage();
+		String x = pos.getToken();
+		
+		if (pos instanceof FunctionRuleTermNode) {
+			FunctionRuleTermNode frNode = (FunctionRuleTermNode)pos;
+			
+			// If the current node is of the form 'x' or 'x(...)'
+			if (frNode.hasName()) {
+
+				x = frNode.getName();
+				
+				// If the current node is of the form 'x' with no arguments
+				if (!frNode.hasArguments()) {
 					
-					// If the current node is of the form 'x' with no arguments
-					if (!frNode.hasArguments()) {
-						
-						// If we have a local value for that...
-						if (getEnv(x) != null)
-							pos.setNode(null, null, getEnv(x));
-						else {
-							// If this 'x' refers to a function in the state...
-							final FunctionElement f = storage.getFunction(x);
+					// If we have a local value for that...
+					if (getEnv(x) != null)
+						pos.setNode(null, null, getEnv(x));
+					else {
+						// If this 'x' refers to a function in the state...
+						final FunctionHandle h = getFunctionHandle(storage, frNode, x);
 //							if (storage.isFunctionName(x)) {
-							if (f != null) {
-								final Location l = new Location(x, ElementList.NO_ARGUMENT, f.isModifiable());
+						if (h != null) {
+							final Location l = new Location(x, ElementList.NO_ARGUMENT, h.function.isModifiable());
+							try {
+								pos.setNode(l, null, storage.getValue(h, ElementList.NO_ARGUMENT));
+							} catch (InvalidLocationException e) {
+								throw new EngineError("Location is invalid in 'interpretExpressions()'." + 
+										"This cannot happen!");
+							}
+						} else
+							// if this 'x' is not defined before...
+							if (isUndefined(x)) {
+								handleUndefinedIdentifier(pos, x, ElementList.NO_ARGUMENT);
+							}
+					}
+				} else { // if current node is 'x(...)' (with arguments)
+					
+					// If this 'x' refers to a function in the state...
+					FunctionHandle h = null;
+					FunctionElement f = null;
+					final Element local = getEnv(x);
+					if (local instanceof FunctionElement)
+						f = (FunctionElement)local;
+					else {
+						h = getFunctionHandle(storage, frNode, x);
+						if (h != null)
+							f = h.function;
+					}
+					if (f == null) {
+						try {
+							Element value = storage.getValue(new Location(x, ElementList.NO_ARGUMENT));
+							if (value instanceof FunctionElement)
+								f = (FunctionElement)value;
+						} catch (InvalidLocationException e) {
+						}
+					}
+					if (f != null) {
+						final List<ASTNode> args = frNode.getArguments();
+						// look for the parameter that needs to be evaluated
+						final ASTNode toBeEvaluated = getUnevaluatedNode(args);
+						if (toBeEvaluated == null) {
+							// if all nodes are evaluated...
+							final ElementList vList = EngineTools.getValueList(args);
+							final String name = (h != null) ? h.name : storage.getFunctionName(f);
+							if (name != null) {
+								final Location l = new Location(name, vList, f.isModifiable());
 								try {
-									pos.setNode(l, null, storage.getValue(l));
+									if (h != null)
+										pos.setNode(l, null, storage.getValue(h, vList));
+									else
+										pos.setNode(l, null, storage.getValue(l));
 								} catch (InvalidLocationException e) {
 									throw new EngineError("Location is invalid in 'interpretExpressions()'." + 
 											"This cannot happen!");
 								}
-							} else
-								// if this 'x' is not defined before...
-								if (isUndefined(x)) {
-									handleUndefinedIdentifier(pos, x, ElementList.NO_ARGUMENT);
-								}
-						}
-					} else { // if current node is 'x(...)' (with arguments)
-						
-						// If this 'x' refers to a function in the state...
-						FunctionElement f = storage.getFunction(x);
-						if (getEnv(x) instanceof FunctionElement)
-							f = (FunctionElement)getEnv(x);
-						if (f == null) {
-							try {
-								Element value = storage.getValue(new Location(x, ElementList.NO_ARGUMENT));
-								if (value instanceof FunctionElement)
-									f = (FunctionElement)value;
-							} catch (InvalidLocationException e) {
 							}
-						}
-						if (f != null) {
+							else
+								pos.setNode(new Location(x, vList, f.isModifiable()), null, f.getValue(vList));
+						} else
+							pos = toBeEvaluated;
+					} else
+						// if 'x' is not defined
+						if (isUndefined(x)) {
 							final List<ASTNode> args = frNode.getArguments();
 							// look for the parameter that needs to be evaluated
 							final ASTNode toBeEvaluated = getUnevaluatedNode(args);
 							if (toBeEvaluated == null) {
 								// if all nodes are evaluated...
-								final ElementList vList = EngineTools.getValueList(args);
-								final String name = storage.getFunctionName(f);
-								if (name != null) {
-									final Location l = new Location(name, vList, f.isModifiable());
-									try {
-										pos.setNode(l, null, storage.getValue(l));
-									} catch (InvalidLocationException e) {
-										throw new EngineError("Location is invalid in 'interpretExpressions()'." + 
-												"This cannot happen!");
-									}
-								}
-								else
-									pos.setNode(new Location(x, vList, f.isModifiable()), null, f.getValue(vList));
+								ElementList vList = EngineTools.getValueList(args);
+								handleUndefinedIdentifier(pos, x, vList);
 							} else
 								pos = toBeEvaluated;
-						} else
-							// if 'x' is not defined
-							if (isUndefined(x)) {
-								final List<ASTNode> args = frNode.getArguments();
-								// look for the parameter that needs to be evaluated
-								final ASTNode toBeEvaluated = getUnevaluatedNode(args);
-								if (toBeEvaluated == null) {
-									// if all nodes are evaluated...
-									ElementList vList = EngineTools.getValueList(args);
-									handleUndefinedIdentifier(pos, x, vList);
-								} else
-									pos = toBeEvaluated;
-							}
-					}
-					
-				} // endif of the current node being 'x' or 'x(...)'
-			} 
-			
-		} //endif of the current node being a function/rule term
+						}
+				}
+				
+			} // endif of the current node being 'x' or 'x(...)'
+		} 
 		
-		// if class is an operator then
-		else if (gClass.equals(ASTNode.UNARY_OPERATOR_CLASS) || 
-                 gClass.equals(ASTNode.BINARY_OPERATOR_CLASS) ||
-                 gClass.equals(ASTNode.TERNARY_OPERATOR_CLASS) ||
-                 gClass.equals(ASTNode.INDEX_OPERATOR_CLASS))
+		return pos;
+	}
+	
+	/**
+	 * Interpretation of other kernel expressions
+	 */
+	private ASTNode interpretKernelExpression(ASTNode pos) {
+		final AbstractStorage storage = capi.getStorage();
+		
+		// for 'ruleelement' expression
+		if (pos.getGrammarRule().equals(Kernel.GR_RULEELEMENT_TERM))
 		{
-			pos = interpretOperators(pos);
+			final ASTNode idNode = pos.getFirst();
+				
+			// attempt get rule element for given rule
+			final String ruleName = idNode.getToken();
+			final RuleElement ruleElement = capi.getStorage().getRule(ruleName);
+						
+			// if rule element exists
+			if (ruleElement != null)
+				pos.setNode(null,null,ruleElement);
+			// else no such rule exists return undef
+			else
+				pos.setNode(null,null,Element.UNDEF);
 		}
-		// else another general type of expression
-		else if (gClass.equals(ASTNode.EXPRESSION_CLASS))
-		{
-			// for 'ruleelement' expression
-			if (pos.getGrammarRule().equals(Kernel.GR_RULEELEMENT_TERM))
-			{
-				final ASTNode idNode = pos.getFirst();
-					
-				// attempt get rule element for given rule
-				final String ruleName = idNode.getToken();
-				final RuleElement ruleElement = capi.getStorage().getRule(ruleName);
-							
-				// if rule element exists
-				if (ruleElement != null)
-					pos.setNode(null,null,ruleElement);
-				// else no such rule exists return undef
-				else
-					pos.setNode(null,null,Element.UNDEF);
-			}
+		
+		else if (pos instanceof RuleOrFuncElementNode) {
+			final RuleOrFuncElementNode node = (RuleOrFuncElementNode)pos;
+			final String name = node.getElementName();
 			
-			else if (pos instanceof RuleOrFuncElementNode) {
-				final RuleOrFuncElementNode node = (RuleOrFuncElementNode)pos;
-				final String name = node.getElementName();
-				
-				Element e = storage.getRule(name);
-				if (e == null) 
-					e = storage.getFunction(name);
-				if (getEnv(name) instanceof FunctionElement || getEnv(name) instanceof RuleElement)
-					e = getEnv(name);
-				if (e == null) {
-					try {
-						Element value = storage.getValue(new Location(name, ElementList.NO_ARGUMENT));
-						if (value instanceof FunctionElement || value instanceof RuleElement)
-							e = value;
-					} catch (InvalidLocationException ex) {
-					}
+			Element e = storage.getRule(name);
+			if (e == null) 
+				e = storage.getFunction(name);
+			if (getEnv(name) instanceof FunctionElement || getEnv(name) instanceof RuleElement)
+				e = getEnv(name);
+			if (e == null) {
+				try {
+					Element value = storage.getValue(new Location(name, ElementList.NO_ARGUMENT));
+					if (value instanceof FunctionElement || value instanceof RuleElement)
+						e = value;
+				} catch (InvalidLocationException ex) {
 				}
-				
-				if (e != null) {
-				    if (e instanceof FunctionElement) {
+			}
+			
+			if (e != null) {
+			    if (e instanceof FunctionElement) {
                         if (((FunctionElement) e).isModifiable()) {
                             Location l = new Location(AbstractStorage.FUNCTION_ELEMENT_FUNCTION_NAME, ElementList.create(new NameElement(name)));
                             pos.setNode(l,null,e);
@@ -517,20 +729,19 @@ public class InterpreterImp implements Interpreter {
                         pos.setNode(null,null,e);
                     }
                 }
-				else {
-					pos.setNode(null, null, Element.UNDEF);
+			else {
+				pos.setNode(null, null, Element.UNDEF);
                 }
-			} else
-				// if pos is of the form '(' ... ')'
-				if (pos instanceof EnclosedTermNode) {
-					final ASTNode innerNode = pos.getFirst();
-					if (innerNode.isEvaluated())
-						pos.setNode(null, null, innerNode.value);
-					else
-						pos = innerNode;
-				}
-		}
-	
+		} else
+			// if pos is of the form '(' ... ')'
+			if (pos instanceof EnclosedTermNode) {
+				final ASTNode innerNode = pos.getFirst();
+				if (innerNode.isEvaluated())
+					pos.setNode(null, null, innerNode.getValue());
+				else
+					pos = innerNode;
+			}
+
 		return pos;
 	}
     
@@ -673,9 +884,6 @@ public class InterpreterImp implements Interpreter {
 	 * @throws InterpreterException 
 	 */
 	private ASTNode interpretOperators(ASTNode pos) throws InterpreterException {
-		String gClass = pos.getGrammarClass();
-		String x = pos.getToken();
-		
 		// evaluate children first:
 		
 		// find first unevaluated child
@@ -686,109 +894,143 @@ public class InterpreterImp implements Interpreter {
 		// if there is an unevaluated child, then we need to pass control to that
 		// child so that it can be evaluated
 		if (unevaluatedChild != null)
-			pos = unevaluatedChild;
+			return unevaluatedChild;
+		
 		// else no unevaluated children, so we can commence operator interpretation
+		final NodeHandler handler = getHandler(pos);
+		final OperatorHandler callSite;
+		if (handler instanceof OperatorHandler)
+			callSite = (OperatorHandler)handler;
 		else
-		{
-			if (oprReg == null) 
-				oprReg = OperatorRegistry.getInstance(capi);
-			
-			// collection of all plugins which have an implementation for this operator
-			Collection<String> impPlugins = oprImpPluginsCache.get(x + "__:X:__" + gClass);
-			// that is a bad thing, no? ;-)
-			if (impPlugins == null) {
-				impPlugins = oprReg.getOperatorContributors(x,gClass);
-				oprImpPluginsCache.put(x + "__:X:__" + gClass, impPlugins);
+			callSite = resolveOperatorHandler(pos);
+		
+		// the usual case of an operator implemented by only one plugin
+		if (callSite.providers.length == 1) {
+			Element result = null;
+			InterpreterException error = null;
+			try {
+				result = callSite.providers[0].interpretOperatorNode(this, pos);
 			}
-			// hash table which holds all the results and errors
-			final Hashtable<String,Element> impResults = new Hashtable<String,Element>();
-			final Hashtable<String,InterpreterException> impErrors = new Hashtable<String,InterpreterException>();
-			final HashSet<String> nullReturns = new HashSet<String>();
-			
-			// TODO What is the diff between returning 'null' and throwing an exception?
+			catch (InterpreterException e) {
+				error = e;
+			}
+			if (result != null)
+				pos.setNode(null, null, result);
+			else if (error != null)
+				reportOperatorFailure(pos, 
+						Collections.singletonMap(callSite.pluginNames[0], error), 
+						Collections.<String>emptySet());
+			else
+				reportOperatorFailure(pos, 
+						Collections.<String, InterpreterException>emptyMap(), 
+						Collections.singleton(callSite.pluginNames[0]));
+			return pos;
+		}
+		
+		// hash table which holds all the results and errors
+		final Hashtable<String,Element> impResults = new Hashtable<String,Element>();
+		final Hashtable<String,InterpreterException> impErrors = new Hashtable<String,InterpreterException>();
+		final HashSet<String> nullReturns = new HashSet<String>();
+		
+		// TODO What is the diff between returning 'null' and throwing an exception?
+		
+		// for each possible implementation
+		for (int i = 0; i < callSite.providers.length; i++)
+		{
+			String pluginName = callSite.pluginNames[i];
 			
-			// for each possible implementation
-			Iterator<String> itImpPlugins = impPlugins.iterator();
-			while (itImpPlugins.hasNext())
+			// result can be a value or an interpreter exception thrown.
+			try
 			{
-				// load plugin
-				String pluginName = itImpPlugins.next();
-				OperatorProvider opImp = (OperatorProvider)capi.getPlugin(pluginName);
-				
-				// result can be a value or an interpreter exception thrown.
-				try
-				{
-					Element result = null;
-					result = opImp.interpretOperatorNode(this, pos);
-					
-					if (result == null)
-						nullReturns.add(pluginName);
-					else
-						impResults.put(pluginName,result);
-				}
-				catch (InterpreterException error)
-				{
-					// add error to hash table
-					impErrors.put(pluginName,error);
-				}
-				
+				Element result = callSite.providers[i].interpretOperatorNode(this, pos);
 				
+				if (result == null)
+					nullReturns.add(pluginName);
+				else
+					impResults.put(pluginName,result);
 			}
-			
-			// decide on what final result of operator evaluation is:
-			
-			// put results into a set
-			final HashSet<Element> setResultElements = new HashSet<Element>();
-			for(Element result: impResults.values())
-					setResultElements.add(result);
-
-			// if one of the results is undef but there are other results as well,
-			// remove the undef value
-			if ((setResultElements.size() > 1) && setResultElements.contains(Element.UNDEF)) 
-				setResultElements.remove(Element.UNDEF);
-			
-			// one result so return it
-			if (setResultElements.size() == 1)
-				pos.setNode(null,null,(Element)setResultElements.toArray()[0]);
-			// multiple results so error
-			else if (setResultElements.size() > 1)
+			catch (InterpreterException error)
 			{
-				// build error message
-				String errMessage = "Different results produced for operator \""+x+"\" by plugins implementing it:\n";
-				for(String pluginName: impResults.keySet())
-				{
-					errMessage += "- plugin \""+pluginName+"\" resulted in value \""+impResults.get(pluginName).toString()+"\".\n";
-				}
-				capi.error(errMessage,pos, this);
-                return pos;
+				// add error to hash table
+				impErrors.put(pluginName,error);
 			}
-			// all plugins result in error or unknown semantics
-			else if (setResultElements.size() == 0)
+		}
+		
+		// decide on what final result of operator evaluation is:
+		
+		// put results into a set
+		final HashSet<Element> setResultElements = new HashSet<Element>();
+		for(Element result: impResults.values())
+				setResultElements.add(result);
+
+		// if one of the results is undef but there are other results as well,
+		// remove the undef value
+		if ((setResultElements.size() > 1) && setResultElements.contains(Element.UNDEF)) 
+			setResultElements.remove(Element.UNDEF);
+		
+		// one result so return it
+		if (setResultElements.size() == 1)
+			pos.setNode(null,null,(Element)setResultElements.toArray()[0]);
+		// multiple results so error
+		else if (setResultElements.size() > 1)
+		{
+			// build error message
+			String errMessage = "Different results produced for operator \""+pos.getToken()+"\" by plugins implementing it:\n";
+			for(String pluginName: impResults.keySet())
 			{
-				// build error message
-				String operands = "(" + pos.getFirst().getValue().denotation();
-				ASTNode opr = pos.getFirst().getNext();
-				while (opr != null) {
-					operands = operands + ", " + opr.getValue().denotation();
-					opr = opr.getNext();
-				}
-				operands = operands + ")";
-				
-				String errMessage = "Cannot perform the \"" + x + "\" operation on " + operands + " as all the implementations failed:" + Tools.getEOL();
-				for(String errorPlugin: impErrors.keySet())
-					errMessage += "- " + errorPlugin + ": " + impErrors.get(errorPlugin).getMessage()  + Tools.getEOL();
-				for(String nullReturnedPlugin: nullReturns)
-					errMessage += "- " + nullReturnedPlugin + " has no semantics for the given combination of operator and operand(s)." + Tools.getEOL();
-				
-                capi.error(errMessage, pos, this);
-                return pos;
+				errMessage += "- plugin \""+pluginName+"\" resulted in value \""+impResults.get(pluginName).toString()+"\".\n";
 			}
-			
-			
+			capi.error(errMessage,pos, this);
 		}
+		// all plugins result in error or unknown semantics
+		else if (setResultElements.size() == 0)
+			reportOperatorFailure(pos, impErrors, nullReturns);
 			
 		return pos;	
 	}
+	
+	/**
+	 * Reports that none of the plugins implementing the operator at 
+	 * <code>pos</code> could evaluate it.
+	 * 
+	 * @param pos the operator node
+	 * @param impErrors the errors thrown by plugins
+	 * @param nullReturns names of the plugins that returned <code>null</code>
+	 */
+	private void reportOperatorFailure(ASTNode pos, Map<String, InterpreterException> impErrors, Collection<String> nullReturns) {
+		// build error message
+		String operands = "(" + pos.getFirst().getValue().denotation();
+		ASTNode opr = pos.getFirst().getNext();
+		while (opr != null) {
+			operands = operands + ", " + opr.getValue().denotation();
+			opr = opr.getNext();
+		}
+		operands = operands + ")";
+		
+		String errMessage = "Cannot perform the \"" + pos.getToken() + "\" operation on " + operands + " as all the implementations failed:" + Tools.getEOL();
+		for(String errorPlugin: impErrors.keySet())
+			errMessage += "- " + errorPlugin + ": " + impErrors.get(errorPlugin).getMessage()  + Tools.getEOL();
+		for(String nullReturnedPlugin: nullReturns)
+			errMessage += "- " + nullReturnedPlugin + " has no semantics for the given combination of operator and operand(s)." + Tools.getEOL();
+		
+        capi.error(errMessage, pos, this);
+	}
+	
+	/**
+	 * Resolves the plugins implementing the operator at the given node.
+	 */
+	private OperatorHandler resolveOperatorHandler(ASTNode node) {
+		if (oprReg == null) 
+			oprReg = OperatorRegistry.getInstance(capi);
+		
+		// collection of all plugins which have an implementation for this operator
+		final Collection<String> impPlugins = oprReg.getOperatorContributors(node.getToken(), node.getGrammarClass());
+		final String[] pluginNames = impPlugins.toArray(new String[impPlugins.size()]);
+		final OperatorProvider[] providers = new OperatorProvider[pluginNames.length];
+		for (int i = 0; i < pluginNames.length; i++)
+			providers[i] = (OperatorProvider)capi.getPlugin(pluginNames[i]);
+		return new OperatorHandler(pluginNames, providers);
+	}
 		
 	/**
 	 * Return <code>true<code> if there is no rule or function in the
@@ -1064,7 +1306,7 @@ public class InterpreterImp implements Interpreter {
 				ASTNode arg = args.get(i);
 				if (arg instanceof RuleOrFuncElementNode) {
 					FunctionRuleTermNode frNode = new FunctionRuleTermNode(arg.getScannerInfo());
-					frNode.addChild("alpha", arg.getFirst());
+					frNode.addChild("alpha", arg.getFirst().duplicate());
 					arg = frNode;
 				}
 				result = injectEnvVars((ASTNode)copyTree(arg));
@@ -1170,6 +1412,8 @@ public class InterpreterImp implements Interpreter {
 		ASTNode rootNode = capi.getParser().getRootNode();
 		ASTNode initNode = null;
 		
+		linkTree(rootNode);
+		
 		for (ASTNode child: rootNode.getAbstractChildNodes())
 			if (child.getGrammarRule().equals(Kernel.GR_INITIALIZATION))
 				if (initNode == null)
@@ -1250,7 +1494,9 @@ public class InterpreterImp implements Interpreter {
 
     public synchronized void interpret(ASTNode node, Element agent) throws InterpreterException {
     	ASTNode oldPos = pos;
+    	ASTNode oldRoot = root;
     	pos = node;
+    	root = node;
     	Element oldSelf = self;
     	self = agent;
     	
@@ -1268,6 +1514,7 @@ public class InterpreterImp implements Interpreter {
 	        
 	        // set back the pos
 	        pos = oldPos;
+	        root = oldRoot;
 	        self = oldSelf;
         }
     }
@@ -34,4 +34,24 @@ public class ConstantValueNode extends ASTNode {
 	@Override
 	public void setNode(Location loc, UpdateMultiset updates, Element value) {
 	}
+	
+	@Override
+	public UpdateMultiset getUpdates() {
+		return updates;
+	}
+	
+	@Override
+	public Element getValue() {
+		return value;
+	}
+	
+	@Override
+	public Location getLocation() {
+		return null;
+	}
+	
+	@Override
+	public boolean isEvaluated() {
+		return true;
+	}
 }
@@ -63,9 +63,9 @@ import org.coreasm.engine.parser.OperatorRule.OpType;
 import org.coreasm.engine.parser.ParseMap;
 import org.coreasm.engine.parser.ParseMap2;
 import org.coreasm.engine.parser.ParserTools;
-import org.coreasm.engine.plugin.Aggregator;
 import org.coreasm.engine.plugin.OperatorProvider;
 import org.coreasm.engine.plugin.ParserPlugin;
+import org.coreasm.engine.plugin.PartitionedAggregator;
 import org.coreasm.engine.plugin.Plugin;
 import org.coreasm.engine.plugin.PluginServiceInterface;
 import org.coreasm.engine.plugin.VocabularyExtender;
@@ -78,7 +78,7 @@ import org.coreasm.engine.plugin.VocabularyExtender;
  */
 
 public class Kernel extends Plugin 
-		implements VocabularyExtender, Aggregator, OperatorProvider, ParserPlugin, PluginServiceInterface {
+		implements VocabularyExtender, PartitionedAggregator, OperatorProvider, ParserPlugin, PluginServiceInterface {
 
 
 	public static final VersionInfo VERSION_INFO = Engine.VERSION_INFO;
@@ -0,0 +1,33 @@
+package org.coreasm.engine.plugin;
+
+import org.coreasm.engine.interpreter.ASTNode;
+import org.coreasm.engine.interpreter.Closure;
+import org.coreasm.engine.interpreter.ClosureCompiler;
+
+/**
+ * Interpreter plugins can implement this interface to have their nodes
+ * compiled into closures when the engine evaluates programs with a
+ * {@link ClosureCompiler} (see
+ * {@link org.coreasm.engine.EngineProperties#CLOSURE_COMPILATION}).
+ * Nodes of plugins that do not implement this interface, or that cannot
+ * be compiled, are evaluated by the interpreter.
+ */
+public interface ClosureCompilerPlugin {
+
+	/**
+	 * Compiles the given node, which was created by this plugin, into a
+	 * closure. The closures of the children of the node should be obtained
+	 * from {@link ClosureCompiler#compile(ASTNode)}.
+	 * <p>
+	 * <b>NOTE:</b> The returned closure may be evaluated simultaneously by
+	 * more than one thread, so it must not keep the state of an evaluation.
+	 *
+	 * @param compiler the compiler compiling the tree of the node
+	 * @param node the node to compile
+	 *
+	 * @return a closure that evaluates the node, or <code>null</code>
+	 * if the node should be evaluated by the interpreter
+	 */
+	public Closure compile(ClosureCompiler compiler, ASTNode node);
+
+}
@@ -0,0 +1,24 @@
+package org.coreasm.engine.plugin;
+
+import org.coreasm.engine.absstorage.PluginAggregationAPI;
+
+/**
+ * An {@link Aggregator} whose aggregation of the update instructions on 
+ * a location depends only on the update instructions on that location 
+ * (and on the current state), and that only produces resultant updates 
+ * for the locations it aggregates.
+ * <p>
+ * When all the aggregators of an engine are partitioned aggregators, the 
+ * engine may split the update instructions of a step into partitions of 
+ * locations and aggregate the partitions in parallel (see 
+ * {@link org.coreasm.engine.EngineProperties#AGGREGATION_PARTITIONS}). 
+ * {@link #aggregateUpdates(PluginAggregationAPI)} is then called once for 
+ * every partition, possibly concurrently, with an API that only knows 
+ * about the update instructions of that partition. All the locations 
+ * of a universe are put into the same partition as the universe itself.
+ *  
+ * @see org.coreasm.engine.absstorage.HashStorage#aggregateUpdates()
+ */
+public interface PartitionedAggregator extends Aggregator {
+
+}
@@ -81,7 +81,7 @@ public class BagCompNode extends ASTNode {
 	/**
 	 * @return the guard node
 	 */
-	public ASTNode getGuard() {
+	public synchronized ASTNode getGuard() {
 		// starting from the fist variable binding
 		ASTNode guard = getSetFunction().getNext();
 		
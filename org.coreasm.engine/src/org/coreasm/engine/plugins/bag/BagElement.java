@@ -31,65 +31,101 @@ import org.coreasm.engine.plugins.bag.BagUpdateElement.BagUpdateType;
 import org.coreasm.engine.plugins.collection.AbstractBagElement;
 import org.coreasm.engine.plugins.collection.ModifiableCollection;
 import org.coreasm.engine.plugins.number.NumberElement;
+import org.coreasm.util.PersistentHashMap;
 
 
 /** 
  * Bag element.
+ * <p>
+ * The multiplicities of the members are kept in a {@link PersistentHashMap},
+ * so bags created from other bags with {@link #plus(Element)} or 
+ * {@link #minus(Element)} share their structure and do not copy the members.
  *   
  * @author  Roozbeh Farahbod
  * 
  */
 public class BagElement extends AbstractBagElement implements ModifiableCollection {
 
-	protected final Map<Element,Integer> members;
+	protected final PersistentHashMap<Element,Integer> members;
+	
+	/** the number of members, counting multiplicities */
+	protected final int memberCount;
+	
+	/** the sum of the hash codes of the members, counting multiplicities */
+	protected final int hash;
 	
 	// It is a list to improve performance
 	protected List<Element> enumerationCache = null;
 	
 	public BagElement() {
-		members = new HashMap<Element,Integer>();
+		this(PersistentHashMap.<Element,Integer>empty(), 0, 0);
 	}
 	
 	public BagElement(Collection<? extends Element> newMembers) {
-		this();
-		for (Element e: newMembers) 
-			this.addMember(e);
+		this(countMembers(newMembers));
 	}
 	
 	public BagElement(Map<? extends Element, Integer> map) {
-		this();
-		for (Entry<? extends Element, Integer> e: map.entrySet()) 
-			this.addMember(e.getKey(), e.getValue());
+		PersistentHashMap<Element,Integer> members = PersistentHashMap.empty();
+		int memberCount = 0;
+		int hash = 0;
+		for (Entry<? extends Element, Integer> e: map.entrySet()) {
+			final Integer c = e.getValue(); 
+			if (c != null && c > 0) {
+				members = members.plus(e.getKey(), c);
+				memberCount += c;
+				hash += c * e.getKey().hashCode();
+			}
+		}
+		this.members = members;
+		this.memberCount = memberCount;
+		this.hash = hash;
 	}
 	
 	public BagElement(BagElement anotherBag) {
-		this(anotherBag.members);
+		this(anotherBag.members, anotherBag.memberCount, anotherBag.hash);
 	}
 	
-	public String getBackground() {
-		return BagBackgroundElement.BAG_BACKGROUND_NAME;
+	private BagElement(PersistentHashMap<Element,Integer> members, int memberCount, int hash) {
+		this.members = members;
+		this.memberCount = memberCount;
+		this.hash = hash;
 	}
-
-	/* 
-	 * Adds a new member to this element 'count' times. Bag elements should not 
-	 * be modified when created; so, this method should only 
-	 * be called from a constructor. 
+	
+	/*
+	 * Returns the multiplicities of the given members.
 	 */
-	private void addMember(Element newMember, int count) { 
-		Integer c = members.get(newMember);
-		if (c == null) {
-			c = 0;
+	private static Map<Element, Integer> countMembers(Collection<? extends Element> newMembers) {
+		Map<Element, Integer> result = new HashMap<Element, Integer>();
+		for (Element e: newMembers) {
+			Integer c = result.get(e);
+			result.put(e, (c == null) ? 1 : c + 1);
 		}
-		members.put(newMember, c + count);
+		return result;
 	}
 	
-	/* 
-	 * Adds a new member to this element. Bag elements should not 
-	 * be modified when created; so, this method should only 
-	 * be called from a constructor. 
+	/**
+	 * Returns a bag with the members of this bag and one more
+	 * occurrence of the given element.
 	 */
-	private void addMember(Element newMember) {
-		addMember(newMember, 1);
+	public BagElement plus(Element e) {
+		final Integer c = members.get(e);
+		return new BagElement(members.plus(e, (c == null) ? 1 : c + 1), memberCount + 1, hash + e.hashCode());
+	}
+	
+	/**
+	 * Returns a bag with the members of this bag but one less
+	 * occurrence of the given element.
+	 */
+	public BagElement minus(Element e) {
+		final Integer c = members.get(e);
+		if (c == null)
+			return this;
+		return new BagElement((c > 1) ? members.plus(e, c - 1) : members.minus(e), memberCount - 1, hash - e.hashCode());
+	}
+	
+	public String getBackground() {
+		return BagBackgroundElement.BAG_BACKGROUND_NAME;
 	}
 	
 	@Override
@@ -169,8 +205,8 @@ public class BagElement extends AbstractBagElement implements ModifiableCollecti
 	 		{
 	 			BagElement oBag = (BagElement)anElement;
 	 			
-	 			// both contain same number of members
-	 			if (this.enumerate().size() == oBag.enumerate().size())
+	 			// both contain same number of members and have the same hash code
+	 			if (this.memberCount == oBag.memberCount && this.hash == oBag.hash)
 	 			{
 	 				for (Entry<? extends Element, Integer> e: this.members.entrySet()) {
 	 					Integer c = oBag.members.get(e.getKey());
@@ -195,15 +231,8 @@ public class BagElement extends AbstractBagElement implements ModifiableCollecti
 	@Override
 	public int hashCode() {
 		// two bag elements with the same members will have members with the same
-		// hashCodes so add it up
-		
-		int resultantHashCode = 0;
-		
-		// sum up hashcode of member elements
-		for (Element e : enumerate())
-		    resultantHashCode = resultantHashCode + (e==null ? 0 : e.hashCode());
-		
-		return resultantHashCode; 
+		// hashCodes; their sum is maintained when the bag is created
+		return hash; 
 	}
 
 	@Override
@@ -250,7 +279,7 @@ public class BagElement extends AbstractBagElement implements ModifiableCollecti
 
 	@Override
 	public Set<Element> keySet() {
-		return Collections.unmodifiableSet(members.keySet());
+		return members.keySet();
 	}
 
 	public int size() {
@@ -261,11 +290,7 @@ public class BagElement extends AbstractBagElement implements ModifiableCollecti
 	 * Returns the size of this set in integer.
 	 */
 	public int intSize() {
-		int c = 0;
-		for (Entry<? extends Element, Integer> e: members.entrySet()) 
-			if (e.getValue() != null)
-				c += e.getValue();
-		return c;
+		return memberCount;
 	}
 	
 	@Override
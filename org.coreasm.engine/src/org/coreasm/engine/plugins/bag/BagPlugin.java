@@ -55,10 +55,10 @@ import org.coreasm.engine.parser.OperatorRule;
 import org.coreasm.engine.parser.OperatorRule.OpType;
 import org.coreasm.engine.parser.ParserTools;
 import org.coreasm.engine.parser.ParserTools.ArrayParseMap;
-import org.coreasm.engine.plugin.Aggregator;
 import org.coreasm.engine.plugin.InterpreterPlugin;
 import org.coreasm.engine.plugin.OperatorProvider;
 import org.coreasm.engine.plugin.ParserPlugin;
+import org.coreasm.engine.plugin.PartitionedAggregator;
 import org.coreasm.engine.plugin.Plugin;
 import org.coreasm.engine.plugin.VocabularyExtender;
 import org.slf4j.Logger;
@@ -71,7 +71,7 @@ import org.slf4j.LoggerFactory;
  *  
  */
 public class BagPlugin extends Plugin 
-		implements VocabularyExtender, OperatorProvider, Aggregator, 
+		implements VocabularyExtender, OperatorProvider, PartitionedAggregator, 
 				ParserPlugin, InterpreterPlugin {
 
 	private static final Logger logger = LoggerFactory.getLogger(BagPlugin.class);
@@ -115,26 +115,17 @@ public class BagUpdateContainer extends BagAbstractUpdateElement {
 	 * bag value and returns the resulting value.
 	 */
 	public BagElement aggregateUpdates(BagElement currentValue) {
-		Collection<Element> result = new ArrayList<Element>(currentValue.enumerate());
-		aggregateUpdates(result);
-		return new BagElement(result);
-	}
-
-	/**
-	 * Assuming that the updates in this update container are consistent, 
-	 * this method applies the updates in this update container to the given 
-	 * collection.
-	 */
-	private void aggregateUpdates(Collection<Element> currentValue) {
+		BagElement result = currentValue;
 		List<BagUpdateElement> updates = aggregateUpdates();
 		for (BagUpdateElement ue: updates) {
 			if (ue.type.equals(BagUpdateType.REMOVE))
-				currentValue.remove(ue.value);
+				result = result.minus(ue.value);
 		}
 		for (BagUpdateElement ue: updates) {
 			if (ue.type.equals(BagUpdateType.ADD))
-				currentValue.add(ue.value);
+				result = result.plus(ue.value);
 		}
+		return result;
 	}
 
 	/*
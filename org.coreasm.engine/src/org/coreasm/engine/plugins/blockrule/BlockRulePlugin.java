@@ -16,6 +16,7 @@ package org.coreasm.engine.plugins.blockrule;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -27,11 +28,16 @@ import org.coreasm.engine.EngineTools;
 import org.coreasm.engine.VersionInfo;
 import org.coreasm.engine.absstorage.UpdateMultiset;
 import org.coreasm.engine.interpreter.ASTNode;
+import org.coreasm.engine.interpreter.Closure;
+import org.coreasm.engine.interpreter.ClosureCompiler;
+import org.coreasm.engine.interpreter.Evaluation;
 import org.coreasm.engine.interpreter.Interpreter;
+import org.coreasm.engine.interpreter.InterpreterException;
 import org.coreasm.engine.interpreter.Node;
 import org.coreasm.engine.kernel.KernelServices;
 import org.coreasm.engine.parser.GrammarRule;
 import org.coreasm.engine.parser.ParserTools;
+import org.coreasm.engine.plugin.ClosureCompilerPlugin;
 import org.coreasm.engine.plugin.InterpreterPlugin;
 import org.coreasm.engine.plugin.ParserPlugin;
 import org.coreasm.engine.plugin.Plugin;
@@ -52,7 +58,7 @@ import org.slf4j.LoggerFactory;
  */
 
 public class BlockRulePlugin extends Plugin 
-		implements InterpreterPlugin, ParserPlugin {
+		implements InterpreterPlugin, ParserPlugin, ClosureCompilerPlugin {
  
 	private static final Logger logger = LoggerFactory.getLogger(BlockRulePlugin.class);
 	
@@ -109,6 +115,24 @@ public class BlockRulePlugin extends Plugin
         }
     }
 
+	public Closure compile(ClosureCompiler compiler, ASTNode node) {
+		if (!"BlockRule".equals(node.getGrammarRule()))
+			return null;
+		final List<ASTNode> children = node.getAbstractChildNodes();
+		final Closure[] rules = new Closure[children.size()];
+		for (int i = 0; i < rules.length; i++)
+			rules[i] = compiler.compile(children.get(i));
+		return new Closure() {
+			public Evaluation evaluate(Interpreter interpreter) throws InterpreterException {
+				// accumulate all the updates for this block
+				final UpdateMultiset updates = new UpdateMultiset();
+				for (Closure rule: rules)
+					updates.addAll(rule.evaluate(interpreter).getUpdates());
+				return Evaluation.ofUpdates(updates);
+			}
+		};
+	}
+
     @Override
     public void initialize() {
         
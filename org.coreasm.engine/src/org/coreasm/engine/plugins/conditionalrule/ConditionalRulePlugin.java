@@ -24,14 +24,20 @@ import org.coreasm.compiler.plugins.conditionalrule.CompilerConditionalRulePlugi
 import org.coreasm.engine.CoreASMError;
 import org.coreasm.engine.VersionInfo;
 import org.coreasm.engine.absstorage.BooleanElement;
+import org.coreasm.engine.absstorage.Element;
 import org.coreasm.engine.absstorage.UpdateMultiset;
 import org.coreasm.engine.interpreter.ASTNode;
+import org.coreasm.engine.interpreter.Closure;
+import org.coreasm.engine.interpreter.ClosureCompiler;
+import org.coreasm.engine.interpreter.Evaluation;
 import org.coreasm.engine.interpreter.Interpreter;
+import org.coreasm.engine.interpreter.InterpreterException;
 import org.coreasm.engine.interpreter.Node;
 import org.coreasm.engine.kernel.KernelServices;
 import org.coreasm.engine.parser.GrammarRule;
 import org.coreasm.engine.parser.ParserTools;
 import org.coreasm.engine.parser.ParserTools.ArrayParseMap;
+import org.coreasm.engine.plugin.ClosureCompilerPlugin;
 import org.coreasm.engine.plugin.InterpreterPlugin;
 import org.coreasm.engine.plugin.ParserPlugin;
 import org.coreasm.engine.plugin.Plugin;
@@ -43,7 +49,7 @@ import org.coreasm.engine.plugin.Plugin;
  * 
  */
 public class ConditionalRulePlugin extends Plugin
-		implements ParserPlugin, InterpreterPlugin {
+		implements ParserPlugin, InterpreterPlugin, ClosureCompilerPlugin {
 
 	public static final VersionInfo VERSION_INFO = new VersionInfo(0, 9, 1, "");
 
@@ -141,6 +147,46 @@ public class ConditionalRulePlugin extends Plugin
 		return pos;
 	}
 
+	public Closure compile(ClosureCompiler compiler, ASTNode node) {
+		if (node instanceof ConditionalRuleNode) {
+			final ConditionalRuleNode conditionalNode = (ConditionalRuleNode) node;
+			final ASTNode guardNode = conditionalNode.getGuard();
+			final Closure guard = compiler.compile(guardNode);
+			final Closure ifRule = compiler.compile(conditionalNode.getIfRule());
+			final Closure elseRule = (conditionalNode.getElseRule() == null) ? null : compiler.compile(conditionalNode.getElseRule());
+			return new Closure() {
+				public Evaluation evaluate(Interpreter interpreter) throws InterpreterException {
+					final Element value = guard.evaluate(interpreter).getValue();
+					if (!(value instanceof BooleanElement))
+						throw ClosureCompiler.error("Element used as guard within \"if\" is not a boolean.", guardNode, interpreter);
+					if (value.equals(BooleanElement.TRUE))
+						return Evaluation.ofUpdates(ifRule.evaluate(interpreter).getUpdates());
+					if (elseRule == null) // there is no else 
+						return Evaluation.ofUpdates(new UpdateMultiset());
+					return Evaluation.ofUpdates(elseRule.evaluate(interpreter).getUpdates());
+				}
+			};
+		}
+		else if (node instanceof ConditionalTermNode) {
+			final ConditionalTermNode conditionalTerm = (ConditionalTermNode) node;
+			final ASTNode conditionNode = conditionalTerm.getCondition();
+			final Closure condition = compiler.compile(conditionNode);
+			final Closure ifTerm = compiler.compile(conditionalTerm.getIfTerm());
+			final Closure elseTerm = compiler.compile(conditionalTerm.getElseTerm());
+			return new Closure() {
+				public Evaluation evaluate(Interpreter interpreter) throws InterpreterException {
+					final Element value = condition.evaluate(interpreter).getValue();
+					if (!(value instanceof BooleanElement))
+						throw new CoreASMError("The value of the condition of a conditional term must be a BooleanElement but was " + value + ".", conditionNode);
+					if (((BooleanElement)value).getValue())
+						return Evaluation.ofValue(ifTerm.evaluate(interpreter).getValue());
+					return Evaluation.ofValue(elseTerm.evaluate(interpreter).getValue());
+				}
+			};
+		}
+		return null;
+	}
+
 	@Override
 	public Set<Parser<? extends Object>> getLexers() {
 		return Collections.emptySet();
@@ -56,10 +56,10 @@ import org.coreasm.engine.interpreter.ScannerInfo;
 import org.coreasm.engine.kernel.KernelServices;
 import org.coreasm.engine.parser.GrammarRule;
 import org.coreasm.engine.parser.ParserTools;
-import org.coreasm.engine.plugin.Aggregator;
 import org.coreasm.engine.plugin.ExtensionPointPlugin;
 import org.coreasm.engine.plugin.InterpreterPlugin;
 import org.coreasm.engine.plugin.ParserPlugin;
+import org.coreasm.engine.plugin.PartitionedAggregator;
 import org.coreasm.engine.plugin.Plugin;
 import org.coreasm.engine.plugin.PluginServiceInterface;
 import org.coreasm.engine.plugin.VocabularyExtender;
@@ -74,7 +74,7 @@ import org.coreasm.util.Tools;
  * 
  */
 public class IOPlugin extends Plugin implements 
-		ParserPlugin, InterpreterPlugin, VocabularyExtender, ExtensionPointPlugin, Aggregator {
+		ParserPlugin, InterpreterPlugin, VocabularyExtender, ExtensionPointPlugin, PartitionedAggregator {
 
 	public static final VersionInfo VERSION_INFO = new VersionInfo(0, 3, 2, "");
 
@@ -41,6 +41,8 @@ public class ConsFunctionElement extends FunctionElement {
 	public Element getValue(List<? extends Element> args) {
 		if (!checkArguments(args))
 			throw new CoreASMError("Illegal arguments for " + NAME + ".");
+		if (args.get(1) instanceof ListElement)
+			return new ListElement(args.get(0), (ListElement)args.get(1));
 		List<Element> newData = new ArrayList<Element>(((AbstractListElement)args.get(1)).getList());
 		newData.add(0, args.get(0));
 		return new ListElement(newData);
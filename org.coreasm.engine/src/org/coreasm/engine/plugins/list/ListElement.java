@@ -16,7 +16,6 @@ package org.coreasm.engine.plugins.list;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -31,64 +30,67 @@ import org.coreasm.engine.interpreter.Node;
 import org.coreasm.engine.plugins.collection.AbstractListElement;
 import org.coreasm.engine.plugins.collection.ModifiableIndexedCollection;
 import org.coreasm.engine.plugins.number.NumberElement;
+import org.coreasm.util.PersistentList;
 
 /** 
  * This class implements list elements in CoreASM.
+ * <p>
+ * The elements are kept in a {@link PersistentList}, so lists created from 
+ * other lists (e.g., by {@link #cons(Element)}, {@link #tail()} or 
+ * {@link #with(int, Element)}) share their structure and do not copy the elements.
  *   
  * @author  Roozbeh Farahbod, Michael Stegmaier
  * 
  */
 public class ListElement extends AbstractListElement implements ModifiableIndexedCollection {
 
-	private List<Element> listElements;
+	private final PersistentList<Element> listElements;
 	
 	public ListElement() {
-		listElements = Collections.emptyList();
+		listElements = PersistentList.empty();
 	}
 	
 	public ListElement(Collection<? extends Element> collection) {
-		if (collection.isEmpty())
-			listElements = Collections.emptyList();
-		else
-			listElements = unmodifiableList(collection);
+		listElements = PersistentList.from(collection);
 	}
 	
-	private static List<Element> unmodifiableList(Collection<? extends Element> collection) {
-		if (collection instanceof List<?>)
-			return unmodifiableList((List<? extends Element>)collection);
-		return Collections.unmodifiableList(new ArrayList<Element>(collection));
+	public ListElement(ListElement list) {
+		this(list.listElements);
 	}
 	
-	private static List<Element> unmodifiableList(List<? extends Element> list) {
-		if (list instanceof ArrayList<?>)
-			return unmodifiableList((ArrayList<? extends Element>)list);
-		return Collections.unmodifiableList(list);
+	public ListElement(Element ... elements) {
+		listElements = PersistentList.from(Arrays.asList(elements));
 	}
 	
-	private static List<Element> unmodifiableList(ArrayList<? extends Element> list) {
-		list.trimToSize();
-		return Collections.unmodifiableList(list);
+	/**
+	 * Creates a new list which is <i>cons(e, list)</i>.
+	 */
+	public ListElement(Element e, ListElement list) {
+		this.listElements = list.listElements.plus(0, e);
 	}
 	
-	public ListElement(ListElement list) {
-		this(list.listElements);
+	/**
+	 * Returns a list that is equal to this list except that the element
+	 * at the given index (starting from 0) is replaced by the given element.
+	 */
+	public ListElement with(int index, Element e) {
+		return new ListElement(listElements.with(index, e));
 	}
 	
-	public ListElement(Element ... elements) {
-		if (elements.length == 0)
-			listElements = Collections.emptyList();
-		else
-			listElements = Collections.unmodifiableList(Arrays.asList(elements));
+	/**
+	 * Returns a list that is equal to this list with the given element
+	 * inserted at the given index (starting from 0).
+	 */
+	public ListElement plus(int index, Element e) {
+		return new ListElement(listElements.plus(index, e));
 	}
 	
 	/**
-	 * Creates a new list which is <i>cons(e, list)</i>.
+	 * Returns a list that is equal to this list with the element 
+	 * at the given index (starting from 0) removed.
 	 */
-	public ListElement(Element e, ListElement list) {
-		ArrayList<Element> listElements = new ArrayList<Element>();
-		listElements.add(e);
-		listElements.addAll(list.listElements);
-		this.listElements = unmodifiableList(listElements);
+	public ListElement minus(int index) {
+		return new ListElement(listElements.minus(index));
 	}
 	
 	@Override
@@ -98,7 +100,7 @@ public class ListElement extends AbstractListElement implements ModifiableIndexe
 				return true;
 			else {
 				List<Element> otherList = (List<Element>)((ListElement)anElement).enumerate();
-				if (otherList.size() == listElements.size()) {
+				if (otherList.size() == listElements.size() && anElement.hashCode() == hashCode()) {
 					for (int i=0; i < listElements.size(); i++)
 						if (!otherList.get(i).equals(listElements.get(i))) {
 							return false;
@@ -161,12 +163,21 @@ public class ListElement extends AbstractListElement implements ModifiableIndexe
 		return str;
 	}
 
+	/**
+	 * Returns the hash code of this list, computed from the hash code
+	 * maintained by the list of elements. The latter starts from 1 
+	 * (see {@link List#hashCode()}), so it is 31^size larger.
+	 */
 	@Override
 	public int hashCode() {
-		int result = 0;
-		for (Element e: listElements) 
-		    result = 31*result + (e==null ? 0 : e.hashCode());
-		return result;
+		int pow = 1;
+		int base = 31;
+		for (int n = listElements.size(); n > 0; n >>= 1) {
+			if ((n & 1) != 0)
+				pow *= base;
+			base *= base;
+		}
+		return listElements.hashCode() - pow;
 	}
 
 	public boolean contains(Element e) {
@@ -198,9 +209,7 @@ public class ListElement extends AbstractListElement implements ModifiableIndexe
 	@Override
 	public UpdateMultiset computeAddUpdate(Location loc, NumberElement index, Element e, Element agent, Node node) {
 		if (isValidIndex(index) && index.getValue() <= this.intSize()+1) {
-			List<Element> newListData = new ArrayList<Element>(this.listElements);
-			newListData.add(index.intValue() - 1, e);
-			ListElement newList = new ListElement(newListData);
+			ListElement newList = this.plus(index.intValue() - 1, e);
 			Update u = new Update(loc, newList, Update.UPDATE_ACTION, agent, node.getScannerInfo());
 			return new UpdateMultiset(u);
 		} else
@@ -210,9 +219,7 @@ public class ListElement extends AbstractListElement implements ModifiableIndexe
 	@Override
 	public UpdateMultiset computeRemoveUpdate(Location loc, NumberElement index, Element agent, Node node) {
 		if (isValidIndex(index) && index.getValue() <= this.intSize()) {
-			List<Element> newListData = new ArrayList<Element>(this.listElements);
-			newListData.remove(index.intValue() - 1);
-			ListElement newList = new ListElement(newListData);
+			ListElement newList = this.minus(index.intValue() - 1);
 			Update u = new Update(loc, newList, Update.UPDATE_ACTION, agent, node.getScannerInfo());
 			return new UpdateMultiset(u);
 		} else
@@ -275,9 +282,9 @@ public class ListElement extends AbstractListElement implements ModifiableIndexe
 
 	@Override
 	public UpdateMultiset computeRemoveUpdate(Location loc, Element e, Element agent, Node node) {
-		List<Element> newListData = new ArrayList<Element>(listElements);
-		if (newListData.remove(e)) {
-			ListElement newList = new ListElement(newListData);
+		final int i = listElements.indexOf(e);
+		if (i >= 0) {
+			ListElement newList = this.minus(i);
 			Update u = new Update(loc, newList, Update.UPDATE_ACTION, agent, node.getScannerInfo());
 			return new UpdateMultiset(u);
 		} else
@@ -360,7 +367,7 @@ public class ListElement extends AbstractListElement implements ModifiableIndexe
 		if (this.intSize() < 2)
 			return new ListElement();
 		else {
-			return new ListElement(listElements.subList(1, listElements.size()));
+			return this.minus(0);
 		}
 			
 	}
@@ -375,9 +382,7 @@ public class ListElement extends AbstractListElement implements ModifiableIndexe
 		if (e.size() == 0)
 			return this;
 		else {
-			List<Element> list = new ArrayList<Element>(listElements);
-			list.addAll(e.enumerate());
-			return new ListElement(list);
+			return new ListElement(listElements.concat(e.getList()));
 		}
 	}
 
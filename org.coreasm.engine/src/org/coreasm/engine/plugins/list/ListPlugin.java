@@ -332,13 +332,15 @@ public class ListPlugin extends Plugin implements ParserPlugin,
 					if (loc != null)  {
 						if (list.intSize() > 0) {
 							UpdateMultiset updates = new UpdateMultiset();
-							ArrayList<Element> listData = new ArrayList<Element>(list.enumerate());
+							ListElement listData;
 							Element shifted = Element.UNDEF;
 							
 							if (node.isLeft) {
-								shifted = listData.remove(0);
+								shifted = list.head();
+								listData = list.minus(0);
 							} else {
-								shifted = listData.remove(((ListElement)list).intSize()-1);
+								shifted = list.last();
+								listData = list.minus(list.intSize()-1);
 							}
 							
 							Update u1 = new Update(loc, 
@@ -347,7 +349,7 @@ public class ListPlugin extends Plugin implements ParserPlugin,
 									interpreter.getSelf(),
 									pos.getScannerInfo());
 							Update u2 = new Update(node.getListNode().getLocation(), 
-									new ListElement(listData), 
+									listData, 
 									Update.UPDATE_ACTION, 
 									interpreter.getSelf(),
 									pos.getScannerInfo());
@@ -610,9 +612,7 @@ public class ListPlugin extends Plugin implements ParserPlugin,
 					// list concatenation 
 					if (x.equals(LIST_CONCAT_OP))
 					{
-						List<Element> list = new ArrayList<Element>(lList.getList());
-						list.addAll(rList.getList());
-						result = new ListElement(list);
+						result = lList.concat(rList);
 					}
 				} else {
 					result = Element.UNDEF;
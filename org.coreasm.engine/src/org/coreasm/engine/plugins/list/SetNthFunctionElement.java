@@ -13,7 +13,6 @@
  
 package org.coreasm.engine.plugins.list;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import org.coreasm.engine.ControlAPI;
@@ -74,12 +73,7 @@ public class SetNthFunctionElement extends ListFunctionElement {
 					"Index out of range for " + NAME
 							+ ". Second parameter must be a number which is at most the number of list elements.");
 
-		List<Element> resultValues = new ArrayList<Element>();
-		for (Element e: list.enumerate()) 
-			resultValues.add(e);
-		resultValues.set((int)n.getValue()-1, args.get(2));
-		
-		return new ListElement(resultValues);
+		return list.with((int)n.getValue()-1, args.get(2));
 	}
 
 	@Override
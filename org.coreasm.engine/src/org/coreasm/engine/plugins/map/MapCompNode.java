@@ -67,7 +67,7 @@ public class MapCompNode extends ASTNode {
 	/**
 	 * @return the guard node
 	 */
-	public ASTNode getGuard() {
+	public synchronized ASTNode getGuard() {
 		// starting from the fist variable binding
 		ASTNode guard = getMapFunction().getNext();
 		
@@ -34,16 +34,22 @@ import org.coreasm.engine.plugins.collection.AbstractListElement;
 import org.coreasm.engine.plugins.collection.AbstractMapElement;
 import org.coreasm.engine.plugins.collection.ModifiableCollection;
 import org.coreasm.engine.plugins.list.ListElement;
+import org.coreasm.util.PersistentHashMap;
 
 /** 
  * Map elements
+ * <p>
+ * The mappings are kept in a {@link PersistentHashMap}, so maps created
+ * from other maps with {@link #plus(Element, Element)} or {@link #minus(Element)}
+ * share their structure and do not copy the mappings.
  *   
  * @author  Roozbeh Farahbod
  * 
  */
 public class MapElement extends AbstractMapElement implements ModifiableCollection {
 
-	protected final Map<Element, Element> map;
+	protected final PersistentHashMap<Element, Element> map;
+	protected final int hash;
 	protected Set<Element> keySet = null;
 	protected Set<Element> valueSet = null;
 	protected Collection<Element> valueCollection = null;
@@ -51,15 +57,63 @@ public class MapElement extends AbstractMapElement implements ModifiableCollecti
 	protected List<Element> enumListCache = null;
 	
 	public MapElement() {
-		this.map = Collections.unmodifiableMap(new HashMap<Element, Element>());
+		this.map = PersistentHashMap.empty();
+		this.hash = 0;
 	}
 	
 	public MapElement(Map<? extends Element, ? extends Element> map) {
-		this.map = Collections.unmodifiableMap(new HashMap<Element, Element>(map));
+		this.map = PersistentHashMap.from(map);
+		int hash = 0;
+		for (Entry<Element, Element> e: this.map.entrySet())
+			hash += e.getKey().hashCode() + e.getValue().hashCode();
+		this.hash = hash;
 	}
 	
 	public MapElement(MapElement anotherMap) {
-		this(anotherMap.map);
+		this.map = anotherMap.map;
+		this.hash = anotherMap.hash;
+	}
+	
+	private MapElement(PersistentHashMap<Element, Element> map, int hash) {
+		this.map = map;
+		this.hash = hash;
+	}
+	
+	/**
+	 * Returns a map with the mappings of this map, except that 
+	 * the given key is mapped to the given value.
+	 */
+	public MapElement plus(Element key, Element value) {
+		final PersistentHashMap<Element, Element> newMap = map.plus(key, value);
+		if (newMap == map)
+			return this;
+		final Element oldValue = map.get(key);
+		int newHash = hash + key.hashCode() + value.hashCode();
+		if (oldValue != null)
+			newHash -= key.hashCode() + oldValue.hashCode();
+		return new MapElement(newMap, newHash);
+	}
+	
+	/**
+	 * Returns a map with the mappings of this map, except that 
+	 * the keys of the given map are mapped to their values in it.
+	 */
+	public MapElement plusAll(Map<? extends Element, ? extends Element> mappings) {
+		MapElement result = this;
+		for (Entry<? extends Element, ? extends Element> e: mappings.entrySet())
+			result = result.plus(e.getKey(), e.getValue());
+		return result;
+	}
+	
+	/**
+	 * Returns a map with the mappings of this map except the 
+	 * mapping of the given key.
+	 */
+	public MapElement minus(Element key) {
+		final Element oldValue = map.get(key);
+		if (oldValue == null)
+			return this;
+		return new MapElement(map.minus(key), hash - key.hashCode() - oldValue.hashCode());
 	}
 	
 	
@@ -94,7 +148,7 @@ public class MapElement extends AbstractMapElement implements ModifiableCollecti
 	@Override
 	public Set<Element> keySet() {
 		if (keySet == null) {
-			keySet = Collections.unmodifiableSet(map.keySet());
+			keySet = map.keySet();
 		}
 		return keySet;
 	}
@@ -113,7 +167,7 @@ public class MapElement extends AbstractMapElement implements ModifiableCollecti
 	@Override
 	public Collection<Element> values() {
 		if (valueCollection == null) {
-			valueCollection = Collections.unmodifiableCollection(map.values());
+			valueCollection = map.values();
 		}
 		return valueCollection;
 	}
@@ -201,7 +255,23 @@ public class MapElement extends AbstractMapElement implements ModifiableCollecti
 
 	@Override
 	public Map<Element, Element> getMap() {
-		return Collections.unmodifiableMap(map);
+		return map;
+	}
+
+	@Override
+	public boolean equals(Object anElement) {
+		if (anElement instanceof MapElement && ((MapElement)anElement).hash != hash)
+			return false;
+		return super.equals(anElement);
+	}
+
+	/**
+	 * Returns the sum of the hash codes of all keys and values of this map,
+	 * as defined by {@link AbstractMapElement#hashCode()}, without visiting them.
+	 */
+	@Override
+	public int hashCode() {
+		return hash;
 	}
 
 	public List<Element> getIndexedView() throws UnsupportedOperationException {
@@ -227,9 +297,7 @@ public class MapElement extends AbstractMapElement implements ModifiableCollecti
 	public UpdateMultiset computeAddUpdate(Location loc, Element e,
 			Element agent, Node node) throws InterpreterException {
 		if (e instanceof AbstractMapElement) {
-			HashMap<Element, Element> tempMap = new HashMap<Element, Element>(this.map);
-			tempMap.putAll(((AbstractMapElement)e).getMap());
-			MapElement newMap = new MapElement(tempMap);
+			MapElement newMap = this.plusAll(((AbstractMapElement)e).getMap());
 			Update u = new Update(loc, newMap, Update.UPDATE_ACTION, agent, node.getScannerInfo());
 			return new UpdateMultiset(u);
 		} else 
@@ -248,7 +316,7 @@ public class MapElement extends AbstractMapElement implements ModifiableCollecti
 	@Override
 	public UpdateMultiset computeRemoveUpdate(Location loc, Element e,
 			Element agent, Node node) throws InterpreterException {
-		HashMap<Element, Element> tempMap = new HashMap<Element, Element>(this.map);
+		MapElement newMap = this;
 		if (e instanceof MapElement) {
 			/*
 			 * if the element is a MapElement then remove all the key-value 
@@ -256,18 +324,17 @@ public class MapElement extends AbstractMapElement implements ModifiableCollecti
 			 */
 			for (Entry<Element, Element> me: ((MapElement)e).map.entrySet()) {
 				final Element key = me.getKey();
-				if (tempMap.get(key) != null && tempMap.get(key).equals(me.getValue()))
-					tempMap.remove(key);
+				if (newMap.map.get(key) != null && newMap.map.get(key).equals(me.getValue()))
+					newMap = newMap.minus(key);
 			}
 		} else
 			if (e instanceof Enumerable) {
 				for (Element ei: ((Enumerable)e).enumerate()) {
-					tempMap.remove(ei);
+					newMap = newMap.minus(ei);
 				}
 			} else
-				tempMap.remove(e);
+				newMap = newMap.minus(e);
 		
-		MapElement newMap = new MapElement(tempMap);
 		Update u = new Update(loc, newMap, Update.UPDATE_ACTION, agent, node.getScannerInfo());
 		return new UpdateMultiset(u);
 	}
@@ -27,9 +27,25 @@ public class NumberElement extends Element implements Comparable<NumberElement>
 	public static final NumberElement MAX_VALUE = new NumberElement(Double.MAX_VALUE);
 	public static final NumberElement MIN_VALUE = new NumberElement(Double.MIN_VALUE);
 	
-	protected final Double value;
+	/** the smallest and the largest integral values with shared instances */
+	private static final int CACHE_LOW = -128;
+	private static final int CACHE_HIGH = 1024;
+	
+	private static final long NEGATIVE_ZERO_BITS = Double.doubleToRawLongBits(-0.0);
+	
+	private static final NumberElement[] cache = new NumberElement[CACHE_HIGH - CACHE_LOW + 1];
+	
+	static {
+		for (int i = 0; i < cache.length; i++)
+			cache[i] = new NumberElement(i + CACHE_LOW);
+	}
+	
+	protected final double value;
 	protected final boolean isInteger;
 	
+	/** the value truncated to a long */
+	protected final long longValue;
+	
 	/*
 	 * Instantiate this number element with double
 	 * 
@@ -37,19 +53,37 @@ public class NumberElement extends Element implements Comparable<NumberElement>
 	 */
 	protected NumberElement(double number)
 	{
-		this.value = new Double(number);
-		this.isInteger = (this.value - this.value.longValue() == 0);
+		this.value = number;
+		this.longValue = (long)number;
+		this.isInteger = (number - longValue == 0);
 	}
 	
 	/**
-	 * Creates a new NumberElement instance with the given double value.
+	 * Returns a NumberElement instance with the given double value.
+	 * Small integral values share their instances.
 	 * 
 	 * @param d double value
 	 */
-	public synchronized static NumberElement getInstance(double d) {
+	public static NumberElement getInstance(double d) {
+		final int i = (int)d;
+		if (i == d && i >= CACHE_LOW && i <= CACHE_HIGH 
+				&& Double.doubleToRawLongBits(d) != NEGATIVE_ZERO_BITS)
+			return cache[i - CACHE_LOW];
 		return new NumberElement(d);
 	}
 
+	/**
+	 * Returns a NumberElement instance with the given long value.
+	 * Small values share their instances.
+	 * 
+	 * @param l long value
+	 */
+	public static NumberElement getInstance(long l) {
+		if (l >= CACHE_LOW && l <= CACHE_HIGH)
+			return cache[(int)l - CACHE_LOW];
+		return new NumberElement(l);
+	}
+
 	public String getBackground() { 
 		return NumberBackgroundElement.NUMBER_BACKGROUND_NAME;
 	}
@@ -60,7 +94,7 @@ public class NumberElement extends Element implements Comparable<NumberElement>
 	 */
 	@Override
 	public String denotation() {
-		return value.toString();
+		return Double.toString(value);
 	}
 	
 	/**
@@ -70,9 +104,9 @@ public class NumberElement extends Element implements Comparable<NumberElement>
 	@Override
 	public String toString() {
 		if (isInteger)
-			return String.valueOf(longValue());
+			return String.valueOf(longValue);
 		else
-			return value.toString();
+			return Double.toString(value);
 	}
 	
 	/**
@@ -105,27 +139,23 @@ public class NumberElement extends Element implements Comparable<NumberElement>
 	 * as a double.
 	 */
 	public double doubleValue() {
-		return this.getValue();
+		return value;
 	}
 
 	/**
 	 * Returns the value of this element
 	 * as a long.
-	 * 
-	 * @see Double#longValue()
 	 */
 	public long longValue() {
-		return value.longValue();
+		return longValue;
 	}
 	
 	/**
 	 * Returns the value of this element
 	 * as an int.
-	 * 
-	 * @see Double#intValue()
 	 */
 	public int intValue() {
-		return value.intValue();
+		return (int)value;
 	}
 	
 	//----------------------
@@ -142,7 +172,7 @@ public class NumberElement extends Element implements Comparable<NumberElement>
  	 * @throws IllegalArgumentException if <code>anElement</code> is not an instance
  	 * of <code>Element</code>
  	 */
- 	public synchronized boolean equals(Object anElement) {
+ 	public boolean equals(Object anElement) {
  		// if both java objects are idential, no further checks are required
  		if (this == anElement)
  			return true;
@@ -155,7 +185,9 @@ public class NumberElement extends Element implements Comparable<NumberElement>
 	 		{
 	 			// if the current number and the other number equal each other
 	 			// then objects are equal
-	 			return value.equals(((NumberElement)anElement).value);
+	 			// (with the semantics of Double.equals)
+	 			return Double.doubleToLongBits(value) 
+	 					== Double.doubleToLongBits(((NumberElement)anElement).value);
 	 		} else
 	 			return false;
  		}
@@ -168,7 +200,8 @@ public class NumberElement extends Element implements Comparable<NumberElement>
 	 */
 	@Override
 	public int hashCode() {
-		return value.hashCode(); 
+		final long bits = Double.doubleToLongBits(value);
+		return (int)(bits ^ (bits >>> 32)); 
 	}
 
 	/**
@@ -177,7 +210,7 @@ public class NumberElement extends Element implements Comparable<NumberElement>
 	 * @see Comparable#compareTo(Object)
 	 */
 	public int compareTo(NumberElement n) {
-		return value.compareTo(n.value);
+		return Double.compare(value, n.value);
 	}
 
     /**
@@ -185,7 +218,7 @@ public class NumberElement extends Element implements Comparable<NumberElement>
      * 
      */
     public double getNumber() {
-        return value.doubleValue();
+        return value;
     }
 
     /**
@@ -41,6 +41,8 @@ import org.coreasm.engine.absstorage.FunctionElement;
 import org.coreasm.engine.absstorage.RuleElement;
 import org.coreasm.engine.absstorage.UniverseElement;
 import org.coreasm.engine.interpreter.ASTNode;
+import org.coreasm.engine.interpreter.Closure;
+import org.coreasm.engine.interpreter.ClosureCompiler;
 import org.coreasm.engine.interpreter.Interpreter;
 import org.coreasm.engine.interpreter.InterpreterException;
 import org.coreasm.engine.interpreter.Node;
@@ -50,6 +52,7 @@ import org.coreasm.engine.parser.GrammarRule;
 import org.coreasm.engine.parser.OperatorRule;
 import org.coreasm.engine.parser.OperatorRule.OpType;
 import org.coreasm.engine.parser.ParserTools;
+import org.coreasm.engine.plugin.ClosureCompilerPlugin;
 import org.coreasm.engine.plugin.InterpreterPlugin;
 import org.coreasm.engine.plugin.OperatorProvider;
 import org.coreasm.engine.plugin.ParserPlugin;
@@ -65,7 +68,7 @@ import org.coreasm.compiler.plugins.number.CompilerNumberPlugin;
  * 
  */
 public class NumberPlugin extends Plugin implements ParserPlugin,
-		InterpreterPlugin, VocabularyExtender, OperatorProvider{
+		InterpreterPlugin, VocabularyExtender, OperatorProvider, ClosureCompilerPlugin {
 
 	public static final VersionInfo VERSION_INFO = new VersionInfo(0, 5, 4, "");
 
@@ -255,6 +258,14 @@ public class NumberPlugin extends Plugin implements ParserPlugin,
 		return nextPos;
 	}
 
+	public Closure compile(ClosureCompiler compiler, ASTNode node) {
+		// number constants are evaluated once
+		if (node instanceof NumberRangeNode || node instanceof SizeOfEnumNode
+				|| !node.getGrammarClass().equals(ASTNode.EXPRESSION_CLASS) || node.getToken() == null)
+			return null;
+		return ClosureCompiler.constant(numberBackgroundElement.getNewValue(Double.parseDouble(node.getToken())));
+	}
+
 	public Set<Parser<? extends Object>> getLexers() {
 		if (lexers == null) {
 			lexers = new HashSet<Parser<? extends Object>>();
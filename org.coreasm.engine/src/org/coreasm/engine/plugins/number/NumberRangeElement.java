@@ -12,15 +12,23 @@
  
 package org.coreasm.engine.plugins.number;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.RandomAccess;
 
+import org.coreasm.engine.CoreASMError;
 import org.coreasm.engine.absstorage.Element;
 import org.coreasm.engine.absstorage.Enumerable;
 
 /** 
  *	Class for Number Range Elements;
+ *  <p>
+ *  Ranges of integers are not stored element by element: their size
+ *  is computed, and their indexed view creates the number elements
+ *  when they are requested. Ranges with fractional bounds or steps
+ *  are enumerated once by adding up the steps.
  *   
  *  @author  George Ma
  *  
@@ -34,6 +42,9 @@ public class NumberRangeElement extends Element implements Enumerable {
     private List<Element> enumeration = null;
 	
     private static final double DEFAULT_STEP = 1.0;
+    
+    /** the largest magnitude up to which all integers are exact doubles */
+    private static final double MAX_EXACT = 9007199254740992.0; // 2^53
 	
     /**
      * Creates a new NumberRangeElement
@@ -123,11 +134,13 @@ public class NumberRangeElement extends Element implements Enumerable {
     
     public boolean contains(Element e) {
         if (NumberUtil.isInteger(e)) {
-            NumberElement n = (NumberElement) e;
+            final double value = ((NumberElement) e).value;
+            final double index = (value - start) / step;
             
-            return (n.value >= start) 
-            		&& (n.value <= end) 
-            		&& NumberUtil.isInteger(NumberElement.getInstance((n.value - start) / step));
+            return (value >= start) 
+            		&& (value <= end) 
+            		&& !Double.isInfinite(index) 
+            		&& index - (long)index == 0;
         }
         
         return false;
@@ -161,12 +174,16 @@ public class NumberRangeElement extends Element implements Enumerable {
 
 	public List<Element> getIndexedView() throws UnsupportedOperationException {
     	if (enumeration == null) {
-	        enumeration = new ArrayList<Element>();
-	        
-	        for (double n = start; n <= end; n+=step) {
-	            enumeration.add(NumberElement.getInstance(n));
-	        }
-	        
+    		if (isExact())
+    			enumeration = new IndexedView(count());
+    		else {
+		        List<Element> elements = new ArrayList<Element>();
+		        
+		        for (double n = start; n <= end; n+=step) {
+		            elements.add(NumberElement.getInstance(n));
+		        }
+		        enumeration = elements;
+    		}
     	} 
     	return enumeration;
 	}
@@ -178,4 +195,73 @@ public class NumberRangeElement extends Element implements Enumerable {
 	public int size() {
 		return getIndexedView().size();
 	}
+	
+	/*
+	 * Returns true if the start and the step of this range are integers
+	 * and all the elements of this range are exact doubles, so that the
+	 * i-th element is exactly start + i * step.
+	 */
+	private boolean isExact() {
+		return start == Math.rint(start) && step == Math.rint(step)
+				&& Math.abs(start) <= MAX_EXACT && Math.abs(end) + step <= MAX_EXACT;
+	}
+	
+	/*
+	 * Returns the number of elements of an exact range.
+	 * Fails if the range has more elements than a list can hold.
+	 */
+	private int count() {
+		long n = (long)Math.floor((end - start) / step) + 1;
+		// correct the rounding of the division
+		while (n > 0 && start + (n - 1) * step > end)
+			n--;
+		while (start + n * step <= end)
+			n++;
+		if (n > Integer.MAX_VALUE)
+			throw new CoreASMError("The number range " + this + " has " + n + " elements; "
+					+ "at most " + Integer.MAX_VALUE + " elements can be enumerated.");
+		return (int)n;
+	}
+	
+	/*
+	 * The elements of an exact range, created on demand.
+	 */
+	private class IndexedView extends AbstractList<Element> implements RandomAccess {
+		
+		private final int size;
+		
+		IndexedView(int size) {
+			this.size = size;
+		}
+		
+		@Override
+		public Element get(int index) {
+			if (index < 0 || index >= size)
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			return NumberElement.getInstance(start + index * step);
+		}
+		
+		@Override
+		public int size() {
+			return size;
+		}
+		
+		@Override
+		public boolean contains(Object o) {
+			return o instanceof Element && NumberRangeElement.this.contains((Element)o);
+		}
+		
+		@Override
+		public int indexOf(Object o) {
+			if (!contains(o))
+				return -1;
+			final long index = (long)((((NumberElement)o).value - start) / step);
+			return (index < size) ? (int)index : -1;
+		}
+		
+		@Override
+		public int lastIndexOf(Object o) {
+			return indexOf(o);
+		}
+	}
 }
@@ -53,10 +53,10 @@ import org.coreasm.engine.parser.GrammarRule;
 import org.coreasm.engine.parser.OperatorRule;
 import org.coreasm.engine.parser.OperatorRule.OpType;
 import org.coreasm.engine.parser.ParserTools;
-import org.coreasm.engine.plugin.Aggregator;
 import org.coreasm.engine.plugin.InterpreterPlugin;
 import org.coreasm.engine.plugin.OperatorProvider;
 import org.coreasm.engine.plugin.ParserPlugin;
+import org.coreasm.engine.plugin.PartitionedAggregator;
 import org.coreasm.engine.plugin.Plugin;
 import org.coreasm.engine.plugin.VocabularyExtender;
 import org.coreasm.engine.plugins.collection.AbstractSetElement;
@@ -71,7 +71,7 @@ import org.slf4j.LoggerFactory;
  *  
  */
 public class SetPlugin extends Plugin 
-		implements VocabularyExtender, OperatorProvider, Aggregator, 
+		implements VocabularyExtender, OperatorProvider, PartitionedAggregator, 
 				ParserPlugin, InterpreterPlugin {
 
 	public static final VersionInfo VERSION_INFO = new VersionInfo(0, 10, 2, "");
@@ -668,6 +668,11 @@ public class SetPlugin extends Plugin
 								resultSet.add(m);
 					}
 					// set difference
+					else if (x.equals(SETDIFF_OP) && l instanceof SetElement)
+					{
+						// share the members of the first set
+						result = ((SetElement)l).minusAll(eR.enumerate());
+					}
 					else if (x.equals(SETDIFF_OP))
 					{
 						// add elements which are not in the second
@@ -677,6 +682,16 @@ public class SetPlugin extends Plugin
 							
 					}
 					// set union
+					else if (x.equals(SETUNION_OP) && l instanceof SetElement && r instanceof SetElement)
+					{
+						// share the members of the larger set
+						SetElement sL = (SetElement)l;
+						SetElement sR = (SetElement)r;
+						if (sL.intSize() >= sR.intSize())
+							result = sL.plusAll(sR.enumerate());
+						else
+							result = sR.plusAll(sL.enumerate());
+					}
 					else if (x.equals(SETUNION_OP))
 					{
 						// add elements from both
@@ -834,23 +849,21 @@ public class SetPlugin extends Plugin
 
 		// value should be a set
 		if (value instanceof SetElement) {
-			Set<Element> resultSet = new HashSet<Element>(((SetElement)value).enumerate());
+			SetElement resultSet = (SetElement)value;
 			
-			for (Element e: resultSet) {
-				Update removeUpdate = new Update(l, e, SETREMOVE_ACTION, (Element)null, null);
-				
-				if (!uMset2.contains(removeUpdate)) 
-					resultSet.add(e);
+			for (Update u: uMset2) {
+				if (u.action.equals(SETREMOVE_ACTION)) 
+					resultSet = resultSet.minus(u.value);
 			}
 			
 			for (Update u: uMset2) {
 				if (u.action.equals(SETADD_ACTION)) 
-					resultSet.add(u.value);
+					resultSet = resultSet.plus(u.value);
 				contributingAgents.addAll(u.agents);
 				contributingNodes.addAll(u.sources);
 			}
 			
-			return new Update(l, new SetElement(resultSet), Update.UPDATE_ACTION, contributingAgents, contributingNodes);
+			return new Update(l, resultSet, Update.UPDATE_ACTION, contributingAgents, contributingNodes);
 		} else
 			logger.error("Value is not a set (in SetPlugin Composition).");
 		
@@ -1090,25 +1103,21 @@ public class SetPlugin extends Plugin
 			// Should never happen
 			throw new EngineError("Location to which set incremental update has been made is invalid!");
 		}
-		Enumerable enumerableViewExistingSet = (Enumerable)existingSet;
 		
-		// resultant set element 
-		Set<Element> resultantSet = new HashSet<Element>();
+		// resultant set element; it shares the members of the existing set
+		SetElement resultantSet = existingSet;
 		Set<Element> contributingAgents = new HashSet<Element>();
 		Set<ScannerInfo> contributingNodes = new HashSet<ScannerInfo>();
-		//SetElement resultantSet = (SetElement)setBackground.getNewValue();
 		
-		// add all existing elements less those removed with setRemoveAction
-		for (Element e : enumerableViewExistingSet.enumerate()) {
-			Update update = new Update(loc, e, SETREMOVE_ACTION, (Element)null, null);
-			if (!locUpdates.contains(update)) 
-				resultantSet.add(e);
-		}
+		// remove all elements removed with setRemoveAction
+		for (Update u : locUpdates)
+			if (u.action.equals(SETREMOVE_ACTION))
+				resultantSet = resultantSet.minus(u.value);
 		
 		// add all values resulting from setAddAction
 		for (Update u : locUpdates)
 			if (u.action.equals(SETADD_ACTION))
-				resultantSet.add(u.value);
+				resultantSet = resultantSet.plus(u.value);
 		
 		// all updates added successfully, so flag them
 		// and add their agents to the contributing agent set
@@ -1119,7 +1128,7 @@ public class SetPlugin extends Plugin
 		}
 	
 		// return resultant set
-		return new Update(loc, new SetElement(resultantSet), Update.UPDATE_ACTION, contributingAgents, contributingNodes);
+		return new Update(loc, resultantSet, Update.UPDATE_ACTION, contributingAgents, contributingNodes);
 	}
 
 	public Set<String> getBackgroundNames() {
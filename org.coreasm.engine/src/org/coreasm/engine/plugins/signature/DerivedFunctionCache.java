@@ -0,0 +1,180 @@
+package org.coreasm.engine.plugins.signature;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.coreasm.engine.absstorage.AbstractStorage;
+import org.coreasm.engine.absstorage.ChangeJournal;
+import org.coreasm.engine.absstorage.ChangeListener;
+import org.coreasm.engine.absstorage.Element;
+import org.coreasm.engine.absstorage.ElementList;
+import org.coreasm.engine.absstorage.ReadSet;
+import org.coreasm.engine.absstorage.Update;
+
+/**
+ * Memoizes the values of derived functions by their arguments.
+ * <p>
+ * Every value is stored with the part of the state that was read to
+ * compute it (see {@link ReadSet}). Depending on its validity, the cache
+ * either forgets all the values whenever the state changes, or only the
+ * values that read a location which was changed. Values that read
+ * <i>self</i> are stored for the agent that computed them.
+ * <p>
+ * Derived functions are assumed to be deterministic: a derived function
+ * that chooses elements randomly or reads the state around the storage
+ * must not be cached.
+ *
+ * @see DerivedFunctionElement
+ */
+public class DerivedFunctionCache implements ChangeListener {
+
+	/** The validity of cached values */
+	public static enum Validity {
+		/** values are valid until the next change to the state */
+		STEP,
+		/** values are valid until one of the locations they read is changed */
+		LOCATIONS
+	};
+
+	/** marks arguments for which the value depends on <i>self</i> */
+	private static final Entry SELF_DEPENDENT = new Entry(null, null);
+
+	private final AbstractStorage storage;
+	private final Validity validity;
+	private final Map<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+
+	/**
+	 * Creates a new cache of derived function values for the state
+	 * of the given storage.
+	 */
+	public DerivedFunctionCache(AbstractStorage storage, Validity validity) {
+		this.storage = storage;
+		this.validity = validity;
+	}
+
+	public Validity getValidity() {
+		return validity;
+	}
+
+	/**
+	 * Returns the cached value of function <code>f</code> for the given
+	 * arguments and agent, or <code>null</code> if there is no such value.
+	 * The reads of a cached value are added to the read set of the
+	 * current thread.
+	 */
+	public Element get(DerivedFunctionElement f, ElementList args, Element self) {
+		if (storage.isStateStacked())
+			return null;
+		Entry entry = entries.get(new Key(f, args, null));
+		if (entry == SELF_DEPENDENT)
+			entry = entries.get(new Key(f, args, self));
+		if (entry == null)
+			return null;
+		ReadSet.recordAll(entry.reads);
+		return entry.value;
+	}
+
+	/**
+	 * Stores the value of function <code>f</code> for the given
+	 * arguments and agent, computed with the given reads.
+	 */
+	public void put(DerivedFunctionElement f, ElementList args, Element self, Element value, ReadSet reads) {
+		// values of stacked states or monitored functions are only valid
+		// for this very read
+		if (reads.isTransient() || storage.isStateStacked())
+			return;
+		final Entry entry = new Entry(value, reads);
+		if (reads.isSelfRead()) {
+			if (self == null)
+				return;
+			entries.put(new Key(f, args, null), SELF_DEPENDENT);
+			entries.put(new Key(f, args, self), entry);
+		} else
+			entries.put(new Key(f, args, null), entry);
+	}
+
+	/**
+	 * Forgets all the cached values.
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Returns the number of cached values.
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	public void updateSetFired(Set<Update> updates) {
+		if (entries.isEmpty())
+			return;
+		if (validity == Validity.STEP) {
+			entries.clear();
+			return;
+		}
+		final ChangeJournal changes = storage.getLastChanges();
+		if (changes.isEmpty())
+			return;
+		for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+			final Entry entry = it.next();
+			if (entry != SELF_DEPENDENT && entry.reads.isAffectedBy(changes))
+				it.remove();
+		}
+	}
+
+	public void stateCleared() {
+		entries.clear();
+	}
+
+	/*
+	 * A cached value with the reads it depends on.
+	 */
+	private static class Entry {
+		final Element value;
+		final ReadSet reads;
+
+		Entry(Element value, ReadSet reads) {
+			this.value = value;
+			this.reads = reads;
+		}
+	}
+
+	/*
+	 * A derived function applied to a list of arguments by an agent;
+	 * the agent is null for values that do not depend on it.
+	 */
+	private static class Key {
+		final DerivedFunctionElement function;
+		final ElementList args;
+		final Element self;
+		final int hash;
+
+		Key(DerivedFunctionElement function, ElementList args, Element self) {
+			this.function = function;
+			this.args = args;
+			this.self = self;
+			int h = System.identityHashCode(function) * 31 + args.hashCode();
+			if (self != null)
+				h = h * 31 + self.hashCode();
+			this.hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+			final Key other = (Key)o;
+			return function == other.function && hash == other.hash && args.equals(other.args)
+					&& (self == null ? other.self == null : self.equals(other.self));
+		}
+	}
+}
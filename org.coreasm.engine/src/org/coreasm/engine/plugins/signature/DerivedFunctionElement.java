@@ -20,7 +20,9 @@ import java.util.Map;
 
 import org.coreasm.engine.ControlAPI;
 import org.coreasm.engine.absstorage.Element;
+import org.coreasm.engine.absstorage.ElementList;
 import org.coreasm.engine.absstorage.FunctionElement;
+import org.coreasm.engine.absstorage.ReadSet;
 import org.coreasm.engine.interpreter.ASTNode;
 import org.coreasm.engine.interpreter.Interpreter;
 import org.coreasm.engine.interpreter.InterpreterException;
@@ -28,7 +30,12 @@ import org.coreasm.engine.interpreter.InterpreterException;
 /** 
  * Derived functions keep a copy of the expression tree and call the 
  * interpreter to evaluate the subtree everytime they are asked for
- * their value.
+ * their value. Every thread evaluates its own copies of the expression,
+ * so the function can be evaluated by all agents at the same time.
+ * <p>
+ * If the function has a {@link DerivedFunctionCache}, values are
+ * looked up there first and only evaluated once for every list of 
+ * arguments until the state changes. 
  *   
  * @author  Roozbeh Farahbod
  * 
@@ -38,16 +45,35 @@ public class DerivedFunctionElement extends FunctionElement {
 	protected final ControlAPI capi;
 	protected final List<String> params;
 	protected final ASTNode expr;
-	protected final Map<ASTNode, ASTNode> exprCopies = new IdentityHashMap<ASTNode, ASTNode>();
+	protected final DerivedFunctionCache cache;
+	
+	/** the copies of the expression of every thread, by the node that applies the function */
+	protected final ThreadLocal<Map<ASTNode, ASTNode>> exprCopies = new ThreadLocal<Map<ASTNode, ASTNode>>() {
+		@Override
+		protected Map<ASTNode, ASTNode> initialValue() {
+			return new IdentityHashMap<ASTNode, ASTNode>();
+		}
+	};
 	
 	/**
 	 * Creates a new derived function with the given list 
 	 * of parameters.
 	 */
 	public DerivedFunctionElement(ControlAPI capi, List<String> params, ASTNode expr) {
+		this(capi, params, expr, null);
+	}
+	
+	/**
+	 * Creates a new derived function with the given list 
+	 * of parameters whose values are kept in the given cache.
+	 * 
+	 * @param cache the cache of values; <code>null</code> if values are not cached
+	 */
+	public DerivedFunctionElement(ControlAPI capi, List<String> params, ASTNode expr, DerivedFunctionCache cache) {
 		this.capi = capi;
 		this.params = Collections.unmodifiableList(params);
 		this.expr = expr;
+		this.cache = cache;
 		setFClass(FunctionClass.fcDerived);
 	}
 	
@@ -56,29 +82,59 @@ public class DerivedFunctionElement extends FunctionElement {
 	 */
 	@Override
 	public Element getValue(List<? extends Element> args) {
-		Element result = Element.UNDEF;
-		if (args.size() == params.size()) {
-			Interpreter interpreter = capi.getInterpreter().getInterpreterInstance();
-			bindArguments(interpreter, args);
-			
-			synchronized(this) {
-				ASTNode exprCopy = exprCopies.get(interpreter.getPosition());
-				if (exprCopy == null) {
-					exprCopy = (ASTNode)interpreter.copyTree(expr);
-					exprCopies.put(interpreter.getPosition(), exprCopy);
-				}
-				try {
-					interpreter.interpret(exprCopy, interpreter.getSelf());
-					if (exprCopy.getValue() != null)
-						result = exprCopy.getValue();
-				} catch (InterpreterException e) {
-					capi.error(e, expr, interpreter);
-				} finally {
-					unbindArguments(interpreter);
-				}
-				interpreter.clearTree(exprCopy);
+		if (args.size() != params.size())
+			return Element.UNDEF;
+		
+		Interpreter interpreter = capi.getInterpreter().getInterpreterInstance();
+		if (cache == null)
+			return valueOf(evaluate(interpreter, args));
+		
+		final ElementList key = ElementList.create(args);
+		final Element self = interpreter.getSelf();
+		Element result = cache.get(this, key, self);
+		if (result == null) {
+			final ReadSet reads = ReadSet.open();
+			try {
+				result = evaluate(interpreter, args);
+			} finally {
+				reads.close();
 			}
+			if (result == null)
+				return Element.UNDEF;
+			cache.put(this, key, self, result, reads);
+		}
+		return result;
+	}
+	
+	private static Element valueOf(Element result) {
+		return (result == null) ? Element.UNDEF : result;
+	}
+
+	/*
+	 * Evaluates the expression of this function for the given arguments
+	 * in a copy of the expression that belongs to the current thread;
+	 * returns null if the evaluation failed.
+	 */
+	private Element evaluate(Interpreter interpreter, List<? extends Element> args) {
+		Element result = null;
+		final Map<ASTNode, ASTNode> copies = exprCopies.get();
+		final ASTNode position = interpreter.getPosition();
+		ASTNode exprCopy = copies.get(position);
+		if (exprCopy == null) {
+			exprCopy = (ASTNode)interpreter.copyTree(expr);
+			copies.put(position, exprCopy);
+		}
+		
+		bindArguments(interpreter, args);
+		try {
+			interpreter.interpret(exprCopy, interpreter.getSelf());
+			result = valueOf(exprCopy.getValue());
+		} catch (InterpreterException e) {
+			capi.error(e, expr, interpreter);
+		} finally {
+			unbindArguments(interpreter);
 		}
+		interpreter.clearTree(exprCopy);
 		
 		return result;
 	}
@@ -97,6 +97,14 @@ public class SignaturePlugin extends Plugin
 	 */
 	public static final String TYPE_CHECKING_PROPERTY = "TypeChecking";
 	
+	/**
+	 * The name of the Signature.DerivedFunctionCache property. This property can 
+	 * have any of the "off", "perstep", and "perlocation" values. With "perstep", the values of
+	 * derived functions are cached until the state changes; with "perlocation", they are 
+	 * cached until one of the locations they read is changed (see {@link DerivedFunctionCache}).
+	 */
+	public static final String DERIVED_FUNCTION_CACHE_PROPERTY = "DerivedFunctionCache";
+	
     private HashMap<String,FunctionElement> functions;
     private HashMap<String,UniverseElement> universes;
     private HashMap<String,BackgroundElement> backgrounds;
@@ -111,6 +119,7 @@ public class SignaturePlugin extends Plugin
     public static enum CheckMode {OFF, WARN, STRICT};
     private CheckMode typeCheckingMode;    
     private CheckMode idCheckingMode;    
+    private DerivedFunctionCache derivedFunctionCache = null;
     //private HashMap<String,FunctionClass> functionClass;
     //private boolean hasInit = false;
     private boolean processingSignatures = false;
@@ -118,7 +127,7 @@ public class SignaturePlugin extends Plugin
 
 	private final String[] keywords = {"enum", "universe", "controlled", "monitored", "static", "function", "initially", "initialized", "by", "derived"};
 	private final String[] operators = {"=", "{", "}", ",", ":", "->"};
-	private static final Set<String> options = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(new String[] { NO_UNDEFINED_ID_PROPERTY, TYPE_CHECKING_PROPERTY })));
+	private static final Set<String> options = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(new String[] { NO_UNDEFINED_ID_PROPERTY, TYPE_CHECKING_PROPERTY, DERIVED_FUNCTION_CACHE_PROPERTY })));
 	
 	private final CompilerPlugin compilerPlugin = new CompilerSignaturePlugin(this);
 	
@@ -142,6 +151,10 @@ public class SignaturePlugin extends Plugin
     	universes = null;
     	backgrounds = null;
     	rules = null;
+    	if (derivedFunctionCache != null) {
+    		capi.getStorage().removeUpdateSetListener(derivedFunctionCache);
+    		derivedFunctionCache = null;
+    	}
     }
 
 	public Set<Parser<? extends Object>> getLexers() {
@@ -177,6 +190,10 @@ public class SignaturePlugin extends Plugin
 				throw new CoreASMWarning(getName(), "'" + value + "' is not valid and will be treated as 'off'");
 			}
 		}
+		else if (DERIVED_FUNCTION_CACHE_PROPERTY.equals(option)) {
+			if (!value.equals("off") && !value.equals("perstep") && !value.equals("perlocation"))
+				throw new CoreASMWarning(getName(), "'" + value + "' is not valid and will be treated as 'off'");
+		}
 	}
 
 	public Map<String, GrammarRule> getParsers() {
@@ -449,6 +466,35 @@ public class SignaturePlugin extends Plugin
     	return idCheckingMode;
     }
     
+    /*
+     * Returns the cache for the values of derived functions based on the 
+     * DERIVED_FUNCTION_CACHE_PROPERTY of the engine, or null if values
+     * are not cached.
+     */
+    private DerivedFunctionCache getDerivedFunctionCache() {
+    	if (derivedFunctionCache == null) {
+    		String mode = getOptionValue(DERIVED_FUNCTION_CACHE_PROPERTY);
+    		DerivedFunctionCache.Validity validity = null;
+    		if (mode != null) {
+    			if (mode.equals("perstep"))
+    				validity = DerivedFunctionCache.Validity.STEP;
+    			else
+    				if (mode.equals("perlocation"))
+    					validity = DerivedFunctionCache.Validity.LOCATIONS;
+    				else
+    					if (!mode.equals("off"))
+    						capi.warning(PLUGIN_NAME, 
+    								"The value of engine property '" + DERIVED_FUNCTION_CACHE_PROPERTY + 
+    								"' is ignored as it is neither 'off', 'perstep', nor 'perlocation'.");
+    		}
+    		if (validity != null) {
+    			derivedFunctionCache = new DerivedFunctionCache(capi.getStorage(), validity);
+    			capi.getStorage().addUpdateSetListener(derivedFunctionCache);
+    		}
+    	}
+    	return derivedFunctionCache;
+    }
+    
     /* (non-Javadoc)
      * @see org.coreasm.engine.plugin.ExtensionPointPlugin#fireOnModeTransition(org.coreasm.engine.CoreASMEngine.EngineMode, org.coreasm.engine.CoreASMEngine.EngineMode)
      */
@@ -948,7 +994,7 @@ public class SignaturePlugin extends Plugin
 		}
 		params.trimToSize();
 
-		DerivedFunctionElement func = new DerivedFunctionElement(capi, params, exprNode);
+		DerivedFunctionElement func = new DerivedFunctionElement(capi, params, exprNode, getDerivedFunctionCache());
 		
 		addFunction(idNode.getToken(), func, currentSignature, interpreter);
 
@@ -34,6 +34,8 @@ import org.coreasm.engine.absstorage.FunctionElement;
 import org.coreasm.engine.absstorage.RuleElement;
 import org.coreasm.engine.absstorage.UniverseElement;
 import org.coreasm.engine.interpreter.ASTNode;
+import org.coreasm.engine.interpreter.Closure;
+import org.coreasm.engine.interpreter.ClosureCompiler;
 import org.coreasm.engine.interpreter.Interpreter;
 import org.coreasm.engine.interpreter.InterpreterException;
 import org.coreasm.engine.interpreter.Node;
@@ -41,6 +43,7 @@ import org.coreasm.engine.interpreter.ScannerInfo;
 import org.coreasm.engine.parser.GrammarRule;
 import org.coreasm.engine.parser.OperatorRule;
 import org.coreasm.engine.parser.OperatorRule.OpType;
+import org.coreasm.engine.plugin.ClosureCompilerPlugin;
 import org.coreasm.engine.plugin.InterpreterPlugin;
 import org.coreasm.engine.plugin.OperatorProvider;
 import org.coreasm.engine.plugin.ParserPlugin;
@@ -54,7 +57,7 @@ import org.coreasm.engine.plugin.VocabularyExtender;
  *  
  */
 public class StringPlugin extends Plugin 
-		implements ParserPlugin, InterpreterPlugin, OperatorProvider, VocabularyExtender {
+		implements ParserPlugin, InterpreterPlugin, OperatorProvider, VocabularyExtender, ClosureCompilerPlugin {
 	
 	public static final VersionInfo VERSION_INFO = new VersionInfo(0, 4, 1, "");
 	
@@ -125,6 +128,13 @@ public class StringPlugin extends Plugin
 		return nextPos;
 	}
 
+	public Closure compile(ClosureCompiler compiler, ASTNode node) {
+		// string constants are evaluated once
+		if (!node.getGrammarClass().equals(ASTNode.EXPRESSION_CLASS) || node.getToken() == null)
+			return null;
+		return ClosureCompiler.constant(stringBackgroundElement.getNewValue(node.getToken()));
+	}
+
 	public Set<Parser<? extends Object>> getLexers() {
 		if (lexers == null) {
 			lexers = new HashSet<Parser<? extends Object>>();
@@ -0,0 +1,79 @@
+package org.coreasm.engine.scheduler;
+
+/**
+ * Computes the number of agents evaluated by every leaf task of a
+ * {@link ConcurrentProgramEvaluator} from the time agents took to
+ * evaluate in the previous steps.
+ * <p>
+ * Leaf tasks are made just large enough to amortize the cost of
+ * forking and merging (about {@link #TARGET_BATCH_NANOS} of work each),
+ * but never so large that there are less than {@link #TASKS_PER_THREAD}
+ * tasks for every thread, which would hurt load balancing.
+ *
+ * @see org.coreasm.engine.EngineProperties#AGENT_EXECUTION_THREAD_BATCH_SIZE
+ */
+public class AdaptiveBatchSize {
+
+	/** the amount of work (in nanoseconds) aimed at for every leaf task */
+	public static final long TARGET_BATCH_NANOS = 500000;
+
+	/** the minimum number of leaf tasks per thread, if there are enough agents */
+	public static final int TASKS_PER_THREAD = 4;
+
+	/** weight of the latest measurement in the running average */
+	private static final double SMOOTHING = 0.5;
+
+	/** running average of the evaluation time of one agent; negative if unknown */
+	private double nanosPerAgent = -1;
+
+	/**
+	 * Returns the batch size to be used for evaluating the given number
+	 * of agents on the given number of threads.
+	 */
+	public int getBatchSize(int agents, int threads) {
+		if (agents <= 1)
+			return 1;
+		// upper bound that keeps every thread busy
+		int max = Math.max(1, agents / (Math.max(1, threads) * TASKS_PER_THREAD));
+		if (nanosPerAgent <= 0)
+			// nothing measured yet; be conservative
+			return max;
+		long size = (long)(TARGET_BATCH_NANOS / nanosPerAgent);
+		if (size < 1)
+			return 1;
+		if (size > max)
+			return max;
+		return (int)size;
+	}
+
+	/**
+	 * Feeds the measurements of a finished evaluation into the running average.
+	 *
+	 * @param agents the number of agents evaluated
+	 * @param evaluationNanos the total time spent in evaluating them (over all threads)
+	 */
+	public void update(int agents, long evaluationNanos) {
+		if (agents <= 0 || evaluationNanos <= 0)
+			return;
+		double latest = (double)evaluationNanos / agents;
+		if (nanosPerAgent <= 0)
+			nanosPerAgent = latest;
+		else
+			nanosPerAgent = SMOOTHING * latest + (1 - SMOOTHING) * nanosPerAgent;
+	}
+
+	/**
+	 * Returns the current estimate of the evaluation time of one agent
+	 * in nanoseconds, or a negative value if nothing has been measured yet.
+	 */
+	public double getNanosPerAgent() {
+		return nanosPerAgent;
+	}
+
+	/**
+	 * Forgets all the measurements.
+	 */
+	public void reset() {
+		nanosPerAgent = -1;
+	}
+}
@@ -17,6 +17,7 @@ import java.util.Map;
 
 import org.coreasm.engine.absstorage.Element;
 import org.coreasm.engine.interpreter.ASTNode;
+import org.coreasm.engine.interpreter.EvaluationFrame;
 import org.coreasm.engine.interpreter.Interpreter;
 
 /**
@@ -28,7 +29,8 @@ public class AgentContext {
 	public final Element agent;
 	public Interpreter interpreter = null;
 	
-	public Map<ASTNode, ASTNode> nodeCopyCache = new IdentityHashMap<ASTNode, ASTNode>();
+	/** evaluation frames of the programs of the agent, by program body */
+	public Map<ASTNode, EvaluationFrame> frames = new IdentityHashMap<ASTNode, EvaluationFrame>();
 
 	public AgentContext(Element agent) {
 		this.agent = agent;
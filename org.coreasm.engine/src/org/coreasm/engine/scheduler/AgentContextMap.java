@@ -36,7 +36,7 @@ public class AgentContextMap {
 		for (AgentContext context : map.values()) {
 			context.interpreter.dispose();
 			context.interpreter = null;
-			context.nodeCopyCache.clear();
+			context.frames.clear();
 		}
 		map.clear();
 	}
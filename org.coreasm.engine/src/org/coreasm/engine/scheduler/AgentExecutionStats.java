@@ -0,0 +1,49 @@
+package org.coreasm.engine.scheduler;
+
+/**
+ * Statistics of the execution of agent programs in one computation step,
+ * as collected by an {@link AgentExecutor}.
+ *
+ * @see Scheduler#getLastExecutionStats()
+ */
+public class AgentExecutionStats {
+
+	/** number of agents whose programs were evaluated */
+	public final int agents;
+
+	/** number of leaf tasks (batches of agents) the agents were split into */
+	public final int batches;
+
+	/** maximum number of agents in one batch */
+	public final int batchSize;
+
+	/** number of threads the executor was allowed to use */
+	public final int parallelism;
+
+	/** number of worker threads alive at the end of the step */
+	public final int poolSize;
+
+	/** number of tasks stolen by idle workers during the step */
+	public final long steals;
+
+	/** wall-clock time spent evaluating agent programs, in nanoseconds */
+	public final long elapsedNanos;
+
+	public AgentExecutionStats(int agents, int batches, int batchSize, int parallelism, int poolSize, long steals, long elapsedNanos) {
+		this.agents = agents;
+		this.batches = batches;
+		this.batchSize = batchSize;
+		this.parallelism = parallelism;
+		this.poolSize = poolSize;
+		this.steals = steals;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "Agent execution: " + agents + " agent(s) in " + batches + " batch(es) of at most "
+				+ batchSize + " on "
+				+ poolSize + "/" + parallelism + " thread(s), " + steals + " steal(s), "
+				+ (elapsedNanos / 1000) + " us";
+	}
+}
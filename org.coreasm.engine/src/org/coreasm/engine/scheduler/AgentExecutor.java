@@ -0,0 +1,40 @@
+package org.coreasm.engine.scheduler;
+
+/**
+ * Executes the programs of the selected agents of a computation step.
+ * An agent executor lives as long as the scheduler that uses it, so
+ * implementations are expected to keep their worker threads alive
+ * between steps and release them only in {@link #shutdown()}.
+ *
+ * @see SchedulerImp#setAgentExecutor(AgentExecutor)
+ */
+public interface AgentExecutor {
+
+	/**
+	 * Runs the given evaluator (and all the sub-tasks it forks)
+	 * to completion. The result of the evaluation is available
+	 * through the evaluator itself.
+	 *
+	 * @param evaluator the root evaluator of the current step
+	 * @throws InterruptedException if the calling thread is interrupted
+	 * while waiting for the agents to finish
+	 */
+	public void execute(ConcurrentProgramEvaluator evaluator) throws InterruptedException;
+
+	/**
+	 * Returns the number of threads this executor uses to run agent programs.
+	 */
+	public int getParallelism();
+
+	/**
+	 * Returns the statistics of the last call to {@link #execute(ConcurrentProgramEvaluator)},
+	 * or <code>null</code> if nothing has been executed yet.
+	 */
+	public AgentExecutionStats getLastStepStats();
+
+	/**
+	 * Releases the threads of this executor. The executor cannot be used
+	 * after this method is called.
+	 */
+	public void shutdown();
+}
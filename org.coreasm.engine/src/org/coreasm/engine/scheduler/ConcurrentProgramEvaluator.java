@@ -15,30 +15,36 @@
 package org.coreasm.engine.scheduler;
 
 import java.util.List;
+import java.util.concurrent.RecursiveAction;
 
 import org.coreasm.engine.ControlAPI;
+import org.coreasm.engine.CoreASMError;
 import org.coreasm.engine.EngineException;
 import org.coreasm.engine.absstorage.AbstractStorage;
 import org.coreasm.engine.absstorage.Element;
 import org.coreasm.engine.absstorage.RuleElement;
 import org.coreasm.engine.absstorage.UpdateMultiset;
 import org.coreasm.engine.interpreter.ASTNode;
+import org.coreasm.engine.interpreter.Closure;
+import org.coreasm.engine.interpreter.ClosureCompiler;
+import org.coreasm.engine.interpreter.EvaluationFrame;
 import org.coreasm.engine.interpreter.Interpreter;
+import org.coreasm.engine.interpreter.InterpreterException;
 import org.coreasm.engine.interpreter.InterpreterImp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import EDU.oswego.cs.dl.util.concurrent.FJTask;
-
 /**
  * Evaluates programs of a set of agents in parallel using
- * Java concurrency methods.
+ * Java concurrency methods. Instances of this class are executed
+ * by an {@link AgentExecutor}.
  *   
  * @author Roozbeh Farahbod
  *
  */
 
-public class ConcurrentProgramEvaluator extends FJTask {
+@SuppressWarnings("serial")
+public class ConcurrentProgramEvaluator extends RecursiveAction {
 
 	public static final int DEFAULT_BATCH_SIZE = 1;
 
@@ -49,11 +55,15 @@ public class ConcurrentProgramEvaluator extends FJTask {
 	private final ControlAPI capi;
 	private final AbstractStorage storage;
 	private List<? extends Element> agents = null;
+	private UpdateBuffer updates = null;
 	private UpdateMultiset result = null;
 	private Throwable error = null;
 	private final int start;
 	private final int end;
 	private final int batchSize;
+	private final ClosureCompiler closureCompiler;
+	private int batchCount = 0;
+	private long evaluationNanos = 0;
 	
 	/**
 	 * Creates a new program evaluator working on agents [start, ..., end-1] in the list.
@@ -76,66 +86,131 @@ public class ConcurrentProgramEvaluator extends FJTask {
 	 * @param end
 	 */
 	public ConcurrentProgramEvaluator(ControlAPI capi, AgentContextMap agentContextMap, List<? extends Element> agents,  int start, int end, int batchSize) {
+		this(capi, agentContextMap, agents, start, end, batchSize, null);
+	}
+	
+	/**
+	 * Creates a new program evaluator working on agents [start, ..., end-1] in the list
+	 * that evaluates the programs with the closures of the given compiler.
+	 * 
+	 * @param capi
+	 * @param agents
+	 * @param start
+	 * @param end
+	 * @param closureCompiler the compiler of programs; if <code>null</code>, programs are interpreted
+	 */
+	public ConcurrentProgramEvaluator(ControlAPI capi, AgentContextMap agentContextMap, List<? extends Element> agents,  int start, int end, int batchSize, ClosureCompiler closureCompiler) {
 		this.agents = agents;
+		this.closureCompiler = closureCompiler;
 		this.capi = capi;
 		this.storage = capi.getStorage();
 		this.start = start;
 		this.end = end;
-		this.batchSize = batchSize;
+		this.batchSize = Math.max(1, batchSize);
 		this.agentContextMap = agentContextMap;
 	}
 	
-	public void run() {
+	@Override
+	protected void compute() {
 		if (end - start > batchSize) {
 			int cut = start + (end - start) / 2;
-			ConcurrentProgramEvaluator cpe1 = new ConcurrentProgramEvaluator(capi, agentContextMap, agents, start, cut);
-			ConcurrentProgramEvaluator cpe2 = new ConcurrentProgramEvaluator(capi, agentContextMap, agents, cut, end);
-			
-			coInvoke(cpe1, cpe2);
+			ConcurrentProgramEvaluator cpe1 = new ConcurrentProgramEvaluator(capi, agentContextMap, agents, start, cut, batchSize, closureCompiler);
+			ConcurrentProgramEvaluator cpe2 = new ConcurrentProgramEvaluator(capi, agentContextMap, agents, cut, end, batchSize, closureCompiler);
 			
-			UpdateMultiset result1 = cpe1.getResultantUpdateSet();
-			UpdateMultiset result2 = cpe2.getResultantUpdateSet();
+			invokeAll(cpe1, cpe2);
+			batchCount = cpe1.batchCount + cpe2.batchCount;
+			evaluationNanos = cpe1.evaluationNanos + cpe2.evaluationNanos;
 			
-			if (result1 == null) {
-				result = null;
+			if (cpe1.updates == null) {
 				error = cpe1.error;
 			} else 
-				if (result2 == null) {
-					result = null;
+				if (cpe2.updates == null) {
 					error = cpe2.error;
 				} else {
-					result = new UpdateMultiset(cpe1.getResultantUpdateSet());
-					result.addAll(cpe2.getResultantUpdateSet());
+					// concatenating the buffers does not copy any update
+					updates = cpe1.updates;
+					updates.append(cpe2.updates);
 				}
 		} else {
-			UpdateMultiset aggregatedResult = new UpdateMultiset();
+			batchCount = 1;
+			final long startTime = System.nanoTime();
+			UpdateBuffer buffer = new UpdateBuffer();
 			for (int i=start; i < end; i++) {
 				Element agent = agents.get(i);
 				try {
-					evaluate(agent);
+					buffer.add(evaluate(agent));
 				} catch(Exception e) {
-					result = null;
 					error = e;
 					return;
 				}
-				aggregatedResult.addAll(result);
 			}
-			result = aggregatedResult;
+			updates = buffer;
+			evaluationNanos = System.nanoTime() - startTime;
 		}
 	}
 
+	/**
+	 * Returns the update instructions produced by the agents of this 
+	 * evaluator, or <code>null</code> if the evaluation has failed. 
+	 * The multiset is built on the first call to this method.
+	 */
 	public UpdateMultiset getResultantUpdateSet() {
+		return getResultantUpdateSet(true);
+	}
+
+	/**
+	 * Returns the update instructions produced by the agents of this 
+	 * evaluator, or <code>null</code> if the evaluation has failed. 
+	 * If <code>keepProvenance</code> is <code>false</code>, the update
+	 * instructions do not keep their agents and sources.
+	 * The multiset is built on the first call to this method or 
+	 * {@link #getResultantUpdateSet()}.
+	 */
+	public UpdateMultiset getResultantUpdateSet(boolean keepProvenance) {
+		if (result == null && updates != null) 
+			result = updates.toUpdateMultiset(keepProvenance);
 		return result;
 	}
 	
 	public Throwable getError() {
 		return error;
 	}
+
+	/**
+	 * Returns the number of agents this evaluator is responsible for.
+	 */
+	public int getAgentCount() {
+		return end - start;
+	}
+
+	/**
+	 * Returns the number of leaf batches the agents of this evaluator 
+	 * have been split into. This is only valid after the evaluation is complete.
+	 */
+	public int getBatchCount() {
+		return batchCount;
+	}
+
+	/**
+	 * Returns the maximum number of agents evaluated by one leaf task.
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Returns the total time (in nanoseconds, summed over all threads) 
+	 * spent in evaluating the programs of the agents of this evaluator. 
+	 * This is only valid after a successful evaluation.
+	 */
+	public long getEvaluationNanos() {
+		return evaluationNanos;
+	}
 	
 	/*
-	 * Evaluates the program of the given agent.
+	 * Evaluates the program of the given agent and returns its update instructions.
 	 */
-	private void evaluate(Element agent) throws EngineException {
+	private UpdateMultiset evaluate(Element agent) throws EngineException {
 		AgentContext context = agentContextMap.get(agent); 
 		Interpreter inter;
 		if (context == null) {
@@ -158,37 +233,75 @@ public class ConcurrentProgramEvaluator extends FJTask {
 			throw new EngineException("Program of agent " + agent.denotation() + " is not a rule element.");
 		inter.setSelf(agent);
 		
-		ASTNode ruleNode = ((RuleElement)program).getBody();
-		rootNode = context.nodeCopyCache.get(ruleNode);
-		if (rootNode == null) {
-			rootNode = (ASTNode)inter.copyTree(ruleNode); 
-			context.nodeCopyCache.put(ruleNode, rootNode);
+		if (closureCompiler != null)
+			return evaluateClosure(inter, agent, (RuleElement)program);
+		
+		// all agents evaluate the same tree, each in its own frame
+		rootNode = ((RuleElement)program).getBody();
+		EvaluationFrame frame = context.frames.get(rootNode);
+		if (frame == null) {
+			frame = new EvaluationFrame(rootNode);
+			context.frames.put(rootNode, frame);
 		} else {
-			inter.clearTree(rootNode);
+			frame.clear();
 		}
 		
-		inter.setPosition(rootNode);
-		// allow the interpreter to perform internal initialization 
-		// prior to program execution
-		inter.initProgramExecution();
+		UpdateMultiset agentUpdates;
+		frame.enter();
+		try {
+			inter.setPosition(rootNode);
+			// allow the interpreter to perform internal initialization 
+			// prior to program execution
+			inter.initProgramExecution();
+	
+			do 
+				inter.executeTree();	
+			while (!(inter.isExecutionComplete() || capi.hasErrorOccurred()));
+			
+			// if rootNode hasn't been evaluated after inter.isExecutionComplete() returned true, the AST has been corrupted
+			if (!rootNode.isEvaluated() && !capi.hasErrorOccurred()) 
+				throw new EngineException("AST of " + agent.denotation() + program.denotation() + " has been corrupted.");
+			
+			// if an error occurred in the engine, just return an empty multiset
+			if (capi.hasErrorOccurred()) 
+				agentUpdates = new UpdateMultiset();
+			else
+				agentUpdates = rootNode.getUpdates();
+		} finally {
+			frame.exit();
+		}
+		
+		if (logger.isDebugEnabled())
+			logger.debug("Updates are: " + agentUpdates.toString());
+
+		return agentUpdates;
 
-		do 
-			inter.executeTree();	
-		while (!(inter.isExecutionComplete() || capi.hasErrorOccurred()));
+	}
+	
+	/*
+	 * Evaluates the compiled program of the given agent and returns its update instructions.
+	 */
+	private UpdateMultiset evaluateClosure(Interpreter inter, Element agent, RuleElement program) throws EngineException {
+		final Closure closure = closureCompiler.getClosure(program);
+		inter.initProgramExecution();
 		
-		// if rootNode hasn't been evaluated after inter.isExecutionComplete() returned true, the AST has been corrupted
-		if (!rootNode.isEvaluated() && !capi.hasErrorOccurred()) 
-			throw new EngineException("AST of " + agent.denotation() + program.denotation() + " has been corrupted.");
+		UpdateMultiset agentUpdates = null;
+		try {
+			agentUpdates = closure.evaluate(inter).getUpdates();
+		} catch (CoreASMError e) {
+			capi.error(e);
+		} catch (InterpreterException e) {
+			capi.error(e, program.getBody(), inter);
+		}
 		
 		// if an error occurred in the engine, just return an empty multiset
 		if (capi.hasErrorOccurred()) 
-			result = new UpdateMultiset();
-		else
-			result = rootNode.getUpdates();
+			agentUpdates = new UpdateMultiset();
 		
 		if (logger.isDebugEnabled())
-			logger.debug("Updates are: " + result.toString());
+			logger.debug("Updates are: " + agentUpdates.toString());
 
+		return agentUpdates;
 	}
 	
 }
@@ -0,0 +1,67 @@
+package org.coreasm.engine.scheduler;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * The default {@link AgentExecutor}; runs agent programs on a
+ * work-stealing {@link ForkJoinPool} that is created once and
+ * reused for all the steps of a run.
+ */
+public class ForkJoinAgentExecutor implements AgentExecutor {
+
+	private final ForkJoinPool pool;
+	private volatile AgentExecutionStats lastStepStats = null;
+
+	/**
+	 * Creates a new executor using at most the given number of threads.
+	 *
+	 * @param parallelism number of worker threads; values smaller than 1 are treated as 1
+	 */
+	public ForkJoinAgentExecutor(int parallelism) {
+		this.pool = new ForkJoinPool(Math.max(1, parallelism));
+	}
+
+	@Override
+	public void execute(ConcurrentProgramEvaluator evaluator) throws InterruptedException {
+		final long steals = pool.getStealCount();
+		final long start = System.nanoTime();
+
+		Future<Void> future = pool.submit(evaluator);
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			throw e;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException)cause;
+			if (cause instanceof Error)
+				throw (Error)cause;
+			throw new IllegalStateException(cause);
+		} finally {
+			lastStepStats = new AgentExecutionStats(
+					evaluator.getAgentCount(), evaluator.getBatchCount(), evaluator.getBatchSize(),
+					pool.getParallelism(), pool.getPoolSize(),
+					pool.getStealCount() - steals, System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+
+	@Override
+	public AgentExecutionStats getLastStepStats() {
+		return lastStepStats;
+	}
+
+	@Override
+	public void shutdown() {
+		pool.shutdownNow();
+	}
+
+}
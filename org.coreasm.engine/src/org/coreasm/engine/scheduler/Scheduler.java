@@ -56,6 +56,22 @@ public interface Scheduler {
 	 */
 	public Set<Update> getUpdateSet();
 	
+	/**
+	 * Marks the current update set as checked for consistency.
+	 * Any change to the update set clears the mark.
+	 * 
+	 * @param checked <code>true</code> if the update set is consistent
+	 */
+	public void setUpdateSetChecked(boolean checked);
+	
+	/**
+	 * Returns <code>true</code> if the current update set has been found
+	 * consistent and has not changed since.
+	 * 
+	 * @see #setUpdateSetChecked(boolean)
+	 */
+	public boolean isUpdateSetChecked();
+	
 	/**
 	 * Returns the multiset of accumulating update instructions in 
 	 * one compuation step.
@@ -194,6 +210,14 @@ public interface Scheduler {
      */
 	public void executeAgentPrograms() throws EngineException;
 
+	/**
+	 * Returns the statistics of the last execution of agent programs,
+	 * or <code>null</code> if no agent program has been executed yet.
+	 * 
+	 * @see #executeAgentPrograms()
+	 */
+	public AgentExecutionStats getLastExecutionStats();
+
     /**
      * Sets the value of <i>initAgent</i> in the scheduler.
      */
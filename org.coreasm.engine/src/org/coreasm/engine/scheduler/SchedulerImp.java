@@ -13,6 +13,7 @@
 package org.coreasm.engine.scheduler;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -31,16 +32,17 @@ import org.coreasm.engine.absstorage.Enumerable;
 import org.coreasm.engine.absstorage.FunctionElement;
 import org.coreasm.engine.absstorage.InvalidLocationException;
 import org.coreasm.engine.absstorage.Location;
+import org.coreasm.engine.absstorage.UniverseElement;
 import org.coreasm.engine.absstorage.Update;
 import org.coreasm.engine.absstorage.UpdateMultiset;
+import org.coreasm.engine.absstorage.UpdateSetListener;
+import org.coreasm.engine.interpreter.ClosureCompiler;
 import org.coreasm.engine.interpreter.Interpreter;
 import org.coreasm.engine.plugin.Plugin;
 import org.coreasm.engine.plugin.SchedulerPlugin;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import EDU.oswego.cs.dl.util.concurrent.FJTaskRunnerGroup;
-
 /**
  * Implemetation of scheduler.
  * 
@@ -52,21 +54,26 @@ public class SchedulerImp implements Scheduler {
 	/** Maximum number of agents selected in each round */
 	public static final int MAX_SELECTED_AGENTS = 10;
 
+	/* batch size value that indicates an adaptive batch size */
+	private static final int AUTO_BATCH_SIZE = 0;
+
 	protected static final Logger logger = LoggerFactory
 			.getLogger(SchedulerImp.class);
 
 	private ControlAPI capi;
 
 	private UpdateMultiset updateInstructions;
-	private Set<Update> updateSet;
+	private UpdateSet updateSet;
 
 	private Set<Element> agentSet;
 	private Set<Element> selectedAgentSet;
 
 	private Element initAgent;
 
-	// private FJTaskRunnerGroup runnerGroup = null;
+	private AgentExecutor agentExecutor = null;
+	private boolean isAgentExecutorProvided = false;
 	private int batchSize = -1;
+	private final AdaptiveBatchSize adaptiveBatchSize = new AdaptiveBatchSize();
 	private int numberOfCPUs = -1;
 	private SchedulingPolicy schedulingPolicy = null;
 	private Iterator<Set<Element>> schedule = null;
@@ -78,12 +85,36 @@ public class SchedulerImp implements Scheduler {
 	/* to cache the list with minimum change to the code */
 	private Set<Element> lastSelectedAgents;
 
+	/* 
+	 * agents of the current state that have a program; maintained from 
+	 * the updates fired on the storage, null if it has to be recomputed
+	 */
+	private Set<Element> activeAgents = null;
+
+	private final UpdateSetListener activeAgentsTracker = new UpdateSetListener() {
+		@Override
+		public void updateSetFired(Set<Update> updates) {
+			updateActiveAgents(updates);
+		}
+
+		@Override
+		public void stateCleared() {
+			invalidateAgentSet();
+		}
+	};
+
 	private AgentContextMap agentContextMap;
 
+	/** compiles the programs of agents; <code>null</code> if they are interpreted */
+	private ClosureCompiler closureCompiler = null;
+
+	/** whether the update instructions of agents keep their agents and sources */
+	private boolean provenanceKept = true;
+
 	public SchedulerImp(ControlAPI engine) {
 		this.capi = engine;
 		updateInstructions = new UpdateMultiset();
-		updateSet = new HashSet<Update>();
+		updateSet = new UpdateSet();
 		agentSet = null;
 		selectedAgentSet = new HashSet<Element>();
 		lastSelectedAgents = null;
@@ -98,10 +129,28 @@ public class SchedulerImp implements Scheduler {
 
 		loadSchedulingPolicy();
 
+		activeAgents = null;
+		capi.getStorage().addUpdateSetListener(activeAgentsTracker);
+
 		shouldPrintProcessorStats = (capi.getProperty(
 				EngineProperties.PRINT_PROCESSOR_STATS_PROPERTY, "no")
 				.toUpperCase().equals("YES"));
 
+		if (closureCompiler != null)
+			closureCompiler.dispose();
+		if (capi.getProperty(EngineProperties.CLOSURE_COMPILATION, EngineProperties.NO)
+				.equalsIgnoreCase(EngineProperties.YES))
+			closureCompiler = new ClosureCompiler(capi);
+		else
+			closureCompiler = null;
+
+		provenanceKept = !capi.getProperty(EngineProperties.UPDATE_PROVENANCE, EngineProperties.YES)
+				.equalsIgnoreCase(EngineProperties.NO);
+
+		// engine properties may have changed since the last run
+		batchSize = -1;
+		adaptiveBatchSize.reset();
+
 		agentContextMap = new AgentContextMap();
 
 		logger.debug("Done preparing the initial state.");
@@ -116,6 +165,14 @@ public class SchedulerImp implements Scheduler {
 		return updateSet;
 	}
 
+	public void setUpdateSetChecked(boolean checked) {
+		updateSet.checked = checked;
+	}
+
+	public boolean isUpdateSetChecked() {
+		return updateSet.checked;
+	}
+
 	public UpdateMultiset getUpdateInstructions() {
 		return updateInstructions;
 	}
@@ -136,7 +193,7 @@ public class SchedulerImp implements Scheduler {
 		updateInstructions = new UpdateMultiset();
 		// changed by Roozbeh
 		// updateSet.clear();
-		updateSet = new HashSet<Update>();
+		updateSet = new UpdateSet();
 		agentSet = null;
 		selectedAgentSet.clear();
 	}
@@ -153,22 +210,18 @@ public class SchedulerImp implements Scheduler {
 				agentSet = new HashSet<Element>();
 				agentSet.add(initAgent);
 			} else {
-				agentSet = new HashSet<Element>();
-				// pick only those that have a non-null program
-				for (Element agent : ((Enumerable) agentSetFlat).enumerate()) {
-					Location loc = new Location(
-							AbstractStorage.PROGRAM_FUNCTION_NAME,
-							ElementList.create(agent));
-					try {
-						if (!storage.getValue(loc).equals(Element.UNDEF))
-							agentSet.add(agent);
-					} catch (InvalidLocationException e) {
-						capi.error("Cannot get the value of lcoation " + loc
-								+ ".");
-						logger.error("Cannot get the value of lcoation " + loc
-								+ ".");
-					}
+				// only universes that are changed through updates 
+				// can be tracked incrementally
+				if (!(agentSetFlat instanceof UniverseElement))
+					activeAgents = null;
+				if (activeAgents == null) {
+					activeAgents = new HashSet<Element>();
+					// pick only those that have a non-null program
+					for (Element agent : ((Enumerable) agentSetFlat).enumerate()) 
+						if (hasProgram(storage, agent))
+							activeAgents.add(agent);
 				}
+				agentSet = new HashSet<Element>(activeAgents);
 			}
 
 		} else {
@@ -185,6 +238,74 @@ public class SchedulerImp implements Scheduler {
 		schedule = schedulingPolicy.getNewSchedule(schedulingPolicy, agentSet);
 	}
 
+	/**
+	 * Discards the set of agents maintained by this scheduler, so that 
+	 * the next call to {@link #retrieveAgents()} enumerates all the 
+	 * elements of the <i>Agents</i> universe. This is only needed if the
+	 * agents or their programs are changed without firing updates on 
+	 * the abstract storage.
+	 */
+	public synchronized void invalidateAgentSet() {
+		activeAgents = null;
+	}
+
+	/*
+	 * Returns true if the value of program(agent) is not undef.
+	 */
+	private boolean hasProgram(AbstractStorage storage, Element agent) {
+		Location loc = new Location(
+				AbstractStorage.PROGRAM_FUNCTION_NAME,
+				ElementList.create(agent));
+		try {
+			return !storage.getValue(loc).equals(Element.UNDEF);
+		} catch (InvalidLocationException e) {
+			capi.error("Cannot get the value of lcoation " + loc
+					+ ".");
+			logger.error("Cannot get the value of lcoation " + loc
+					+ ".");
+			return false;
+		}
+	}
+
+	/*
+	 * Keeps the set of active agents (agents with a program) up to date
+	 * with the updates fired on the abstract storage.
+	 */
+	private synchronized void updateActiveAgents(Set<Update> updates) {
+		if (activeAgents == null)
+			return;
+		Set<Element> changedAgents = null;
+		for (Update u : updates) {
+			if (u.loc.name.equals(AbstractStorage.PROGRAM_FUNCTION_NAME)
+					|| u.loc.name.equals(AbstractStorage.AGENTS_UNIVERSE_NAME)) {
+				if (u.loc.args.size() != 1) {
+					// this is not a regular change to an agent; start over
+					activeAgents = null;
+					return;
+				}
+				if (changedAgents == null)
+					changedAgents = new HashSet<Element>();
+				changedAgents.add(u.loc.args.get(0));
+			}
+		}
+		if (changedAgents == null)
+			return;
+
+		AbstractStorage storage = capi.getStorage();
+		FunctionElement agentSetFlat = storage
+				.getUniverse(AbstractStorage.AGENTS_UNIVERSE_NAME);
+		if (!(agentSetFlat instanceof UniverseElement)) {
+			activeAgents = null;
+			return;
+		}
+		for (Element agent : changedAgents) {
+			if (((UniverseElement) agentSetFlat).contains(agent) && hasProgram(storage, agent))
+				activeAgents.add(agent);
+			else
+				activeAgents.remove(agent);
+		}
+	}
+
 	public boolean selectAgents() {
 		if (agentsCombinationExists()) {
 			selectedAgentSet = schedule.next();
@@ -223,54 +344,56 @@ public class SchedulerImp implements Scheduler {
 	public void executeAgentPrograms() throws EngineException {
 		ArrayList<Element> agentsList = new ArrayList<Element>(selectedAgentSet);
 
-		/*
-		 * Old Code
-		 * 
-		 * Before, we would keep a copy of the runnerGroup and reuse it. This
-		 * appeared to be problamatic with regard to memory issues. Changing it
-		 * to one instance per time...
-		 * 
-		 * if (runnerGroup == null) { //TODO the number of available processes
-		 * may change! int cpus = getNumberOfProcessorsToBeUsed(); batchSize =
-		 * getThreadBatchSize(); runnerGroup = new FJTaskRunnerGroup(cpus); if
-		 * (Logger.verbosityLevel == Logger.INFORMATION) {
-		 * Logger.log(Logger.INFORMATION, Logger.scheduler, "Using " + cpus +
-		 * " thread(s) on " + Runtime.getRuntime().availableProcessors() +
-		 * " processors."); Logger.log(Logger.INFORMATION, Logger.scheduler,
-		 * "Using a batch size of " + batchSize + " agent(s) per thread."); } }
-		 */
-
 		if (batchSize == -1) {
 			numberOfCPUs = getNumberOfProcessorsToBeUsed();
 			batchSize = getThreadBatchSize();
+			if (!isAgentExecutorProvided && agentExecutor != null
+					&& agentExecutor.getParallelism() != numberOfCPUs)
+				discardAgentExecutor();
 			if (logger.isDebugEnabled()) {
 				logger.debug("Using " + numberOfCPUs + " thread(s) on "
 						+ Runtime.getRuntime().availableProcessors()
 						+ " processors.");
-				logger.debug("Using a batch size of " + batchSize
-						+ " agent(s) per thread.");
+				if (batchSize == AUTO_BATCH_SIZE)
+					logger.debug("Using an adaptive batch size.");
+				else
+					logger.debug("Using a batch size of " + batchSize
+							+ " agent(s) per thread.");
 			}
 		}
-		final FJTaskRunnerGroup runnerGroup = new FJTaskRunnerGroup(
-				numberOfCPUs);
+		// the executor is kept for the whole run; creating worker 
+		// threads for every step is too expensive
+		if (agentExecutor == null)
+			agentExecutor = new ForkJoinAgentExecutor(numberOfCPUs);
+
+		int stepBatchSize = batchSize;
+		if (batchSize == AUTO_BATCH_SIZE) {
+			stepBatchSize = adaptiveBatchSize.getBatchSize(agentsList.size(), agentExecutor.getParallelism());
+			logger.debug("Using a batch size of {} agent(s) per thread.", stepBatchSize);
+		}
 
 		ConcurrentProgramEvaluator cpe = new ConcurrentProgramEvaluator(capi,
-				agentContextMap, agentsList, 0, agentsList.size(), batchSize);
+				agentContextMap, agentsList, 0, agentsList.size(), stepBatchSize, closureCompiler);
 		try {
-			runnerGroup.invoke(cpe);
+			agentExecutor.execute(cpe);
 		} catch (InterruptedException e) {
-			runnerGroup.interruptAll();
+			if (!isAgentExecutorProvided)
+				discardAgentExecutor();
 			throw new EngineException(
 					"Could not finish program evaluation due to "
 							+ "the following interrupted exception: " + e);
 		}
 
 		if (shouldPrintProcessorStats)
-			runnerGroup.stats();
+			logger.info(agentExecutor.getLastStepStats().toString());
 
-		UpdateMultiset updates = cpe.getResultantUpdateSet();
+		UpdateMultiset updates = cpe.getResultantUpdateSet(provenanceKept);
 
 		if (updates == null) {
+			// worker threads may have been left with a dirty 
+			// thread-local state, so they are not reused
+			if (!isAgentExecutorProvided)
+				discardAgentExecutor();
 			if (cpe.getError() == null)
 				throw new EngineException("A fatal error occurred that could not be caught.");
 			logger.error(cpe.getError().toString());
@@ -282,10 +405,54 @@ public class SchedulerImp implements Scheduler {
 			// capi.error(cpe.getError());
 		}
 
-		runnerGroup.interruptAll();
+		if (batchSize == AUTO_BATCH_SIZE)
+			adaptiveBatchSize.update(cpe.getAgentCount(), cpe.getEvaluationNanos());
+
 		updateInstructions = updates;
 	}
 
+	/**
+	 * Sets the executor that is used to run the programs of the selected agents.
+	 * The executor is owned by this scheduler from then on and is shut down 
+	 * in {@link #dispose()}. If <code>null</code> is given, a {@link ForkJoinAgentExecutor}
+	 * sized by the {@link EngineProperties#MAX_PROCESSORS} property is created 
+	 * on demand.
+	 * 
+	 * @param executor the new agent executor
+	 */
+	public synchronized void setAgentExecutor(AgentExecutor executor) {
+		if (agentExecutor != null && agentExecutor != executor)
+			agentExecutor.shutdown();
+		agentExecutor = executor;
+		isAgentExecutorProvided = (executor != null);
+	}
+
+	/**
+	 * Returns the executor that runs the programs of the selected agents,
+	 * or <code>null</code> if no agent program has been executed yet.
+	 */
+	public synchronized AgentExecutor getAgentExecutor() {
+		return agentExecutor;
+	}
+
+	public AgentExecutionStats getLastExecutionStats() {
+		if (agentExecutor == null)
+			return null;
+		return agentExecutor.getLastStepStats();
+	}
+
+	/*
+	 * Shuts down the current agent executor. A new one is created 
+	 * on demand by the next call to executeAgentPrograms().
+	 */
+	private synchronized void discardAgentExecutor() {
+		if (agentExecutor != null) {
+			agentExecutor.shutdown();
+			agentExecutor = null;
+		}
+		isAgentExecutorProvided = false;
+	}
+
 	/*
 	 * removed from the concurrent version of the Engine
 	 * 
@@ -325,6 +492,9 @@ public class SchedulerImp implements Scheduler {
 	public boolean isSingleAgentInconsistent() {
 		// check to see if the inconsistency is from one single agent
 		// or due to a combination of agents -- Roozbeh F., March 2008
+		// without provenance, only a single selected agent tells
+		if (!provenanceKept)
+			return selectedAgentSet.size() == 1;
 		Set<Update> inconsistentUpdates = capi.getStorage()
 				.getLastInconsistentUpdate();
 		boolean result = false;
@@ -425,25 +595,104 @@ public class SchedulerImp implements Scheduler {
 	}
 
 	/*
-	 * Returns the user defined value for the minimum number of agents to be
-	 * assigned to every execution thread during the simulation.
+	 * Returns the user defined value for the maximum number of agents to be
+	 * evaluated by every execution task during the simulation, or AUTO_BATCH_SIZE
+	 * if the batch size should be adapted to the measured evaluation times.
 	 */
 	private int getThreadBatchSize() {
-		int size = 1;
+		int size;
 		String sizeStr = capi.getProperty(
 				EngineProperties.AGENT_EXECUTION_THREAD_BATCH_SIZE, "1");
+		if (sizeStr.trim().equalsIgnoreCase(EngineProperties.AUTO))
+			return AUTO_BATCH_SIZE;
 		try {
-			size = Integer.valueOf(sizeStr);
+			size = Integer.valueOf(sizeStr.trim());
 		} catch (NumberFormatException e) {
+			size = 0;
+		}
+		if (size < 1) {
 			logger.warn("Invalid value for \""
 					+ EngineProperties.AGENT_EXECUTION_THREAD_BATCH_SIZE
 					+ "\" engine property (" + sizeStr + ").");
+			size = 1;
 		}
 		return size;
 	}
 
+	/*
+	 * The update set of a step, which forgets that it has been
+	 * checked for consistency whenever it is changed.
+	 */
+	private static class UpdateSet extends HashSet<Update> {
+		private static final long serialVersionUID = 1L;
+
+		volatile boolean checked = false;
+
+		@Override
+		public boolean add(Update u) {
+			checked = false;
+			return super.add(u);
+		}
+
+		@Override
+		public boolean addAll(Collection<? extends Update> c) {
+			checked = false;
+			return super.addAll(c);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			checked = false;
+			return super.remove(o);
+		}
+
+		@Override
+		public boolean removeAll(Collection<?> c) {
+			checked = false;
+			return super.removeAll(c);
+		}
+
+		@Override
+		public boolean retainAll(Collection<?> c) {
+			checked = false;
+			return super.retainAll(c);
+		}
+
+		@Override
+		public void clear() {
+			checked = false;
+			super.clear();
+		}
+
+		@Override
+		public Iterator<Update> iterator() {
+			final Iterator<Update> it = super.iterator();
+			return new Iterator<Update>() {
+				public boolean hasNext() {
+					return it.hasNext();
+				}
+
+				public Update next() {
+					return it.next();
+				}
+
+				public void remove() {
+					checked = false;
+					it.remove();
+				}
+			};
+		}
+	}
+
 	@Override
 	public void dispose() {
+		capi.getStorage().removeUpdateSetListener(activeAgentsTracker);
+		activeAgents = null;
+		discardAgentExecutor();
 		agentContextMap.clear();
+		if (closureCompiler != null) {
+			closureCompiler.dispose();
+			closureCompiler = null;
+		}
 	}
 }
@@ -0,0 +1,89 @@
+package org.coreasm.engine.scheduler;
+
+import java.util.Collection;
+
+import org.coreasm.engine.absstorage.Update;
+import org.coreasm.engine.absstorage.UpdateMultiset;
+
+/**
+ * An append-only buffer of update instructions used to collect the
+ * results of the agents evaluated by a {@link ConcurrentProgramEvaluator}.
+ * <p>
+ * Collections of updates are linked into the buffer without being copied
+ * or hashed, and two buffers are concatenated in constant time, so the
+ * updates produced in a step are hashed only once, when the buffer
+ * is turned into an {@link UpdateMultiset} at the end of the step.
+ * <p>
+ * A buffer is owned by one task at a time and is not thread-safe.
+ */
+public class UpdateBuffer {
+
+	private Segment head = null;
+	private Segment tail = null;
+	private int size = 0;
+
+	/**
+	 * Appends the given updates to this buffer. The collection is
+	 * not copied, so it should not be modified afterwards.
+	 */
+	public void add(Collection<Update> updates) {
+		if (updates.isEmpty())
+			return;
+		Segment s = new Segment(updates);
+		if (tail == null)
+			head = s;
+		else
+			tail.next = s;
+		tail = s;
+		size += updates.size();
+	}
+
+	/**
+	 * Moves all the updates of the given buffer to the end of this buffer.
+	 * The other buffer is empty after this call.
+	 */
+	public void append(UpdateBuffer other) {
+		if (other.head == null)
+			return;
+		if (tail == null)
+			head = other.head;
+		else
+			tail.next = other.head;
+		tail = other.tail;
+		size += other.size;
+		other.head = null;
+		other.tail = null;
+		other.size = 0;
+	}
+
+	/**
+	 * Returns the number of update instructions in this buffer.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns a new update multiset with all the update instructions
+	 * in this buffer. If <code>keepProvenance</code> is <code>false</code>,
+	 * the update instructions are added without their agents and sources.
+	 * 
+	 * @see Update#withoutProvenance()
+	 */
+	public UpdateMultiset toUpdateMultiset(boolean keepProvenance) {
+		UpdateMultiset result = new UpdateMultiset(size);
+		for (Segment s = head; s != null; s = s.next)
+			for (Update u: s.updates)
+				result.add(keepProvenance ? u : u.withoutProvenance());
+		return result;
+	}
+
+	private static class Segment {
+		final Collection<Update> updates;
+		Segment next = null;
+
+		Segment(Collection<Update> updates) {
+			this.updates = updates;
+		}
+	}
+}
@@ -31,6 +31,9 @@ public class InvokeRuleNode extends ASTNode {
 	 */
 	private static final long serialVersionUID = 7843096318742864554L;
 
+	/** the cache of the Java members used by this node */
+	private transient JasmineCallSite callSite = null;
+
 	/**
 	 * @see ASTNode#ASTNode(ASTNode)
 	 */
@@ -57,4 +60,13 @@ public class InvokeRuleNode extends ASTNode {
 	public boolean isVoidInvocation() {
 		return (this.getChildNode("gamma") == null);
 	}
+
+	/**
+	 * Returns the call site caching the Java members used by this node.
+	 */
+	public JasmineCallSite getCallSite() {
+		if (callSite == null)
+			callSite = new JasmineCallSite();
+		return callSite;
+	}
 }
@@ -0,0 +1,423 @@
+package org.coreasm.jasmine.plugin;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A polymorphic inline cache for the Java members used by a JASMine node.
+ * <p>
+ * Every node invoking a method, creating an object or storing into a field
+ * keeps one call site. The call site remembers the members found for the
+ * classes of the receiver and of the arguments seen at the node, together with a
+ * {@link MethodHandle} calling the member and the number conversions of
+ * {@link JasmineUtil#specialTypeCast(Class, Object)} needed for these classes.
+ * Repeated calls with the same classes skip the search through the members of the
+ * class and the reflective call. At most {@link #MAX_ENTRIES} combinations of classes
+ * are cached; calls with further classes search for the member every time.
+ * <p>
+ * Call sites may be used by several threads at the same time.
+ */
+public class JasmineCallSite {
+
+	/** maximum number of cached class combinations */
+	public static final int MAX_ENTRIES = 4;
+
+	private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private volatile Target[] targets = new Target[0];
+
+	private volatile Class<?> lastClass = null;
+	private volatile ClassLoader lastLoader = null;
+
+	/**
+	 * Returns the Java class with the given name, like
+	 * {@link JasmineUtil#getJavaClass(String, ClassLoader)}.
+	 * The class found last is cached.
+	 */
+	public Class<?> getJavaClass(String name, ClassLoader loader) throws ClassNotFoundException {
+		Class<?> c = lastClass;
+		if (c != null && loader == lastLoader && c.getName().equals(name))
+			return c;
+		c = JasmineUtil.getJavaClass(name, loader);
+		lastLoader = loader;
+		lastClass = c;
+		return c;
+	}
+
+	/**
+	 * Finds a public method of <code>clazz</code> with the given name
+	 * which matches the given arguments.
+	 * If more than one method matches the arguments, the first one found is used.
+	 *
+	 * @throws NoSuchMethodException if no such method exists
+	 */
+	public Target findMethod(Class<?> clazz, String name, List<? extends Object> arguments) throws NoSuchMethodException {
+		Object[] values = arguments.toArray();
+		Target target = lookup(clazz, values);
+		if (target != null)
+			return target;
+
+		Class<?>[] classes = classesOf(values);
+		for (Method m: clazz.getMethods()) {
+			if (m.getName().equals(name)) {
+				Class<?>[] paramClasses = m.getParameterTypes();
+				if (JasmineUtil.classesMatch(paramClasses, classes, values))
+					return cache(new Target(clazz, classes, m, paramClasses));
+			}
+		}
+		throw new NoSuchMethodException("No matching method found.");
+	}
+
+	/**
+	 * Finds a public constructor of <code>clazz</code> which matches the given arguments.
+	 * If more than one constructor matches the arguments, the first one found is used.
+	 *
+	 * @throws NoSuchMethodException if no such constructor exists
+	 */
+	public Target findConstructor(Class<?> clazz, List<? extends Object> arguments) throws NoSuchMethodException {
+		Object[] values = arguments.toArray();
+		Target target = lookup(clazz, values);
+		if (target != null)
+			return target;
+
+		Class<?>[] classes = classesOf(values);
+		// if looking for the default constructor
+		if (values.length == 0) {
+			Constructor<?> cons = clazz.getConstructor();
+			return cache(new Target(clazz, classes, cons, cons.getParameterTypes()));
+		}
+		for (Constructor<?> cons: clazz.getConstructors()) {
+			Class<?>[] paramClasses = cons.getParameterTypes();
+			if (JasmineUtil.classesMatch(paramClasses, classes, values))
+				return cache(new Target(clazz, classes, cons, paramClasses));
+		}
+		throw new NoSuchMethodException("No suitable constructor found.");
+	}
+
+	/**
+	 * Finds the public field of <code>clazz</code> with the given name.
+	 *
+	 * @throws NoSuchFieldException if no such field exists
+	 */
+	public Target findField(Class<?> clazz, String name) throws NoSuchFieldException {
+		Target target = lookup(clazz, null);
+		if (target != null)
+			return target;
+		return cache(new Target(clazz, clazz.getField(name)));
+	}
+
+	/*
+	 * Returns the cached target for the given classes, if any.
+	 */
+	private Target lookup(Class<?> clazz, Object[] values) {
+		for (Target t: targets)
+			if (t.matches(clazz, values))
+				return t;
+		return null;
+	}
+
+	private Target cache(Target target) {
+		synchronized (this) {
+			Target[] current = targets;
+			if (current.length < MAX_ENTRIES) {
+				Target[] extended = Arrays.copyOf(current, current.length + 1);
+				extended[current.length] = target;
+				targets = extended;
+			}
+		}
+		return target;
+	}
+
+	private static Class<?>[] classesOf(Object[] values) {
+		Class<?>[] classes = new Class<?>[values.length];
+		for (int i = 0; i < values.length; i++)
+			classes[i] = (values[i] == null) ? null : values[i].getClass();
+		return classes;
+	}
+
+	/**
+	 * A member of a class found for a combination of argument classes.
+	 */
+	public static class Target {
+		private final Class<?> receiverClass;
+		private final Class<?>[] argumentClasses;
+		private final Class<?>[] paramClasses;
+
+		/* parameter types for which an argument has to be converted; null if none */
+		private final Class<?>[] conversions;
+
+		/* true if the match of the arguments depends on their values */
+		private final boolean valueDependent;
+
+		private final Method method;
+		private final Constructor<?> constructor;
+		private final Field field;
+		private final MethodHandle handle;
+
+		private Target(Class<?> receiverClass, Class<?>[] argumentClasses, Method method, Class<?>[] paramClasses) {
+			this.receiverClass = receiverClass;
+			this.argumentClasses = argumentClasses;
+			this.paramClasses = paramClasses;
+			this.conversions = conversionsFor(paramClasses, argumentClasses);
+			this.valueDependent = isValueDependent(paramClasses, argumentClasses);
+			this.method = method;
+			this.constructor = null;
+			this.field = null;
+			this.handle = methodHandle(method, paramClasses.length);
+		}
+
+		private Target(Class<?> receiverClass, Class<?>[] argumentClasses, Constructor<?> constructor, Class<?>[] paramClasses) {
+			this.receiverClass = receiverClass;
+			this.argumentClasses = argumentClasses;
+			this.paramClasses = paramClasses;
+			this.conversions = conversionsFor(paramClasses, argumentClasses);
+			this.valueDependent = isValueDependent(paramClasses, argumentClasses);
+			this.method = null;
+			this.constructor = constructor;
+			this.field = null;
+			this.handle = constructorHandle(constructor, paramClasses.length);
+		}
+
+		private Target(Class<?> receiverClass, Field field) {
+			this.receiverClass = receiverClass;
+			this.argumentClasses = null;
+			this.paramClasses = new Class<?>[] {field.getType()};
+			this.conversions = conversionsFor(paramClasses, null);
+			this.valueDependent = false;
+			this.method = null;
+			this.constructor = null;
+			this.field = field;
+			this.handle = setterHandle(field);
+		}
+
+		/**
+		 * Returns the method of this target,
+		 * or <code>null</code> if it is not a method.
+		 */
+		public Method getMethod() {
+			return method;
+		}
+
+		/**
+		 * Returns the constructor of this target,
+		 * or <code>null</code> if it is not a constructor.
+		 */
+		public Constructor<?> getConstructor() {
+			return constructor;
+		}
+
+		/**
+		 * Returns the field of this target,
+		 * or <code>null</code> if it is not a field.
+		 */
+		public Field getField() {
+			return field;
+		}
+
+		/**
+		 * Invokes the method of this target on the given object.
+		 * Exceptions thrown by the method are wrapped in an
+		 * {@link InvocationTargetException}, as by {@link Method#invoke(Object, Object...)};
+		 * an invalid object or invalid arguments are rejected as by reflection,
+		 * with a {@link NullPointerException} or an {@link IllegalArgumentException}.
+		 */
+		public Object invoke(Object obj, List<? extends Object> arguments) throws IllegalAccessException, InvocationTargetException {
+			Object[] array = convert(arguments);
+			if (handle == null || !acceptsReceiver(obj) || !acceptsArguments(array))
+				// let reflection handle (or reject) all other receivers and arguments
+				return method.invoke(obj, array);
+			try {
+				return (Object) handle.invokeExact(obj, array);
+			} catch (Throwable t) {
+				// the handle cannot fail on accepted values, so the method has thrown it
+				throw new InvocationTargetException(t);
+			}
+		}
+
+		/**
+		 * Creates a new instance using the constructor of this target.
+		 * Exceptions thrown by the constructor are wrapped in an
+		 * {@link InvocationTargetException}, as by {@link Constructor#newInstance(Object...)};
+		 * invalid arguments are rejected as by reflection.
+		 */
+		public Object newInstance(List<? extends Object> arguments) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+			Object[] array = convert(arguments);
+			if (handle == null || !acceptsArguments(array))
+				return constructor.newInstance(array);
+			try {
+				return (Object) handle.invokeExact(array);
+			} catch (Throwable t) {
+				throw new InvocationTargetException(t);
+			}
+		}
+
+		/**
+		 * Stores the given value in the field of this target of the given object.
+		 */
+		public void set(Object obj, Object value) throws IllegalAccessException {
+			if (conversions != null)
+				value = JasmineUtil.specialTypeCast(conversions[0], value);
+			if (handle == null || value == null || !wrapper(paramClasses[0]).isInstance(value)) {
+				// let reflection handle (or reject) all other values
+				field.set(obj, value);
+				return;
+			}
+			try {
+				handle.invokeExact(obj, value);
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable t) {
+				// a setter does not throw checked exceptions
+				throw new IllegalStateException(t);
+			}
+		}
+
+		/*
+		 * Copies the arguments into an array and converts the numbers
+		 * among them to the types of the parameters.
+		 */
+		private Object[] convert(List<? extends Object> arguments) {
+			Object[] array = arguments.toArray();
+			if (conversions != null)
+				for (int i = 0; i < array.length; i++)
+					if (conversions[i] != null)
+						array[i] = JasmineUtil.specialTypeCast(conversions[i], array[i]);
+			return array;
+		}
+
+		/*
+		 * Checks that the method handle can be invoked on the given object:
+		 * static methods ignore it, instance methods need an instance of their class.
+		 */
+		private boolean acceptsReceiver(Object obj) {
+			return Modifier.isStatic(method.getModifiers()) || method.getDeclaringClass().isInstance(obj);
+		}
+
+		/*
+		 * Checks that the method handle accepts the given arguments without
+		 * any conversion beyond unboxing, which cannot fail on them.
+		 */
+		private boolean acceptsArguments(Object[] array) {
+			if (array.length != paramClasses.length)
+				return false;
+			for (int i = 0; i < array.length; i++)
+				if (array[i] == null ? paramClasses[i].isPrimitive() : !wrapper(paramClasses[i]).isInstance(array[i]))
+					return false;
+			return true;
+		}
+
+		private boolean matches(Class<?> clazz, Object[] values) {
+			if (clazz != receiverClass)
+				return false;
+			if (values == null || argumentClasses == null)
+				return values == argumentClasses;
+			if (values.length != argumentClasses.length)
+				return false;
+			for (int i = 0; i < values.length; i++) {
+				Class<?> c = (values[i] == null) ? null : values[i].getClass();
+				if (c != argumentClasses[i])
+					return false;
+			}
+			return !valueDependent || JasmineUtil.classesMatch(paramClasses, argumentClasses, values);
+		}
+	}
+
+	/*
+	 * Returns the parameter types for which the arguments of the given classes
+	 * need a number conversion, or null if no argument needs one.
+	 */
+	private static Class<?>[] conversionsFor(Class<?>[] paramClasses, Class<?>[] argumentClasses) {
+		Class<?>[] result = null;
+		for (int i = 0; i < paramClasses.length; i++) {
+			Class<?> argument = (argumentClasses == null) ? null : argumentClasses[i];
+			if (isNumberType(paramClasses[i]) && (argument == null || Number.class.isAssignableFrom(argument))
+					&& argument != wrapper(paramClasses[i])) {
+				if (result == null)
+					result = new Class<?>[paramClasses.length];
+				result[i] = paramClasses[i];
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * A Double only matches a float parameter if its value fits into a float.
+	 */
+	private static boolean isValueDependent(Class<?>[] paramClasses, Class<?>[] argumentClasses) {
+		for (int i = 0; i < paramClasses.length; i++)
+			if (Double.class.equals(argumentClasses[i]) && Float.class.equals(wrapper(paramClasses[i])))
+				return true;
+		return false;
+	}
+
+	private static boolean isNumberType(Class<?> c) {
+		return Number.class.isAssignableFrom(wrapper(c)) && wrapper(c) != Number.class;
+	}
+
+	private static Class<?> wrapper(Class<?> c) {
+		if (!c.isPrimitive())
+			return c;
+		if (c == Integer.TYPE) return Integer.class;
+		if (c == Long.TYPE) return Long.class;
+		if (c == Double.TYPE) return Double.class;
+		if (c == Float.TYPE) return Float.class;
+		if (c == Short.TYPE) return Short.class;
+		if (c == Byte.TYPE) return Byte.class;
+		if (c == Boolean.TYPE) return Boolean.class;
+		if (c == Character.TYPE) return Character.class;
+		return Void.class;
+	}
+
+	/*
+	 * The following methods return null if the member cannot be accessed
+	 * through a method handle; the target then uses reflection.
+	 */
+
+	private static MethodHandle methodHandle(Method method, int params) {
+		if (method.isVarArgs())
+			return null;
+		try {
+			MethodHandle mh = MethodHandles.publicLookup().unreflect(method);
+			if (Modifier.isStatic(method.getModifiers()))
+				mh = MethodHandles.dropArguments(mh, 0, Object.class);
+			return mh.asSpreader(Object[].class, params).asType(INVOKER_TYPE);
+		} catch (IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	private static MethodHandle constructorHandle(Constructor<?> constructor, int params) {
+		// reflection reports abstract classes with an InstantiationException of its own
+		if (constructor.isVarArgs() || Modifier.isAbstract(constructor.getDeclaringClass().getModifiers()))
+			return null;
+		try {
+			return MethodHandles.publicLookup().unreflectConstructor(constructor)
+					.asSpreader(Object[].class, params).asType(CONSTRUCTOR_TYPE);
+		} catch (IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	private static MethodHandle setterHandle(Field field) {
+		try {
+			MethodHandle mh = MethodHandles.publicLookup().unreflectSetter(field);
+			if (Modifier.isStatic(field.getModifiers()))
+				mh = MethodHandles.dropArguments(mh, 0, Object.class);
+			return mh.asType(SETTER_TYPE);
+		} catch (IllegalAccessException e) {
+			return null;
+		}
+	}
+}
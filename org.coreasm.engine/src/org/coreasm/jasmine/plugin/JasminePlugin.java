@@ -14,10 +14,8 @@
 package org.coreasm.jasmine.plugin;
 
 import java.io.File;
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
@@ -465,10 +463,11 @@ public class JasminePlugin extends Plugin implements ParserPlugin,
 			}
 			
 			String x = node.getClassName().trim(); 
+			JasmineCallSite site = node.getCallSite();
 			
 			Class<? extends Object> c = null;
 			try {
-				c = JasmineUtil.getJavaClass(x, this.loader);
+				c = site.getJavaClass(x, this.loader);
 			} catch (Exception e) {
 				capi.error("Java class '" + x + "' not found.", node, interpreter);
 				return node;
@@ -479,14 +478,14 @@ public class JasminePlugin extends Plugin implements ParserPlugin,
 			// pattern: 'import' 'native' x 'into' l
 			if (argsNode.size() == 0) {
 				try {
-					c.getConstructor();
+					site.findConstructor(c, Collections.emptyList());
 				} catch (Exception e) {
 					capi.error("Constructor not found.", node, interpreter);
 					Logger.log(Logger.ERROR, Logger.plugins, e.getMessage());
 					return pos;
 				}
 				
-				evaluateImport(pos, interpreter.getSelf(), pos.getScannerInfo(), location.getLocation(), x, Collections.emptyList());
+				evaluateImport(pos, site, interpreter.getSelf(), pos.getScannerInfo(), location.getLocation(), x, Collections.emptyList());
 
 			} else {
 			// pattern: 'import' 'native' x(...) 'into' l
@@ -513,14 +512,14 @@ public class JasminePlugin extends Plugin implements ParserPlugin,
 					}
 				
 				try {
-					findConstructor(c, argsInJava);
+					site.findConstructor(c, argsInJava);
 				} catch (Exception e) {
 					capi.error("Constructor not found.", node, interpreter);
 					Logger.log(Logger.ERROR, Logger.plugins, e.getMessage());
 					return pos;
 				}
 				
-				evaluateImport(pos, interpreter.getSelf(), pos.getScannerInfo(), location.getLocation(), x, argsInJava);
+				evaluateImport(pos, site, interpreter.getSelf(), pos.getScannerInfo(), location.getLocation(), x, argsInJava);
 				
 			}
 			
@@ -544,7 +543,7 @@ public class JasminePlugin extends Plugin implements ParserPlugin,
 				JObjectElement jobj = (JObjectElement)objectElement;
 				// get the field
 				try {
-					jobj.jType().getField(fieldName);
+					node.getCallSite().findField(jobj.jType(), fieldName);
 				} catch (Exception e) {
 					capi.error("Field '" + fieldName + "' not found.", objectNode.getNext(), interpreter);
 					Logger.log(Logger.ERROR, Logger.plugins, e.getMessage());
@@ -560,7 +559,7 @@ public class JasminePlugin extends Plugin implements ParserPlugin,
 					if (v instanceof JObjectElement)
 						v = ((JObjectElement)v).object;
 					*/
-					Update u = createDefUpdate(Type.Store, interpreter.getSelf(), pos.getScannerInfo(), jobj, fieldName, v);
+					Update u = createDefUpdate(Type.Store, node.getCallSite(), interpreter.getSelf(), pos.getScannerInfo(), jobj, fieldName, v);
 					pos.setNode(null, new UpdateMultiset(u), null);
 				}
 				
@@ -622,14 +621,14 @@ public class JasminePlugin extends Plugin implements ParserPlugin,
 					}
 				
 				try {
-					findMethod(clazz, methodName, argsInJava);
+					node.getCallSite().findMethod(clazz, methodName, argsInJava);
 				} catch (Exception e) {
 					capi.error("Java method '" + methodName + "' not found.", node, interpreter);
 					Logger.log(Logger.ERROR, Logger.plugins, e.getMessage());
 					return pos;
 				}
 				
-				Update u = createDefUpdate(Type.Invoke, interpreter.getSelf(), pos.getScannerInfo(), loc, jobj, methodName, argsInJava);
+				Update u = createDefUpdate(Type.Invoke, node.getCallSite(), interpreter.getSelf(), pos.getScannerInfo(), loc, jobj, methodName, argsInJava);
 				pos.setNode(null, new UpdateMultiset(u), null);
 			} else 
 				capi.error("Not a Java object.", jnode, interpreter);
@@ -638,67 +637,6 @@ public class JasminePlugin extends Plugin implements ParserPlugin,
 		return pos;
 	}
 
-	/*
-	 * Finds a method with the given name that matches the given list of arguments.
-	 * TODO if more than one method match the arguments, it picks the first one it finds.
-	 */
-	private Method findMethod(Class<?> clazz, String name, List<? extends Object> arguments) throws NoSuchMethodException {
-		Class<?>[] classes = new Class[arguments.size()];
-		int i = 0;
-		for (Object obj: arguments) {
-			if (obj == null)
-				classes[i] = null;
-			else
-				classes[i] = obj.getClass();
-			i++;
-		}
-		
-		Object[] values = arguments.toArray();
-
-		Method[] methods = clazz.getMethods();
-		for (Method m: methods) {
-			if (m.getName().equals(name)) {
-				Class<?>[] paramClasses = m.getParameterTypes();
-				if (JasmineUtil.classesMatch(paramClasses, classes, values))
-					return m;
-			}
-		}
-		
-		throw new NoSuchMethodException("No matching method found.");
-	}
-	
-	/*
-	 * Finds a constructor of clazz that matches the given arguments. 
-	 * TODO if more than one constructor match the arguments, it picks the first one it finds.
-	 */
-	private Constructor<?> findConstructor(Class<?> clazz, List<? extends Object> arguments) throws SecurityException, NoSuchMethodException {
-		// if looking for the default constructor
-		if (arguments.size() == 0) 
-			return clazz.getConstructor();
-	
-		// otherwise
-		Class<?>[] classes = new Class[arguments.size()];
-		int i = 0;
-		for (Object obj: arguments) {
-			if (obj == null)
-				classes[i] = null;
-			else
-				classes[i] = obj.getClass();
-			i++;
-		}
-		
-		Object[] values = arguments.toArray();
-		
-		Constructor<?>[] constructors = clazz.getConstructors();
-		for (Constructor<?> cons: constructors) {
-			Class<?>[] paramClasses = cons.getParameterTypes();
-			if (JasmineUtil.classesMatch(paramClasses, classes, values))
-				return cons;
-		}
-		
-		throw new NoSuchMethodException("No suitable constructor found.");
-	}
-	
 	/*
 	 * Checks whether the Classes in the subClasses array
 	 * are sub-classes of those in the superClasses array.
@@ -757,7 +695,7 @@ public class JasminePlugin extends Plugin implements ParserPlugin,
 	/*
 	 * @param arguments a list of Java object
 	 */
-	private void evaluateImport(ASTNode pos, Element self, ScannerInfo sinfo, Location l, String className, List<Object> arguments) {
+	private void evaluateImport(ASTNode pos, JasmineCallSite site, Element self, ScannerInfo sinfo, Location l, String className, List<Object> arguments) {
 		/*
 		List args = new ArrayList();
 		if (arguments != null) {
@@ -766,15 +704,16 @@ public class JasminePlugin extends Plugin implements ParserPlugin,
 				args.add(toJava(e));
 		}
 		*/
-		Update u = createDefUpdate(Type.Create, self, sinfo, l, className, arguments, self);
+		Update u = createDefUpdate(Type.Create, site, self, sinfo, l, className, arguments, self);
 		pos.setNode(null, new UpdateMultiset(u), null);
 	}
 	
 	/*
-	 * Creates a deferred update.
+	 * Creates a deferred update, which will use the Java members
+	 * cached at the given call site.
 	 */
-	private Update createDefUpdate(Type type, Element self, ScannerInfo info, Object...args) {
-		JasmineUpdateElement value = new JasmineUpdateElement(self, type, info, args);
+	private Update createDefUpdate(Type type, JasmineCallSite site, Element self, ScannerInfo info, Object...args) {
+		JasmineUpdateElement value = new JasmineUpdateElement(self, type, info, site, args);
 		return new Update(channelLocation, value, JASMINE_UPDATE_ACTION, self, info);
 	}
 	
@@ -884,63 +823,38 @@ public class JasminePlugin extends Plugin implements ParserPlugin,
 				String className = (String)jue.arguments.get(1);  // the 'x' in (l, x, <...>)
 				List<?> args = (List<?>)jue.arguments.get(2);  // the '<...>' in (l, x, <...>)
 
+				JasmineCallSite site = callSite(jue);
+
 				// get the class object
 				Class<?> c = null;
 				try {
-					c = JasmineUtil.getJavaClass(className, this.loader);
+					c = site.getJavaClass(className, this.loader);
 				} catch (ClassNotFoundException e) {
 					Logger.log(Logger.ERROR, Logger.plugins, "Java class '" + className + "' not found.");
 					// This should not happen at this point
 					pluginAgg.handleInconsistentAggregationOnLocation(channelLocation, this);
 					return;
 				}
-				Constructor<?> cons = null;
+				JasmineCallSite.Target cons = null;
 				Object result = null;
 				
-				// if there is no argument
-				if (args.size() == 0) {
-					try {
-						cons = c.getConstructor();
-					} catch (Exception e) {
-						Logger.log(Logger.ERROR, Logger.plugins, e.getMessage());
-						// This should not happen at this point
-						pluginAgg.handleInconsistentAggregationOnLocation(channelLocation, this);
-						return;
-					}
-					// get the instance
-					try {
-						result = cons.newInstance();
-					} catch (Exception e) {
-						Logger.log(Logger.ERROR, Logger.plugins, e.getMessage());
-						pluginAgg.handleInconsistentAggregationOnLocation(channelLocation, this);
-						return;
-					}
-					
-				} else {
-					// if there are arguments
-					
-					// get the constractor
-					try {
-						cons = findConstructor(c, args);
-					} catch (Exception e) {
-						Logger.log(Logger.ERROR, Logger.plugins, e.getMessage());
-						// This should not happen at this point
-						pluginAgg.handleInconsistentAggregationOnLocation(channelLocation, this);
-						return;
-					}
+				// get the constructor
+				try {
+					cons = site.findConstructor(c, args);
+				} catch (Exception e) {
+					Logger.log(Logger.ERROR, Logger.plugins, e.getMessage());
+					// This should not happen at this point
+					pluginAgg.handleInconsistentAggregationOnLocation(channelLocation, this);
+					return;
+				}
 
-					// get the instance
-					try {
-						Object[] array = args.toArray();
-						Class<?>[] classes = cons.getParameterTypes();
-						JasmineUtil.adjustArgumentTypes(classes, array);
-						result = cons.newInstance(array);
-					} catch (Exception e) {
-						Logger.log(Logger.ERROR, Logger.plugins, e.getMessage());
-						pluginAgg.handleInconsistentAggregationOnLocation(channelLocation, this);
-						return;
-					}
-					
+				// get the instance
+				try {
+					result = cons.newInstance(args);
+				} catch (Exception e) {
+					Logger.log(Logger.ERROR, Logger.plugins, e.getMessage());
+					pluginAgg.handleInconsistentAggregationOnLocation(channelLocation, this);
+					return;
 				}
 
 				// create a new JObject and an update to assign it to the requested location
@@ -958,11 +872,11 @@ public class JasminePlugin extends Plugin implements ParserPlugin,
 				String fieldName = jue.getStoreField();
 				Object value = jue.getStoreValue();
 				
-				Field field = null;
+				JasmineCallSite.Target field = null;
 				
 				// get the field
 				try {
-					field = jobj.jType().getField(fieldName);
+					field = callSite(jue).findField(jobj.jType(), fieldName);
 				} catch (Exception e) {
 					Logger.log(Logger.ERROR, Logger.plugins, e.getMessage());
 					// This should not happen at this point
@@ -970,8 +884,7 @@ public class JasminePlugin extends Plugin implements ParserPlugin,
 					return;
 				}
 
-				value = JasmineUtil.specialTypeCast(field.getType(), value);
-
+				// the value is converted to the type of the field
 				try {
 					field.set(jobj.object, value);
 				} catch (Exception e) {
@@ -988,12 +901,12 @@ public class JasminePlugin extends Plugin implements ParserPlugin,
 				String methodName = (String)jue.arguments.get(2);  // the 'x'
 				List<? extends Object> args = (List<?>)jue.arguments.get(3);  // method arguments 
 				
-				Method method = null;
+				JasmineCallSite.Target method = null;
 				Object result = null;
 				
 				// get the method
 				try {
-					method = findMethod(obj.getClass(), methodName, args);
+					method = callSite(jue).findMethod(obj.getClass(), methodName, args);
 				} catch (Exception e) {
 					Logger.log(Logger.ERROR, Logger.plugins, e.getMessage());
 					// This should not happen at this point
@@ -1003,10 +916,7 @@ public class JasminePlugin extends Plugin implements ParserPlugin,
 
 				// call the method
 				try {
-					Object[] array = args.toArray();
-					Class<?>[] classes = method.getParameterTypes();
-					JasmineUtil.adjustArgumentTypes(classes, array);
-					result = method.invoke(obj, array);
+					result = method.invoke(obj, args);
 				} catch (InvocationTargetException e) {
 					Logger.log(Logger.ERROR, Logger.plugins, "JASMine Plugin: Exception thrown by method " +
 							"\"" + methodName + "\". (" + e.getCause().getMessage() + "). Exception details: \n");
@@ -1044,6 +954,17 @@ public class JasminePlugin extends Plugin implements ParserPlugin,
 
 	}
 
+	/*
+	 * Returns the call site of the node that produced the given update,
+	 * or a new call site if it is not known.
+	 */
+	private JasmineCallSite callSite(JasmineUpdateElement jue) {
+		if (jue.callSite != null)
+			return jue.callSite;
+		else
+			return new JasmineCallSite();
+	}
+
 	/* (non-Javadoc)
 	 * @see org.coreasm.engine.plugin.Aggregator#compose(org.coreasm.engine.absstorage.PluginCompositionAPI)
 	 */
@@ -1388,6 +1309,7 @@ public class JasminePlugin extends Plugin implements ParserPlugin,
 
 				//parent.addChild("alpha", child);
 			}
+			else
 			if (child instanceof ASTNode && resultSeen)
 				parent.addChild("gamma", child);
 			else
@@ -39,6 +39,10 @@ public class JasmineUpdateElement extends JasmineAbstractUpdateElement {
 	public final List<Object> arguments;
 	public final Element agent;
 	public final ScannerInfo sinfo;
+	
+	/** the call site of the node that produced the update; not part of the equality */
+	public final JasmineCallSite callSite;
+	
 	private final Set<Element> agents;
 	private final Set<ScannerInfo> sinfos;
 	
@@ -52,7 +56,23 @@ public class JasmineUpdateElement extends JasmineAbstractUpdateElement {
 	 * @param args the arguments 
 	 */
 	public JasmineUpdateElement(Element agent, Type type, ScannerInfo sinfo, Object... args) {
+		this(agent, type, sinfo, null, args);
+	}
+	
+	/** 
+	 * Creates a new update element with the given type
+	 * and arguments, which uses the Java members cached 
+	 * at the given call site.
+	 * 
+	 * @param agent the contributing agent
+	 * @param type type of update
+	 * @param sinfo the location of the node in the specification that produced the update
+	 * @param callSite the call site of the node that produced the update; can be <code>null</code>
+	 * @param args the arguments 
+	 */
+	public JasmineUpdateElement(Element agent, Type type, ScannerInfo sinfo, JasmineCallSite callSite, Object[] args) {
 		this.type = type;
+		this.callSite = callSite;
 		List<Object> arguments = new ArrayList<Object>();
 		for (Object arg: args)
 			arguments.add(arg);
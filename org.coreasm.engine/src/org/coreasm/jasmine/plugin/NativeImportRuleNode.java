@@ -31,6 +31,9 @@ public class NativeImportRuleNode extends ASTNode {
 	 */
 	private static final long serialVersionUID = 5341613508073097169L;
 
+	/** the cache of the Java members used by this node */
+	private transient JasmineCallSite callSite = null;
+
 	/**
 	 * @see ASTNode#ASTNode(ASTNode)
 	 */
@@ -53,5 +56,13 @@ public class NativeImportRuleNode extends ASTNode {
 	public String getClassName() {
 		return getFirst().getToken();
 	}
-	
+
+	/**
+	 * Returns the call site caching the Java members used by this node.
+	 */
+	public JasmineCallSite getCallSite() {
+		if (callSite == null)
+			callSite = new JasmineCallSite();
+		return callSite;
+	}
 }
@@ -31,6 +31,9 @@ public class StoreRuleNode extends ASTNode {
 	 */
 	private static final long serialVersionUID = 1617318616162102928L;
 
+	/** the cache of the Java members used by this node */
+	private transient JasmineCallSite callSite = null;
+
 	/**
 	 * @see ASTNode#ASTNode(ASTNode)
 	 */
@@ -49,5 +52,13 @@ public class StoreRuleNode extends ASTNode {
 				info
 				);
 	}
-	
+
+	/**
+	 * Returns the call site caching the Java members used by this node.
+	 */
+	public JasmineCallSite getCallSite() {
+		if (callSite == null)
+			callSite = new JasmineCallSite();
+		return callSite;
+	}
 }
@@ -0,0 +1,144 @@
+package org.coreasm.compiler.components.backend;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import org.coreasm.compiler.CompilerOptions;
+import org.coreasm.compiler.CoreASMCompiler;
+import org.coreasm.engine.CoreASMEngine;
+import org.coreasm.engine.CoreASMEngineFactory;
+import org.coreasm.engine.Engine;
+import org.coreasm.engine.EngineProperties;
+import org.coreasm.util.Tools;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that {@link CompilationCache} reuses compiled specifications
+ * and notices changes of the specification and of the files it includes.
+ */
+public class CompilationCacheTest {
+	private File dir;
+	private File spec;
+	private File included;
+
+	@Before
+	public void setUp() throws IOException {
+		CompilationCache.clear();
+		dir = Files.createTempDirectory("cachetest").toFile();
+		spec = new File(dir, "CacheTest.casm");
+		included = new File(dir, "Greeting.casm");
+		write(spec, "CoreASM CacheTest\n\nuse Standard\nuse Modularity\n\ninclude \"Greeting.casm\"\ninit Start\n\nrule Start = Greet\n");
+		write(included, "rule Greet = print \"hello\"\n");
+	}
+
+	@After
+	public void tearDown() {
+		CompilationCache.clear();
+		for (File f: dir.listFiles())
+			f.delete();
+		dir.delete();
+	}
+
+	private static void write(File file, String content) throws IOException {
+		Files.write(file.toPath(), content.getBytes(Charset.forName("UTF-8")));
+	}
+
+	private CompilerOptions options() {
+		CompilerOptions options = new CompilerOptions();
+		options.SpecificationName = spec;
+		options.enginePath = new File(Tools.getRootFolder(Engine.class) + "/../org.coreasm.engine-1.7.3-SNAPSHOT.jar");
+		options.terminateOnStepCount = 2;
+		return options;
+	}
+
+	@Test
+	public void keyIsStable() throws IOException {
+		assertEquals(CompilationCache.computeKey(options()), CompilationCache.computeKey(options()));
+	}
+
+	@Test
+	public void keyDependsOnOptions() throws IOException {
+		CompilerOptions other = options();
+		other.terminateOnStepCount = 3;
+		assertFalse(CompilationCache.computeKey(options()).equals(CompilationCache.computeKey(other)));
+	}
+
+	@Test
+	public void keyDependsOnIncludedFiles() throws IOException {
+		String before = CompilationCache.computeKey(options());
+		write(included, "rule Greet = print \"goodbye\"\n");
+		assertFalse(before.equals(CompilationCache.computeKey(options())));
+	}
+
+	@Test
+	public void keyDependsOnNestedIncludes() throws IOException {
+		// the included file includes another one, which includes the specification again
+		File nested = new File(dir, "Nested.casm");
+		write(included, "include \"Nested.casm\"\nrule Greet = print \"hello\"\n");
+		write(nested, "include \"CacheTest.casm\"\n");
+		String before = CompilationCache.computeKey(options());
+		write(nested, "include \"CacheTest.casm\"\nrule Unused = skip\n");
+		assertFalse(before.equals(CompilationCache.computeKey(options())));
+	}
+
+	@Test
+	public void missingIncludeDoesNotFail() throws IOException {
+		write(spec, "CoreASM CacheTest\n\nuse Standard\nuse Modularity\n\ninclude \"Missing.casm\"\ninit Start\n");
+		assertNotNull(CompilationCache.computeKey(options()));
+	}
+
+	@Test
+	public void compiledSpecificationIsReused() throws Exception {
+		Assume.assumeTrue(options().enginePath.isFile());
+
+		CompiledSpecification first = compile();
+		assertEquals("hello", run(first));
+		// a hit returns the cached classes without compiling again
+		assertSame(first, compile());
+
+		// changing the included file invalidates the cached specification
+		write(included, "rule Greet = print \"goodbye\"\n");
+		CompiledSpecification second = compile();
+		assertNotSame(first, second);
+		assertEquals("goodbye", run(second));
+		assertSame(second, compile());
+	}
+
+	private CompiledSpecification compile() throws Exception {
+		CoreASMEngine engine = CoreASMEngineFactory.createEngine();
+		engine.setClassLoader(CoreASMEngineFactory.class.getClassLoader());
+		engine.setProperty(EngineProperties.PLUGIN_FOLDERS_PROPERTY, Tools.getRootFolder(Engine.class) + "/plugins");
+		engine.initialize();
+		engine.waitWhileBusy();
+		PrintStream origOut = System.out;
+		System.setOut(new PrintStream(new ByteArrayOutputStream()));
+		try {
+			return new CoreASMCompiler(options(), engine).compileInMemory();
+		}
+		finally {
+			System.setOut(origOut);
+		}
+	}
+
+	private static String run(CompiledSpecification spec) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PrintStream origOut = System.out;
+		System.setOut(new PrintStream(out, true));
+		try {
+			assertEquals(0, spec.run());
+		}
+		finally {
+			System.setOut(origOut);
+		}
+		return out.toString().split("\\r?\\n")[0].trim();
+	}
+}
@@ -0,0 +1,122 @@
+package org.coreasm.engine.absstorage;
+
+import static org.junit.Assert.*;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.coreasm.engine.plugins.number.NumberElement;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that {@link HashStorage} fires update sets as one transaction
+ * and journals the changes only for the listeners that read them.
+ */
+public class HashStorageTest {
+
+	/** the value that makes a {@link FailingFunction} fail */
+	private static final Element POISON = NumberElement.getInstance(-1);
+
+	private HashStorage storage;
+
+	@Before
+	public void setUp() throws NameConflictException, InvalidLocationException {
+		storage = new HashStorage(null);
+		storage.addFunction("a", new FailingFunction());
+		storage.addFunction("b", new FailingFunction());
+		storage.addFunction("m", new MapFunction());
+		storage.setValue(location("a", 1), number(1));
+		storage.setValue(location("b", 1), number(1));
+		storage.setValue(location("m", 1), number(1));
+	}
+
+	@Test
+	public void failedUpdateSetIsRolledBack() throws InvalidLocationException {
+		final Set<Update> updates = new HashSet<Update>();
+		updates.add(update(location("a", 1), number(2)));
+		updates.add(update(location("a", 2), number(2)));
+		updates.add(update(location("b", 1), POISON));
+		updates.add(update(location("m", 1), number(2)));
+		updates.add(update(location("n", 1), number(2)));
+		try {
+			storage.fireUpdateSet(updates);
+			fail();
+		} catch (IllegalStateException e) {
+		}
+
+		assertEquals(number(1), storage.getValue(location("a", 1)));
+		assertEquals(Element.UNDEF, storage.getValue(location("a", 2)));
+		assertEquals(number(1), storage.getValue(location("b", 1)));
+		assertEquals(number(1), storage.getValue(location("m", 1)));
+		assertNull(storage.getFunction("n"));
+
+		// the function of the failed update set can be created again
+		storage.fireUpdateSet(singleton(update(location("n", 1), number(3))));
+		assertEquals(number(3), storage.getValue(location("n", 1)));
+	}
+
+	@Test
+	public void changesAreJournaledForChangeListeners() throws InvalidLocationException {
+		final UpdateSetListener updateSetListener = new NullListener();
+		storage.addUpdateSetListener(updateSetListener);
+		storage.fireUpdateSet(singleton(update(location("m", 1), number(2))));
+		assertTrue(storage.getLastChanges().isEmpty());
+
+		final ChangeListener changeListener = new NullChangeListener();
+		storage.addUpdateSetListener(changeListener);
+		storage.fireUpdateSet(singleton(update(location("m", 1), number(3))));
+		assertEquals(1, storage.getLastChanges().size());
+		final ChangeJournal.Change change = storage.getLastChanges().iterator().next();
+		assertEquals(number(2), change.oldValue);
+		assertEquals(number(3), change.newValue);
+
+		storage.removeUpdateSetListener(changeListener);
+		storage.fireUpdateSet(singleton(update(location("m", 1), number(4))));
+		assertTrue(storage.getLastChanges().isEmpty());
+		assertEquals(number(4), storage.getValue(location("m", 1)));
+	}
+
+	private static Location location(String name, int arg) {
+		return new Location(name, ElementList.create(number(arg)));
+	}
+
+	private static Element number(int n) {
+		return NumberElement.getInstance(n);
+	}
+
+	private static Update update(Location loc, Element value) {
+		return new Update(loc, value, Update.UPDATE_ACTION, (Element)null, null);
+	}
+
+	private static Set<Update> singleton(Update u) {
+		final Set<Update> updates = new HashSet<Update>();
+		updates.add(u);
+		return updates;
+	}
+
+	/*
+	 * A function that fails after it applied updates of which one sets a value to POISON.
+	 */
+	private static class FailingFunction extends MapFunction {
+		@Override
+		public void setValues(Collection<Update> updates) throws UnmodifiableFunctionException {
+			super.setValues(updates);
+			for (Update u: updates)
+				if (u.value.equals(POISON))
+					throw new IllegalStateException("Cannot set " + u.loc + ".");
+		}
+	}
+
+	private static class NullListener implements UpdateSetListener {
+		public void updateSetFired(Set<Update> updates) {
+		}
+
+		public void stateCleared() {
+		}
+	}
+
+	private static class NullChangeListener extends NullListener implements ChangeListener {
+	}
+}
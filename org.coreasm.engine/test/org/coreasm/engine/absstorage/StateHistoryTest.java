@@ -0,0 +1,223 @@
+package org.coreasm.engine.absstorage;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.coreasm.engine.CoreASMEngine;
+import org.coreasm.engine.CoreASMEngine.EngineMode;
+import org.coreasm.engine.CoreASMEngineFactory;
+import org.coreasm.engine.Engine;
+import org.coreasm.engine.EngineProperties;
+import org.coreasm.util.CoreASMGlobal;
+import org.coreasm.util.Tools;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests that {@link StateHistory} reconstructs the previous states and
+ * update sets of a running engine, compared to the states and update sets
+ * the engine had after every step.
+ */
+public class StateHistoryTest {
+
+	/*
+	 * Changes a few locations in every step, sets some of them
+	 * back to undef and leaves others unchanged for many steps.
+	 */
+	private static final String SPEC =
+			"CoreASM StateHistoryTest\n" +
+			"use Standard\n" +
+			"init Count\n" +
+			"rule Count =\n" +
+			"	if counter = undef then\n" +
+			"		counter := 1\n" +
+			"	else\n" +
+			"		par\n" +
+			"			counter := counter + 1\n" +
+			"			f(counter % 5) := counter\n" +
+			"			if counter % 3 = 0 then g := counter else g := undef\n" +
+			"			if counter % 20 = 0 then h := counter\n" +
+			"		endpar\n";
+
+	private static final Set<String> FUNCTIONS = new HashSet<String>(Arrays.asList("counter", "f", "g", "h"));
+
+	private CoreASMEngine engine;
+
+	/** the values of all the locations after every step; the first one is the initial state */
+	private final List<Map<Location, Element>> states = new ArrayList<Map<Location, Element>>();
+
+	/** the update sets of every step; the first one belongs to the first step */
+	private final List<Set<Update>> updateSets = new ArrayList<Set<Update>>();
+
+	@After
+	public void tearDown() {
+		if (engine != null) {
+			engine.terminate();
+			engine.hardInterrupt();
+			engine.waitWhileBusy();
+		}
+	}
+
+	@Test
+	public void keepsStatesAcrossCheckpoints() {
+		final int capacity = 2 * StateHistory.CHECKPOINT_INTERVAL + 8;
+		start(capacity);
+		run(capacity);
+
+		// from the newest to the oldest state, and back again with the checkpoints in place
+		for (int i = 1; i <= capacity; i++)
+			assertPrevState(engine.getPrevState(i), i);
+		for (int i = capacity; i >= 1; i--)
+			assertPrevState(engine.getPrevState(i), i);
+		for (int i = 1; i <= capacity; i++)
+			assertEquals(updateSets.get(updateSets.size() - i), engine.getUpdateSet(i));
+
+		assertNull(engine.getPrevState(capacity + 1));
+		assertNull(engine.getUpdateSet(capacity + 1));
+	}
+
+	@Test
+	public void evictsOldestStates() {
+		final int capacity = StateHistory.CHECKPOINT_INTERVAL + 4;
+		start(capacity);
+		run(3 * StateHistory.CHECKPOINT_INTERVAL);
+
+		for (int i = 1; i <= capacity; i++) {
+			assertPrevState(engine.getPrevState(i), i);
+			assertEquals(updateSets.get(updateSets.size() - i), engine.getUpdateSet(i));
+		}
+		assertNull(engine.getPrevState(capacity + 1));
+		assertNull(engine.getUpdateSet(capacity + 1));
+
+		// a state that drops out of the history can no longer be read
+		final State oldest = engine.getPrevState(capacity);
+		run(1);
+		try {
+			oldest.getValue(new Location("counter", ElementList.NO_ARGUMENT));
+			fail();
+		} catch (IllegalStateException e) {
+		} catch (InvalidLocationException e) {
+			fail(e.getMessage());
+		}
+		for (int i = 1; i <= capacity; i++)
+			assertPrevState(engine.getPrevState(i), i);
+	}
+
+	@Test
+	public void changesCapacity() {
+		start(0);
+		final StateHistory history = new StateHistory((AbstractStorage)engine.getState(), 5);
+
+		run(8);
+		assertEquals(5, history.size());
+		assertNull(history.getState(6));
+
+		// growing clears the history
+		history.setCapacity(StateHistory.CHECKPOINT_INTERVAL + 4);
+		assertEquals(0, history.size());
+		assertNull(history.getState(1));
+		assertNull(history.getUpdateSet(1));
+		run(StateHistory.CHECKPOINT_INTERVAL + 4);
+		assertEquals(StateHistory.CHECKPOINT_INTERVAL + 4, history.size());
+		for (int i = 1; i <= history.getCapacity(); i++) {
+			assertPrevState(history.getState(i), i);
+			assertEquals(updateSets.get(updateSets.size() - i), history.getUpdateSet(i));
+		}
+
+		// shrinking clears the history
+		history.setCapacity(3);
+		assertEquals(0, history.size());
+		run(StateHistory.CHECKPOINT_INTERVAL);
+		assertEquals(3, history.size());
+		for (int i = 1; i <= 3; i++)
+			assertPrevState(history.getState(i), i);
+		assertNull(history.getState(4));
+
+		history.setCapacity(0);
+		run(1);
+		assertEquals(0, history.size());
+		assertNull(history.getState(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNegativeCapacity() {
+		start(0);
+		new StateHistory((AbstractStorage)engine.getState(), 1).setCapacity(-1);
+	}
+
+	/*
+	 * Loads the specification on a new engine that keeps the given number of states.
+	 */
+	private void start(int historySize) {
+		CoreASMGlobal.setRootFolder(Tools.getRootFolder());
+		engine = CoreASMEngineFactory.createEngine();
+		engine.setProperty(EngineProperties.PLUGIN_FOLDERS_PROPERTY, Tools.getRootFolder(Engine.class) + "/plugins");
+		engine.setProperty(EngineProperties.STATE_HISTORY_SIZE, String.valueOf(historySize));
+		engine.setClassLoader(CoreASMEngineFactory.class.getClassLoader());
+		engine.initialize();
+		engine.waitWhileBusy();
+		engine.loadSpecification("StateHistoryTest", new StringReader(SPEC));
+		engine.waitWhileBusy();
+		assertEquals(EngineMode.emIdle, engine.getEngineMode());
+		states.add(snapshot());
+	}
+
+	/*
+	 * Runs the given number of steps and records the states and update sets.
+	 */
+	private void run(int steps) {
+		for (int i = 0; i < steps; i++) {
+			engine.step();
+			engine.waitWhileBusy();
+			assertEquals(EngineMode.emIdle, engine.getEngineMode());
+			updateSets.add(new HashSet<Update>(engine.getUpdateSet(0)));
+			states.add(snapshot());
+		}
+	}
+
+	/*
+	 * Returns the values of the locations of the functions of the specification;
+	 * the functions themselves are those of the current state in previous states.
+	 */
+	private Map<Location, Element> snapshot() {
+		final State state = engine.getState();
+		final Map<Location, Element> values = new HashMap<Location, Element>();
+		for (Location loc: state.getLocations())
+			if (FUNCTIONS.contains(loc.name))
+				values.put(loc, getValue(state, loc));
+		return values;
+	}
+
+	/*
+	 * Asserts that the given state has the values the engine had i steps ago,
+	 * for every location that had a value then or has one now.
+	 */
+	private void assertPrevState(State prevState, int i) {
+		assertNotNull(prevState);
+		final Map<Location, Element> expected = states.get(states.size() - 1 - i);
+		final Set<Location> locations = new HashSet<Location>(expected.keySet());
+		locations.addAll(states.get(states.size() - 1).keySet());
+		for (Location loc: locations) {
+			Element value = expected.get(loc);
+			if (value == null)
+				value = Element.UNDEF;
+			assertEquals("value of " + loc + " " + i + " steps back", value, getValue(prevState, loc));
+		}
+	}
+
+	private static Element getValue(State state, Location loc) {
+		try {
+			return state.getValue(loc);
+		} catch (InvalidLocationException e) {
+			throw new AssertionError(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package org.coreasm.engine.plugins.number;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.coreasm.engine.CoreASMError;
+import org.coreasm.engine.absstorage.Element;
+import org.junit.Test;
+
+/**
+ * Tests the enumeration of {@link NumberRangeElement}s.
+ */
+public class NumberRangeElementTest {
+
+	@Test
+	public void largestEnumerableRange() {
+		NumberRangeElement range = new NumberRangeElement(1, Integer.MAX_VALUE);
+		List<Element> elements = range.getIndexedView();
+		assertEquals(Integer.MAX_VALUE, range.size());
+		assertEquals(NumberElement.getInstance(Integer.MAX_VALUE), elements.get(Integer.MAX_VALUE - 1));
+	}
+
+	@Test
+	public void tooLargeRange() {
+		NumberRangeElement range = new NumberRangeElement(0, Integer.MAX_VALUE);
+		// the members of a range are known without enumerating it
+		assertTrue(range.contains(NumberElement.getInstance(Integer.MAX_VALUE)));
+		try {
+			range.size();
+			fail();
+		} catch (CoreASMError e) {
+			assertTrue(e.getMessage().contains("2147483648 elements"));
+		}
+	}
+
+	@Test(expected = CoreASMError.class)
+	public void tooLargeSteppedRange() {
+		new NumberRangeElement(0, 3e10, 10).getIndexedView();
+	}
+}
@@ -0,0 +1,70 @@
+package org.coreasm.engine.scheduler;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests the batch sizes computed by {@link AdaptiveBatchSize}.
+ */
+public class AdaptiveBatchSizeTest {
+
+	/** enough agents for the batch size not to be limited by load balancing */
+	private static final int AGENTS = 1000000;
+
+	@Test
+	public void convergesToTargetBatchTime() {
+		final AdaptiveBatchSize batchSize = new AdaptiveBatchSize();
+		// nothing measured yet; as many agents as load balancing allows
+		assertEquals(AGENTS / (2 * AdaptiveBatchSize.TASKS_PER_THREAD), batchSize.getBatchSize(AGENTS, 2));
+
+		final long nanosPerAgent = 10000;
+		for (int i = 0; i < 20; i++)
+			batchSize.update(1000, 1000 * nanosPerAgent);
+		assertEquals(AdaptiveBatchSize.TARGET_BATCH_NANOS / nanosPerAgent, batchSize.getBatchSize(AGENTS, 2));
+
+		// agents become three times slower; the batches shrink towards the target
+		int last = batchSize.getBatchSize(AGENTS, 2);
+		for (int i = 0; i < 20; i++) {
+			batchSize.update(1000, 1000 * nanosPerAgent * 3);
+			final int size = batchSize.getBatchSize(AGENTS, 2);
+			assertTrue(size <= last);
+			last = size;
+		}
+		assertEquals(AdaptiveBatchSize.TARGET_BATCH_NANOS / (nanosPerAgent * 3), last);
+		// the largest batch that does not take longer than the target
+		assertTrue(last * batchSize.getNanosPerAgent() <= AdaptiveBatchSize.TARGET_BATCH_NANOS);
+		assertTrue((last + 1) * batchSize.getNanosPerAgent() > AdaptiveBatchSize.TARGET_BATCH_NANOS);
+
+		batchSize.reset();
+		assertTrue(batchSize.getNanosPerAgent() < 0);
+	}
+
+	@Test
+	public void neverDropsBelowOne() {
+		final AdaptiveBatchSize batchSize = new AdaptiveBatchSize();
+		assertEquals(1, batchSize.getBatchSize(0, 4));
+		assertEquals(1, batchSize.getBatchSize(1, 4));
+		assertEquals(1, batchSize.getBatchSize(3, 4));
+		assertEquals(1, batchSize.getBatchSize(3, 0));
+
+		// agents that take longer than a whole batch
+		batchSize.update(10, 10 * AdaptiveBatchSize.TARGET_BATCH_NANOS * 100);
+		assertEquals(1, batchSize.getBatchSize(AGENTS, 4));
+
+		// measurements of nothing are ignored
+		batchSize.update(0, 1000);
+		batchSize.update(10, 0);
+		assertEquals(1, batchSize.getBatchSize(AGENTS, 4));
+	}
+
+	@Test
+	public void keepsThreadsBusy() {
+		final AdaptiveBatchSize batchSize = new AdaptiveBatchSize();
+		// agents so fast that one batch could hold all of them
+		batchSize.update(1000, 1000);
+		final int threads = 4;
+		final int agents = 800;
+		assertEquals(agents / (threads * AdaptiveBatchSize.TASKS_PER_THREAD), batchSize.getBatchSize(agents, threads));
+	}
+}
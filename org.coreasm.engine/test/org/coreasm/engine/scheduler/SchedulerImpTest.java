@@ -0,0 +1,195 @@
+package org.coreasm.engine.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import org.coreasm.engine.CoreASMEngine.EngineMode;
+import org.coreasm.engine.CoreASMEngineFactory;
+import org.coreasm.engine.Engine;
+import org.coreasm.engine.EngineProperties;
+import org.coreasm.engine.absstorage.AbstractStorage;
+import org.coreasm.engine.absstorage.Element;
+import org.coreasm.engine.absstorage.ElementList;
+import org.coreasm.engine.absstorage.Enumerable;
+import org.coreasm.engine.absstorage.InvalidLocationException;
+import org.coreasm.engine.absstorage.Location;
+import org.coreasm.engine.plugins.number.NumberElement;
+import org.coreasm.util.CoreASMGlobal;
+import org.coreasm.util.Tools;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests that the agent set {@link SchedulerImp} maintains from the fired
+ * updates is the set of agents with a program in the <i>Agents</i> universe,
+ * and that a configured batch size is used for evaluating the agents.
+ */
+public class SchedulerImpTest {
+
+	/*
+	 * Stops, removes, restores and creates agents in consecutive rounds.
+	 * From round 5 on, two workers write the same location until one of
+	 * them succeeds, so steps fail for all the agents and are retried with
+	 * fewer of them, while the updates of the failed attempts would have
+	 * stopped or removed other agents.
+	 */
+	private static final String SPEC =
+			"CoreASM ActiveAgents\n" +
+			"use Standard\n" +
+			"use SchedulingPolicies\n" +
+			"option SchedulingPolicies.policy allfirst\n" +
+			"init Start\n" +
+			"rule Start =\n" +
+			"	par\n" +
+			"		forall i in [1..6] do\n" +
+			"			extend Agents with a do\n" +
+			"				par\n" +
+			"					program(a) := @Worker\n" +
+			"					worker(i) := a\n" +
+			"					id(a) := i\n" +
+			"				endpar\n" +
+			"		program(self) := @Control\n" +
+			"		round := 1\n" +
+			"	endpar\n" +
+			"rule Worker =\n" +
+			"	if round >= 5 and shared = undef and (id(self) = 4 or id(self) = 5) then\n" +
+			"		shared := id(self)\n" +
+			"rule Control =\n" +
+			"	if round < 7 then\n" +
+			"		par\n" +
+			"			round := round + 1\n" +
+			"			if round = 1 then program(worker(1)) := undef\n" +
+			"			if round = 2 then Agents(worker(2)) := false\n" +
+			"			if round = 3 then\n" +
+			"				par\n" +
+			"					program(worker(1)) := @Worker\n" +
+			"					Agents(worker(2)) := true\n" +
+			"				endpar\n" +
+			"			if round = 4 then\n" +
+			"				par\n" +
+			"					extend Agents with a do\n" +
+			"						par\n" +
+			"							program(a) := @Worker\n" +
+			"							worker(7) := a\n" +
+			"							id(a) := 7\n" +
+			"						endpar\n" +
+			"					program(worker(3)) := undef\n" +
+			"					Agents(worker(3)) := false\n" +
+			"				endpar\n" +
+			"			if round = 5 then program(worker(6)) := undef\n" +
+			"			if round = 6 then\n" +
+			"				par\n" +
+			"					Agents(worker(6)) := false\n" +
+			"					program(worker(2)) := undef\n" +
+			"				endpar\n" +
+			"		endpar\n";
+
+	/*
+	 * Forty agents that count their steps.
+	 */
+	private static final String BATCH_SPEC =
+			"CoreASM Batches\n" +
+			"use Standard\n" +
+			"use SchedulingPolicies\n" +
+			"option SchedulingPolicies.policy allfirst\n" +
+			"init Start\n" +
+			"rule Start =\n" +
+			"	par\n" +
+			"		forall i in [1..40] do\n" +
+			"			extend Agents with a do\n" +
+			"				program(a) := @Count\n" +
+			"		program(self) := undef\n" +
+			"	endpar\n" +
+			"rule Count =\n" +
+			"	if steps(self) = undef then steps(self) := 1 else steps(self) := steps(self) + 1\n";
+
+	private Engine engine;
+
+	@After
+	public void tearDown() {
+		if (engine != null) {
+			engine.terminate();
+			engine.hardInterrupt();
+			engine.waitWhileBusy();
+		}
+	}
+
+	@Test
+	public void agentSetMatchesRecomputation() throws InvalidLocationException {
+		start(SPEC, new Properties());
+		boolean retried = false;
+		for (int i = 0; i < 12; i++) {
+			final Set<Element> expected = getAgentsWithProgram();
+			engine.step();
+			engine.waitWhileBusy();
+			assertEquals(EngineMode.emIdle, engine.getEngineMode());
+			if (engine.getStepCount() > 1)
+				assertEquals("agents of step " + engine.getStepCount(), expected, engine.getAgentSet());
+			if (!engine.getScheduler().getSelectedAgentSet().equals(engine.getAgentSet()))
+				retried = true;
+		}
+
+		assertTrue(retried);
+		assertEquals(NumberElement.getInstance(7), engine.getStorage().getValue(location("round")));
+		final Element shared = engine.getStorage().getValue(location("shared"));
+		assertTrue(shared.equals(NumberElement.getInstance(4)) || shared.equals(NumberElement.getInstance(5)));
+		// the control agent and workers 1, 4, 5 and 7
+		assertEquals(5, engine.getAgentSet().size());
+	}
+
+	@Test
+	public void fixedBatchSizeIsRespected() {
+		final Properties properties = new Properties();
+		properties.setProperty(EngineProperties.MAX_PROCESSORS, "2");
+		properties.setProperty(EngineProperties.AGENT_EXECUTION_THREAD_BATCH_SIZE, "3");
+		start(BATCH_SPEC, properties);
+		for (int i = 0; i < 5; i++) {
+			engine.step();
+			engine.waitWhileBusy();
+			assertEquals(EngineMode.emIdle, engine.getEngineMode());
+			final AgentExecutionStats stats = ((SchedulerImp)engine.getScheduler()).getAgentExecutor().getLastStepStats();
+			assertEquals(3, stats.batchSize);
+		}
+		// no batch holds more than three agents
+		final AgentExecutionStats stats = ((SchedulerImp)engine.getScheduler()).getAgentExecutor().getLastStepStats();
+		assertEquals(40, stats.agents);
+		assertTrue(stats.batches >= 14);
+	}
+
+	/*
+	 * Loads the given specification on a new engine with the given properties.
+	 */
+	private void start(String spec, Properties properties) {
+		CoreASMGlobal.setRootFolder(Tools.getRootFolder());
+		engine = (Engine)CoreASMEngineFactory.createEngine();
+		engine.setProperty(EngineProperties.PLUGIN_FOLDERS_PROPERTY, Tools.getRootFolder(Engine.class) + "/plugins");
+		for (String name: properties.stringPropertyNames())
+			engine.setProperty(name, properties.getProperty(name));
+		engine.setClassLoader(CoreASMEngineFactory.class.getClassLoader());
+		engine.initialize();
+		engine.waitWhileBusy();
+		engine.loadSpecification("SchedulerImpTest", new StringReader(spec));
+		engine.waitWhileBusy();
+		assertEquals(EngineMode.emIdle, engine.getEngineMode());
+	}
+
+	/*
+	 * Enumerates the Agents universe and keeps the agents that have a program.
+	 */
+	private Set<Element> getAgentsWithProgram() throws InvalidLocationException {
+		final AbstractStorage storage = engine.getStorage();
+		final Set<Element> agents = new HashSet<Element>();
+		for (Element agent: ((Enumerable)storage.getUniverse(AbstractStorage.AGENTS_UNIVERSE_NAME)).enumerate())
+			if (!storage.getValue(new Location(AbstractStorage.PROGRAM_FUNCTION_NAME, ElementList.create(agent))).equals(Element.UNDEF))
+				agents.add(agent);
+		return agents;
+	}
+
+	private static Location location(String name) {
+		return new Location(name, ElementList.NO_ARGUMENT);
+	}
+}
@@ -0,0 +1,51 @@
+package org.coreasm.engine.test;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Properties;
+
+import org.coreasm.engine.EngineProperties;
+import org.junit.BeforeClass;
+
+/**
+ * Runs the specifications of the plugin tests with programs
+ * compiled into closures (see {@link EngineProperties#CLOSURE_COMPILATION}).
+ */
+public class ClosureCompilationTest extends TestAllCasm {
+
+	/**
+	 * specifications that the interpreter tests do not run (Schedul2_pipelined
+	 * needs the scheduler of the compiler and String2_strlen has no test class)
+	 * and specifications whose output depends on random choices
+	 */
+	private static final List<String> EXCLUDED = Arrays.asList("Schedul2_pipelined.casm", "String2_strlen.casm",
+			"Case1.casm", "Debug1.casm", "Extend1.casm", "Signature1.casm");
+
+	@BeforeClass
+	public static void onlyOnce() {
+		URL url = ClosureCompilationTest.class.getClassLoader().getResource("./plugins");
+
+		try {
+			testFiles = new LinkedList<File>();
+			getTestFiles(testFiles, new File(url.toURI()));
+			for (Iterator<File> it = testFiles.iterator(); it.hasNext(); )
+				if (EXCLUDED.contains(it.next().getName()))
+					it.remove();
+		}
+		catch (URISyntaxException e) {
+			e.printStackTrace();
+		}
+	}
+
+	@Override
+	protected Properties getEngineProperties() {
+		Properties properties = new Properties();
+		properties.setProperty(EngineProperties.CLOSURE_COMPILATION, EngineProperties.YES);
+		return properties;
+	}
+}
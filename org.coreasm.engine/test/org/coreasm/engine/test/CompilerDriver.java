@@ -1,14 +1,13 @@
 package org.coreasm.engine.test;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.PrintStream;
 import java.util.List;
 
 import org.coreasm.compiler.CompilerOptions;
 import org.coreasm.compiler.CoreASMCompiler;
+import org.coreasm.compiler.components.backend.CompiledSpecification;
 import org.coreasm.engine.CoreASMEngine;
 import org.coreasm.engine.CoreASMEngineFactory;
 import org.coreasm.engine.Engine;
@@ -41,59 +40,55 @@ public class CompilerDriver {
 		engine.waitWhileBusy();
 		//Create compiler options, set the maximum step count and activate necessary output
 		CompilerOptions options = new CompilerOptions();
-		System.out.println(Tools.getRootFolder(Engine.class)+"/../org.coreasm.engine-1.7.3-SNAPSHOT.jar");
 		options.enginePath = new File(Tools.getRootFolder(Engine.class)+"/../org.coreasm.engine-1.7.3-SNAPSHOT.jar");
-		options.outputFile = new File("compiledTest.jar");
 		options.removeExistingFiles = true;
 		options.SpecificationName = testFile;
 		options.terminateOnStepCount = maxSteps + 1;
 		System.out.println(options.terminateOnStepCount);
-		//Create a compiler using the CoreASM engine
+		//scheduling options of the compiled runtime, e.g. '@pipelined 1'
+		options.pipelinedScheduling = TestAllCasm.getParameter(testFile, "pipelined") > 0;
+		options.allAgentsFirst = TestAllCasm.getParameter(testFile, "allagentsfirst") > 0;
+		//Create a compiler using the CoreASM engine and compile the specification in memory
 		CoreASMCompiler compiler = new CoreASMCompiler(options, engine);
+		CompiledSpecification spec = null;
 		try{
-			compiler.compile();
+			spec = compiler.compileInMemory();
 		}
 		catch(Exception e){
 			return new TestReport(testFile, "Compilation failed: " + e.getMessage(), -1, false);
 		}
 		
-		//file should now be compiled. Launch it as a separate process; requires a java executable on the PATH
-		Process proc = null;
-		try {
-			proc = Runtime.getRuntime().exec("java -jar compiledTest.jar");
-			
-		} catch (IOException e) {
-			return new TestReport(testFile, "Running failed: " + e.getMessage(), -1, false);
-		}
-		
-		StreamGobbler in = new StreamGobbler(proc.getInputStream());
-		StreamGobbler err = new StreamGobbler(proc.getErrorStream());
-		Thread g1 = new Thread(in);
-		Thread g2 = new Thread(err);
-		g1.start();
-		g2.start();
-		int procResult = 0;
+		//run the compiled specification in this process and collect its output
+		ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+		ByteArrayOutputStream errContent = new ByteArrayOutputStream();
+		PrintStream origOut = System.out;
+		PrintStream origErr = System.err;
+		System.setOut(new PrintStream(outContent, true));
+		System.setErr(new PrintStream(errContent, true));
+		int result = 0;
 		try{
-			procResult = proc.waitFor();
+			result = spec.run();
 		}
 		catch(Exception e){
-			return new TestReport(testFile, "Waiting for process failed: " + e.getMessage(), -1, false);
+			return new TestReport(testFile, "Running failed: " + e.getMessage(), -1, false);
+		}
+		finally{
+			System.setOut(origOut);
+			System.setErr(origErr);
 		}
-		in.stopThread();
-		err.stopThread();
 		
 		//check for errors
-		if (!err.output.toString().equals("")) {
-			String failMessage = "An error occurred in " + testFile.getName() + ":" + err.output.toString();
+		if (!errContent.toString().equals("")) {
+			String failMessage = "An error occurred in " + testFile.getName() + ":" + errContent.toString();
 			return new TestReport(testFile, failMessage, -1, false);
 		}
-		if(procResult != 0){
-			String failMessage = "Process terminated with exit code != 0";
+		if(result != 0){
+			String failMessage = "Program terminated with exit code != 0";
 			return new TestReport(testFile, failMessage, -1, false);
 		}
 		
 		//loop through output lines
-		String out = in.output.toString();		
+		String out = outContent.toString();
 		for(String l : requiredOutputList){
 			if(!out.contains(l)){
 				String failMessage = "missing required output for test file: " + testFile.getName()
@@ -116,42 +111,3 @@ public class CompilerDriver {
 		return new TestReport(testFile, "Success", -1, true);
 	}
 }
-
-class StreamGobbler implements Runnable{
-	public StringBuilder output;
-	//public List<String> lines;
-	private InputStream stream;
-	private boolean quit;
-	
-	public StreamGobbler(InputStream in){
-		//lines = new ArrayList<String>();
-		stream = in;
-		quit = false;
-		output = new StringBuilder();
-	}
-	
-	public void run(){
-		try{
-			BufferedReader br = new BufferedReader(new InputStreamReader(stream));
-			String line = null;
-			
-			while(true){
-				if(quit) break;
-				line = br.readLine();
-				if(line == null) continue;
-				if(output.length() == 0)
-					output.append(line);
-				else
-					output.append("\n").append(line);
-			}
-			br.close();
-		}
-		catch(IOException e){
-			e.printStackTrace();
-		}
-	}
-	
-	public void stopThread(){
-		this.quit = true;
-	}
-}
\ No newline at end of file
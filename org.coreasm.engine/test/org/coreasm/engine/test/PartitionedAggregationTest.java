@@ -0,0 +1,37 @@
+package org.coreasm.engine.test;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.LinkedList;
+import java.util.Properties;
+
+import org.coreasm.engine.EngineProperties;
+import org.junit.BeforeClass;
+
+/**
+ * Runs specifications whose steps are large enough to be aggregated
+ * in partitions (see {@link EngineProperties#AGGREGATION_PARTITIONS}).
+ */
+public class PartitionedAggregationTest extends TestAllCasm {
+
+	@BeforeClass
+	public static void onlyOnce() {
+		URL url = PartitionedAggregationTest.class.getClassLoader().getResource("./aggregation");
+
+		try {
+			testFiles = new LinkedList<File>();
+			getTestFiles(testFiles, new File(url.toURI()));
+		}
+		catch (URISyntaxException e) {
+			e.printStackTrace();
+		}
+	}
+
+	@Override
+	protected Properties getEngineProperties() {
+		Properties properties = new Properties();
+		properties.setProperty(EngineProperties.AGGREGATION_PARTITIONS, "4");
+		return properties;
+	}
+}
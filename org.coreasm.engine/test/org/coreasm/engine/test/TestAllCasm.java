@@ -12,6 +12,7 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Properties;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -174,6 +175,14 @@ public class TestAllCasm {
 
 	}
 
+	/**
+	 * Returns the engine properties the specifications are run with;
+	 * subclasses can override it to test other configurations of the engine.
+	 */
+	protected Properties getEngineProperties() {
+		return new Properties();
+	}
+
 	public TestReport runSpecification(File testFile) {
 
 		List<String> requiredOutputList = getFilteredOutput(testFile, "@require");
@@ -190,7 +199,8 @@ public class TestAllCasm {
 		try {
 			outContent.reset();
 			errContent.reset();
-			td = TestEngineDriver.newLaunch(testFile.getAbsolutePath(), Tools.getRootFolder(Engine.class)+"/plugins");
+			td = TestEngineDriver.newLaunch(testFile.getAbsolutePath(), Tools.getRootFolder(Engine.class)+"/plugins",
+					getEngineProperties());
 			if (TestEngineDriver.TestEngineDriverStatus.stopped.equals(td.getStatus()))
 				return new TestReport(
 						testFile, "engine is stopped!", steps, false);
@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.PrintStream;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Properties;
 import java.util.Set;
 
 import org.coreasm.engine.CoreASMEngine.EngineMode;
@@ -34,11 +35,11 @@ public class TestEngineDriver implements Runnable, EngineStepObserver, EngineErr
 		stopped, running, paused
 	};
 
-	private TestEngineDriverStatus status = TestEngineDriverStatus.running;
+	private volatile TestEngineDriverStatus status = TestEngineDriverStatus.running;
 
 	private boolean updateFailed;
 	protected CoreASMError lastError;
-	private int stepsLimit;
+	private volatile int stepsLimit;
 	private boolean stopOnEmptyUpdates;
 	private boolean stopOnStableUpdates;
 	private boolean stopOnEmptyActiveAgents;
@@ -47,7 +48,7 @@ public class TestEngineDriver implements Runnable, EngineStepObserver, EngineErr
 	private volatile boolean shouldStop;
 	private volatile boolean shouldPause;
 
-	private TestEngineDriver(String pluginFolders) {
+	private TestEngineDriver(String pluginFolders, Properties properties) {
 		if (runningInstances == null)
 			runningInstances = new LinkedList<TestEngineDriver>();
 		runningInstances.add(this);
@@ -60,6 +61,8 @@ public class TestEngineDriver implements Runnable, EngineStepObserver, EngineErr
 			pluginFolders += EngineProperties.PLUGIN_FOLDERS_DELIM
 					+ System.getProperty(EngineProperties.PLUGIN_FOLDERS_PROPERTY);
 		engine.setProperty(EngineProperties.PLUGIN_FOLDERS_PROPERTY, pluginFolders);
+		for (String name : properties.stringPropertyNames())
+			engine.setProperty(name, properties.getProperty(name));
 		engine.setClassLoader(CoreASMEngineFactory.class.getClassLoader());
 		engine.initialize();
 		engine.waitWhileBusy();
@@ -97,7 +100,14 @@ public class TestEngineDriver implements Runnable, EngineStepObserver, EngineErr
 	}
 
 	public static TestEngineDriver newLaunch(String abspathname, String pluginFolders) {
-		TestEngineDriver td = new TestEngineDriver(pluginFolders);
+		return newLaunch(abspathname, pluginFolders, new Properties());
+	}
+
+	/**
+	 * Launches the given specification on an engine with the given engine properties.
+	 */
+	public static TestEngineDriver newLaunch(String abspathname, String pluginFolders, Properties properties) {
+		TestEngineDriver td = new TestEngineDriver(pluginFolders, properties);
 		td.setDefaultConfig();
 		td.dolaunch(abspathname);
 		return td;
@@ -201,7 +211,8 @@ public class TestEngineDriver implements Runnable, EngineStepObserver, EngineErr
 		if (stepsLimit == 0)
 			stepsLimit = -1;
 		shouldPause = false;
-		while (getStatus() != TestEngineDriverStatus.running)
+		// the run may already have executed its steps and paused again
+		while (getStatus() == TestEngineDriverStatus.paused && !shouldPause)
 			Thread.yield();
 	}
 
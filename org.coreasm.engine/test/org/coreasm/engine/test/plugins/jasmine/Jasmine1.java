@@ -0,0 +1,25 @@
+package org.coreasm.engine.test.plugins.jasmine;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.LinkedList;
+
+import org.junit.BeforeClass;
+import org.coreasm.engine.test.TestAllCasm;
+
+public class Jasmine1 extends TestAllCasm {
+
+	@BeforeClass
+	public static void onlyOnce() {
+		URL url = Jasmine1.class.getClassLoader().getResource(".");
+
+		try {
+			testFiles = new LinkedList<File>();
+			getTestFile(testFiles, new File(url.toURI()).getParentFile(), Jasmine1.class);
+		}
+		catch (URISyntaxException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package org.coreasm.engine.test.plugins.schedulingpolicies;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.LinkedList;
+
+import org.junit.BeforeClass;
+import org.coreasm.engine.test.TestAllCCasm;
+
+public class CompilerSchedul2_pipelined extends TestAllCCasm {
+
+	@BeforeClass
+	public static void onlyOnce() {
+		URL url = CompilerSchedul2_pipelined.class.getClassLoader().getResource(".");
+
+		try {
+			testFiles = new LinkedList<File>();
+			getTestFile(testFiles, new File(url.toURI()).getParentFile(), CompilerSchedul2_pipelined.class);
+		}
+		catch (URISyntaxException e) {
+			e.printStackTrace();
+		}
+	}
+}
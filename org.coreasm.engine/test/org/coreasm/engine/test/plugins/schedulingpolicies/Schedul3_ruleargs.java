@@ -0,0 +1,25 @@
+package org.coreasm.engine.test.plugins.schedulingpolicies;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.LinkedList;
+
+import org.junit.BeforeClass;
+import org.coreasm.engine.test.TestAllCasm;
+
+public class Schedul3_ruleargs extends TestAllCasm {
+
+	@BeforeClass
+	public static void onlyOnce() {
+		URL url = Schedul3_ruleargs.class.getClassLoader().getResource(".");
+
+		try {
+			testFiles = new LinkedList<File>();
+			getTestFile(testFiles, new File(url.toURI()).getParentFile(), Schedul3_ruleargs.class);
+		}
+		catch (URISyntaxException e) {
+			e.printStackTrace();
+		}
+	}
+}
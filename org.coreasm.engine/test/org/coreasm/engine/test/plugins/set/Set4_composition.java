@@ -0,0 +1,25 @@
+package org.coreasm.engine.test.plugins.set;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.LinkedList;
+
+import org.junit.BeforeClass;
+import org.coreasm.engine.test.TestAllCasm;
+
+public class Set4_composition extends TestAllCasm {
+
+	@BeforeClass
+	public static void onlyOnce() {
+		URL url = Set4_composition.class.getClassLoader().getResource(".");
+
+		try {
+			testFiles = new LinkedList<File>();
+			getTestFile(testFiles, new File(url.toURI()).getParentFile(), Set4_composition.class);
+		}
+		catch (URISyntaxException e) {
+			e.printStackTrace();
+		}
+	}
+}
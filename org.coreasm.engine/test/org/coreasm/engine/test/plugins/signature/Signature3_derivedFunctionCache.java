@@ -0,0 +1,25 @@
+package org.coreasm.engine.test.plugins.signature;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.LinkedList;
+
+import org.junit.BeforeClass;
+import org.coreasm.engine.test.TestAllCasm;
+
+public class Signature3_derivedFunctionCache extends TestAllCasm {
+
+	@BeforeClass
+	public static void onlyOnce() {
+		URL url = Signature3_derivedFunctionCache.class.getClassLoader().getResource(".");
+
+		try {
+			testFiles = new LinkedList<File>();
+			getTestFile(testFiles, new File(url.toURI()).getParentFile(), Signature3_derivedFunctionCache.class);
+		}
+		catch (URISyntaxException e) {
+			e.printStackTrace();
+		}
+	}
+}
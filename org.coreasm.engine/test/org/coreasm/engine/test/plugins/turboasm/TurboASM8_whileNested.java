@@ -0,0 +1,25 @@
+package org.coreasm.engine.test.plugins.turboasm;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.LinkedList;
+
+import org.junit.BeforeClass;
+import org.coreasm.engine.test.TestAllCasm;
+
+public class TurboASM8_whileNested extends TestAllCasm {
+
+	@BeforeClass
+	public static void onlyOnce() {
+		URL url = TurboASM8_whileNested.class.getClassLoader().getResource(".");
+
+		try {
+			testFiles = new LinkedList<File>();
+			getTestFile(testFiles, new File(url.toURI()).getParentFile(), TurboASM8_whileNested.class);
+		}
+		catch (URISyntaxException e) {
+			e.printStackTrace();
+		}
+	}
+}
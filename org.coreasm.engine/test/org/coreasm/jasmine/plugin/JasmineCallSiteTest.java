@@ -0,0 +1,132 @@
+package org.coreasm.jasmine.plugin;
+
+import static org.junit.Assert.*;
+
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+
+/**
+ * Tests that the members cached by {@link JasmineCallSite} behave like
+ * the reflective calls they replace.
+ */
+public class JasmineCallSiteTest {
+
+	private static Object invoke(JasmineCallSite site, Object obj, String name, Object... args) throws Exception {
+		List<Object> arguments = Arrays.asList(args);
+		return site.findMethod(obj.getClass(), name, arguments).invoke(obj, arguments);
+	}
+
+	@Test
+	public void instanceMethod() throws Exception {
+		JasmineCallSite site = new JasmineCallSite();
+		StringBuilder sb = new StringBuilder("ab");
+		assertSame(sb, invoke(site, sb, "append", "cd"));
+		assertSame(sb, invoke(site, sb, "append", "ef"));
+		assertEquals("abcdef", sb.toString());
+	}
+
+	@Test
+	public void staticMethod() throws Exception {
+		JasmineCallSite site = new JasmineCallSite();
+		List<Object> arguments = Collections.<Object>singletonList("123");
+		JasmineCallSite.Target target = site.findMethod(Integer.class, "parseInt", arguments);
+		assertEquals(123, target.invoke(5, arguments));
+		// static methods ignore the object
+		assertEquals(123, target.invoke(null, arguments));
+	}
+
+	@Test
+	public void constructor() throws Exception {
+		JasmineCallSite site = new JasmineCallSite();
+		List<Object> arguments = Collections.<Object>singletonList("ab");
+		JasmineCallSite.Target target = site.findConstructor(StringBuilder.class, arguments);
+		Object first = target.newInstance(arguments);
+		Object second = site.findConstructor(StringBuilder.class, arguments).newInstance(arguments);
+		assertEquals("ab", first.toString());
+		assertNotSame(first, second);
+	}
+
+	@Test
+	public void polymorphicReceiver() throws Exception {
+		JasmineCallSite site = new JasmineCallSite();
+		List<Object> receivers = new ArrayList<Object>();
+		receivers.add(new ArrayList<String>(Arrays.asList("a")));
+		receivers.add(new LinkedList<String>(Arrays.asList("a", "b")));
+		receivers.add(new Vector<String>(Arrays.asList("a")));
+		receivers.add("abc");
+		receivers.add(new StringBuilder("abcd"));
+		receivers.add(new CopyOnWriteArrayList<String>(Arrays.asList("a", "b", "c", "d", "e", "f")));
+		// more receiver classes than the call site caches
+		for (int round = 0; round < 2; round++) {
+			assertEquals(1, invoke(site, receivers.get(0), "size"));
+			assertEquals(2, invoke(site, receivers.get(1), "size"));
+			assertEquals(1, invoke(site, receivers.get(2), "size"));
+			assertEquals(3, invoke(site, receivers.get(3), "length"));
+			assertEquals(4, invoke(site, receivers.get(4), "length"));
+			assertEquals(6, invoke(site, receivers.get(5), "size"));
+		}
+	}
+
+	@Test
+	public void exceptionOfTheMethod() throws Exception {
+		JasmineCallSite site = new JasmineCallSite();
+		try {
+			invoke(site, new ArrayList<String>(), "get", 1);
+			fail();
+		} catch (InvocationTargetException e) {
+			assertTrue(e.getCause() instanceof IndexOutOfBoundsException);
+		}
+	}
+
+	@Test
+	public void exceptionOfTheConstructor() throws Exception {
+		List<Object> arguments = Collections.<Object>singletonList(-1);
+		try {
+			new JasmineCallSite().findConstructor(ArrayList.class, arguments).newInstance(arguments);
+			fail();
+		} catch (InvocationTargetException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void nullReceiver() throws Exception {
+		List<Object> arguments = Collections.<Object>singletonList("cd");
+		new JasmineCallSite().findMethod(StringBuilder.class, "append", arguments).invoke(null, arguments);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void receiverOfAnotherClass() throws Exception {
+		List<Object> arguments = Collections.<Object>singletonList("cd");
+		new JasmineCallSite().findMethod(StringBuilder.class, "append", arguments).invoke("ab", arguments);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void argumentOfAnotherClass() throws Exception {
+		JasmineCallSite.Target target = new JasmineCallSite().findMethod(String.class, "concat",
+				Collections.<Object>singletonList("b"));
+		target.invoke("a", Collections.<Object>singletonList(new StringBuilder("b")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nullForPrimitive() throws Exception {
+		JasmineCallSite.Target target = new JasmineCallSite().findMethod(String.class, "charAt",
+				Collections.<Object>singletonList(0));
+		target.invoke("a", Collections.<Object>singletonList(null));
+	}
+
+	@Test(expected = InstantiationException.class)
+	public void abstractClass() throws Exception {
+		List<Object> arguments = Collections.emptyList();
+		new JasmineCallSite().findConstructor(InputStream.class, arguments).newInstance(arguments);
+	}
+}
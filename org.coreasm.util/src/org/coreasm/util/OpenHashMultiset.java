@@ -0,0 +1,435 @@
+package org.coreasm.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Implementation of {@link Multiset} with an open addressing hash table.
+ * <p>
+ * The elements are kept in one array and their multiplicities in a
+ * parallel array of primitive counts, so adding and removing elements
+ * does not create any objects. Most multisets (e.g., update multisets)
+ * hold every element only once; the array of counts is only created
+ * when an element is added a second time. The total number of elements
+ * is maintained, so {@link #size()} takes constant time.
+ * <p>
+ * Like the iterator of {@link AbstractMultiset}, the iterator of this
+ * multiset returns every element as many times as its multiplicity.
+ * Its <code>remove()</code> method removes one occurrence of the
+ * element that was returned last.
+ *
+ * @see HashMultiset
+ */
+public class OpenHashMultiset<E> implements Multiset<E> {
+
+	/** marks the slot of a removed element */
+	private static final Object REMOVED = new Object();
+
+	/** stands for <code>null</code> in the table */
+	private static final Object NULL = new Object();
+
+	private static final int MIN_CAPACITY = 8;
+
+	/** the elements; empty slots are <code>null</code> */
+	private Object[] keys;
+
+	/**
+	 * the multiplicity of the element in the same slot minus one;
+	 * <code>null</code> as long as all multiplicities are 1
+	 */
+	private int[] counts = null;
+
+	/** the number of elements, counting multiplicities */
+	private int size = 0;
+
+	/** the number of distinct elements */
+	private int distinct = 0;
+
+	/** the number of slots that are not empty (elements and removed elements) */
+	private int used = 0;
+
+	/** the number of changes to the table that invalidate iterators */
+	private int modCount = 0;
+
+	/**
+	 * Creates an empty multiset.
+	 */
+	public OpenHashMultiset() {
+		keys = new Object[MIN_CAPACITY];
+	}
+
+	/**
+	 * Creates an empty multiset with room for the given
+	 * number of distinct elements.
+	 */
+	public OpenHashMultiset(int expectedSize) {
+		keys = new Object[capacityFor(expectedSize)];
+	}
+
+	/**
+	 * Creates a new multiset and adds the given elements to it.
+	 */
+	public OpenHashMultiset(E... elements) {
+		this(elements.length);
+		for (E e: elements)
+			add(e);
+	}
+
+	/**
+	 * Creates a new multiset and adds all the elements
+	 * of collection <code>c</code> to it.
+	 */
+	public OpenHashMultiset(Collection<? extends E> c) {
+		this(c.size());
+		addAll(c);
+	}
+
+	/*
+	 * Returns the smallest capacity that keeps the table at
+	 * most two-thirds full with the given number of elements.
+	 */
+	private static int capacityFor(int n) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < n + (n >> 1) + 1 && capacity < (1 << 30))
+			capacity <<= 1;
+		return capacity;
+	}
+
+	/*
+	 * Spreads the bits of the hash code of the given key, as linear
+	 * probing does not cope well with clustered hash codes.
+	 */
+	private static int hash(Object key) {
+		int h = key.hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private static Object maskNull(Object o) {
+		return (o == null) ? NULL : o;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E> E unmaskNull(Object key) {
+		return (key == NULL) ? null : (E)key;
+	}
+
+	/*
+	 * Returns the slot of the given (masked) key, or -1 if
+	 * the key is not in this multiset.
+	 */
+	private int indexOf(Object key) {
+		final Object[] tab = keys;
+		final int mask = tab.length - 1;
+		int i = hash(key) & mask;
+		Object k;
+		while ((k = tab[i]) != null) {
+			if (k == key || (k != REMOVED && k.equals(key)))
+				return i;
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+	/*
+	 * Returns the multiplicity of the element in the given slot.
+	 */
+	private int countAt(int i) {
+		return (counts == null) ? 1 : counts[i] + 1;
+	}
+
+	/*
+	 * Adds the given number of occurrences of the given (masked) key.
+	 */
+	private void addOccurrences(Object key, int n) {
+		Object[] tab = keys;
+		final int mask = tab.length - 1;
+		int i = hash(key) & mask;
+		int free = -1;
+		Object k;
+		while ((k = tab[i]) != null) {
+			if (k == REMOVED) {
+				if (free < 0)
+					free = i;
+			}
+			else if (k == key || k.equals(key)) {
+				if (counts == null)
+					counts = new int[tab.length];
+				counts[i] += n;
+				size += n;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+
+		if (free >= 0)
+			i = free;
+		else
+			used++;
+		tab[i] = key;
+		if (counts != null)
+			counts[i] = n - 1;
+		else if (n > 1) {
+			counts = new int[tab.length];
+			counts[i] = n - 1;
+		}
+		distinct++;
+		size += n;
+		modCount++;
+
+		if (used * 3 >= tab.length * 2)
+			rehash(capacityFor(distinct));
+	}
+
+	/*
+	 * Moves all the elements to a new table of the given capacity,
+	 * dropping the slots of removed elements.
+	 */
+	private void rehash(int capacity) {
+		final Object[] oldKeys = keys;
+		final int[] oldCounts = counts;
+		final Object[] tab = new Object[capacity];
+		final int[] newCounts = (oldCounts == null) ? null : new int[capacity];
+		final int mask = capacity - 1;
+
+		for (int j = 0; j < oldKeys.length; j++) {
+			final Object k = oldKeys[j];
+			if (k == null || k == REMOVED)
+				continue;
+			int i = hash(k) & mask;
+			while (tab[i] != null)
+				i = (i + 1) & mask;
+			tab[i] = k;
+			if (newCounts != null)
+				newCounts[i] = oldCounts[j];
+		}
+
+		keys = tab;
+		counts = newCounts;
+		used = distinct;
+		modCount++;
+	}
+
+	/*
+	 * Removes one occurrence of the element in the given slot.
+	 */
+	private void removeAt(int i) {
+		if (counts != null && counts[i] > 0)
+			counts[i]--;
+		else {
+			keys[i] = REMOVED;
+			distinct--;
+			modCount++;
+		}
+		size--;
+	}
+
+	/*
+	 * Removes all occurrences of the element in the given slot.
+	 */
+	private void removeAllAt(int i) {
+		size -= countAt(i);
+		keys[i] = REMOVED;
+		if (counts != null)
+			counts[i] = 0;
+		distinct--;
+		modCount++;
+	}
+
+	public int multiplicity(Object element) {
+		final int i = indexOf(maskNull(element));
+		return (i < 0) ? 0 : countAt(i);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(Object o) {
+		return indexOf(maskNull(o)) >= 0;
+	}
+
+	public Iterator<E> iterator() {
+		return new Itr();
+	}
+
+	public Object[] toArray() {
+		return toArray(new Object[size]);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> T[] toArray(T[] a) {
+		if (a.length < size)
+			a = (T[])java.lang.reflect.Array.newInstance(
+					a.getClass().getComponentType(), size);
+		int n = 0;
+		for (int i = 0; i < keys.length; i++) {
+			final Object k = keys[i];
+			if (k == null || k == REMOVED)
+				continue;
+			final T e = (T)unmaskNull(k);
+			for (int c = countAt(i); c > 0; c--)
+				a[n++] = e;
+		}
+		if (a.length > n)
+			a[n] = null;
+		return a;
+	}
+
+	public boolean add(E o) {
+		addOccurrences(maskNull(o), 1);
+		return true;
+	}
+
+	public boolean remove(Object o) {
+		final int i = indexOf(maskNull(o));
+		if (i < 0)
+			return false;
+		removeAt(i);
+		return true;
+	}
+
+	public boolean containsAll(Collection<?> c) {
+		for (Object o: c)
+			if (!contains(o))
+				return false;
+		return true;
+	}
+
+	public boolean addAll(Collection<? extends E> c) {
+		if (c instanceof OpenHashMultiset<?> && c != this) {
+			// add every distinct element once with its multiplicity
+			final OpenHashMultiset<?> other = (OpenHashMultiset<?>)c;
+			final int capacity = capacityFor(distinct + other.distinct);
+			if (keys.length < capacity)
+				rehash(capacity);
+			for (int i = 0; i < other.keys.length; i++) {
+				final Object k = other.keys[i];
+				if (k != null && k != REMOVED)
+					addOccurrences(k, other.countAt(i));
+			}
+			return !other.isEmpty();
+		}
+		boolean changed = false;
+		for (E e: c) {
+			add(e);
+			changed = true;
+		}
+		return changed;
+	}
+
+	public boolean removeAll(Collection<?> c) {
+		boolean changed = false;
+		for (Object o: c)
+			changed |= remove(o);
+		return changed;
+	}
+
+	public boolean retainAll(Collection<?> c) {
+		boolean changed = false;
+		for (int i = 0; i < keys.length; i++) {
+			final Object k = keys[i];
+			if (k != null && k != REMOVED && !c.contains(unmaskNull(k))) {
+				removeAllAt(i);
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	public void clear() {
+		if (used > 0) {
+			Arrays.fill(keys, null);
+			counts = null;
+			size = 0;
+			distinct = 0;
+			used = 0;
+			modCount++;
+		}
+	}
+
+	public Set<E> toSet() {
+		final Set<E> result = new HashSet<E>(Math.max(distinct * 4 / 3 + 1, 16));
+		for (Object k: keys)
+			if (k != null && k != REMOVED)
+				result.add(OpenHashMultiset.<E>unmaskNull(k));
+		return result;
+	}
+
+	public String toString() {
+		StringBuffer str = new StringBuffer();
+
+		str.append("{| ");
+		for (E e: this)
+			str.append(e + ", ");
+		if (!isEmpty())
+			str.replace(str.length() - 2, str.length() - 1, "");
+		str.append("|}");
+
+		return str.toString();
+	}
+
+	private class Itr implements Iterator<E> {
+
+		/** the slot of the current element */
+		int slot = -1;
+
+		/** the number of occurrences of the current element not returned yet */
+		int remains = 0;
+
+		/** the slot of the next element */
+		int nextSlot;
+
+		boolean canRemove = false;
+		int expectedModCount = modCount;
+
+		Itr() {
+			nextSlot = findSlot(0);
+		}
+
+		private int findSlot(int from) {
+			final Object[] tab = keys;
+			for (int i = from; i < tab.length; i++)
+				if (tab[i] != null && tab[i] != REMOVED)
+					return i;
+			return -1;
+		}
+
+		public boolean hasNext() {
+			return remains > 0 || nextSlot >= 0;
+		}
+
+		public E next() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if (remains == 0) {
+				if (nextSlot < 0)
+					throw new NoSuchElementException("next() has no more element.");
+				slot = nextSlot;
+				remains = countAt(slot);
+				nextSlot = findSlot(slot + 1);
+			}
+			remains--;
+			canRemove = true;
+			return unmaskNull(keys[slot]);
+		}
+
+		public void remove() {
+			if (!canRemove)
+				throw new IllegalStateException("Call next() prior to call remove().");
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			removeAt(slot);
+			expectedModCount = modCount;
+			canRemove = false;
+		}
+	}
+}
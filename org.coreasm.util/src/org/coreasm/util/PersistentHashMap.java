@@ -0,0 +1,450 @@
+package org.coreasm.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map implemented as a hash array mapped trie.
+ * Adding or removing a mapping returns a new map that shares all
+ * the unchanged parts of the trie with the original one; both
+ * operations take time logarithmic in the size of the map.
+ * <p>
+ * Neither keys nor values can be <code>null</code>. The hash code of
+ * the map is maintained with every change, so {@link #hashCode()}
+ * takes constant time.
+ *
+ * @see PersistentHashSet
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+	@SuppressWarnings("rawtypes")
+	private static final PersistentHashMap EMPTY = new PersistentHashMap(BitmapNode.EMPTY, 0, 0);
+
+	private static final int BITS = 5;
+	private static final int MASK = (1 << BITS) - 1;
+
+	private final Node root;
+	private final int size;
+	private final int hash;
+
+	private Set<Entry<K, V>> entrySet = null;
+
+	private PersistentHashMap(Node root, int size, int hash) {
+		this.root = root;
+		this.size = size;
+		this.hash = hash;
+	}
+
+	/**
+	 * Returns the empty map.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K, V> PersistentHashMap<K, V> empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Returns a map with the mappings of the given map. If the
+	 * given map is a <code>PersistentHashMap</code>, it is returned.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K, V> PersistentHashMap<K, V> from(Map<? extends K, ? extends V> map) {
+		if (map instanceof PersistentHashMap)
+			return (PersistentHashMap<K, V>)map;
+		return PersistentHashMap.<K, V>empty().plusAll(map);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		if (size == 0 || key == null)
+			return null;
+		return (V)root.find(0, spread(key.hashCode()), key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Returns a map that is equal to this map except that
+	 * the given key is mapped to the given value.
+	 */
+	public PersistentHashMap<K, V> plus(K key, V value) {
+		if (key == null || value == null)
+			throw new NullPointerException("Persistent maps cannot hold null keys or values.");
+		final Change change = new Change();
+		final Node newRoot = root.put(0, spread(key.hashCode()), key, value, change);
+		if (newRoot == root)
+			return this;
+		int newHash = hash + entryHash(key, value);
+		if (change.oldValue != null)
+			newHash -= entryHash(key, change.oldValue);
+		return new PersistentHashMap<K, V>(newRoot, change.oldValue == null ? size + 1 : size, newHash);
+	}
+
+	/**
+	 * Returns a map that is equal to this map except that
+	 * the keys of the given map are mapped to their values
+	 * in the given map.
+	 */
+	public PersistentHashMap<K, V> plusAll(Map<? extends K, ? extends V> map) {
+		PersistentHashMap<K, V> result = this;
+		for (Entry<? extends K, ? extends V> e: map.entrySet())
+			result = result.plus(e.getKey(), e.getValue());
+		return result;
+	}
+
+	/**
+	 * Returns a map that is equal to this map except that
+	 * it has no mapping for the given key.
+	 */
+	public PersistentHashMap<K, V> minus(Object key) {
+		if (size == 0 || key == null)
+			return this;
+		final Change change = new Change();
+		final Node newRoot = root.remove(0, spread(key.hashCode()), key, change);
+		if (change.oldValue == null)
+			return this;
+		return new PersistentHashMap<K, V>(newRoot == null ? BitmapNode.EMPTY : newRoot,
+				size - 1, hash - entryHash(key, change.oldValue));
+	}
+
+	/**
+	 * Returns a map that is equal to this map except that
+	 * it has no mapping for any of the given keys.
+	 */
+	public PersistentHashMap<K, V> minusAll(Collection<?> keys) {
+		PersistentHashMap<K, V> result = this;
+		for (Object key: keys)
+			result = result.minus(key);
+		return result;
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new AbstractSet<Entry<K, V>>() {
+				@Override
+				public Iterator<Entry<K, V>> iterator() {
+					return new TrieIterator<K, V>(root);
+				}
+
+				@Override
+				public int size() {
+					return size;
+				}
+			};
+		}
+		return entrySet;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o instanceof PersistentHashMap<?, ?>) {
+			final PersistentHashMap<?, ?> other = (PersistentHashMap<?, ?>)o;
+			if (other.size != size || other.hash != hash)
+				return false;
+		}
+		return super.equals(o);
+	}
+
+	/*
+	 * Spreads the higher bits of hash codes to the lower ones the same way
+	 * java.util.HashMap does, and moves the lowest four bits up one position
+	 * in the first level of the trie, so small maps are iterated over in the
+	 * order of the buckets of a HashMap with the default capacity.
+	 */
+	private static int spread(int h) {
+		h ^= h >>> 16;
+		return (h & ~MASK) | ((h & 15) << 1) | ((h >>> 4) & 1);
+	}
+
+	private static int entryHash(Object key, Object value) {
+		return key.hashCode() ^ value.hashCode();
+	}
+
+	private static int bitpos(int hash, int shift) {
+		return 1 << ((hash >>> shift) & MASK);
+	}
+
+	private static Object[] copyAndSet(Object[] array, int i, Object value) {
+		final Object[] result = array.clone();
+		result[i] = value;
+		return result;
+	}
+
+	private static Object[] removePair(Object[] array, int i) {
+		final Object[] result = new Object[array.length - 2];
+		System.arraycopy(array, 0, result, 0, i);
+		System.arraycopy(array, i + 2, result, i, array.length - i - 2);
+		return result;
+	}
+
+	/*
+	 * Creates a node holding the two given entries, whose keys
+	 * have the same hash code chunks below the given shift.
+	 */
+	private static Node createNode(int shift, Object k1, Object v1, int h2, Object k2, Object v2) {
+		final int h1 = spread(k1.hashCode());
+		if (h1 == h2)
+			return new CollisionNode(h1, new Object[] {k1, v1, k2, v2});
+		final Change ignored = new Change();
+		return BitmapNode.EMPTY
+				.put(shift, h1, k1, v1, ignored)
+				.put(shift, h2, k2, v2, ignored);
+	}
+
+	/** records the value replaced or removed by a change */
+	private static class Change {
+		Object oldValue = null;
+	}
+
+	private static abstract class Node {
+
+		abstract Object find(int shift, int hash, Object key);
+
+		/* returns this node if nothing changes */
+		abstract Node put(int shift, int hash, Object key, Object value, Change change);
+
+		/* returns this node if nothing changes, null if the node becomes empty */
+		abstract Node remove(int shift, int hash, Object key, Change change);
+
+		/* the key-value pairs of this node; in bitmap nodes, a null key is followed by a sub-node */
+		abstract Object[] array();
+	}
+
+	private static final class BitmapNode extends Node {
+
+		static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+		private final int bitmap;
+		private final Object[] array;
+
+		BitmapNode(int bitmap, Object[] array) {
+			this.bitmap = bitmap;
+			this.array = array;
+		}
+
+		private int index(int bit) {
+			return Integer.bitCount(bitmap & (bit - 1));
+		}
+
+		@Override
+		Object find(int shift, int hash, Object key) {
+			final int bit = bitpos(hash, shift);
+			if ((bitmap & bit) == 0)
+				return null;
+			final int i = 2 * index(bit);
+			final Object k = array[i];
+			if (k == null)
+				return ((Node)array[i + 1]).find(shift + BITS, hash, key);
+			if (key.equals(k))
+				return array[i + 1];
+			return null;
+		}
+
+		@Override
+		Node put(int shift, int hash, Object key, Object value, Change change) {
+			final int bit = bitpos(hash, shift);
+			final int i = 2 * index(bit);
+			if ((bitmap & bit) != 0) {
+				final Object k = array[i];
+				final Object v = array[i + 1];
+				if (k == null) {
+					final Node n = ((Node)v).put(shift + BITS, hash, key, value, change);
+					if (n == v)
+						return this;
+					return new BitmapNode(bitmap, copyAndSet(array, i + 1, n));
+				}
+				if (key.equals(k)) {
+					if (v == value)
+						return this;
+					change.oldValue = v;
+					return new BitmapNode(bitmap, copyAndSet(array, i + 1, value));
+				}
+				final Object[] newArray = copyAndSet(array, i, null);
+				newArray[i + 1] = createNode(shift + BITS, k, v, hash, key, value);
+				return new BitmapNode(bitmap, newArray);
+			}
+			final Object[] newArray = new Object[array.length + 2];
+			System.arraycopy(array, 0, newArray, 0, i);
+			newArray[i] = key;
+			newArray[i + 1] = value;
+			System.arraycopy(array, i, newArray, i + 2, array.length - i);
+			return new BitmapNode(bitmap | bit, newArray);
+		}
+
+		@Override
+		Node remove(int shift, int hash, Object key, Change change) {
+			final int bit = bitpos(hash, shift);
+			if ((bitmap & bit) == 0)
+				return this;
+			final int i = 2 * index(bit);
+			final Object k = array[i];
+			final Object v = array[i + 1];
+			if (k == null) {
+				final Node n = ((Node)v).remove(shift + BITS, hash, key, change);
+				if (n == v)
+					return this;
+				if (n != null) {
+					final Object[] nArray = n.array();
+					// pull a single remaining entry up into this node
+					if (nArray.length == 2 && nArray[0] != null) {
+						final Object[] newArray = copyAndSet(array, i, nArray[0]);
+						newArray[i + 1] = nArray[1];
+						return new BitmapNode(bitmap, newArray);
+					}
+					return new BitmapNode(bitmap, copyAndSet(array, i + 1, n));
+				}
+			} else if (key.equals(k))
+				change.oldValue = v;
+			else
+				return this;
+			if (bitmap == bit)
+				return null;
+			return new BitmapNode(bitmap ^ bit, removePair(array, i));
+		}
+
+		@Override
+		Object[] array() {
+			return array;
+		}
+	}
+
+	private static final class CollisionNode extends Node {
+
+		private final int hash;
+		private final Object[] array;
+
+		CollisionNode(int hash, Object[] array) {
+			this.hash = hash;
+			this.array = array;
+		}
+
+		private int indexOf(Object key) {
+			for (int i = 0; i < array.length; i += 2)
+				if (key.equals(array[i]))
+					return i;
+			return -1;
+		}
+
+		@Override
+		Object find(int shift, int hash, Object key) {
+			final int i = indexOf(key);
+			return i < 0 ? null : array[i + 1];
+		}
+
+		@Override
+		Node put(int shift, int hash, Object key, Object value, Change change) {
+			if (hash == this.hash) {
+				final int i = indexOf(key);
+				if (i >= 0) {
+					if (array[i + 1] == value)
+						return this;
+					change.oldValue = array[i + 1];
+					return new CollisionNode(hash, copyAndSet(array, i + 1, value));
+				}
+				final Object[] newArray = new Object[array.length + 2];
+				System.arraycopy(array, 0, newArray, 0, array.length);
+				newArray[array.length] = key;
+				newArray[array.length + 1] = value;
+				return new CollisionNode(hash, newArray);
+			}
+			// nest this node in a bitmap node and try again
+			return new BitmapNode(bitpos(this.hash, shift), new Object[] {null, this})
+					.put(shift, hash, key, value, change);
+		}
+
+		@Override
+		Node remove(int shift, int hash, Object key, Change change) {
+			final int i = indexOf(key);
+			if (i < 0)
+				return this;
+			change.oldValue = array[i + 1];
+			if (array.length == 2)
+				return null;
+			return new CollisionNode(hash, removePair(array, i));
+		}
+
+		@Override
+		Object[] array() {
+			return array;
+		}
+	}
+
+	/*
+	 * Iterates over the entries of a trie, depth first.
+	 */
+	private static final class TrieIterator<K, V> implements Iterator<Entry<K, V>> {
+
+		private final Object[][] arrays = new Object[8][];
+		private final int[] positions = new int[8];
+		private int depth = 0;
+		private Entry<K, V> next = null;
+
+		TrieIterator(Node root) {
+			arrays[0] = root.array();
+			advance();
+		}
+
+		@SuppressWarnings("unchecked")
+		private void advance() {
+			next = null;
+			while (depth >= 0) {
+				final Object[] array = arrays[depth];
+				final int i = positions[depth];
+				if (i >= array.length) {
+					depth--;
+					continue;
+				}
+				positions[depth] = i + 2;
+				if (array[i] == null) {
+					depth++;
+					arrays[depth] = ((Node)array[i + 1]).array();
+					positions[depth] = 0;
+				} else {
+					next = new SimpleImmutableEntry<K, V>((K)array[i], (V)array[i + 1]);
+					return;
+				}
+			}
+		}
+
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		public Entry<K, V> next() {
+			if (next == null)
+				throw new NoSuchElementException();
+			final Entry<K, V> result = next;
+			advance();
+			return result;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException("Persistent maps cannot be modified.");
+		}
+	}
+}
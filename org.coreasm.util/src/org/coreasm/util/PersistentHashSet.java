@@ -0,0 +1,138 @@
+package org.coreasm.util;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+/**
+ * An immutable set backed by a {@link PersistentHashMap}. Adding or
+ * removing an element returns a new set that shares most of its
+ * structure with the original one; both operations take time
+ * logarithmic in the size of the set.
+ * <p>
+ * Elements cannot be <code>null</code>. The hash code of the set is
+ * maintained with every change, so {@link #hashCode()} takes constant time.
+ */
+public final class PersistentHashSet<E> extends AbstractSet<E> {
+
+	@SuppressWarnings("rawtypes")
+	private static final PersistentHashSet EMPTY = new PersistentHashSet(PersistentHashMap.empty(), 0);
+
+	private final PersistentHashMap<E, E> map;
+	private final int hash;
+
+	private PersistentHashSet(PersistentHashMap<E, E> map, int hash) {
+		this.map = map;
+		this.hash = hash;
+	}
+
+	/**
+	 * Returns the empty set.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> PersistentHashSet<E> empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Returns a set with the elements of the given collection. If the
+	 * given collection is a <code>PersistentHashSet</code>, it is returned.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> PersistentHashSet<E> from(Collection<? extends E> c) {
+		if (c instanceof PersistentHashSet)
+			return (PersistentHashSet<E>)c;
+		return PersistentHashSet.<E>empty().plusAll(c);
+	}
+
+	@Override
+	public int size() {
+		return map.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return map.isEmpty();
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return map.containsKey(o);
+	}
+
+	/**
+	 * Returns a set that is equal to this set with the given element added.
+	 */
+	public PersistentHashSet<E> plus(E e) {
+		final PersistentHashMap<E, E> newMap = map.plus(e, e);
+		if (newMap.size() == map.size())
+			return this;
+		return new PersistentHashSet<E>(newMap, hash + e.hashCode());
+	}
+
+	/**
+	 * Returns a set that is equal to this set with
+	 * the elements of the given collection added.
+	 */
+	public PersistentHashSet<E> plusAll(Collection<? extends E> c) {
+		PersistentHashSet<E> result = this;
+		for (E e: c)
+			result = result.plus(e);
+		return result;
+	}
+
+	/**
+	 * Returns a set that is equal to this set with the given element removed.
+	 */
+	public PersistentHashSet<E> minus(Object o) {
+		final PersistentHashMap<E, E> newMap = map.minus(o);
+		if (newMap == map)
+			return this;
+		return new PersistentHashSet<E>(newMap, hash - o.hashCode());
+	}
+
+	/**
+	 * Returns a set that is equal to this set with
+	 * the elements of the given collection removed.
+	 */
+	public PersistentHashSet<E> minusAll(Collection<?> c) {
+		PersistentHashSet<E> result = this;
+		for (Object o: c)
+			result = result.minus(o);
+		return result;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		final Iterator<Entry<E, E>> i = map.entrySet().iterator();
+		return new Iterator<E>() {
+			public boolean hasNext() {
+				return i.hasNext();
+			}
+
+			public E next() {
+				return i.next().getKey();
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException("Persistent sets cannot be modified.");
+			}
+		};
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o instanceof PersistentHashSet<?>) {
+			final PersistentHashSet<?> other = (PersistentHashSet<?>)o;
+			if (other.size() != size() || other.hash != hash)
+				return false;
+		}
+		return super.equals(o);
+	}
+}
@@ -0,0 +1,366 @@
+package org.coreasm.util;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list implemented as a balanced (AVL) tree indexed by
+ * the sizes of its subtrees. Reading, replacing, inserting or removing
+ * the element at any position, as well as concatenating two lists,
+ * returns a new list that shares most of its structure with the
+ * original ones and takes time logarithmic in the size of the lists.
+ * <p>
+ * Every node keeps the hash code of the elements below it, so
+ * {@link #hashCode()} takes constant time.
+ */
+public final class PersistentList<E> extends AbstractList<E> implements RandomAccess {
+
+	@SuppressWarnings("rawtypes")
+	private static final PersistentList EMPTY = new PersistentList(null);
+
+	/** the root node; <code>null</code> if the list is empty */
+	private final Node root;
+
+	private PersistentList(Node root) {
+		this.root = root;
+	}
+
+	/**
+	 * Returns the empty list.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> PersistentList<E> empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Returns a list with the elements of the given collection, in
+	 * the order they are returned by its iterator. If the given
+	 * collection is a <code>PersistentList</code>, it is returned.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> PersistentList<E> from(Collection<? extends E> c) {
+		if (c instanceof PersistentList)
+			return (PersistentList<E>)c;
+		if (c.isEmpty())
+			return empty();
+		final Object[] array = c.toArray();
+		return new PersistentList<E>(build(array, 0, array.length));
+	}
+
+	private static <E> PersistentList<E> create(Node root) {
+		if (root == null)
+			return empty();
+		return new PersistentList<E>(root);
+	}
+
+	@Override
+	public int size() {
+		return size(root);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return root == null;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		checkIndex(index, size());
+		Node n = root;
+		while (true) {
+			final int leftSize = size(n.left);
+			if (index < leftSize)
+				n = n.left;
+			else if (index == leftSize)
+				return (E)n.value;
+			else {
+				index -= leftSize + 1;
+				n = n.right;
+			}
+		}
+	}
+
+	/**
+	 * Returns a list that is equal to this list except that the
+	 * element at the given position is replaced by the given element.
+	 */
+	public PersistentList<E> with(int index, E e) {
+		checkIndex(index, size());
+		return create(set(root, index, e));
+	}
+
+	/**
+	 * Returns a list that is equal to this list with
+	 * the given element added to its end.
+	 */
+	public PersistentList<E> plus(E e) {
+		return create(insert(root, size(), e));
+	}
+
+	/**
+	 * Returns a list that is equal to this list with the given
+	 * element inserted at the given position.
+	 */
+	public PersistentList<E> plus(int index, E e) {
+		checkIndex(index, size() + 1);
+		return create(insert(root, index, e));
+	}
+
+	/**
+	 * Returns a list that is equal to this list with the
+	 * element at the given position removed.
+	 */
+	public PersistentList<E> minus(int index) {
+		checkIndex(index, size());
+		return create(remove(root, index));
+	}
+
+	/**
+	 * Returns the concatenation of this list and the given list.
+	 */
+	public PersistentList<E> concat(List<? extends E> list) {
+		if (list.isEmpty())
+			return this;
+		final PersistentList<E> other = from(list);
+		if (root == null)
+			return other;
+		final Object last = get(size() - 1);
+		return create(join(remove(root, size() - 1), last, other.root));
+	}
+
+	@Override
+	public PersistentList<E> subList(int fromIndex, int toIndex) {
+		if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException("Invalid range [" + fromIndex + ", " + toIndex + ").");
+		return create(drop(take(root, toIndex), fromIndex));
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			private final List<Node> path = new ArrayList<Node>();
+			{
+				pushLeft(root);
+			}
+
+			private void pushLeft(Node n) {
+				for (; n != null; n = n.left)
+					path.add(n);
+			}
+
+			public boolean hasNext() {
+				return !path.isEmpty();
+			}
+
+			@SuppressWarnings("unchecked")
+			public E next() {
+				if (path.isEmpty())
+					throw new NoSuchElementException();
+				final Node n = path.remove(path.size() - 1);
+				pushLeft(n.right);
+				return (E)n.value;
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException("Persistent lists cannot be modified.");
+			}
+		};
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		int i = 0;
+		for (E e: this) {
+			if (o == null ? e == null : o.equals(e))
+				return i;
+			i++;
+		}
+		return -1;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+
+	@Override
+	public int hashCode() {
+		// the hash code defined by List, which starts from 1
+		if (root == null)
+			return 1;
+		return root.pow + root.hash;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o instanceof PersistentList<?> && o.hashCode() != hashCode())
+			return false;
+		if (!(o instanceof List<?>) || ((List<?>)o).size() != size())
+			return false;
+		final Iterator<?> i = ((List<?>)o).iterator();
+		for (E e: this) {
+			final Object other = i.next();
+			if (e == null ? other != null : !e.equals(other))
+				return false;
+		}
+		return true;
+	}
+
+	private static void checkIndex(int index, int size) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+	}
+
+	private static int size(Node n) {
+		return n == null ? 0 : n.size;
+	}
+
+	private static int height(Node n) {
+		return n == null ? 0 : n.height;
+	}
+
+	private static Node build(Object[] array, int from, int to) {
+		if (from >= to)
+			return null;
+		final int mid = (from + to) >>> 1;
+		return new Node(build(array, from, mid), array[mid], build(array, mid + 1, to));
+	}
+
+	private static Node set(Node n, int index, Object e) {
+		final int leftSize = size(n.left);
+		if (index < leftSize)
+			return new Node(set(n.left, index, e), n.value, n.right);
+		if (index == leftSize)
+			return new Node(n.left, e, n.right);
+		return new Node(n.left, n.value, set(n.right, index - leftSize - 1, e));
+	}
+
+	private static Node insert(Node n, int index, Object e) {
+		if (n == null)
+			return new Node(null, e, null);
+		final int leftSize = size(n.left);
+		if (index <= leftSize)
+			return balance(insert(n.left, index, e), n.value, n.right);
+		return balance(n.left, n.value, insert(n.right, index - leftSize - 1, e));
+	}
+
+	private static Node remove(Node n, int index) {
+		final int leftSize = size(n.left);
+		if (index < leftSize)
+			return balance(remove(n.left, index), n.value, n.right);
+		if (index > leftSize)
+			return balance(n.left, n.value, remove(n.right, index - leftSize - 1));
+		if (n.left == null)
+			return n.right;
+		if (n.right == null)
+			return n.left;
+		// replace the node by the first node of its right subtree
+		Node first = n.right;
+		while (first.left != null)
+			first = first.left;
+		return balance(n.left, first.value, remove(n.right, 0));
+	}
+
+	/*
+	 * Returns the tree of the first k elements.
+	 */
+	private static Node take(Node n, int k) {
+		if (n == null || k <= 0)
+			return null;
+		if (k >= n.size)
+			return n;
+		final int leftSize = size(n.left);
+		if (k <= leftSize)
+			return take(n.left, k);
+		return join(n.left, n.value, take(n.right, k - leftSize - 1));
+	}
+
+	/*
+	 * Returns the tree without the first k elements.
+	 */
+	private static Node drop(Node n, int k) {
+		if (n == null || k >= n.size)
+			return null;
+		if (k <= 0)
+			return n;
+		final int leftSize = size(n.left);
+		if (k > leftSize)
+			return drop(n.right, k - leftSize - 1);
+		return join(drop(n.left, k), n.value, n.right);
+	}
+
+	/*
+	 * Joins two trees with a value in between; the heights
+	 * of the trees can differ by any amount.
+	 */
+	private static Node join(Node left, Object value, Node right) {
+		final int hl = height(left);
+		final int hr = height(right);
+		if (hl > hr + 1)
+			return balance(left.left, left.value, join(left.right, value, right));
+		if (hr > hl + 1)
+			return balance(join(left, value, right.left), right.value, right.right);
+		return new Node(left, value, right);
+	}
+
+	/*
+	 * Creates a node whose subtrees' heights differ by at most two,
+	 * rotating it if needed.
+	 */
+	private static Node balance(Node left, Object value, Node right) {
+		final int hl = height(left);
+		final int hr = height(right);
+		if (hl > hr + 1) {
+			if (height(left.left) >= height(left.right))
+				return new Node(left.left, left.value, new Node(left.right, value, right));
+			return new Node(
+					new Node(left.left, left.value, left.right.left),
+					left.right.value,
+					new Node(left.right.right, value, right));
+		}
+		if (hr > hl + 1) {
+			if (height(right.right) >= height(right.left))
+				return new Node(new Node(left, value, right.left), right.value, right.right);
+			return new Node(
+					new Node(left, value, right.left.left),
+					right.left.value,
+					new Node(right.left.right, right.value, right.right));
+		}
+		return new Node(left, value, right);
+	}
+
+	private static final class Node {
+		final Node left;
+		final Object value;
+		final Node right;
+		final int size;
+		final int height;
+
+		/** sum of hash(e_i) * 31^(size-1-i) over the elements below this node */
+		final int hash;
+
+		/** 31^size */
+		final int pow;
+
+		Node(Node left, Object value, Node right) {
+			this.left = left;
+			this.value = value;
+			this.right = right;
+			this.size = size(left) + 1 + size(right);
+			this.height = Math.max(height(left), height(right)) + 1;
+			final int leftHash = left == null ? 0 : left.hash;
+			final int leftPow = left == null ? 1 : left.pow;
+			final int rightHash = right == null ? 0 : right.hash;
+			final int rightPow = right == null ? 1 : right.pow;
+			this.hash = (leftHash * 31 + (value == null ? 0 : value.hashCode())) * rightPow + rightHash;
+			this.pow = leftPow * 31 * rightPow;
+		}
+	}
+}
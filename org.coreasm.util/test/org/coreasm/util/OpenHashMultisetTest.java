@@ -0,0 +1,230 @@
+package org.coreasm.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.coreasm.util.PersistentHashMapTest.Key;
+import org.junit.Test;
+
+/**
+ * Compares {@link OpenHashMultiset} with {@link HashMultiset}.
+ */
+public class OpenHashMultisetTest {
+
+	private static final Comparator<Object> ORDER = new Comparator<Object>() {
+		public int compare(Object x, Object y) {
+			if (x == null)
+				return (y == null) ? 0 : -1;
+			if (y == null)
+				return 1;
+			return x.toString().compareTo(y.toString());
+		}
+	};
+
+	private static List<Object> sorted(Iterable<?> elements) {
+		List<Object> result = new ArrayList<Object>();
+		for (Object e: elements)
+			result.add(e);
+		Collections.sort(result, ORDER);
+		return result;
+	}
+
+	private static void assertSameMultiset(HashMultiset<?> expected, OpenHashMultiset<?> actual) {
+		assertEquals(expected.size(), actual.size());
+		assertEquals(expected.isEmpty(), actual.isEmpty());
+		assertEquals(expected.toSet(), actual.toSet());
+		for (Object e: expected.toSet()) {
+			assertEquals(expected.multiplicity(e), actual.multiplicity(e));
+			assertTrue(actual.contains(e));
+		}
+		// the iterator of HashMultiset stops repeating null elements, so compare with its array
+		List<Object> members = sorted(Arrays.asList(expected.toArray()));
+		assertEquals(members, sorted(actual));
+		assertEquals(members, sorted(Arrays.asList(actual.toArray())));
+		assertEquals(members, sorted(Arrays.asList(actual.toArray(new Object[0]))));
+	}
+
+	@Test
+	public void randomOperations() {
+		Random random = new Random(1);
+		for (int round = 0; round < 500; round++) {
+			HashMultiset<Integer> expected = new HashMultiset<Integer>();
+			OpenHashMultiset<Integer> actual = new OpenHashMultiset<Integer>();
+			int n = random.nextInt(300);
+			for (int i = 0; i < n; i++) {
+				Integer e = (random.nextInt(10) == 0) ? null : random.nextInt(60);
+				int op = random.nextInt(20);
+				if (op < 12)
+					assertEquals(expected.add(e), actual.add(e));
+				else if (op < 19)
+					assertEquals(expected.remove(e), actual.remove(e));
+				else {
+					expected.clear();
+					actual.clear();
+				}
+				assertEquals(expected.size(), actual.size());
+				assertEquals(expected.multiplicity(e), actual.multiplicity(e));
+				assertEquals(expected.contains(e), actual.contains(e));
+			}
+			assertSameMultiset(expected, actual);
+		}
+	}
+
+	@Test
+	public void collidingElements() {
+		HashMultiset<Key> expected = new HashMultiset<Key>();
+		OpenHashMultiset<Key> actual = new OpenHashMultiset<Key>();
+		for (int i = 0; i < 500; i++) {
+			Key k = new Key(i % 120, 7);
+			expected.add(k);
+			actual.add(k);
+		}
+		assertSameMultiset(expected, actual);
+		for (int i = 0; i < 120; i += 3) {
+			Key k = new Key(i, 7);
+			while (expected.remove(k))
+				assertTrue(actual.remove(k));
+			assertFalse(actual.remove(k));
+		}
+		assertSameMultiset(expected, actual);
+	}
+
+	@Test
+	public void removedSlotsAreReused() {
+		// many additions and removals leave removal markers in the table
+		HashMultiset<Integer> expected = new HashMultiset<Integer>();
+		OpenHashMultiset<Integer> actual = new OpenHashMultiset<Integer>(4);
+		for (int i = 0; i < 10000; i++) {
+			expected.add(i);
+			actual.add(i);
+			if (i >= 5) {
+				expected.remove(i - 5);
+				actual.remove(i - 5);
+			}
+		}
+		assertSameMultiset(expected, actual);
+		assertEquals(5, actual.size());
+	}
+
+	@Test
+	public void iteratorReturnsEveryOccurrence() {
+		OpenHashMultiset<String> set = new OpenHashMultiset<String>("a", "b", "a", "c", "a", null, null);
+		assertEquals(7, set.size());
+		assertEquals(3, set.multiplicity("a"));
+		assertEquals(2, set.multiplicity(null));
+		assertEquals(Arrays.<Object>asList(null, null, "a", "a", "a", "b", "c"), sorted(set));
+	}
+
+	@Test
+	public void iteratorRemovesOneOccurrence() {
+		OpenHashMultiset<String> set = new OpenHashMultiset<String>("a", "a", "a", "b");
+		Iterator<String> it = set.iterator();
+		int returned = 0;
+		boolean removed = false;
+		while (it.hasNext()) {
+			String e = it.next();
+			returned++;
+			if (e.equals("a") && !removed) {
+				it.remove();
+				removed = true;
+			}
+		}
+		assertEquals(4, returned);
+		assertEquals(3, set.size());
+		assertEquals(2, set.multiplicity("a"));
+		assertEquals(1, set.multiplicity("b"));
+
+		// removing every element through the iterator empties the multiset
+		for (it = set.iterator(); it.hasNext(); ) {
+			it.next();
+			it.remove();
+		}
+		assertTrue(set.isEmpty());
+		assertFalse(set.contains("a"));
+		assertFalse(set.iterator().hasNext());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void iteratorRemoveBeforeNext() {
+		new OpenHashMultiset<String>("a").iterator().remove();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void iteratorRemoveTwice() {
+		Iterator<String> it = new OpenHashMultiset<String>("a", "a").iterator();
+		it.next();
+		it.remove();
+		it.remove();
+	}
+
+	@Test(expected = ConcurrentModificationException.class)
+	public void concurrentModification() {
+		OpenHashMultiset<Integer> set = new OpenHashMultiset<Integer>(1, 2, 3);
+		for (Integer e: set)
+			set.add(e + 10);
+	}
+
+	@Test
+	public void addAll() {
+		HashMultiset<Integer> expected = new HashMultiset<Integer>();
+		OpenHashMultiset<Integer> first = new OpenHashMultiset<Integer>();
+		OpenHashMultiset<Integer> second = new OpenHashMultiset<Integer>();
+		for (int i = 0; i < 200; i++) {
+			first.add(i % 50);
+			second.add(i % 70);
+			expected.add(i % 50);
+			expected.add(i % 70);
+		}
+
+		// from another open hash multiset
+		OpenHashMultiset<Integer> actual = new OpenHashMultiset<Integer>();
+		assertTrue(actual.addAll(first));
+		assertTrue(actual.addAll(second));
+		assertFalse(actual.addAll(new OpenHashMultiset<Integer>()));
+		assertSameMultiset(expected, actual);
+
+		// from other collections
+		actual = new OpenHashMultiset<Integer>();
+		actual.addAll(new ArrayList<Integer>(first));
+		actual.addAll(new HashMultiset<Integer>(second));
+		assertSameMultiset(expected, actual);
+
+		// from itself
+		actual.addAll(actual);
+		expected.addAll(new ArrayList<Integer>(expected));
+		assertSameMultiset(expected, actual);
+	}
+
+	@Test
+	public void removeAllAndRetainAll() {
+		HashMultiset<Integer> expected = new HashMultiset<Integer>();
+		OpenHashMultiset<Integer> actual = new OpenHashMultiset<Integer>();
+		for (int i = 0; i < 300; i++) {
+			expected.add(i % 40);
+			actual.add(i % 40);
+		}
+		List<Integer> removed = Arrays.asList(1, 2, 2, 3, 100);
+		assertEquals(expected.removeAll(removed), actual.removeAll(removed));
+		assertSameMultiset(expected, actual);
+
+		// HashMultiset.retainAll modifies its map while iterating over it
+		List<Integer> retained = Arrays.asList(2, 4, 6, 8);
+		HashMultiset<Integer> kept = new HashMultiset<Integer>();
+		for (Object e: expected.toArray())
+			if (retained.contains(e))
+				kept.add((Integer)e);
+		assertTrue(actual.retainAll(retained));
+		assertSameMultiset(kept, actual);
+		assertFalse(actual.retainAll(retained));
+		assertTrue(actual.containsAll(Arrays.asList(2, 4)));
+		assertFalse(actual.containsAll(Arrays.asList(2, 5)));
+	}
+}
@@ -0,0 +1,195 @@
+package org.coreasm.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Compares {@link PersistentHashMap} with {@link HashMap}.
+ */
+public class PersistentHashMapTest {
+
+	/*
+	 * A key with a chosen hash code, to make keys collide.
+	 */
+	static class Key {
+		final int id;
+		final int hash;
+
+		Key(int id, int hash) {
+			this.id = id;
+			this.hash = hash;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key && ((Key)o).id == id;
+		}
+
+		@Override
+		public String toString() {
+			return "k" + id;
+		}
+	}
+
+	private static void assertSameMap(Map<?, ?> expected, PersistentHashMap<?, ?> actual) {
+		assertEquals(expected.size(), actual.size());
+		assertEquals(expected.isEmpty(), actual.isEmpty());
+		assertEquals(expected, actual);
+		assertEquals(actual, expected);
+		assertEquals(expected.hashCode(), actual.hashCode());
+		assertEquals(expected.entrySet(), actual.entrySet());
+		int n = 0;
+		for (Map.Entry<?, ?> e: actual.entrySet()) {
+			assertEquals(expected.get(e.getKey()), e.getValue());
+			n++;
+		}
+		assertEquals(expected.size(), n);
+	}
+
+	@Test
+	public void emptyMap() {
+		PersistentHashMap<String, Integer> map = PersistentHashMap.empty();
+		assertSameMap(new HashMap<String, Integer>(), map);
+		assertNull(map.get("a"));
+		assertNull(map.get(null));
+		assertFalse(map.containsKey("a"));
+		assertSame(map, map.minus("a"));
+	}
+
+	@Test
+	public void plusAndMinus() {
+		Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+		PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+		for (int i = 0; i < 2000; i++) {
+			expected.put(i, i * 3);
+			map = map.plus(i, i * 3);
+		}
+		assertSameMap(expected, map);
+
+		// replacing values does not change the size
+		for (int i = 0; i < 2000; i += 7) {
+			expected.put(i, -i);
+			map = map.plus(i, -i);
+		}
+		assertSameMap(expected, map);
+
+		for (int i = 0; i < 2000; i += 3) {
+			expected.remove(i);
+			map = map.minus(i);
+		}
+		assertSameMap(expected, map);
+
+		for (int i = 0; i < 2000; i++) {
+			expected.remove(i);
+			map = map.minus(i);
+		}
+		assertSameMap(expected, map);
+		assertTrue(map.isEmpty());
+	}
+
+	@Test
+	public void versionsAreIndependent() {
+		PersistentHashMap<String, String> v1 = PersistentHashMap.<String, String>empty().plus("a", "1").plus("b", "2");
+		PersistentHashMap<String, String> v2 = v1.plus("c", "3");
+		PersistentHashMap<String, String> v3 = v2.minus("a").plus("b", "4");
+
+		assertEquals(2, v1.size());
+		assertEquals("2", v1.get("b"));
+		assertFalse(v1.containsKey("c"));
+		assertEquals(3, v2.size());
+		assertEquals("1", v2.get("a"));
+		assertEquals(2, v3.size());
+		assertNull(v3.get("a"));
+		assertEquals("4", v3.get("b"));
+	}
+
+	@Test
+	public void collidingKeys() {
+		Map<Key, Integer> expected = new HashMap<Key, Integer>();
+		PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+		List<Key> keys = new ArrayList<Key>();
+		for (int i = 0; i < 300; i++)
+			keys.add(new Key(i, i % 5));
+		for (Key k: keys) {
+			expected.put(k, k.id);
+			map = map.plus(k, k.id);
+		}
+		assertSameMap(expected, map);
+		for (Key k: keys)
+			assertEquals(Integer.valueOf(k.id), map.get(new Key(k.id, k.hash)));
+		assertNull(map.get(new Key(1000, 1)));
+
+		for (int i = 0; i < keys.size(); i += 2) {
+			expected.remove(keys.get(i));
+			map = map.minus(keys.get(i));
+		}
+		assertSameMap(expected, map);
+	}
+
+	@Test
+	public void plusAllAndMinusAll() {
+		Map<Integer, String> first = new HashMap<Integer, String>();
+		Map<Integer, String> second = new HashMap<Integer, String>();
+		for (int i = 0; i < 100; i++)
+			first.put(i, "a" + i);
+		for (int i = 50; i < 150; i++)
+			second.put(i, "b" + i);
+
+		PersistentHashMap<Integer, String> map = PersistentHashMap.from(first).plusAll(second);
+		Map<Integer, String> expected = new HashMap<Integer, String>(first);
+		expected.putAll(second);
+		assertSameMap(expected, map);
+
+		List<Integer> removed = new ArrayList<Integer>();
+		for (int i = 0; i < 150; i += 4)
+			removed.add(i);
+		map = map.minusAll(removed);
+		expected.keySet().removeAll(removed);
+		assertSameMap(expected, map);
+	}
+
+	@Test
+	public void randomOperations() {
+		Random random = new Random(42);
+		Map<Key, Integer> expected = new HashMap<Key, Integer>();
+		PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+		for (int i = 0; i < 20000; i++) {
+			int id = random.nextInt(500);
+			// a small range of hash codes makes some keys collide
+			Key k = new Key(id, id % 3 == 0 ? id % 64 : id);
+			if (random.nextInt(3) == 0) {
+				expected.remove(k);
+				map = map.minus(k);
+			}
+			else {
+				expected.put(k, i);
+				map = map.plus(k, i);
+			}
+			if (i % 1000 == 0)
+				assertSameMap(expected, map);
+		}
+		assertSameMap(expected, map);
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void nullKeysAreRejected() {
+		PersistentHashMap.<String, String>empty().plus(null, "a");
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void nullValuesAreRejected() {
+		PersistentHashMap.<String, String>empty().plus("a", null);
+	}
+}
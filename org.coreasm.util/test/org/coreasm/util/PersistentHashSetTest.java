@@ -0,0 +1,155 @@
+package org.coreasm.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.coreasm.util.PersistentHashMapTest.Key;
+import org.junit.Test;
+
+/**
+ * Compares {@link PersistentHashSet} with {@link HashSet}.
+ */
+public class PersistentHashSetTest {
+
+	private static void assertSameSet(Set<?> expected, PersistentHashSet<?> actual) {
+		assertEquals(expected.size(), actual.size());
+		assertEquals(expected.isEmpty(), actual.isEmpty());
+		assertEquals(expected, actual);
+		assertEquals(actual, expected);
+		assertEquals(expected.hashCode(), actual.hashCode());
+		Set<Object> members = new HashSet<Object>();
+		for (Object e: actual) {
+			assertTrue(expected.contains(e));
+			assertTrue(actual.contains(e));
+			assertTrue("duplicate member " + e, members.add(e));
+		}
+		assertEquals(expected.size(), members.size());
+	}
+
+	@Test
+	public void emptySet() {
+		PersistentHashSet<String> set = PersistentHashSet.empty();
+		assertSameSet(new HashSet<String>(), set);
+		assertFalse(set.contains("a"));
+		assertFalse(set.iterator().hasNext());
+	}
+
+	@Test
+	public void plusAndMinus() {
+		Set<Integer> expected = new HashSet<Integer>();
+		PersistentHashSet<Integer> set = PersistentHashSet.empty();
+		for (int i = -500; i < 1500; i++) {
+			expected.add(i);
+			set = set.plus(i);
+		}
+		assertSameSet(expected, set);
+
+		// adding members again changes nothing
+		for (int i = 0; i < 100; i++)
+			set = set.plus(i);
+		assertSameSet(expected, set);
+
+		for (int i = -500; i < 1500; i += 3) {
+			expected.remove(i);
+			set = set.minus(i);
+		}
+		assertSameSet(expected, set);
+		assertFalse(set.contains(-500));
+		assertTrue(set.contains(-499));
+
+		// removing non-members changes nothing
+		set = set.minus(5000).minus("a");
+		assertSameSet(expected, set);
+	}
+
+	@Test
+	public void versionsAreIndependent() {
+		PersistentHashSet<String> v1 = PersistentHashSet.from(Arrays.asList("a", "b"));
+		PersistentHashSet<String> v2 = v1.plus("c");
+		PersistentHashSet<String> v3 = v2.minus("a");
+
+		assertEquals(new HashSet<String>(Arrays.asList("a", "b")), v1);
+		assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c")), v2);
+		assertEquals(new HashSet<String>(Arrays.asList("b", "c")), v3);
+	}
+
+	@Test
+	public void collidingMembers() {
+		Set<Key> expected = new HashSet<Key>();
+		PersistentHashSet<Key> set = PersistentHashSet.empty();
+		List<Key> keys = new ArrayList<Key>();
+		for (int i = 0; i < 200; i++)
+			keys.add(new Key(i, i % 3));
+		for (Key k: keys) {
+			expected.add(k);
+			set = set.plus(k);
+		}
+		assertSameSet(expected, set);
+		for (int i = 1; i < keys.size(); i += 2) {
+			expected.remove(keys.get(i));
+			set = set.minus(new Key(i, i % 3));
+		}
+		assertSameSet(expected, set);
+	}
+
+	@Test
+	public void plusAllAndMinusAll() {
+		List<Integer> first = new ArrayList<Integer>();
+		List<Integer> second = new ArrayList<Integer>();
+		for (int i = 0; i < 100; i++)
+			first.add(i);
+		for (int i = 60; i < 200; i++)
+			second.add(i);
+
+		PersistentHashSet<Integer> set = PersistentHashSet.from(first).plusAll(second);
+		Set<Integer> expected = new HashSet<Integer>(first);
+		expected.addAll(second);
+		assertSameSet(expected, set);
+
+		set = set.minusAll(first);
+		expected.removeAll(first);
+		assertSameSet(expected, set);
+	}
+
+	@Test
+	public void equalSetsBuiltInDifferentOrders() {
+		PersistentHashSet<Integer> up = PersistentHashSet.empty();
+		PersistentHashSet<Integer> down = PersistentHashSet.empty();
+		for (int i = 0; i < 1000; i++) {
+			up = up.plus(i);
+			down = down.plus(999 - i);
+		}
+		assertEquals(up, down);
+		assertEquals(up.hashCode(), down.hashCode());
+		assertFalse(up.equals(down.minus(500)));
+		assertFalse(up.equals(down.minus(500).plus(1000)));
+	}
+
+	@Test
+	public void randomOperations() {
+		Random random = new Random(7);
+		Set<Key> expected = new HashSet<Key>();
+		PersistentHashSet<Key> set = PersistentHashSet.empty();
+		for (int i = 0; i < 20000; i++) {
+			int id = random.nextInt(400);
+			Key k = new Key(id, id % 4 == 0 ? id % 32 : id * 31);
+			if (random.nextInt(3) == 0) {
+				expected.remove(k);
+				set = set.minus(k);
+			}
+			else {
+				expected.add(k);
+				set = set.plus(k);
+			}
+			if (i % 1000 == 0)
+				assertSameSet(expected, set);
+		}
+		assertSameSet(expected, set);
+	}
+}
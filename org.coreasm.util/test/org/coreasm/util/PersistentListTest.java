@@ -0,0 +1,219 @@
+package org.coreasm.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Compares {@link PersistentList} with {@link ArrayList}.
+ */
+public class PersistentListTest {
+
+	private static void assertSameList(List<?> expected, PersistentList<?> actual) {
+		assertEquals(expected.size(), actual.size());
+		assertEquals(expected.isEmpty(), actual.isEmpty());
+		assertEquals(expected, actual);
+		assertEquals(actual, expected);
+		assertEquals(expected.hashCode(), actual.hashCode());
+		for (int i = 0; i < expected.size(); i++)
+			assertEquals(expected.get(i), actual.get(i));
+		Iterator<?> it = expected.iterator();
+		for (Object e: actual)
+			assertEquals(it.next(), e);
+		assertFalse(it.hasNext());
+	}
+
+	private static PersistentList<Integer> range(int from, int to) {
+		List<Integer> list = new ArrayList<Integer>();
+		for (int i = from; i < to; i++)
+			list.add(i);
+		return PersistentList.from(list);
+	}
+
+	@Test
+	public void emptyList() {
+		PersistentList<String> list = PersistentList.empty();
+		assertSameList(Collections.emptyList(), list);
+		assertEquals(1, list.hashCode());
+		assertEquals(-1, list.indexOf("a"));
+		assertSame(list, PersistentList.from(new ArrayList<String>()));
+	}
+
+	@Test
+	public void appendAndInsert() {
+		List<Integer> expected = new ArrayList<Integer>();
+		PersistentList<Integer> list = PersistentList.empty();
+		for (int i = 0; i < 1000; i++) {
+			expected.add(i);
+			list = list.plus(i);
+		}
+		assertSameList(expected, list);
+
+		// insert at the front, in the middle and at the end
+		for (int i = 0; i < 300; i++) {
+			int index = (i * 37) % (expected.size() + 1);
+			expected.add(index, -i);
+			list = list.plus(index, -i);
+		}
+		expected.add(0, 5000);
+		list = list.plus(0, 5000);
+		expected.add(expected.size(), 6000);
+		list = list.plus(list.size(), 6000);
+		assertSameList(expected, list);
+	}
+
+	@Test
+	public void replaceAndRemove() {
+		List<Integer> expected = new ArrayList<Integer>(range(0, 500));
+		PersistentList<Integer> list = range(0, 500);
+
+		for (int i = 0; i < 500; i += 7) {
+			expected.set(i, i * 10);
+			list = list.with(i, i * 10);
+		}
+		assertSameList(expected, list);
+
+		while (expected.size() > 10) {
+			int index = expected.size() / 3;
+			expected.remove(index);
+			list = list.minus(index);
+		}
+		assertSameList(expected, list);
+		expected.remove(0);
+		list = list.minus(0);
+		expected.remove(expected.size() - 1);
+		list = list.minus(list.size() - 1);
+		assertSameList(expected, list);
+	}
+
+	@Test
+	public void versionsAreIndependent() {
+		PersistentList<String> v1 = PersistentList.from(Arrays.asList("a", "b", "c"));
+		PersistentList<String> v2 = v1.with(1, "x");
+		PersistentList<String> v3 = v2.minus(0).plus("d");
+
+		assertEquals(Arrays.asList("a", "b", "c"), v1);
+		assertEquals(Arrays.asList("a", "x", "c"), v2);
+		assertEquals(Arrays.asList("x", "c", "d"), v3);
+	}
+
+	@Test
+	public void subList() {
+		List<Integer> expected = new ArrayList<Integer>(range(0, 300));
+		PersistentList<Integer> list = range(0, 300);
+		int[][] ranges = {{0, 0}, {0, 300}, {0, 1}, {299, 300}, {17, 18}, {5, 250}, {100, 200}, {150, 150}};
+		for (int[] r: ranges) {
+			PersistentList<Integer> sub = list.subList(r[0], r[1]);
+			assertSameList(expected.subList(r[0], r[1]), sub);
+			// sub lists are lists of their own
+			if (!sub.isEmpty())
+				assertSameList(expected.subList(r[0] + 1, r[1]), sub.minus(0));
+		}
+		assertSameList(expected.subList(10, 290).subList(20, 200), list.subList(10, 290).subList(20, 200));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void subListOutOfRange() {
+		range(0, 10).subList(5, 11);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void getOutOfRange() {
+		range(0, 10).get(10);
+	}
+
+	@Test
+	public void concat() {
+		int[] sizes = {0, 1, 2, 7, 64, 301};
+		for (int a: sizes)
+			for (int b: sizes) {
+				List<Integer> expected = new ArrayList<Integer>(range(0, a));
+				expected.addAll(range(1000, 1000 + b));
+				assertSameList(expected, range(0, a).concat(range(1000, 1000 + b)));
+				// with a list that is not persistent
+				assertSameList(expected, range(0, a).concat(new ArrayList<Integer>(range(1000, 1000 + b))));
+			}
+
+		// concatenating a list with itself many times
+		List<Integer> expected = new ArrayList<Integer>(range(0, 3));
+		PersistentList<Integer> list = range(0, 3);
+		for (int i = 0; i < 10; i++) {
+			expected.addAll(new ArrayList<Integer>(expected));
+			list = list.concat(list);
+		}
+		assertSameList(expected, list);
+	}
+
+	@Test
+	public void equalsAndHashCode() {
+		PersistentList<Integer> built = PersistentList.empty();
+		for (int i = 0; i < 200; i++)
+			built = built.plus(0, 199 - i);
+		assertEquals(range(0, 200), built);
+		assertEquals(range(0, 200).hashCode(), built.hashCode());
+		assertFalse(range(0, 200).equals(built.with(100, -1)));
+		assertFalse(range(0, 200).equals(range(0, 199)));
+		assertFalse(range(0, 2).equals(range(1, 3)));
+		// the same members in another order
+		assertFalse(PersistentList.from(Arrays.asList(1, 2)).equals(Arrays.asList(2, 1)));
+	}
+
+	@Test
+	public void nullElements() {
+		List<String> expected = new ArrayList<String>(Arrays.asList("a", null, "b"));
+		PersistentList<String> list = PersistentList.from(expected);
+		assertSameList(expected, list);
+		assertEquals(1, list.indexOf(null));
+		assertTrue(list.contains(null));
+		expected.add(null);
+		assertSameList(expected, list.plus(null));
+	}
+
+	@Test
+	public void randomOperations() {
+		Random random = new Random(11);
+		List<Integer> expected = new ArrayList<Integer>();
+		PersistentList<Integer> list = PersistentList.empty();
+		for (int i = 0; i < 20000; i++) {
+			int op = random.nextInt(6);
+			if (op <= 1 || expected.isEmpty()) {
+				int index = random.nextInt(expected.size() + 1);
+				expected.add(index, i);
+				list = list.plus(index, i);
+			}
+			else if (op == 2) {
+				int index = random.nextInt(expected.size());
+				expected.remove(index);
+				list = list.minus(index);
+			}
+			else if (op == 3) {
+				int index = random.nextInt(expected.size());
+				expected.set(index, -i);
+				list = list.with(index, -i);
+			}
+			else if (op == 4) {
+				int from = random.nextInt(expected.size());
+				int to = from + random.nextInt(expected.size() - from + 1);
+				List<Integer> part = new ArrayList<Integer>(expected.subList(from, to));
+				expected.addAll(part);
+				list = list.concat(list.subList(from, to));
+			}
+			else {
+				int from = random.nextInt(expected.size() / 4 + 1);
+				int to = expected.size() - random.nextInt(expected.size() / 4 + 1);
+				expected = new ArrayList<Integer>(expected.subList(from, Math.max(from, to)));
+				list = list.subList(from, Math.max(from, to));
+			}
+			if (i % 1000 == 0)
+				assertSameList(expected, list);
+		}
+		assertSameList(expected, list);
+	}
+}